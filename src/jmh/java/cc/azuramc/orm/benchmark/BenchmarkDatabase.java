@@ -0,0 +1,57 @@
+package cc.azuramc.orm.benchmark;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基准测试使用的内存 H2 数据库，每个实例使用独立的库和配置名称
+ * @author AzuraMC Team
+ */
+final class BenchmarkDatabase {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * 创建客户端并建好 users 表
+     * @param statementCacheSize 语句缓存大小，0 为禁用
+     * @param rows 预先插入的行数
+     * @return 已初始化的客户端
+     */
+    static AzuraOrmClient open(int statementCacheSize, int rows) throws SQLException {
+        String name = "bench" + SEQUENCE.incrementAndGet();
+        DatabaseConfig config = new DatabaseConfig("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "")
+                .setMaximumPoolSize(8)
+                .setMinimumIdle(8)
+                .setStatementCacheSize(statementCacheSize);
+        AzuraOrmClient client = new AzuraOrmClient(name).initialize(config);
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(64), email VARCHAR(128), age INT)");
+            if (rows > 0) {
+                statement.execute("INSERT INTO users (name, email, age) SELECT 'user' || X, 'user' || X || '@example.com', "
+                        + "MOD(X, 80) FROM SYSTEM_RANGE(1, " + rows + ")");
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+        return client;
+    }
+
+    static void truncate(AzuraOrmClient client) throws SQLException {
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE users");
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+    }
+}
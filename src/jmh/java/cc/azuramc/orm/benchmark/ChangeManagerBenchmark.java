@@ -0,0 +1,98 @@
+package cc.azuramc.orm.benchmark;
+
+import cc.azuramc.orm.manager.ChangeManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChangeManager.registerDirty 的吞吐，达到批量大小时在注册线程上刷新
+ * 更新函数只消费实体列表，测得的是管理器本身的开销（集合、锁和刷新拷贝）。
+ * @author AzuraMC Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChangeManagerBenchmark {
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private ChangeManager<Entity> manager;
+    private Entity[] entities;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        manager = new ChangeManager<>(blackhole::consume, batchSize, TimeUnit.MINUTES.toMillis(10));
+        entities = new Entity[10_000];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new Entity(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void registerDirty() {
+        register();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void registerDirtyContended() {
+        register();
+    }
+
+    private void register() {
+        Entity entity = entities[ThreadLocalRandom.current().nextInt(entities.length)];
+        entity.dirty = true;
+        manager.registerDirty(entity);
+    }
+
+    /** 只有脏标记的实体 */
+    static final class Entity implements ChangeManager.DirtyTracker {
+        private final int id;
+        volatile boolean dirty;
+
+        Entity(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        @Override
+        public void cleanDirty() {
+            dirty = false;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Entity && ((Entity) obj).id == id;
+        }
+    }
+}
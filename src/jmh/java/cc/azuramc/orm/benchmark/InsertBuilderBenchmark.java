@@ -0,0 +1,86 @@
+package cc.azuramc.orm.benchmark;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.builder.InsertBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐条插入和批量插入的单行开销，每次调用插入 {@link #ROWS} 行
+ * @author AzuraMC Team
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InsertBuilderBenchmark {
+
+    static final int ROWS = 100;
+
+    private AzuraOrmClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        client = BenchmarkDatabase.open(64, 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        BenchmarkDatabase.truncate(client);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int single() throws SQLException {
+        int rows = 0;
+        for (int i = 0; i < ROWS; i++) {
+            rows += client.insertInto("users")
+                    .values("name", "user" + i)
+                    .values("email", "user" + i + "@example.com")
+                    .values("age", i % 80)
+                    .executeUpdate();
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int batch() throws SQLException {
+        InsertBuilder insert = client.insertInto("users").columns("name", "email", "age");
+        for (int i = 0; i < ROWS; i++) {
+            insert.addBatch("user" + i, "user" + i + "@example.com", i % 80);
+        }
+        return insert.executeUpdate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int transaction() throws SQLException {
+        return client.transaction().setAutoBatch(true).execute(tx -> {
+            int rows = 0;
+            for (int i = 0; i < ROWS; i++) {
+                rows += tx.insertInto("users")
+                        .values("name", "user" + i)
+                        .values("email", "user" + i + "@example.com")
+                        .values("age", i % 80)
+                        .executeUpdate();
+            }
+            return rows;
+        });
+    }
+}
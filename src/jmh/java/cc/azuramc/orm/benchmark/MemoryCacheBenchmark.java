@@ -0,0 +1,73 @@
+package cc.azuramc.orm.benchmark;
+
+import cc.azuramc.orm.cache.MemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryCache 在多线程下的读写吞吐
+ * readOnly 为4个线程只读；mixed 为3个读线程和1个写线程共享同一个缓存。
+ * @author AzuraMC Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemoryCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keys;
+
+    private MemoryCache<Integer, String> cache;
+    private String[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new MemoryCache<>("benchmark");
+        values = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            values[i] = "value" + i;
+            cache.put(i, values[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<String> readOnly() {
+        return cache.get(ThreadLocalRandom.current().nextInt(keys));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<String> mixedGet() {
+        return cache.get(ThreadLocalRandom.current().nextInt(keys));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut() {
+        int key = ThreadLocalRandom.current().nextInt(keys);
+        cache.put(key, values[key], 1, TimeUnit.MINUTES);
+    }
+}
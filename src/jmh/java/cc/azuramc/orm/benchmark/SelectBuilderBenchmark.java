@@ -0,0 +1,79 @@
+package cc.azuramc.orm.benchmark;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.builder.SelectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SelectBuilder 生成SQL和创建语句的开销
+ * toSql 只测构建器本身；prepare 在同一个借出的连接上创建并关闭语句，对比开启和关闭语句缓存。
+ * @author AzuraMC Team
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SelectBuilderBenchmark {
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    private AzuraOrmClient client;
+    private Connection connection;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        client = BenchmarkDatabase.open(statementCacheSize, 1000);
+        connection = client.getConnection();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        client.close();
+    }
+
+    private SelectBuilder query(Connection connection) {
+        id = id % 1000 + 1;
+        return new SelectBuilder(connection)
+                .select("id", "name", "email")
+                .from("users")
+                .where("id", "=", id)
+                .where("age", ">", 18)
+                .orderBy("name")
+                .limit(10);
+    }
+
+    @Benchmark
+    public String toSql() {
+        return query(connection).toSql();
+    }
+
+    @Benchmark
+    public boolean prepare() throws SQLException {
+        try (PreparedStatement statement = query(connection).prepare()) {
+            return statement.isPoolable();
+        }
+    }
+
+    @Benchmark
+    public long fetchOne() throws SQLException {
+        id = id % 1000 + 1;
+        Long result = client.select("id").from("users").where("id", "=", id).fetchOne(rs -> rs.getLong(1));
+        return result != null ? result : -1;
+    }
+}
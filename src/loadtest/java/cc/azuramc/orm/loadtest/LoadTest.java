@@ -0,0 +1,311 @@
+package cc.azuramc.orm.loadtest;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.manager.ChangeManager;
+import cc.azuramc.orm.metrics.LatencyHistogram;
+import cc.azuramc.orm.metrics.PoolMetrics;
+import cc.azuramc.orm.util.DBUtil;
+import org.h2.tools.Server;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端压测：在嵌入式 H2 上以固定并发运行点查、范围扫描、upsert 和 ChangeManager 刷新的混合负载，
+ * 输出吞吐和 p50/p99/p999 延迟，并可以保存为基线或与之前版本的基线比较。
+ * <pre>
+ * gradle loadTest -Pargs="--threads=32 --duration=60 --mode=server"
+ * gradle loadTest -Pargs="--baseline=build/results/loadtest/loadtest-1.0.0-mem.properties"
+ * </pre>
+ * @author AzuraMC Team
+ */
+public final class LoadTest {
+
+    private static final String CONFIG_NAME = "loadtest";
+    /** upsert 中插入新行的比例 */
+    private static final double INSERT_RATIO = 0.1;
+    /** ChangeManager 跟踪的实体数 */
+    private static final int TRACKED_ENTITIES = 10_000;
+
+    private final LoadTestOptions options;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Operation[] schedule;
+    private final AtomicLong nextId;
+    /** upsert 实际执行的更新和插入次数，用于确认负载与 INSERT_RATIO 一致 */
+    private final LongAdder upsertUpdates = new LongAdder();
+    private final LongAdder upsertInserts = new LongAdder();
+    private AzuraOrmClient client;
+    private ChangeManager<Account> changeManager;
+    private Account[] accounts;
+    private volatile boolean running = true;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.nextId = new AtomicLong(options.rows);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+        // 按权重展开为100个槽位，工作线程随机选择槽位
+        List<Operation> slots = new ArrayList<>();
+        int total = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        options.mix.forEach((operation, weight) -> {
+            for (int i = 0; i < Math.round(weight * 100.0 / total); i++) {
+                slots.add(operation);
+            }
+        });
+        this.schedule = slots.toArray(new Operation[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("Load test: " + options);
+        Server server = null;
+        if (options.mode.equals("server")) {
+            server = Server.createTcpServer("-tcpPort", String.valueOf(options.serverPort), "-ifNotExists").start();
+            System.out.println("Started H2 TCP server on port " + server.getPort());
+        }
+        LoadTest test = new LoadTest(options);
+        LoadTestReport report;
+        try {
+            test.setUp(server);
+            report = test.run();
+        } finally {
+            test.tearDown();
+            if (server != null) {
+                server.stop();
+            }
+        }
+        report.print(System.out);
+        String output = options.output != null ? options.output : "build/results/loadtest/loadtest-"
+                + System.getProperty("azuraorm.version", "dev") + "-" + options.mode + ".properties";
+        report.save(output);
+        System.out.println("Saved results to " + output);
+        if (options.baseline != null && !report.compare(LoadTestReport.load(options.baseline), options.tolerance,
+                System.out)) {
+            System.exit(1);
+        }
+    }
+
+    private void setUp(Server server) throws SQLException {
+        String url = server != null
+                ? "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:loadtest;DB_CLOSE_DELAY=-1"
+                : "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1";
+        DatabaseConfig config = new DatabaseConfig(url, "sa", "")
+                .setMaximumPoolSize(options.poolSize)
+                .setMinimumIdle(options.poolSize)
+                .setStatementCacheSize(options.statementCacheSize);
+        client = new AzuraOrmClient(CONFIG_NAME).initialize(config);
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, owner VARCHAR(64), "
+                    + "balance BIGINT, visits INT)");
+            statement.execute("INSERT INTO accounts SELECT X, 'owner' || X, MOD(X * 7919, 100000), 0 "
+                    + "FROM SYSTEM_RANGE(1, " + options.rows + ")");
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+        accounts = new Account[Math.min(options.rows, TRACKED_ENTITIES)];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new Account(i + 1);
+        }
+        changeManager = client.createChangeManager(this::flushAccounts, options.flushBatchSize,
+                TimeUnit.MINUTES.toMillis(10));
+        System.out.println("Loaded " + options.rows + " rows");
+    }
+
+    private void tearDown() {
+        if (changeManager != null) {
+            try {
+                changeManager.shutdown();
+            } catch (RuntimeException e) {
+                System.err.println("Final flush failed: " + e.getMessage());
+            }
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private LoadTestReport run() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(options.threads);
+        for (int i = 0; i < options.threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work();
+                } finally {
+                    done.countDown();
+                }
+            }, "LoadTest-Worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        if (options.warmupSeconds > 0) {
+            System.out.println("Warming up for " + options.warmupSeconds + "s...");
+            TimeUnit.SECONDS.sleep(options.warmupSeconds);
+        }
+        Map<Operation, LatencyHistogram.Snapshot> warmLatencies = snapshotLatencies();
+        Map<Operation, Long> warmErrors = snapshotErrors();
+        PoolMetrics poolMetrics = DBUtil.getPoolMetrics(CONFIG_NAME);
+        LatencyHistogram.Snapshot warmAcquire = poolMetrics.getAcquireTime().snapshot();
+        long warmUpdates = upsertUpdates.sum();
+        long warmInserts = upsertInserts.sum();
+        long start = System.nanoTime();
+
+        System.out.println("Measuring for " + options.durationSeconds + "s...");
+        TimeUnit.SECONDS.sleep(options.durationSeconds);
+        Map<Operation, LatencyHistogram.Snapshot> endLatencies = snapshotLatencies();
+        Map<Operation, Long> endErrors = snapshotErrors();
+        LatencyHistogram.Snapshot endAcquire = poolMetrics.getAcquireTime().snapshot();
+        long updates = upsertUpdates.sum() - warmUpdates;
+        long inserts = upsertInserts.sum() - warmInserts;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        done.await(30, TimeUnit.SECONDS);
+        printUpsertMix(updates, inserts);
+
+        LoadTestReport report = new LoadTestReport(options.toString(), seconds, endAcquire.minus(warmAcquire));
+        for (Operation operation : Operation.values()) {
+            report.add(operation, endLatencies.get(operation).minus(warmLatencies.get(operation)),
+                    endErrors.get(operation) - warmErrors.get(operation));
+        }
+        return report;
+    }
+
+    private void work() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            long start = System.nanoTime();
+            try {
+                execute(operation, random);
+            } catch (Exception e) {
+                errors.get(operation).increment();
+            } finally {
+                latencies.get(operation).record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random) throws SQLException {
+        switch (operation) {
+            case POINT_READ:
+                client.select("id", "owner", "balance").from("accounts")
+                        .where("id", "=", random.nextLong(1, options.rows + 1))
+                        .fetchOne(rs -> rs.getLong(3));
+                break;
+            case RANGE_SCAN:
+                long from = random.nextLong(1, Math.max(2, options.rows - options.scanSize));
+                client.select("id", "owner", "balance").from("accounts")
+                        .where("id", ">=", from)
+                        .where("id", "<", from + options.scanSize)
+                        .orderBy("id")
+                        .fetchList(rs -> rs.getLong(3));
+                break;
+            case UPSERT:
+                long id = random.nextDouble() < INSERT_RATIO ? nextId.incrementAndGet()
+                        : random.nextLong(1, options.rows + 1);
+                long balance = random.nextLong(100_000);
+                // 依赖 UPDATE 的影响行数判断是否插入，显式关闭写入合并
+                boolean inserted = client.transaction().setAutoBatch(false).execute(tx -> {
+                    int updated = tx.update("accounts").set("balance", balance).where("id", "=", id).executeUpdate();
+                    if (updated == 0) {
+                        tx.insertInto("accounts").values("id", id).values("owner", "owner" + id)
+                                .values("balance", balance).values("visits", 0).executeUpdate();
+                        return true;
+                    }
+                    return false;
+                });
+                (inserted ? upsertInserts : upsertUpdates).increment();
+                break;
+            case CHANGE_FLUSH:
+                Account account = accounts[random.nextInt(accounts.length)];
+                account.visit();
+                changeManager.registerDirty(account);
+                break;
+            default:
+                throw new IllegalStateException("未知的操作: " + operation);
+        }
+    }
+
+    /**
+     * 输出 upsert 中更新和插入的实际次数，插入比例明显偏离 INSERT_RATIO 时说明负载与预期不符
+     */
+    private static void printUpsertMix(long updates, long inserts) {
+        long total = updates + inserts;
+        if (total == 0) {
+            return;
+        }
+        double ratio = (double) inserts / total;
+        System.out.printf("UPSERT mix: %d updates, %d inserts (%.1f%% inserts, expected %.1f%%)%n",
+                updates, inserts, ratio * 100, INSERT_RATIO * 100);
+        if (total >= 1000 && Math.abs(ratio - INSERT_RATIO) > 0.05) {
+            System.err.println("WARNING: UPSERT insert ratio differs from the configured mix, results are not comparable");
+        }
+    }
+
+    private void flushAccounts(List<Account> dirty) {
+        try {
+            client.inTransaction(tx -> {
+                for (Account account : dirty) {
+                    tx.update("accounts").set("visits", account.visits.get())
+                            .where("id", "=", account.id).executeUpdate();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("刷新失败", e);
+        }
+    }
+
+    private Map<Operation, LatencyHistogram.Snapshot> snapshotLatencies() {
+        Map<Operation, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Operation.class);
+        latencies.forEach((operation, histogram) -> snapshots.put(operation, histogram.snapshot()));
+        return snapshots;
+    }
+
+    private Map<Operation, Long> snapshotErrors() {
+        Map<Operation, Long> snapshots = new EnumMap<>(Operation.class);
+        errors.forEach((operation, count) -> snapshots.put(operation, count.sum()));
+        return snapshots;
+    }
+
+    /** ChangeManager 跟踪的账户访问计数 */
+    private static final class Account implements ChangeManager.DirtyTracker {
+        private final long id;
+        private final AtomicInteger visits = new AtomicInteger();
+        private volatile boolean dirty;
+
+        Account(long id) {
+            this.id = id;
+        }
+
+        void visit() {
+            visits.incrementAndGet();
+            dirty = true;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        @Override
+        public void cleanDirty() {
+            dirty = false;
+        }
+    }
+}
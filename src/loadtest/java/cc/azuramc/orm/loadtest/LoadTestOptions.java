@@ -0,0 +1,128 @@
+package cc.azuramc.orm.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 --name=value
+ * @author AzuraMC Team
+ */
+final class LoadTestOptions {
+
+    /** mem: 进程内的内存库；server: 本进程启动 H2 TCP 服务，经过网络协议访问 */
+    String mode = "mem";
+    int serverPort = 9123;
+    int threads = 16;
+    int poolSize = 16;
+    int statementCacheSize = 64;
+    int rows = 100_000;
+    int warmupSeconds = 5;
+    int durationSeconds = 30;
+    int scanSize = 50;
+    int flushBatchSize = 100;
+    /** 各操作的权重 */
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    String output;
+    String baseline;
+    /** 与基线相比允许的退化比例 */
+    double tolerance = 0.15;
+
+    LoadTestOptions() {
+        mix.put(Operation.POINT_READ, 60);
+        mix.put(Operation.RANGE_SCAN, 15);
+        mix.put(Operation.UPSERT, 20);
+        mix.put(Operation.CHANGE_FLUSH, 5);
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg + "，格式为 --name=value");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "mode":
+                    if (!value.equals("mem") && !value.equals("server")) {
+                        throw new IllegalArgumentException("mode 只能是 mem 或 server: " + value);
+                    }
+                    options.mode = value;
+                    break;
+                case "port":
+                    options.serverPort = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    options.threads = positive(name, value);
+                    break;
+                case "pool":
+                    options.poolSize = positive(name, value);
+                    break;
+                case "statementCache":
+                    options.statementCacheSize = Integer.parseInt(value);
+                    break;
+                case "rows":
+                    options.rows = positive(name, value);
+                    break;
+                case "warmup":
+                    options.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.durationSeconds = positive(name, value);
+                    break;
+                case "scanSize":
+                    options.scanSize = positive(name, value);
+                    break;
+                case "flushBatch":
+                    options.flushBatchSize = positive(name, value);
+                    break;
+                case "mix":
+                    options.parseMix(value);
+                    break;
+                case "output":
+                    options.output = value;
+                    break;
+                case "baseline":
+                    options.baseline = value;
+                    break;
+                case "tolerance":
+                    options.tolerance = Double.parseDouble(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + name);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * 解析操作权重，例如 read=60,scan=15,upsert=20,flush=5，未列出的操作权重为0
+     */
+    private void parseMix(String value) {
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix 格式为 read=60,scan=15,upsert=20,flush=5: " + value);
+            }
+            mix.put(Operation.fromKey(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix 的权重之和必须大于0: " + value);
+        }
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(name + " 必须大于0: " + value);
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return "mode=" + mode + ", threads=" + threads + ", pool=" + poolSize + ", statementCache=" + statementCacheSize
+                + ", rows=" + rows + ", warmup=" + warmupSeconds + "s, duration=" + durationSeconds + "s, mix=" + mix;
+    }
+}
@@ -0,0 +1,146 @@
+package cc.azuramc.orm.loadtest;
+
+import cc.azuramc.orm.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 压测结果：每种操作的吞吐、延迟分位数和错误数
+ * 以 properties 格式保存，作为基线时与新结果逐项比较吞吐和 p99。
+ * @author AzuraMC Team
+ */
+final class LoadTestReport {
+
+    private static final String TOTAL = "total";
+
+    private final Properties values = new Properties();
+    private final Map<Operation, LatencyHistogram.Snapshot> latencies = new EnumMap<>(Operation.class);
+    private final double seconds;
+
+    LoadTestReport(String options, double seconds, LatencyHistogram.Snapshot acquire) {
+        this.seconds = seconds;
+        values.setProperty("options", options);
+        values.setProperty("seconds", format(seconds));
+        values.setProperty("acquire.p99", format(acquire.getPercentile(99) / 1000.0));
+    }
+
+    private LoadTestReport(Properties loaded) {
+        this.seconds = Double.parseDouble(loaded.getProperty("seconds", "0"));
+        values.putAll(loaded);
+    }
+
+    void add(Operation operation, LatencyHistogram.Snapshot latency, long errorCount) {
+        latencies.put(operation, latency);
+        put(operation.getKey(), latency, errorCount);
+        long totalCount = 0;
+        long totalErrors = 0;
+        for (Operation each : latencies.keySet()) {
+            totalCount += latencies.get(each).getCount();
+            totalErrors += Long.parseLong(values.getProperty(each.getKey() + ".errors"));
+        }
+        values.setProperty(TOTAL + ".throughput", format(totalCount / seconds));
+        values.setProperty(TOTAL + ".errors", String.valueOf(totalErrors));
+    }
+
+    private void put(String key, LatencyHistogram.Snapshot latency, long errorCount) {
+        values.setProperty(key + ".count", String.valueOf(latency.getCount()));
+        values.setProperty(key + ".throughput", format(latency.getCount() / seconds));
+        values.setProperty(key + ".p50", format(latency.getPercentile(50) / 1000.0));
+        values.setProperty(key + ".p99", format(latency.getPercentile(99) / 1000.0));
+        values.setProperty(key + ".p999", format(latency.getPercentile(99.9) / 1000.0));
+        values.setProperty(key + ".errors", String.valueOf(errorCount));
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.printf("%-8s %12s %12s %10s %10s %10s %8s%n", "op", "count", "ops/s", "p50 us", "p99 us", "p999 us", "errors");
+        for (Operation operation : Operation.values()) {
+            String key = operation.getKey();
+            if (Long.parseLong(values.getProperty(key + ".count", "0")) == 0) {
+                continue;
+            }
+            out.printf("%-8s %12s %12s %10s %10s %10s %8s%n", key, values.getProperty(key + ".count"),
+                    values.getProperty(key + ".throughput"), values.getProperty(key + ".p50"),
+                    values.getProperty(key + ".p99"), values.getProperty(key + ".p999"),
+                    values.getProperty(key + ".errors"));
+        }
+        out.printf("%-8s %12s %12s %43s%n", TOTAL, "", values.getProperty(TOTAL + ".throughput"),
+                values.getProperty(TOTAL + ".errors"));
+        out.println("Connection acquire p99: " + values.getProperty("acquire.p99") + " us");
+    }
+
+    void save(String file) throws IOException {
+        Path path = Paths.get(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            values.store(writer, "AzuraORM load test");
+        }
+    }
+
+    static LoadTestReport load(String file) throws IOException {
+        Properties loaded = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            loaded.load(reader);
+        }
+        return new LoadTestReport(loaded);
+    }
+
+    /**
+     * 与基线比较，吞吐下降或 p99 上升超过容忍比例时视为退化
+     * 两次运行的参数不同时结果没有可比性，只输出警告。
+     * @param baseline 基线
+     * @param tolerance 容忍比例，例如 0.15
+     * @param out 输出
+     * @return 没有退化时返回true
+     */
+    boolean compare(LoadTestReport baseline, double tolerance, PrintStream out) {
+        out.println();
+        out.println("Comparing with baseline (tolerance " + Math.round(tolerance * 100) + "%):");
+        if (!baseline.values.getProperty("options", "").equals(values.getProperty("options"))) {
+            out.println("WARNING: baseline was recorded with different options: " + baseline.values.getProperty("options"));
+        }
+        boolean passed = true;
+        for (Operation operation : Operation.values()) {
+            String key = operation.getKey();
+            if (baseline.values.getProperty(key + ".throughput") == null
+                    || Long.parseLong(values.getProperty(key + ".count", "0")) == 0) {
+                continue;
+            }
+            passed &= check(out, key + ".throughput", baseline, tolerance, true);
+            passed &= check(out, key + ".p99", baseline, tolerance, false);
+        }
+        passed &= check(out, TOTAL + ".throughput", baseline, tolerance, true);
+        out.println(passed ? "No regressions." : "REGRESSION detected.");
+        return passed;
+    }
+
+    private boolean check(PrintStream out, String key, LoadTestReport baseline, double tolerance,
+                          boolean higherIsBetter) {
+        double before = Double.parseDouble(baseline.values.getProperty(key, "0"));
+        double after = Double.parseDouble(values.getProperty(key, "0"));
+        if (before <= 0) {
+            return true;
+        }
+        double change = (after - before) / before;
+        boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+        out.printf("  %-18s %12s -> %12s  %+6.1f%%%s%n", key, format(before), format(after), change * 100,
+                regressed ? "  REGRESSION" : "");
+        return !regressed;
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,35 @@
+package cc.azuramc.orm.loadtest;
+
+/**
+ * 压测中的操作类型
+ * @author AzuraMC Team
+ */
+enum Operation {
+    /** 按主键读取一行 */
+    POINT_READ("read"),
+    /** 按索引范围读取 scanSize 行 */
+    RANGE_SCAN("scan"),
+    /** 在事务中先更新，不存在时插入 */
+    UPSERT("upsert"),
+    /** 修改内存中的实体并交给 ChangeManager，达到批量大小时在当前线程刷新 */
+    CHANGE_FLUSH("flush");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("未知的操作: " + key + "，可选 read、scan、upsert、flush");
+    }
+}
@@ -1,17 +1,40 @@
 package cc.azuramc.orm;
 
+import cc.azuramc.orm.async.AsyncOrmClient;
+import cc.azuramc.orm.async.BatchLoadFunction;
+import cc.azuramc.orm.async.DataLoader;
+import cc.azuramc.orm.async.PinningMonitor;
+import cc.azuramc.orm.async.SqlSupplier;
+import cc.azuramc.orm.async.VirtualThreads;
 import cc.azuramc.orm.builder.*;
 import cc.azuramc.orm.cache.CacheManager;
+import cc.azuramc.orm.cache.IdentityMap;
 import cc.azuramc.orm.config.DatabaseConfig;
 import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.dialect.Dialect;
 import cc.azuramc.orm.exception.AzuraOrmException;
 import cc.azuramc.orm.exception.ConfigurationException;
+import cc.azuramc.orm.jdbc.ConnectionSource;
 import cc.azuramc.orm.manager.ChangeManager;
+import cc.azuramc.orm.mapping.RowMapper;
+import cc.azuramc.orm.mapping.RowMappers;
+import cc.azuramc.orm.metrics.NPlusOneDetector;
+import cc.azuramc.orm.metrics.QueryScope;
+import cc.azuramc.orm.transaction.TransactionCallback;
+import cc.azuramc.orm.transaction.TransactionTemplate;
 import cc.azuramc.orm.util.DBUtil;
 import cc.azuramc.orm.util.DatabaseInitializer;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 /**
  * AzuraORM SDK客户端，提供标准化的API接口
@@ -20,6 +43,12 @@ import java.util.function.Consumer;
 public class AzuraOrmClient {
     
     private final String configName;
+    private final ConnectionSource connectionSource;
+    private volatile AsyncOrmClient asyncClient;
+    /** 让异步客户端的并发数跟随连接池大小的监听器，关闭时注销 */
+    private IntConsumer asyncResizeListener;
+    private boolean virtualThreads = false;
+    private int asyncQueueCapacity = 0;
     private boolean initialized = false;
     
     /**
@@ -35,6 +64,7 @@ public class AzuraOrmClient {
      */
     public AzuraOrmClient(String configName) {
         this.configName = configName;
+        this.connectionSource = ConnectionSource.pooled(configName);
     }
     
     /**
@@ -55,6 +85,60 @@ public class AzuraOrmClient {
         return GlobalConfig.isDebugMode();
     }
     
+    /**
+     * 设置异步API是否使用虚拟线程 (需要 Java 21+，否则回退到平台线程)
+     * 开启后同时启动虚拟线程钉住监控，超过20毫秒的钉住会输出调用栈。必须在第一次调用 async() 之前设置。
+     * @param enabled 是否使用虚拟线程
+     * @return 当前客户端实例
+     */
+    public AzuraOrmClient setVirtualThreads(boolean enabled) {
+        if (asyncClient != null) {
+            throw new IllegalStateException("异步客户端已创建，必须在第一次调用 async() 之前设置虚拟线程模式。");
+        }
+        this.virtualThreads = enabled;
+        if (enabled && VirtualThreads.isSupported()) {
+            PinningMonitor.start(Duration.ofMillis(20));
+        }
+        return this;
+    }
+    
+    /**
+     * 异步API是否使用虚拟线程
+     * @return 是否使用虚拟线程
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads && VirtualThreads.isSupported();
+    }
+    
+    /**
+     * 设置异步API等待执行的任务上限，超过时 future 以 RejectedExecutionException 失败。必须在第一次调用 async() 之前设置。
+     * 默认平台线程模式为 {@link AsyncOrmClient#DEFAULT_QUEUE_CAPACITY}，虚拟线程模式为
+     * {@link AsyncOrmClient#DEFAULT_VIRTUAL_QUEUE_CAPACITY}；平台线程模式的队列按容量预先分配。
+     * @param capacity 任务上限，0 表示按线程模式使用默认值
+     * @return 当前客户端实例
+     */
+    public AzuraOrmClient setAsyncQueueCapacity(int capacity) {
+        if (asyncClient != null) {
+            throw new IllegalStateException("异步客户端已创建，必须在第一次调用 async() 之前设置任务上限。");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("任务上限不能为负数。");
+        }
+        this.asyncQueueCapacity = capacity;
+        return this;
+    }
+    
+    /**
+     * 获取异步API等待执行的任务上限
+     * @return 任务上限，按线程模式取默认值时为实际生效的默认值
+     */
+    public int getAsyncQueueCapacity() {
+        if (asyncQueueCapacity > 0) {
+            return asyncQueueCapacity;
+        }
+        return isVirtualThreads() ? AsyncOrmClient.DEFAULT_VIRTUAL_QUEUE_CAPACITY : AsyncOrmClient.DEFAULT_QUEUE_CAPACITY;
+    }
+    
     /**
      * 初始化客户端
      * @param config 数据库配置
@@ -99,6 +183,34 @@ public class AzuraOrmClient {
         }
     }
     
+    /**
+     * 并行初始化多个客户端，各自的连接池同时创建和预热
+     * 任一客户端初始化失败时抛出异常，其余已成功的客户端仍处于已初始化状态。
+     * @param clients 客户端到数据库配置的映射
+     */
+    public static void initializeAll(Map<AzuraOrmClient, DatabaseConfig> clients) {
+        Map<String, DatabaseConfig> configs = new LinkedHashMap<>();
+        clients.forEach((client, config) -> {
+            if (configs.put(client.configName, config) != null) {
+                throw new ConfigurationException("Duplicate config name: " + client.configName);
+            }
+        });
+        try {
+            DBUtil.registerConfigs(configs);
+        } catch (Exception e) {
+            throw new ConfigurationException("Failed to initialize AzuraORM clients", e);
+        } finally {
+            for (AzuraOrmClient client : clients.keySet()) {
+                if (DBUtil.hasConfig(client.configName)) {
+                    if ("default".equals(client.configName)) {
+                        DBUtil.setDefaultConfigName(client.configName);
+                    }
+                    client.initialized = true;
+                }
+            }
+        }
+    }
+    
     /**
      * 检查客户端是否已初始化
      * @return 是否已初始化
@@ -166,6 +278,226 @@ public class AzuraOrmClient {
         return new CreateTableBuilder(connection);
     }
     
+    /**
+     * 创建查询构建器，通过 fetchList / fetchOne / fetchLong 执行，执行期间才从连接池借出连接
+     * @param columns 要查询的列，为空时查询所有列
+     * @return 查询构建器
+     */
+    public SelectBuilder select(String... columns) {
+        ensureInitialized();
+        return new SelectBuilder(connectionSource).select(columns);
+    }
+    
+    /**
+     * 创建插入构建器，通过 executeUpdate 执行，结束后自动提交并归还连接
+     * @param tableName 表名
+     * @return 插入构建器
+     */
+    public InsertBuilder insertInto(String tableName) {
+        ensureInitialized();
+        return new InsertBuilder(connectionSource).insertInto(tableName);
+    }
+    
+    /**
+     * 创建大批量导入构建器，MySQL 使用 LOAD DATA LOCAL INFILE，PostgreSQL 使用 COPY FROM STDIN，其他数据库使用多行 INSERT
+     * @param tableName 表名
+     * @param columns 导入的列
+     * @return 批量导入构建器
+     */
+    public BulkLoader bulkLoad(String tableName, String... columns) {
+        ensureInitialized();
+        return new BulkLoader(connectionSource, tableName, columns);
+    }
+    
+    /**
+     * 创建更新构建器，通过 executeUpdate 执行，结束后自动提交并归还连接
+     * @param tableName 表名
+     * @return 更新构建器
+     */
+    public UpdateBuilder update(String tableName) {
+        ensureInitialized();
+        return new UpdateBuilder(connectionSource).update(tableName);
+    }
+    
+    /**
+     * 创建删除构建器，通过 executeUpdate 执行，结束后自动提交并归还连接
+     * @param tableName 表名
+     * @return 删除构建器
+     */
+    public DeleteBuilder deleteFrom(String tableName) {
+        ensureInitialized();
+        return new DeleteBuilder(connectionSource).deleteFrom(tableName);
+    }
+    
+    /**
+     * 在事务中执行操作，正常返回时提交，抛出异常时回滚，死锁或序列化失败时自动重试
+     * 操作内通过事务或本客户端创建的构建器都使用同一个事务连接，连续的相同SQL写入自动合并成批量。
+     * @param callback 操作
+     * @return 操作结果
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        ensureInitialized();
+        return transaction().execute(callback);
+    }
+    
+    /**
+     * 在当前线程打开一个查询作用域，开启 {@link NPlusOneDetector} 时检测作用域内的 N+1 查询
+     * 事务会自动作为一个作用域，请求或一次业务调用等不在事务中的工作单元可以显式包裹:
+     * <pre>
+     * try (QueryScope scope = client.queryScope("loadGuild")) {
+     *     ...
+     * }
+     * </pre>
+     * @param name 作用域名称，出现在警告中
+     * @return 作用域
+     */
+    public QueryScope queryScope(String name) {
+        return QueryScope.open(name);
+    }
+    
+    /**
+     * 在当前线程打开一个身份映射，作用域内按主键查询的同一行只映射一次，返回同一个对象
+     * 事务会自动打开一个身份映射；关闭时作用域内被修改的实体交给为其类型注册的变更管理器。
+     * <pre>
+     * try (IdentityMap map = client.identityMap()) {
+     *     Guild guild = client.find(Guild.class, "guilds", "id", guildId);
+     *     ...
+     * }
+     * </pre>
+     * @return 身份映射，已有外层映射时加入外层
+     */
+    public IdentityMap identityMap() {
+        return IdentityMap.open();
+    }
+    
+    /**
+     * 按主键查询一行并映射为对象，当前线程有身份映射时先从映射中查找
+     * @param type 实体类型
+     * @param table 表名
+     * @param idColumn 主键列名
+     * @param id 主键值
+     * @return 实体，不存在时返回null
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> T find(Class<T> type, String table, String idColumn, Object id) throws SQLException {
+        ensureInitialized();
+        SqlSupplier<T> loader = () -> select("*").from(table).whereEquals(idColumn, id).fetchOne(type);
+        IdentityMap identityMap = IdentityMap.current();
+        return identityMap != null ? identityMap.load(configName, table, type, id, loader) : loader.get();
+    }
+    
+    /**
+     * 创建可配置重试次数、隔离级别和自动批量的事务模板
+     * @return 事务模板
+     */
+    public TransactionTemplate transaction() {
+        ensureInitialized();
+        return new TransactionTemplate(configName);
+    }
+    
+    /**
+     * 获取异步客户端，JDBC操作在与连接池同样大小的数据库线程池上执行，返回 CompletableFuture
+     * @return 异步客户端，future 在数据库线程上完成
+     */
+    public AsyncOrmClient async() {
+        ensureInitialized();
+        AsyncOrmClient current = asyncClient;
+        if (current == null) {
+            synchronized (this) {
+                current = asyncClient;
+                if (current == null) {
+                    current = new AsyncOrmClient(configName, connectionSource,
+                            DBUtil.getMaximumPoolSize(configName), getAsyncQueueCapacity(), virtualThreads);
+                    // 连接池被调整或重新注册后，并发数跟随新的最大连接数
+                    asyncResizeListener = current::setConcurrency;
+                    DBUtil.addPoolResizeListener(configName, asyncResizeListener);
+                    asyncClient = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 获取在指定执行器上完成 future 的异步客户端，例如切回服务器主线程
+     * @param completionExecutor 完成执行器
+     * @return 异步客户端
+     */
+    public AsyncOrmClient async(Executor completionExecutor) {
+        return async().completeOn(completionExecutor);
+    }
+    
+    /**
+     * 创建按主键合并查询的批量加载器，一个窗口内的 load 调用合并成一条 {@code SELECT * FROM table WHERE keyColumn IN (...)}
+     * @param table 表名
+     * @param keyColumn 键列名
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param keyOf 从实体取出键，类型需要与 load 的键一致
+     * @return 批量加载器
+     */
+    public <K, V> DataLoader<K, V> dataLoader(String table, String keyColumn, Class<V> type, Function<V, K> keyOf) {
+        return dataLoader(table, keyColumn, RowMappers.forClass(type), keyOf);
+    }
+    
+    /**
+     * 创建按主键合并查询的批量加载器
+     * @param table 表名
+     * @param keyColumn 键列名
+     * @param mapper 行映射器
+     * @param keyOf 从实体取出键，类型需要与 load 的键一致
+     * @return 批量加载器
+     */
+    public <K, V> DataLoader<K, V> dataLoader(String table, String keyColumn, RowMapper<V> mapper,
+                                              Function<V, K> keyOf) {
+        return dataLoader(keys -> {
+            Map<K, V> values = new HashMap<>();
+            for (V value : select("*").from(table).whereIn(keyColumn, keys).fetchList(mapper)) {
+                values.put(keyOf.apply(value), value);
+            }
+            return values;
+        });
+    }
+    
+    /**
+     * 使用自定义的批量加载函数创建批量加载器，函数在数据库线程池上执行
+     * @param batchFunction 批量加载函数
+     * @return 批量加载器
+     */
+    public <K, V> DataLoader<K, V> dataLoader(BatchLoadFunction<K, V> batchFunction) {
+        return new DataLoader<>(async(), batchFunction);
+    }
+    
+    /**
+     * 获取当前客户端的连接来源，每次操作从连接池借出连接
+     * @return 连接来源
+     */
+    public ConnectionSource getConnectionSource() {
+        return connectionSource;
+    }
+    
+    /**
+     * 获取当前配置的数据库方言
+     * @return 方言
+     */
+    public Dialect getDialect() {
+        ensureInitialized();
+        return DBUtil.getDialect(configName);
+    }
+    
+    /**
+     * 创建注解处理器为 {@link cc.azuramc.orm.annotation.Table} 实体生成的 DAO
+     * <pre>
+     * PlayerDao players = client.dao(PlayerDao::new);
+     * </pre>
+     * @param factory 生成的 DAO 的构造器
+     * @return 使用当前客户端连接来源的 DAO
+     */
+    public <D> D dao(Function<ConnectionSource, D> factory) {
+        ensureInitialized();
+        return factory.apply(connectionSource);
+    }
+    
     /**
      * 创建变更管理器
      * @param updateFunction 批量更新函数
@@ -232,6 +564,17 @@ public class AzuraOrmClient {
     public void close() {
         try {
             if (initialized) {
+                // 先停止异步任务，再关闭连接池
+                if (asyncClient != null) {
+                    DBUtil.removePoolResizeListener(configName, asyncResizeListener);
+                    asyncResizeListener = null;
+                    try {
+                        asyncClient.closeAndWait(5000L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    asyncClient = null;
+                }
                 // 关闭连接池
                 DBUtil.closePool(configName);
                 // 关闭缓存
@@ -0,0 +1,20 @@
+package cc.azuramc.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定字段对应的列名，未标注的字段默认使用字段名作为列名
+ * @author AzuraMC Team
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Column {
+    /**
+     * 列名
+     * @return 列名
+     */
+    String value();
+}
@@ -0,0 +1,20 @@
+package cc.azuramc.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记 {@link Table} 实体的主键字段
+ * @author AzuraMC Team
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Id {
+    /**
+     * 主键是否由数据库生成（自增），为 true 时插入语句不包含主键列，插入后把生成的主键写回实体
+     * @return 是否由数据库生成
+     */
+    boolean generated() default false;
+}
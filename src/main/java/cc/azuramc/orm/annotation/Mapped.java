@@ -0,0 +1,20 @@
+package cc.azuramc.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个需要在编译期生成 RowMapper 的类
+ * 注解处理器会在同一个包下生成名为 {@code <类名>RowMapper} 的映射器，
+ * 嵌套类的生成类名为 {@code <外部类名>_<类名>RowMapper}。
+ * <p>
+ * 被标记的类必须提供非 private 的无参构造器；字段通过非 private 的字段直接赋值，
+ * private 字段则调用对应的 setter。
+ * @author AzuraMC Team
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Mapped {
+}
@@ -0,0 +1,23 @@
+package cc.azuramc.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个对应数据表的实体类
+ * 注解处理器除了生成 {@code <类名>RowMapper}，还会在同一个包下生成 {@code <类名>Dao}，
+ * 提供 findById、findAllByIds、insert、batchInsert、update 和 delete，SQL 在编译期生成为常量。
+ * 实体类必须有且只有一个标注了 {@link Id} 的字段，其他要求与 {@link Mapped} 相同。
+ * @author AzuraMC Team
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Table {
+    /**
+     * 表名
+     * @return 表名
+     */
+    String value();
+}
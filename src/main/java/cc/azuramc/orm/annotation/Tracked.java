@@ -0,0 +1,22 @@
+package cc.azuramc.orm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 为 {@link Mapped} 或 {@link Table} 实体生成自动的字段级脏数据跟踪
+ * 注解处理器在同一个包下生成子类 {@code <类名>Tracked}，覆盖每个映射字段的 setter，在调用父类 setter 后把该字段的位
+ * 或入一个 long 位集，并实现 {@link cc.azuramc.orm.manager.ChangeManager.FieldDirtyTracker}。
+ * 生成的映射器创建的就是该子类，查询得到的实体不需要手写 isDirty / cleanDirty；生成的 DAO 更新时只写入被修改的列。
+ * <p>
+ * 实体类不能是 final 的，最多64个映射字段；只有通过 setter 的修改会被记录，直接给字段赋值不会被记录。
+ * 位集是原子更新的，更新后只清除写入过的字段；实体的字段本身不是线程安全的，同一个字段在写入数据库的同时被另一个线程修改时，
+ * 新值可能被当作已写入而丢失，跨线程修改实体需要自行同步。
+ * @author AzuraMC Team
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Tracked {
+}
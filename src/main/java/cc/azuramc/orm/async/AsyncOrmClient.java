@@ -0,0 +1,328 @@
+package cc.azuramc.orm.async;
+
+import cc.azuramc.orm.builder.DeleteBuilder;
+import cc.azuramc.orm.builder.InsertBuilder;
+import cc.azuramc.orm.builder.SelectBuilder;
+import cc.azuramc.orm.builder.UpdateBuilder;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.util.ReadYourWritesContext;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步数据库客户端，JDBC 操作在有界的数据库线程池上执行，调用线程（例如服务器主线程）不会被阻塞
+ * 线程数与连接池大小一致，更多的线程只会阻塞在借用连接上；队列满时返回的 future 以 {@link RejectedExecutionException} 失败。
+ * 设置完成执行器后，future 会在该执行器上完成，回调可以直接操作主线程的状态。
+ * <p>
+ * 并发数可以通过 {@link #setConcurrency} 在运行时调整，客户端创建的异步客户端会随连接池大小的调整自动跟随。
+ * 虚拟线程模式 (Java 21+) 下每个任务运行在独立的虚拟线程上，并发执行数由信号量限制为连接池大小，
+ * 大量等待中的逻辑请求只占用阻塞在信号量上的虚拟线程而不占用平台线程，默认的等待上限因此大得多
+ * ({@link #DEFAULT_VIRTUAL_QUEUE_CAPACITY})。
+ * 示例:
+ * <pre>
+ * client.async(mainThreadExecutor)
+ *         .select("*").from("players").where("uuid", "=", uuid)
+ *         .fetchOneAsync(Player.class)
+ *         .thenAccept(player -&gt; ...);   // 在主线程上执行
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class AsyncOrmClient implements AutoCloseable {
+
+    /** 默认等待队列容量 */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    /** 虚拟线程模式下默认的等待任务上限，只用于防止任务无限堆积 */
+    public static final int DEFAULT_VIRTUAL_QUEUE_CAPACITY = 100_000;
+
+    private final ConnectionSource connectionSource;
+    private final ThreadPoolExecutor databaseExecutor;
+    private final Executor completionExecutor;
+    /** 虚拟线程模式下限制并发执行数，平台线程模式下为null */
+    private final ResizableSemaphore permits;
+    /** 当前的最大并发执行数，与 completeOn 创建的客户端共享 */
+    private final AtomicInteger concurrency;
+    private final int queueCapacity;
+    private final AtomicInteger outstanding;
+
+    /**
+     * @param name 线程名前缀
+     * @param connectionSource 连接来源
+     * @param threads 数据库线程数，通常等于连接池最大连接数
+     * @param queueCapacity 等待队列容量
+     */
+    public AsyncOrmClient(String name, ConnectionSource connectionSource, int threads, int queueCapacity) {
+        this(name, connectionSource, threads, queueCapacity, false);
+    }
+
+    /**
+     * @param name 线程名前缀
+     * @param connectionSource 连接来源
+     * @param concurrency 最大并发执行数，通常等于连接池最大连接数
+     * @param queueCapacity 等待执行的任务上限，平台线程模式下为队列容量，虚拟线程模式下为阻塞在信号量上的任务数
+     * @param virtualThreads 是否使用虚拟线程，当前JDK不支持时回退到平台线程
+     */
+    public AsyncOrmClient(String name, ConnectionSource connectionSource, int concurrency, int queueCapacity,
+                          boolean virtualThreads) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
+        }
+        if (concurrency <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("线程数和队列容量必须大于0。");
+        }
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            System.err.println("[AzuraORM] Virtual threads require Java 21+, falling back to platform threads for: " + name);
+            virtualThreads = false;
+        }
+        this.connectionSource = connectionSource;
+        this.completionExecutor = null;
+        this.concurrency = new AtomicInteger(concurrency);
+        this.queueCapacity = queueCapacity;
+        this.outstanding = new AtomicInteger();
+
+        if (virtualThreads) {
+            // 每个任务一个虚拟线程，空闲线程立即结束；并发由信号量控制
+            ThreadFactory factory = VirtualThreads.factory("AzuraORM-" + name + "-vt-");
+            this.databaseExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), factory);
+            this.permits = new ResizableSemaphore(concurrency);
+        } else {
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.databaseExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "AzuraORM-" + name + "-db-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.databaseExecutor.allowCoreThreadTimeOut(true);
+            this.permits = null;
+        }
+    }
+
+    private AsyncOrmClient(AsyncOrmClient parent, Executor completionExecutor) {
+        this.connectionSource = parent.connectionSource;
+        this.databaseExecutor = parent.databaseExecutor;
+        this.completionExecutor = completionExecutor;
+        this.permits = parent.permits;
+        this.concurrency = parent.concurrency;
+        this.queueCapacity = parent.queueCapacity;
+        this.outstanding = parent.outstanding;
+    }
+
+    /**
+     * 调整最大并发执行数，例如连接池被 {@link cc.azuramc.orm.util.PoolSizeController} 调整之后
+     * 平台线程模式调整线程池大小，虚拟线程模式调整信号量；缩小时正在执行的任务不受影响，完成后才让出名额。
+     * 等待任务上限同样随之改变（并发数 + 队列容量）。
+     * @param concurrency 新的最大并发执行数
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("并发数必须大于0。");
+        }
+        synchronized (this.concurrency) {
+            int previous = this.concurrency.getAndSet(concurrency);
+            if (previous == concurrency) {
+                return;
+            }
+            if (permits != null) {
+                if (concurrency > previous) {
+                    permits.release(concurrency - previous);
+                } else {
+                    permits.reduce(previous - concurrency);
+                }
+            } else if (concurrency > previous) {
+                // 先调大最大线程数，核心线程数不能超过最大线程数
+                databaseExecutor.setMaximumPoolSize(concurrency);
+                databaseExecutor.setCorePoolSize(concurrency);
+            } else {
+                databaseExecutor.setCorePoolSize(concurrency);
+                databaseExecutor.setMaximumPoolSize(concurrency);
+            }
+        }
+    }
+
+    /**
+     * 当前的最大并发执行数
+     * @return 并发数
+     */
+    public int getConcurrency() {
+        return concurrency.get();
+    }
+
+    /**
+     * 创建共享数据库线程池、但在指定执行器上完成 future 的客户端
+     * @param completionExecutor 完成执行器，例如服务器主线程的调度器；为null时在数据库线程上完成
+     * @return 异步客户端
+     */
+    public AsyncOrmClient completeOn(Executor completionExecutor) {
+        return new AsyncOrmClient(this, completionExecutor);
+    }
+
+    public SelectBuilder select(String... columns) {
+        return new SelectBuilder(connectionSource).async(this).select(columns);
+    }
+
+    public InsertBuilder insertInto(String tableName) {
+        return new InsertBuilder(connectionSource).async(this).insertInto(tableName);
+    }
+
+    public UpdateBuilder update(String tableName) {
+        return new UpdateBuilder(connectionSource).async(this).update(tableName);
+    }
+
+    public DeleteBuilder deleteFrom(String tableName) {
+        return new DeleteBuilder(connectionSource).async(this).deleteFrom(tableName);
+    }
+
+    /**
+     * 在数据库线程池上执行任意数据库操作
+     * 调用线程的读己之写窗口随任务带到数据库线程：刚写入过的线程提交的读取仍走主库，任务中的写入也会为调用线程开启窗口。
+     * @param task 数据库操作
+     * @param <T> 结果类型
+     * @return 操作结果，SQL异常会作为 future 的失败原因
+     */
+    public <T> CompletableFuture<T> supply(SqlSupplier<T> task) {
+        return supply(task, ReadYourWritesContext.capture());
+    }
+
+    /**
+     * 在数据库线程池上执行数据库操作，执行期间安装指定的读己之写上下文
+     * @param task 数据库操作
+     * @param context 读己之写上下文
+     * @param <T> 结果类型
+     * @return 操作结果
+     */
+    <T> CompletableFuture<T> supply(SqlSupplier<T> task, ReadYourWritesContext context) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long maxOutstanding = (long) concurrency.get() + queueCapacity;
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException("异步数据库任务队列已满。"));
+            return future;
+        }
+        try {
+            databaseExecutor.execute(context.wrap(() -> run(task, future)));
+        } catch (RejectedExecutionException e) {
+            outstanding.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> void run(SqlSupplier<T> task, CompletableFuture<T> future) {
+        try {
+            if (permits != null) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    complete(future, null, e);
+                    return;
+                }
+            }
+            T result;
+            try {
+                result = task.get();
+            } catch (Throwable e) {
+                complete(future, null, e);
+                return;
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+            complete(future, result, null);
+        } finally {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    private <T> void complete(CompletableFuture<T> future, T result, Throwable error) {
+        Runnable completion = () -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        };
+        if (completionExecutor == null) {
+            completion.run();
+            return;
+        }
+        try {
+            completionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            // 完成执行器已关闭（例如服务器正在停止），直接在数据库线程上完成
+            completion.run();
+        }
+    }
+
+    /**
+     * 当前排队等待执行的任务数
+     * @return 任务数
+     */
+    public int getQueuedTasks() {
+        return Math.max(0, outstanding.get() - getActiveTasks());
+    }
+
+    /**
+     * 当前正在执行的任务数
+     * @return 任务数
+     */
+    public int getActiveTasks() {
+        return permits != null ? concurrency.get() - permits.availablePermits() : databaseExecutor.getActiveCount();
+    }
+
+    /**
+     * 是否运行在虚拟线程上
+     * @return 是否为虚拟线程模式
+     */
+    public boolean isVirtualThreads() {
+        return permits != null;
+    }
+
+    public Executor getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * 停止接收新任务，已提交的任务会继续执行完毕
+     */
+    @Override
+    public void close() {
+        databaseExecutor.shutdown();
+    }
+
+    /**
+     * 停止接收新任务并等待已提交的任务完成
+     * @param timeoutMillis 最长等待时间（毫秒）
+     * @return 是否在超时前全部完成
+     * @throws InterruptedException 如果等待被中断
+     */
+    public boolean closeAndWait(long timeoutMillis) throws InterruptedException {
+        databaseExecutor.shutdown();
+        return databaseExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 可以减少名额的信号量，减少的名额从之后归还的名额中扣除，不影响正在执行的任务
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+}
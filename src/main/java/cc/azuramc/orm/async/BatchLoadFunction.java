@@ -0,0 +1,23 @@
+package cc.azuramc.orm.async;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按一批键加载数据的函数，供 {@link DataLoader} 使用，通常执行一条 {@code SELECT ... WHERE key IN (...)}
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author AzuraMC Team
+ */
+@FunctionalInterface
+public interface BatchLoadFunction<K, V> {
+
+    /**
+     * 加载一批键
+     * @param keys 去重后的键，数量不超过 {@link DataLoader#getMaxBatchSize()}
+     * @return 键到值的映射，不存在的键可以省略
+     * @throws SQLException 如果发生SQL异常
+     */
+    Map<K, V> load(List<K> keys) throws SQLException;
+}
@@ -0,0 +1,314 @@
+package cc.azuramc.orm.async;
+
+import cc.azuramc.orm.cache.Cache;
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.util.ReadYourWritesContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 合并按键加载的批量加载器：一个时间窗口内任意线程调用的 {@link #load} 合并成一次
+ * {@link BatchLoadFunction}（通常是一条 {@code SELECT ... WHERE key IN (...)}），在数据库线程池上执行后逐个完成每个键的 future。
+ * 窗口内和加载中的相同键共用一个 future；设置缓存后先查缓存，加载到的值写入缓存。
+ * 窗口为0时不自动发送，由调用方在每个 tick 结束时调用 {@link #dispatch()}。
+ * 示例:
+ * <pre>
+ * DataLoader&lt;Long, Player&gt; players = client.dataLoader("players", "id", Player.class, Player::getId)
+ *         .setWindow(Duration.ofMillis(2))
+ *         .setCache(client.getCacheManager().getCache("players"), Duration.ofSeconds(30));
+ * players.load(42L).thenAccept(player -&gt; ...);
+ * </pre>
+ * @param <K> 键类型，需要正确实现 equals/hashCode，且与加载结果中的键类型一致
+ * @param <V> 值类型
+ * @author AzuraMC Team
+ */
+public class DataLoader<K, V> {
+
+    /** 默认合并窗口 */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(1);
+    /** 默认单批最多键数，与 IN 列表的分块大小一致 */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    /** 所有加载器共用的窗口定时器，只负责提交批量，查询在数据库线程池上执行 */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "AzuraORM-DataLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AsyncOrmClient async;
+    private final BatchLoadFunction<K, V> batchFunction;
+    /** 显式锁不使用对象监视器，虚拟线程调用 load 时不会钉住载体线程 */
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    /** 当前窗口内各调用线程的读己之写状态，任一线程刚写入过时整批读取主库 */
+    private ReadYourWritesContext pendingContext = ReadYourWritesContext.empty();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    private volatile long windowNanos = DEFAULT_WINDOW.toNanos();
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile Cache<K, V> cache;
+    private volatile long cacheTtlMillis;
+
+    /**
+     * @param async 执行批量加载的异步客户端，future 在其完成执行器上完成
+     * @param batchFunction 批量加载函数
+     */
+    public DataLoader(AsyncOrmClient async, BatchLoadFunction<K, V> batchFunction) {
+        if (async == null || batchFunction == null) {
+            throw new IllegalArgumentException("异步客户端和批量加载函数不能为空。");
+        }
+        this.async = async;
+        this.batchFunction = batchFunction;
+    }
+
+    /**
+     * 设置合并窗口，第一个键进入时开始计时
+     * @param window 窗口，{@link Duration#ZERO} 表示只在调用 {@link #dispatch()} 或攒满一批时发送
+     * @return 当前加载器
+     */
+    public DataLoader<K, V> setWindow(Duration window) {
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("合并窗口不能为负数。");
+        }
+        this.windowNanos = window.toNanos();
+        return this;
+    }
+
+    public Duration getWindow() {
+        return Duration.ofNanos(windowNanos);
+    }
+
+    /**
+     * 设置单批最多键数，攒满后立即发送
+     * @param maxBatchSize 最多键数
+     * @return 当前加载器
+     */
+    public DataLoader<K, V> setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("单批最多键数必须大于0。");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 设置缓存，加载前先查缓存，加载到的值写入缓存
+     * @param cache 缓存，null 表示不使用缓存
+     * @param ttl 写入的过期时间，null 或 {@link Duration#ZERO} 表示使用缓存的默认过期时间
+     * @return 当前加载器
+     */
+    public DataLoader<K, V> setCache(Cache<K, V> cache, Duration ttl) {
+        this.cacheTtlMillis = ttl != null ? ttl.toMillis() : 0;
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * 加载一个键，与同一窗口内的其他键合并成一次查询
+     * @param key 键
+     * @return 值的 future，键不存在时以 null 完成，查询失败时以异常完成
+     */
+    public CompletableFuture<V> load(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("加载的键不能为空。");
+        }
+        requests.increment();
+        Cache<K, V> currentCache = cache;
+        if (currentCache != null) {
+            Optional<V> cached = currentCache.get(key);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        }
+        CompletableFuture<V> inFlight = loading.get(key);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        ReadYourWritesContext context = ReadYourWritesContext.capture();
+        Map<K, CompletableFuture<V>> full = null;
+        ReadYourWritesContext fullContext = null;
+        CompletableFuture<V> future;
+        lock.lock();
+        try {
+            pendingContext = pendingContext.merge(context);
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                fullContext = pendingContext;
+                full = takePending();
+            } else if (pending.size() == 1 && windowNanos > 0) {
+                TIMER.schedule(this::dispatch, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            submit(full, fullContext);
+        }
+        return future;
+    }
+
+    /**
+     * 加载多个键
+     * @param keys 键
+     * @return 键到值的映射的 future，不存在的键不在映射中
+     */
+    public CompletableFuture<Map<K, V>> loadMany(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.computeIfAbsent(key, this::load);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<K, V> result = new LinkedHashMap<>();
+            futures.forEach((key, future) -> {
+                V value = future.join();
+                if (value != null) {
+                    result.put(key, value);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * 立即发送当前窗口内等待的键，tick 驱动的调用方在每个 tick 结束时调用
+     */
+    public void dispatch() {
+        Map<K, CompletableFuture<V>> batch;
+        ReadYourWritesContext context;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            context = pendingContext;
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        submit(batch, context);
+    }
+
+    /**
+     * 把已知的值写入缓存，之后的加载直接返回
+     * @param key 键
+     * @param value 值
+     */
+    public void prime(K key, V value) {
+        Cache<K, V> currentCache = cache;
+        if (currentCache != null && value != null) {
+            putCache(currentCache, key, value);
+        }
+    }
+
+    /**
+     * 移除键的缓存，例如更新了该行之后
+     * @param key 键
+     */
+    public void clear(K key) {
+        Cache<K, V> currentCache = cache;
+        if (currentCache != null) {
+            currentCache.remove(key);
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 已发送的批量次数
+     * @return 次数
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * 批量加载过的键数（去重后）
+     * @return 键数
+     */
+    public long getLoadedKeyCount() {
+        return loadedKeys.sum();
+    }
+
+    /**
+     * 调用 {@link #load} 的次数，包括命中缓存和合并的调用
+     * @return 次数
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        pendingContext = ReadYourWritesContext.empty();
+        // 在锁内登记为加载中，发送前到达的相同键不会再进入下一批
+        loading.putAll(batch);
+        return batch;
+    }
+
+    private void submit(Map<K, CompletableFuture<V>> batch, ReadYourWritesContext context) {
+        List<K> keys = new ArrayList<>(batch.keySet());
+        batches.increment();
+        loadedKeys.add(keys.size());
+        GlobalConfig.debugLog("LOADER", "Dispatching batch of " + keys.size() + " keys");
+        async.supply(() -> batchFunction.load(keys), context).whenComplete((values, error) -> {
+            Cache<K, V> currentCache = cache;
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                K key = entry.getKey();
+                CompletableFuture<V> future = entry.getValue();
+                loading.remove(key, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                    continue;
+                }
+                V value = values != null ? values.get(key) : null;
+                if (value != null && currentCache != null) {
+                    putCache(currentCache, key, value);
+                }
+                future.complete(value);
+            }
+        });
+    }
+
+    private void putCache(Cache<K, V> currentCache, K key, V value) {
+        long ttl = cacheTtlMillis;
+        if (ttl > 0) {
+            currentCache.put(key, value, ttl, TimeUnit.MILLISECONDS);
+        } else {
+            currentCache.put(key, value);
+        }
+    }
+}
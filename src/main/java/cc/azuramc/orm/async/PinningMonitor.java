@@ -0,0 +1,103 @@
+package cc.azuramc.orm.async;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 虚拟线程钉住 (pinning) 监控
+ * 通过 JFR 事件流订阅 jdk.VirtualThreadPinned：虚拟线程在 synchronized 块或本地方法中阻塞时无法让出载体线程，
+ * 大量钉住会让虚拟线程退化成平台线程。每次事件输出阻塞时长和调用栈，便于定位问题代码。
+ * @author AzuraMC Team
+ */
+public final class PinningMonitor {
+
+    private static final String EVENT_NAME = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+
+    private static final AtomicLong pinnedCount = new AtomicLong();
+    private static AutoCloseable stream;
+
+    private PinningMonitor() {
+    }
+
+    /**
+     * 开始监控，重复调用无效
+     * @param threshold 只报告超过该时长的钉住
+     * @return 是否成功开始（JDK 不支持 JFR 事件流或虚拟线程时返回 false）
+     */
+    public static synchronized boolean start(Duration threshold) {
+        if (stream != null) {
+            return true;
+        }
+        if (!VirtualThreads.isSupported()) {
+            return false;
+        }
+        try {
+            stream = JfrStream.open(threshold);
+            return true;
+        } catch (Throwable e) {
+            // 没有 jdk.jfr 模块或JFR被禁用
+            System.err.println("[AzuraORM] Virtual thread pinning detection unavailable: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * 停止监控
+     */
+    public static synchronized void stop() {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                // 忽略关闭异常
+            }
+            stream = null;
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return stream != null;
+    }
+
+    /**
+     * 监控开始以来报告的钉住次数
+     * @return 钉住次数
+     */
+    public static long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    /** 把 jdk.jfr 的引用隔离在单独的类中，缺少该模块时只有这里加载失败 */
+    private static final class JfrStream {
+        static AutoCloseable open(Duration threshold) {
+            jdk.jfr.consumer.RecordingStream recording = new jdk.jfr.consumer.RecordingStream();
+            recording.enable(EVENT_NAME).withThreshold(threshold).withStackTrace();
+            recording.onEvent(EVENT_NAME, event -> {
+                pinnedCount.incrementAndGet();
+                StringBuilder message = new StringBuilder("[AzuraORM] Virtual thread pinned for ")
+                        .append(event.getDuration().toMillis()).append(" ms");
+                if (event.getThread() != null) {
+                    message.append(" on ").append(event.getThread().getJavaName());
+                }
+                if (event.getStackTrace() != null) {
+                    List<jdk.jfr.consumer.RecordedFrame> frames = event.getStackTrace().getFrames();
+                    for (int i = 0; i < Math.min(MAX_FRAMES, frames.size()); i++) {
+                        jdk.jfr.consumer.RecordedFrame frame = frames.get(i);
+                        message.append("\n    at ").append(frame.getMethod().getType().getName())
+                                .append('.').append(frame.getMethod().getName())
+                                .append(" line ").append(frame.getLineNumber());
+                    }
+                }
+                System.err.println(message);
+            });
+            recording.setReuse(true);
+            // startAsync 创建的线程不是守护线程，会阻止 JVM 退出，这里改用自己的守护线程执行阻塞的 start
+            Thread thread = new Thread(recording::start, "AzuraORM-PinningMonitor");
+            thread.setDaemon(true);
+            thread.start();
+            return recording;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package cc.azuramc.orm.async;
+
+import java.sql.SQLException;
+
+/**
+ * 可以抛出 {@link SQLException} 的数据库操作
+ * @param <T> 结果类型
+ * @author AzuraMC Team
+ */
+@FunctionalInterface
+public interface SqlSupplier<T> {
+
+    /**
+     * 执行数据库操作
+     * @return 结果
+     * @throws SQLException 如果发生SQL异常
+     */
+    T get() throws SQLException;
+}
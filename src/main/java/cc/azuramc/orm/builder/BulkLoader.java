@@ -0,0 +1,249 @@
+package cc.azuramc.orm.builder;
+
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.dialect.BulkLoadStrategy;
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 大批量导入构建器，使用数据库原生的导入协议流式发送数据
+ * MySQL 使用 {@code LOAD DATA LOCAL INFILE}，PostgreSQL 使用 {@code COPY ... FROM STDIN}：
+ * 行在驱动读取时才编码为制表符分隔文本，不在内存中生成完整文件；其他数据库退化为多行 {@code INSERT ... VALUES (...), (...)}。
+ * 整个导入在一次借出的连接上执行，结束后提交，失败时回滚；在事务中时加入事务。
+ * MySQL 需要开启 {@link cc.azuramc.orm.config.DatabaseConfig#setLocalInfileEnabled}，与唯一键冲突的行会被跳过。
+ * 示例:
+ * <pre>
+ * long rows = client.bulkLoad("players", "uuid", "name", "coins")
+ *         .load(players.stream().map(p -&gt; new Object[]{p.getUuid(), p.getName(), p.getCoins()}).iterator());
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class BulkLoader {
+
+    /** 多行 INSERT 每条语句的默认最多行数 */
+    public static final int DEFAULT_ROWS_PER_STATEMENT = 1000;
+
+    private final ConnectionSource connectionSource;
+    private final String tableName;
+    private final List<String> columns;
+    private BulkLoadStrategy strategy;
+    private int rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+
+    /**
+     * @param connectionSource 连接来源
+     * @param tableName 表名
+     * @param columns 导入的列，每行的值按该顺序排列
+     */
+    public BulkLoader(ConnectionSource connectionSource, String tableName, String... columns) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
+        }
+        if (connectionSource instanceof ShardedConnectionSource) {
+            throw new IllegalArgumentException("批量导入不支持分片连接来源，请对每个分片分别导入。");
+        }
+        if (tableName == null || tableName.trim().isEmpty()) {
+            throw new IllegalArgumentException("表名不能为空。");
+        }
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("列名不能为空。");
+        }
+        this.connectionSource = connectionSource;
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns)));
+    }
+
+    /**
+     * 指定导入方式，默认由数据库方言决定
+     * @param strategy 导入方式，null 表示使用方言的方式
+     * @return BulkLoader实例
+     */
+    public BulkLoader strategy(BulkLoadStrategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * 设置多行 INSERT 每条语句的最多行数，实际行数还受方言的参数个数上限限制
+     * @param rowsPerStatement 行数
+     * @return BulkLoader实例
+     */
+    public BulkLoader rowsPerStatement(int rowsPerStatement) {
+        if (rowsPerStatement <= 0) {
+            throw new IllegalArgumentException("每条语句的行数必须大于0。");
+        }
+        this.rowsPerStatement = rowsPerStatement;
+        return this;
+    }
+
+    /**
+     * 导入所有行
+     * @param rows 行，每行的值按列顺序排列
+     * @return 导入的行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    public long load(Iterable<Object[]> rows) throws SQLException {
+        return load(rows.iterator());
+    }
+
+    /**
+     * 导入所有行，行在发送时才从迭代器中读取
+     * @param rows 行，每行的值按列顺序排列
+     * @return 导入的行数，原生导入时为数据库报告的行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    public long load(Iterator<Object[]> rows) throws SQLException {
+        if (rows == null) {
+            throw new IllegalArgumentException("导入的行不能为空。");
+        }
+        return Terminal.run(this.connectionSource, connection -> {
+            Dialect dialect = Dialects.resolve(this.connectionSource, connection);
+            BulkLoadStrategy current = this.strategy != null ? this.strategy : dialect.getBulkLoadStrategy();
+            long start = System.nanoTime();
+            long loaded;
+            switch (current) {
+                case LOAD_DATA_LOCAL_INFILE:
+                    loaded = loadDataLocalInfile(connection, rows);
+                    break;
+                case COPY_FROM_STDIN:
+                    loaded = copyFromStdin(connection, rows);
+                    break;
+                default:
+                    loaded = multiRowInsert(connection, dialect, rows);
+            }
+            GlobalConfig.debugLog("BULK", "Loaded " + loaded + " rows into " + this.tableName + " via " + current
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return loaded;
+        });
+    }
+
+    private long loadDataLocalInfile(Connection connection, Iterator<Object[]> rows) throws SQLException {
+        String sql = "LOAD DATA LOCAL INFILE 'azuraorm-bulk.tsv' INTO TABLE " + this.tableName
+                + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' ("
+                + String.join(", ", this.columns) + ")";
+        InputStream in = new DelimitedRowStream(rows, this.columns.size(), false);
+        // 在事务连接上创建语句会先发送未发送的批量写入
+        try (Statement statement = connection.createStatement()) {
+            Class<?> mysqlStatement = driverClass("com.mysql.cj.jdbc.JdbcStatement", "MySQL");
+            invoke(mysqlStatement, "setLocalInfileInputStream", new Class<?>[]{InputStream.class},
+                    statement.unwrap(mysqlStatement), in);
+            return statement.executeLargeUpdate(sql);
+        }
+    }
+
+    private long copyFromStdin(Connection connection, Iterator<Object[]> rows) throws SQLException {
+        String sql = "COPY " + this.tableName + " (" + String.join(", ", this.columns) + ") FROM STDIN";
+        InputStream in = new DelimitedRowStream(rows, this.columns.size(), true);
+        // COPY 不经过语句，先创建一个语句让事务连接发送未发送的批量写入
+        connection.createStatement().close();
+        Class<?> pgConnection = driverClass("org.postgresql.PGConnection", "PostgreSQL");
+        Object copyManager = invoke(pgConnection, "getCopyAPI", new Class<?>[0], connection.unwrap(pgConnection));
+        Object copied = invoke(copyManager.getClass(), "copyIn", new Class<?>[]{String.class, InputStream.class},
+                copyManager, sql, in);
+        return (Long) copied;
+    }
+
+    private long multiRowInsert(Connection connection, Dialect dialect, Iterator<Object[]> rows) throws SQLException {
+        int columnCount = this.columns.size();
+        int chunkRows = Math.max(1, Math.min(this.rowsPerStatement, dialect.getMaxParameters() / columnCount));
+        List<Object[]> chunk = new ArrayList<>(chunkRows);
+        PreparedStatement fullChunk = null;
+        long total = 0;
+        try {
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                if (row == null || row.length != columnCount) {
+                    throw new IllegalArgumentException("每行的值数量必须与列数相同。");
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkRows) {
+                    if (fullChunk == null) {
+                        fullChunk = prepareInsert(connection, chunkRows);
+                    }
+                    total += executeChunk(fullChunk, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                try (PreparedStatement lastChunk = prepareInsert(connection, chunk.size())) {
+                    total += executeChunk(lastChunk, chunk);
+                }
+            }
+        } finally {
+            if (fullChunk != null) {
+                fullChunk.close();
+            }
+        }
+        return total;
+    }
+
+    private PreparedStatement prepareInsert(Connection connection, int rowCount) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(this.tableName)
+                .append(" (").append(String.join(", ", this.columns)).append(") VALUES ");
+        String placeholders = "(" + String.join(", ", Collections.nCopies(this.columns.size(), "?")) + ")";
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(placeholders);
+        }
+        // 事务的写入合并只接管单参数的重载，这里要立即执行并拿到真实的影响行数
+        String finalSql = sql.toString();
+        return StatementMetrics.wrap(connection.prepareStatement(finalSql, Statement.NO_GENERATED_KEYS), finalSql);
+    }
+
+    private static int executeChunk(PreparedStatement pstmt, List<Object[]> chunk) throws SQLException {
+        int index = 1;
+        for (Object[] row : chunk) {
+            for (Object value : row) {
+                pstmt.setObject(index++, value);
+            }
+        }
+        return pstmt.executeUpdate();
+    }
+
+    private static Class<?> driverClass(String className, String database) throws SQLException {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("Bulk load via native protocol requires the " + database + " JDBC driver", e);
+        }
+    }
+
+    /**
+     * 通过反射调用驱动的扩展接口，驱动不是编译期依赖
+     */
+    private static Object invoke(Class<?> type, String name, Class<?>[] parameterTypes, Object target, Object... args)
+            throws SQLException {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Bulk load failed: " + cause, cause);
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("Unsupported JDBC driver for bulk load: " + type.getName() + "." + name, e);
+        }
+    }
+}
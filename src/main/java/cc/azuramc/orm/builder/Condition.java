@@ -0,0 +1,377 @@
+package cc.azuramc.orm.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不可变的WHERE条件树，所有构建器共用
+ * SQL片段和参数在创建时预先计算好，之后可以在多个查询、多个线程之间复用和缓存。
+ * 示例:
+ * <pre>
+ * Condition active = Condition.and(
+ *         Condition.eq("status", "active"),
+ *         Condition.or(Condition.of("level", "&gt;=", 10), Condition.in("id", vipIds)));
+ * new SelectBuilder(conn).select("*").from("players").where(active).prepare();
+ * // SELECT * FROM players WHERE status = ? AND (level &gt;= ? OR id IN (?, ?, ?, ?))
+ * </pre>
+ * @author AzuraMC Team
+ */
+public abstract class Condition {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final String sql;
+    private final Object[] parameters;
+
+    Condition(String sql, Object[] parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * 创建比较条件，例如 {@code column > ?}
+     * @param column 列名
+     * @param operator 操作符，例如 "=", ">", "<", "LIKE" 等
+     * @param value 值
+     * @return 条件
+     */
+    public static Condition of(String column, String operator, Object value) {
+        return new Comparison(column, operator, value);
+    }
+
+    /**
+     * 创建相等条件
+     * @param column 列名
+     * @param value 值
+     * @return 条件
+     */
+    public static Condition eq(String column, Object value) {
+        return new Comparison(column, "=", value);
+    }
+
+    /**
+     * 创建 IN 条件，参数个数会补齐到 2 的幂，超长列表自动分块
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为假
+     * @return 条件
+     */
+    public static Condition in(String column, Collection<?> values) {
+        return new In(column, false, InList.copyOf(values));
+    }
+
+    /**
+     * 创建 NOT IN 条件
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为真
+     * @return 条件
+     */
+    public static Condition notIn(String column, Collection<?> values) {
+        return new In(column, true, InList.copyOf(values));
+    }
+
+    /**
+     * 创建 IS NULL 条件
+     * @param column 列名
+     * @return 条件
+     */
+    public static Condition isNull(String column) {
+        return new Fragment(requireColumn(column) + " IS NULL", NO_PARAMETERS);
+    }
+
+    /**
+     * 创建 IS NOT NULL 条件
+     * @param column 列名
+     * @return 条件
+     */
+    public static Condition isNotNull(String column) {
+        return new Fragment(requireColumn(column) + " IS NOT NULL", NO_PARAMETERS);
+    }
+
+    /**
+     * 使用原始SQL片段创建条件，片段会被括号包裹
+     * @param sql 含有 ? 占位符的SQL片段
+     * @param parameters 占位符对应的参数
+     * @return 条件
+     */
+    public static Condition raw(String sql, Object... parameters) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("SQL片段不能为空。");
+        }
+        return new Fragment("(" + sql + ")", parameters != null ? parameters.clone() : NO_PARAMETERS);
+    }
+
+    /**
+     * 对条件取反
+     * @param condition 条件
+     * @return NOT (条件)
+     */
+    public static Condition not(Condition condition) {
+        if (condition == null) {
+            throw new IllegalArgumentException("条件不能为空。");
+        }
+        return new Fragment("NOT (" + condition.getSql() + ")", condition.parameters);
+    }
+
+    /**
+     * 用 AND 组合多个条件
+     * @param conditions 条件，为空时结果恒为真
+     * @return 条件
+     */
+    public static Condition and(Condition... conditions) {
+        return new Junction("AND", listOf(conditions));
+    }
+
+    /**
+     * 用 AND 组合多个条件
+     * @param conditions 条件，为空时结果恒为真
+     * @return 条件
+     */
+    public static Condition and(Collection<? extends Condition> conditions) {
+        return new Junction("AND", listOf(conditions));
+    }
+
+    /**
+     * 用 OR 组合多个条件
+     * @param conditions 条件，为空时结果恒为假
+     * @return 条件
+     */
+    public static Condition or(Condition... conditions) {
+        return new Junction("OR", listOf(conditions));
+    }
+
+    /**
+     * 用 OR 组合多个条件
+     * @param conditions 条件，为空时结果恒为假
+     * @return 条件
+     */
+    public static Condition or(Collection<? extends Condition> conditions) {
+        return new Junction("OR", listOf(conditions));
+    }
+
+    /**
+     * 获取预先计算的SQL片段
+     * @return SQL片段
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * 获取占位符个数
+     * @return 参数个数
+     */
+    public int getParameterCount() {
+        return parameters.length;
+    }
+
+    /**
+     * 按占位符顺序追加参数
+     * @param target 参数列表
+     */
+    public void appendParameters(List<Object> target) {
+        Collections.addAll(target, parameters);
+    }
+
+    /**
+     * 与其他条件并列时使用的SQL片段，需要时带括号
+     * @return SQL片段
+     */
+    String getNestedSql() {
+        return sql;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    private static String requireColumn(String column) {
+        if (column == null || column.trim().isEmpty()) {
+            throw new IllegalArgumentException("WHERE 子句的列名不能为空。");
+        }
+        return column;
+    }
+
+    private static List<Condition> listOf(Condition[] conditions) {
+        return listOf(conditions != null ? Arrays.asList(conditions) : Collections.<Condition>emptyList());
+    }
+
+    private static List<Condition> listOf(Collection<? extends Condition> conditions) {
+        if (conditions == null) {
+            throw new IllegalArgumentException("条件集合不能为空 (null)。");
+        }
+        List<Condition> copy = new ArrayList<>(conditions);
+        for (Condition condition : copy) {
+            if (condition == null) {
+                throw new IllegalArgumentException("条件不能为空。");
+            }
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * 比较条件: column operator ?
+     */
+    public static final class Comparison extends Condition {
+        private final String column;
+        private final String operator;
+        private final Object value;
+
+        Comparison(String column, String operator, Object value) {
+            super(render(column, operator), new Object[]{value});
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        private static String render(String column, String operator) {
+            if (column == null || column.trim().isEmpty() || operator == null || operator.trim().isEmpty()) {
+                throw new IllegalArgumentException("WHERE 子句的列名和操作符不能为空。");
+            }
+            return column + " " + operator + " ?";
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * IN / NOT IN 条件
+     */
+    public static final class In extends Condition {
+        private final String column;
+        private final boolean negated;
+        private final List<Object> values;
+
+        In(String column, boolean negated, List<Object> values) {
+            super(InList.fragment(requireColumn(column), negated, values.size()), padded(values));
+            this.column = column;
+            this.negated = negated;
+            this.values = values;
+        }
+
+        private static Object[] padded(List<Object> values) {
+            List<Object> parameters = new ArrayList<>(values.size());
+            InList.appendParameters(parameters, values);
+            return parameters.toArray();
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        /**
+         * 获取未补齐的原始值
+         * @return 不可变的值列表
+         */
+        public List<Object> getValues() {
+            return values;
+        }
+
+        @Override
+        String getNestedSql() {
+            // 分块后的片段本身已带括号
+            return getSql();
+        }
+    }
+
+    /**
+     * AND / OR 组合条件
+     */
+    public static final class Junction extends Condition {
+        private final String operator;
+        private final List<Condition> children;
+        private final String nestedSql;
+
+        Junction(String operator, List<Condition> children) {
+            this(operator, children, render(operator, children));
+        }
+
+        private Junction(String operator, List<Condition> children, String sql) {
+            super(sql, collectParameters(children));
+            this.operator = operator;
+            this.children = children;
+            if (children.size() == 1) {
+                this.nestedSql = children.get(0).getNestedSql();
+            } else {
+                this.nestedSql = children.isEmpty() ? sql : "(" + sql + ")";
+            }
+        }
+
+        private static String render(String operator, List<Condition> children) {
+            if (children.isEmpty()) {
+                return "AND".equals(operator) ? "1 = 1" : "1 = 0";
+            }
+            if (children.size() == 1) {
+                return children.get(0).getSql();
+            }
+            StringBuilder sql = new StringBuilder();
+            for (Condition child : children) {
+                if (sql.length() > 0) {
+                    sql.append(' ').append(operator).append(' ');
+                }
+                // 同类组合的结合律成立，不需要额外括号
+                boolean sameOperator = child instanceof Junction && ((Junction) child).operator.equals(operator)
+                        && ((Junction) child).children.size() > 1;
+                sql.append(sameOperator ? child.getSql() : child.getNestedSql());
+            }
+            return sql.toString();
+        }
+
+        private static Object[] collectParameters(List<Condition> children) {
+            int count = 0;
+            for (Condition child : children) {
+                count += child.parameters.length;
+            }
+            Object[] parameters = new Object[count];
+            int offset = 0;
+            for (Condition child : children) {
+                System.arraycopy(child.parameters, 0, parameters, offset, child.parameters.length);
+                offset += child.parameters.length;
+            }
+            return parameters;
+        }
+
+        /**
+         * 获取逻辑操作符
+         * @return "AND" 或 "OR"
+         */
+        public String getOperator() {
+            return operator;
+        }
+
+        public List<Condition> getChildren() {
+            return children;
+        }
+
+        @Override
+        String getNestedSql() {
+            return nestedSql;
+        }
+    }
+
+    /**
+     * 由固定SQL片段构成的条件，例如 IS NULL、NOT (...) 和原始SQL
+     */
+    private static final class Fragment extends Condition {
+        Fragment(String sql, Object[] parameters) {
+            super(sql, parameters);
+        }
+    }
+}
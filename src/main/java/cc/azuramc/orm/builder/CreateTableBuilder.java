@@ -1,5 +1,9 @@
 package cc.azuramc.orm.builder;
 
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.metrics.StatementMetrics;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -23,6 +27,9 @@ import java.util.stream.Collectors;
  *      .column("name", DataType.VARCHAR(100), DataType.NOT_NULL())
  *      .column("age", DataType.INT())
  *      .prepare();
+ * <p>
+ * 列定义使用 MySQL 风格的类型和约束，由连接对应的 {@link Dialect} 转换为目标数据库的写法，
+ * ENGINE、CHARSET 和 COLLATE 只在 MySQL 上输出。
  * 
  * @author an5w1r@163.com
  */
@@ -32,13 +39,24 @@ public class CreateTableBuilder {
     private Map<String, List<String>> columns = new LinkedHashMap<>();
     private List<String> primaryKeys = new ArrayList<>();
     private List<String> foreignKeys = new ArrayList<>();
-    private List<String> uniqueKeys = new ArrayList<>();
-    private List<String> indexes = new ArrayList<>();
+    private List<KeyDefinition> uniqueKeys = new ArrayList<>();
+    private List<KeyDefinition> indexes = new ArrayList<>();
     private boolean ifNotExists = false;
     private String engine = "InnoDB";
     private String charset = "utf8mb4";
     private String collate = "utf8mb4_general_ci";
 
+    /** 唯一键或索引，按方言渲染 */
+    private static class KeyDefinition {
+        private final String name;
+        private final List<String> columns;
+
+        KeyDefinition(String name, List<String> columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+    }
+
     public CreateTableBuilder(Connection connection) {
         if (connection == null) {
             throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
@@ -190,25 +208,9 @@ public class CreateTableBuilder {
      * @return CreateTableBuilder实例
      */
     public CreateTableBuilder uniqueKey(String name, String... columns) {
-        if (columns != null && columns.length > 0) {
-            StringBuilder uk = new StringBuilder("UNIQUE KEY ");
-            uk.append(name).append(" (");
-            
-            boolean first = true;
-            for (String column : columns) {
-                if (column != null && !column.trim().isEmpty()) {
-                    if (!first) {
-                        uk.append(", ");
-                    }
-                    uk.append(column);
-                    first = false;
-                }
-            }
-            uk.append(")");
-            
-            if (!first) { // 确保至少有一列被添加
-                this.uniqueKeys.add(uk.toString());
-            }
+        List<String> keyColumns = nonEmpty(columns);
+        if (!keyColumns.isEmpty()) { // 确保至少有一列被添加
+            this.uniqueKeys.add(new KeyDefinition(name, keyColumns));
         }
         return this;
     }
@@ -220,27 +222,23 @@ public class CreateTableBuilder {
      * @return CreateTableBuilder实例
      */
     public CreateTableBuilder index(String name, String... columns) {
-        if (columns != null && columns.length > 0) {
-            StringBuilder idx = new StringBuilder("INDEX ");
-            idx.append(name).append(" (");
-            
-            boolean first = true;
+        List<String> indexColumns = nonEmpty(columns);
+        if (!indexColumns.isEmpty()) { // 确保至少有一列被添加
+            this.indexes.add(new KeyDefinition(name, indexColumns));
+        }
+        return this;
+    }
+
+    private static List<String> nonEmpty(String... columns) {
+        List<String> result = new ArrayList<>();
+        if (columns != null) {
             for (String column : columns) {
                 if (column != null && !column.trim().isEmpty()) {
-                    if (!first) {
-                        idx.append(", ");
-                    }
-                    idx.append(column);
-                    first = false;
+                    result.add(column);
                 }
             }
-            idx.append(")");
-            
-            if (!first) { // 确保至少有一列被添加
-                this.indexes.add(idx.toString());
-            }
         }
-        return this;
+        return result;
     }
 
     /**
@@ -279,7 +277,38 @@ public class CreateTableBuilder {
         return this;
     }
 
+    /**
+     * 准备建表语句，语句由调用方执行和关闭
+     * 数据库不支持在建表语句中定义索引时（MySQL 以外的方言）不能使用本方法添加了 index() 的建表，请使用 {@link #execute()}。
+     * @return PreparedStatement对象
+     * @throws SQLException 如果发生SQL异常
+     */
     public PreparedStatement prepare() throws SQLException {
+        List<String> statements = buildStatements(Dialects.forConnection(this.connection));
+        if (statements.size() > 1) {
+            throw new IllegalStateException("当前数据库需要单独的 CREATE INDEX 语句，请使用 execute() 建表。");
+        }
+        return StatementMetrics.prepare(this.connection, statements.get(0));
+    }
+
+    /**
+     * 执行建表语句和单独的建索引语句，不提交事务
+     * @throws SQLException 如果发生SQL异常
+     */
+    public void execute() throws SQLException {
+        for (String sql : buildStatements(Dialects.forConnection(this.connection))) {
+            try (PreparedStatement pstmt = StatementMetrics.prepare(this.connection, sql)) {
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * 按方言生成建表语句，列定义、唯一键、索引和表选项由方言转换
+     * @param dialect 数据库方言
+     * @return 建表语句，以及数据库不支持内联索引时的建索引语句
+     */
+    private List<String> buildStatements(Dialect dialect) {
         if (this.tableName == null) {
             throw new IllegalStateException("必须先调用 createTable() 指定表名。");
         }
@@ -299,29 +328,33 @@ public class CreateTableBuilder {
         List<String> columnDefinitions = new ArrayList<>();
         for (Map.Entry<String, List<String>> entry : this.columns.entrySet()) {
             StringBuilder colDef = new StringBuilder("  ").append(entry.getKey()).append(" ");
-            colDef.append(String.join(" ", entry.getValue()));
+            colDef.append(dialect.columnDefinition(String.join(" ", entry.getValue())));
             columnDefinitions.add(colDef.toString());
         }
         
         // 添加主键、外键、唯一键和索引
         columnDefinitions.addAll(this.primaryKeys.stream().map(pk -> "  " + pk).collect(Collectors.toList()));
         columnDefinitions.addAll(this.foreignKeys.stream().map(fk -> "  " + fk).collect(Collectors.toList()));
-        columnDefinitions.addAll(this.uniqueKeys.stream().map(uk -> "  " + uk).collect(Collectors.toList()));
-        columnDefinitions.addAll(this.indexes.stream().map(idx -> "  " + idx).collect(Collectors.toList()));
-        
-        sqlBuilder.append(String.join(",\n", columnDefinitions));
-        sqlBuilder.append("\n) ENGINE=").append(this.engine);
-        
-        if (this.charset != null) {
-            sqlBuilder.append(" DEFAULT CHARSET=").append(this.charset);
+        for (KeyDefinition uk : this.uniqueKeys) {
+            columnDefinitions.add("  " + dialect.uniqueKeyDefinition(uk.name, uk.columns));
         }
-        
-        if (this.collate != null) {
-            sqlBuilder.append(" COLLATE=").append(this.collate);
+        List<String> indexStatements = new ArrayList<>();
+        for (KeyDefinition idx : this.indexes) {
+            String inline = dialect.inlineIndexDefinition(idx.name, idx.columns);
+            if (inline != null) {
+                columnDefinitions.add("  " + inline);
+            } else {
+                indexStatements.add(dialect.createIndexSql(this.tableName, idx.name, idx.columns, this.ifNotExists));
+            }
         }
         
-        String finalSql = sqlBuilder.toString();
+        sqlBuilder.append(String.join(",\n", columnDefinitions));
+        sqlBuilder.append("\n)");
+        dialect.appendTableOptions(sqlBuilder, this.engine, this.charset, this.collate);
         
-        return this.connection.prepareStatement(finalSql);
+        List<String> statements = new ArrayList<>();
+        statements.add(sqlBuilder.toString());
+        statements.addAll(indexStatements);
+        return statements;
     }
 } 
\ No newline at end of file
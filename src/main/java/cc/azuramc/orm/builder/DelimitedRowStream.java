@@ -0,0 +1,227 @@
+package cc.azuramc.orm.builder;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+/**
+ * 把行按需编码为制表符分隔文本的输入流，供 LOAD DATA LOCAL INFILE 和 COPY FROM STDIN 读取
+ * 格式是 MySQL 默认转义规则和 PostgreSQL COPY 文本格式的公共子集：列用制表符分隔，行以换行结束，
+ * NULL 写作 {@code \N}，反斜杠、制表符、换行、回车转义为 {@code \\ \t \n \r}。
+ * 只在缓冲区读空时编码下一批行，字符串直接编码为 UTF-8 写入复用的缓冲区，不为每个单元格生成中间字符串。
+ * @author AzuraMC Team
+ */
+final class DelimitedRowStream extends InputStream {
+
+    /** 缓冲区中至少攒够这么多字节才交给驱动 */
+    private static final int FILL_TARGET = 64 * 1024;
+    private static final byte[] NULL = {'\\', 'N'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final Iterator<Object[]> rows;
+    private final int columnCount;
+    /** PostgreSQL 的 bytea 使用十六进制写法，MySQL 直接写入转义后的原始字节 */
+    private final boolean hexBinary;
+    private byte[] buffer = new byte[FILL_TARGET + 1024];
+    private int position;
+    private int limit;
+    private long rowCount;
+
+    DelimitedRowStream(Iterator<Object[]> rows, int columnCount, boolean hexBinary) {
+        this.rows = rows;
+        this.columnCount = columnCount;
+        this.hexBinary = hexBinary;
+    }
+
+    /**
+     * 已编码的行数
+     * @return 行数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    private boolean fill() {
+        position = 0;
+        limit = 0;
+        while (limit < FILL_TARGET && rows.hasNext()) {
+            writeRow(rows.next());
+        }
+        return limit > 0;
+    }
+
+    private void writeRow(Object[] row) {
+        if (row == null || row.length != columnCount) {
+            throw new IllegalArgumentException("每行的值数量必须与列数相同。");
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                put((byte) '\t');
+            }
+            writeValue(row[i]);
+        }
+        put((byte) '\n');
+        rowCount++;
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            put(NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            put((byte) ((Boolean) value ? '1' : '0'));
+        } else if (value instanceof BigDecimal) {
+            writeText(((BigDecimal) value).toPlainString());
+        } else if (value instanceof byte[]) {
+            writeBinary((byte[]) value);
+        } else if (value instanceof Enum) {
+            writeText(((Enum<?>) value).name());
+        } else if (value instanceof CharSequence) {
+            writeText((CharSequence) value);
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeText(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        ensureCapacity(19);
+        int start = limit;
+        do {
+            buffer[limit++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        // 反转数字
+        for (int i = start, j = limit - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    private void writeBinary(byte[] bytes) {
+        if (hexBinary) {
+            // COPY 文本格式中反斜杠需要转义，bytea 的 \x 前缀写作 \\x
+            ensureCapacity(3 + bytes.length * 2);
+            buffer[limit++] = '\\';
+            buffer[limit++] = '\\';
+            buffer[limit++] = 'x';
+            for (byte b : bytes) {
+                buffer[limit++] = HEX[(b >> 4) & 0xf];
+                buffer[limit++] = HEX[b & 0xf];
+            }
+            return;
+        }
+        ensureCapacity(bytes.length * 2);
+        for (byte b : bytes) {
+            putEscaped(b);
+        }
+    }
+
+    private void writeText(CharSequence text) {
+        int length = text.length();
+        // UTF-8 每个字符最多 3 字节（代理对 4 字节对应 2 个字符），转义最多 2 字节
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                putEscaped((byte) c);
+            } else if (c < 0x800) {
+                buffer[limit++] = (byte) (0xc0 | (c >> 6));
+                buffer[limit++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[limit++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[limit++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[limit++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[limit++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[limit++] = '?';
+            } else {
+                buffer[limit++] = (byte) (0xe0 | (c >> 12));
+                buffer[limit++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[limit++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    /**
+     * 写入一个字节，分隔符和转义字符加反斜杠，调用前已保证容量
+     */
+    private void putEscaped(byte b) {
+        switch (b) {
+            case '\\':
+                buffer[limit++] = '\\';
+                buffer[limit++] = '\\';
+                break;
+            case '\t':
+                buffer[limit++] = '\\';
+                buffer[limit++] = 't';
+                break;
+            case '\n':
+                buffer[limit++] = '\\';
+                buffer[limit++] = 'n';
+                break;
+            case '\r':
+                buffer[limit++] = '\\';
+                buffer[limit++] = 'r';
+                break;
+            default:
+                buffer[limit++] = b;
+        }
+    }
+
+    private void put(byte b) {
+        ensureCapacity(1);
+        buffer[limit++] = b;
+    }
+
+    private void put(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, limit, bytes.length);
+        limit += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (limit + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, limit + extra)];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+    }
+}
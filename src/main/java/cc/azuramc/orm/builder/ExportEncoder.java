@@ -0,0 +1,369 @@
+package cc.azuramc.orm.builder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 把结果集的行编码为 CSV 或 NDJSON 写入通道
+ * 列的读取方式在创建时按列类型确定一次；整数直接写入数字，字符串逐字符编码为 UTF-8 并转义，
+ * 都写入复用的直接缓冲区，缓冲区写满时才交给通道，不为每个单元格生成中间字符串或字节数组。
+ * @author AzuraMC Team
+ */
+final class ExportEncoder {
+
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int DECIMAL = 2;
+    private static final int BOOLEAN = 3;
+    private static final int BINARY = 4;
+    private static final int TEXT = 5;
+
+    /** 单个字符编码后的最大字节数 (JSON 控制字符的六字节转义) */
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private final ExportFormat format;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final int[] kinds;
+    private final String[] labels;
+    /** NDJSON 每列的键前缀，例如 {"id": 和 ,"name": */
+    private final byte[][] keys;
+    private final byte[] digits = new byte[20];
+
+    ExportEncoder(ExportFormat format, WritableByteChannel channel, int bufferSize, ResultSetMetaData meta)
+            throws SQLException {
+        this.format = format;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        int columnCount = meta.getColumnCount();
+        this.kinds = new int[columnCount];
+        this.labels = new String[columnCount];
+        this.keys = new byte[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            this.kinds[i] = kindOf(meta, i + 1);
+            this.labels[i] = meta.getColumnLabel(i + 1);
+            if (format == ExportFormat.NDJSON) {
+                this.keys[i] = ((i == 0 ? "{" : ",") + jsonString(this.labels[i]) + ":").getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static int kindOf(ResultSetMetaData meta, int column) throws SQLException {
+        switch (meta.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return LONG;
+            case Types.BIGINT:
+                // 无符号 BIGINT 可能超出 long 的范围
+                return meta.isSigned(column) ? LONG : DECIMAL;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DECIMAL;
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.BIT:
+                return meta.getPrecision(column) <= 1 ? BOOLEAN : LONG;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BINARY;
+            default:
+                return TEXT;
+        }
+    }
+
+    /**
+     * 写入 CSV 的表头行，NDJSON 没有表头
+     */
+    void writeHeader() throws IOException {
+        if (format != ExportFormat.CSV) {
+            return;
+        }
+        for (int i = 0; i < labels.length; i++) {
+            if (i > 0) {
+                put((byte) ',');
+            }
+            writeText(labels[i]);
+        }
+        put((byte) '\n');
+    }
+
+    /**
+     * 写入结果集的当前行
+     * @param rs 结果集，已定位到要写入的行
+     */
+    void writeRow(ResultSet rs) throws SQLException, IOException {
+        boolean json = format == ExportFormat.NDJSON;
+        for (int i = 0; i < kinds.length; i++) {
+            if (json) {
+                put(keys[i]);
+            } else if (i > 0) {
+                put((byte) ',');
+            }
+            writeValue(rs, i + 1, kinds[i], json);
+        }
+        if (json) {
+            put((byte) '}');
+        }
+        put((byte) '\n');
+    }
+
+    private void writeValue(ResultSet rs, int column, int kind, boolean json) throws SQLException, IOException {
+        switch (kind) {
+            case LONG: {
+                long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    writeNull(json);
+                } else {
+                    writeLong(value);
+                }
+                return;
+            }
+            case DOUBLE: {
+                double value = rs.getDouble(column);
+                if (rs.wasNull() || (json && (Double.isNaN(value) || Double.isInfinite(value)))) {
+                    writeNull(json);
+                } else {
+                    writeAscii(Double.toString(value));
+                }
+                return;
+            }
+            case DECIMAL: {
+                BigDecimal value = rs.getBigDecimal(column);
+                if (value == null) {
+                    writeNull(json);
+                } else {
+                    writeAscii(value.toPlainString());
+                }
+                return;
+            }
+            case BOOLEAN: {
+                boolean value = rs.getBoolean(column);
+                if (rs.wasNull()) {
+                    writeNull(json);
+                } else {
+                    put(value ? TRUE : FALSE);
+                }
+                return;
+            }
+            case BINARY: {
+                byte[] value = rs.getBytes(column);
+                if (value == null) {
+                    writeNull(json);
+                } else {
+                    writeHex(value, json);
+                }
+                return;
+            }
+            default: {
+                String value = rs.getString(column);
+                if (value == null) {
+                    writeNull(json);
+                } else if (json) {
+                    writeJsonString(value);
+                } else {
+                    writeText(value);
+                }
+            }
+        }
+    }
+
+    private void writeNull(boolean json) throws IOException {
+        if (json) {
+            put(NULL);
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+    }
+
+    private void writeHex(byte[] bytes, boolean json) throws IOException {
+        if (json) {
+            put((byte) '"');
+        }
+        for (byte b : bytes) {
+            ensure(2);
+            buffer.put(HEX[(b >> 4) & 0xf]);
+            buffer.put(HEX[b & 0xf]);
+        }
+        if (json) {
+            put((byte) '"');
+        }
+    }
+
+    /**
+     * 写入 CSV 字段，含有逗号、双引号或换行时加双引号，双引号写作两个
+     */
+    private void writeText(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            ensure(MAX_CHAR_BYTES);
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.put((byte) '"');
+                buffer.put((byte) '"');
+            } else {
+                i = putChar(value, i, c);
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    private void writeJsonString(String value) throws IOException {
+        put((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            ensure(MAX_CHAR_BYTES);
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) c);
+            } else if (c == '\n') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) 'n');
+            } else if (c == '\r') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) 'r');
+            } else if (c == '\t') {
+                buffer.put((byte) '\\');
+                buffer.put((byte) 't');
+            } else if (c < 0x20) {
+                buffer.put((byte) '\\');
+                buffer.put((byte) 'u');
+                buffer.put((byte) '0');
+                buffer.put((byte) '0');
+                buffer.put(HEX[c >> 4]);
+                buffer.put(HEX[c & 0xf]);
+            } else {
+                i = putChar(value, i, c);
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * 把一个字符编码为 UTF-8 写入缓冲区，调用前已保证容量
+     * @return 最后读取的字符下标，代理对会多读取一个字符
+     */
+    private int putChar(String value, int index, char c) {
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xc0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++index));
+            buffer.put((byte) (0xf0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xe0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (c & 0x3f)));
+        }
+        return index;
+    }
+
+    /**
+     * 写入只含 ASCII 字符的文本，例如数字
+     */
+    private void writeAscii(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private void put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.capacity()) {
+            flush();
+            channel.write(ByteBuffer.wrap(bytes));
+            return;
+        }
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * 把缓冲区中的内容全部写入通道
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
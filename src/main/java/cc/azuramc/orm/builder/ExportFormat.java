@@ -0,0 +1,14 @@
+package cc.azuramc.orm.builder;
+
+/**
+ * 查询结果导出的文件格式
+ * @author AzuraMC Team
+ */
+public enum ExportFormat {
+
+    /** RFC 4180 风格的逗号分隔文本，含有逗号、引号或换行的值加双引号，NULL 写作空值 */
+    CSV,
+
+    /** 每行一个 JSON 对象 (NDJSON)，键为列标签 */
+    NDJSON
+}
@@ -0,0 +1,116 @@
+package cc.azuramc.orm.builder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IN 列表的SQL生成工具
+ * 参数个数会补齐到 2 的幂（重复最后一个值），使驱动和服务端的语句缓存只会看到有限几种SQL；
+ * 超过 {@link #MAX_BUCKET_SIZE} 的列表按固定大小分块，用 OR（NOT IN 时用 AND）连接。
+ * @author AzuraMC Team
+ */
+final class InList {
+
+    /** 单个 IN 列表的最大参数个数，超过后分块 */
+    static final int MAX_BUCKET_SIZE = 1024;
+
+    /** 预先生成的占位符串，下标为 log2(桶大小) */
+    private static final String[] PLACEHOLDERS;
+
+    static {
+        int buckets = Integer.numberOfTrailingZeros(MAX_BUCKET_SIZE) + 1;
+        PLACEHOLDERS = new String[buckets];
+        for (int i = 0; i < buckets; i++) {
+            PLACEHOLDERS[i] = String.join(", ", Collections.nCopies(1 << i, "?"));
+        }
+    }
+
+    private InList() {
+    }
+
+    /**
+     * 复制并校验 IN 列表的值
+     * @param values 值集合
+     * @return 不可变的值列表
+     */
+    static List<Object> copyOf(Collection<?> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("IN 子句的值集合不能为空 (null)。");
+        }
+        return Collections.unmodifiableList(new ArrayList<Object>(values));
+    }
+
+    /**
+     * 计算参数个数对应的桶大小
+     * @param size 实际参数个数，取值 1 ~ MAX_BUCKET_SIZE
+     * @return 不小于 size 的最小 2 的幂
+     */
+    static int bucketSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * 生成 IN 条件的SQL片段
+     * @param column 列名
+     * @param negate 是否为 NOT IN
+     * @param size 实际参数个数
+     * @return SQL片段
+     */
+    static String fragment(String column, boolean negate, int size) {
+        if (size == 0) {
+            // 空列表: IN () 恒为假，NOT IN () 恒为真
+            return negate ? "1 = 1" : "1 = 0";
+        }
+        String operator = negate ? " NOT IN (" : " IN (";
+        if (size <= MAX_BUCKET_SIZE) {
+            return column + operator + placeholders(size) + ")";
+        }
+
+        StringBuilder sql = new StringBuilder("(");
+        for (int start = 0; start < size; start += MAX_BUCKET_SIZE) {
+            if (start > 0) {
+                sql.append(negate ? " AND " : " OR ");
+            }
+            int chunkSize = Math.min(MAX_BUCKET_SIZE, size - start);
+            sql.append(column).append(operator).append(placeholders(chunkSize)).append(")");
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * 按 {@link #fragment} 的分块方式追加补齐后的参数
+     * @param parameters 参数列表
+     * @param values IN 列表的值
+     */
+    static void appendParameters(List<Object> parameters, List<?> values) {
+        int size = values.size();
+        for (int start = 0; start < size; start += MAX_BUCKET_SIZE) {
+            int end = Math.min(start + MAX_BUCKET_SIZE, size);
+            parameters.addAll(values.subList(start, end));
+            Object last = values.get(end - 1);
+            for (int i = end - start, bucket = bucketSize(end - start); i < bucket; i++) {
+                parameters.add(last);
+            }
+        }
+    }
+
+    /**
+     * 将超长的 IN 列表拆分成若干块，每块不超过 {@link #MAX_BUCKET_SIZE}
+     * @param values IN 列表的值
+     * @return 分块后的值列表
+     */
+    static List<List<Object>> chunks(List<?> values) {
+        List<List<Object>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += MAX_BUCKET_SIZE) {
+            int end = Math.min(start + MAX_BUCKET_SIZE, values.size());
+            chunks.add(Collections.unmodifiableList(new ArrayList<Object>(values.subList(start, end))));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int size) {
+        return PLACEHOLDERS[Integer.numberOfTrailingZeros(bucketSize(size))];
+    }
+}
@@ -1,29 +1,72 @@
 package cc.azuramc.orm.builder;
 
+import cc.azuramc.orm.async.AsyncOrmClient;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.jdbc.JdbcSupport;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
  * 插入语句构建器，用于构建INSERT语句
  * 示例: new InsertBuilder(conn).insertInto("users").values("name", "张三").values("age", 25).prepare();
+ * 插入或更新: new InsertBuilder(conn).insertInto("users").values("id", 1).values("name", "张三").upsert("id").prepare();
  * @author an5w1r@163.com
  */
 public class InsertBuilder {
     private Connection connection;
+    private ConnectionSource connectionSource;
+    private AsyncOrmClient asyncClient;
     private String tableName;
     private Map<String, Object> columnValues = new LinkedHashMap<>();
     private boolean returnGeneratedKeys = false;
     private List<List<Object>> batchValues = new ArrayList<>();
     private List<String> columns = new ArrayList<>();
+    private List<String> upsertKeys;
+    private List<String> upsertUpdateColumns;
 
     public InsertBuilder(Connection connection) {
         if (connection == null) {
             throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
         }
         this.connection = connection;
+        this.connectionSource = ConnectionSource.of(connection);
+    }
+
+    /**
+     * 使用连接来源创建构建器，只能通过 executeUpdate() 等终结操作或 {@link #prepare(Connection)} 执行
+     * @param connectionSource 连接来源
+     */
+    public InsertBuilder(ConnectionSource connectionSource) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
+        }
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * 绑定异步客户端，之后可以使用 *Async 终结操作在数据库线程池上执行
+     * 提交异步操作后不要再修改构建器。
+     * @param asyncClient 异步客户端
+     * @return Builder 自身，用于链式调用
+     */
+    public InsertBuilder async(AsyncOrmClient asyncClient) {
+        if (asyncClient == null) {
+            throw new IllegalArgumentException("异步客户端 (AsyncOrmClient) 不能为空。");
+        }
+        if (this.connection != null) {
+            throw new IllegalStateException("绑定连接的构建器不能异步执行，JDBC连接不能在线程之间共享。");
+        }
+        this.asyncClient = asyncClient;
+        return this;
     }
 
     public InsertBuilder insertInto(String tableName) {
@@ -47,6 +90,34 @@ public class InsertBuilder {
         return this;
     }
 
+    /**
+     * 改为插入或更新：按键列冲突时更新其余列，语句写法由数据库方言决定
+     * MySQL 使用 ON DUPLICATE KEY UPDATE，由表上所有主键和唯一键判断冲突；
+     * PostgreSQL 和 SQLite 使用 ON CONFLICT (键列)；H2 使用 MERGE INTO ... USING。
+     * @param keyColumns 判断冲突的主键或唯一键列
+     * @return InsertBuilder实例
+     */
+    public InsertBuilder upsert(String... keyColumns) {
+        if (keyColumns == null || keyColumns.length == 0) {
+            throw new IllegalArgumentException("插入或更新必须指定冲突判断列。");
+        }
+        this.upsertKeys = Arrays.asList(keyColumns);
+        return this;
+    }
+
+    /**
+     * 设置冲突时更新的列，默认更新除键列以外的所有列，不传列时冲突的行保持不变
+     * @param columns 冲突时更新的列
+     * @return InsertBuilder实例
+     */
+    public InsertBuilder upsertUpdate(String... columns) {
+        if (this.upsertKeys == null) {
+            throw new IllegalStateException("必须先调用 upsert() 指定冲突判断列。");
+        }
+        this.upsertUpdateColumns = columns != null ? Arrays.asList(columns) : Collections.emptyList();
+        return this;
+    }
+
     /**
      * 添加一批要插入的值，用于批量插入
      * 注意：必须先调用columns()方法设置列名
@@ -85,6 +156,26 @@ public class InsertBuilder {
     }
 
     public PreparedStatement prepare() throws SQLException {
+        if (this.connection == null) {
+            throw new IllegalStateException("该构建器没有绑定连接，请使用 prepare(Connection) 或 executeUpdate() 等终结操作。");
+        }
+        return prepare(this.connection);
+    }
+
+    /**
+     * 在指定连接上准备语句，语句由调用方关闭
+     * @param connection 数据库连接
+     * @return PreparedStatement对象
+     * @throws SQLException 如果发生SQL异常
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        if (connection == null) {
+            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
+        }
+        return prepare(connection, this.batchValues);
+    }
+
+    private PreparedStatement prepare(Connection connection, List<List<Object>> batchValues) throws SQLException {
         if (this.tableName == null) {
             throw new IllegalStateException("必须先调用 insertInto() 指定表名。");
         }
@@ -92,28 +183,32 @@ public class InsertBuilder {
         PreparedStatement pstmt;
         
         // 批量插入
-        if (!this.batchValues.isEmpty()) {
+        if (!batchValues.isEmpty()) {
             if (this.columns.isEmpty()) {
                 throw new IllegalStateException("必须先调用columns()方法设置列名。");
             }
             
-            StringBuilder sqlBuilder = new StringBuilder("INSERT INTO ");
-            sqlBuilder.append(this.tableName).append(" (");
-            sqlBuilder.append(String.join(", ", this.columns));
-            sqlBuilder.append(") VALUES (");
-            
-            String placeholders = this.columns.stream()
-                    .map(c -> "?")
-                    .collect(Collectors.joining(", "));
-            sqlBuilder.append(placeholders).append(")");
-            
-            String finalSql = sqlBuilder.toString();
+            String finalSql;
+            if (this.upsertKeys != null) {
+                finalSql = upsertSql(connection, this.columns);
+            } else {
+                StringBuilder sqlBuilder = new StringBuilder("INSERT INTO ");
+                sqlBuilder.append(this.tableName).append(" (");
+                sqlBuilder.append(String.join(", ", this.columns));
+                sqlBuilder.append(") VALUES (");
+                
+                String placeholders = this.columns.stream()
+                        .map(c -> "?")
+                        .collect(Collectors.joining(", "));
+                sqlBuilder.append(placeholders).append(")");
+                
+                finalSql = sqlBuilder.toString();
+            }
             
-            pstmt = this.returnGeneratedKeys ? 
-                    this.connection.prepareStatement(finalSql, PreparedStatement.RETURN_GENERATED_KEYS) : 
-                    this.connection.prepareStatement(finalSql);
+            pstmt = StatementMetrics.prepare(connection, finalSql, this.returnGeneratedKeys ? 
+                    PreparedStatement.RETURN_GENERATED_KEYS : PreparedStatement.NO_GENERATED_KEYS);
             
-            for (List<Object> batch : this.batchValues) {
+            for (List<Object> batch : batchValues) {
                 for (int i = 0; i < batch.size(); i++) {
                     pstmt.setObject(i + 1, batch.get(i));
                 }
@@ -126,22 +221,26 @@ public class InsertBuilder {
                 throw new IllegalStateException("必须至少调用一次 values() 方法来指定要插入的值");
             }
             
-            StringBuilder sqlBuilder = new StringBuilder("INSERT INTO ");
-            sqlBuilder.append(this.tableName).append(" (");
-            
-            String columnNames = String.join(", ", this.columnValues.keySet());
-            sqlBuilder.append(columnNames).append(") VALUES (");
-            
-            String placeholders = this.columnValues.values().stream()
-                    .map(v -> "?")
-                    .collect(Collectors.joining(", "));
-            sqlBuilder.append(placeholders).append(")");
-            
-            String finalSql = sqlBuilder.toString();
+            String finalSql;
+            if (this.upsertKeys != null) {
+                finalSql = upsertSql(connection, new ArrayList<>(this.columnValues.keySet()));
+            } else {
+                StringBuilder sqlBuilder = new StringBuilder("INSERT INTO ");
+                sqlBuilder.append(this.tableName).append(" (");
+                
+                String columnNames = String.join(", ", this.columnValues.keySet());
+                sqlBuilder.append(columnNames).append(") VALUES (");
+                
+                String placeholders = this.columnValues.values().stream()
+                        .map(v -> "?")
+                        .collect(Collectors.joining(", "));
+                sqlBuilder.append(placeholders).append(")");
+                
+                finalSql = sqlBuilder.toString();
+            }
             
-            pstmt = this.returnGeneratedKeys ? 
-                    this.connection.prepareStatement(finalSql, PreparedStatement.RETURN_GENERATED_KEYS) : 
-                    this.connection.prepareStatement(finalSql);
+            pstmt = StatementMetrics.prepare(connection, finalSql, this.returnGeneratedKeys ? 
+                    PreparedStatement.RETURN_GENERATED_KEYS : PreparedStatement.NO_GENERATED_KEYS);
             
             List<Object> parameters = new ArrayList<>(this.columnValues.values());
             try {
@@ -156,4 +255,113 @@ public class InsertBuilder {
         
         return pstmt;
     }
-} 
\ No newline at end of file
+
+    private String upsertSql(Connection connection, List<String> insertColumns) throws SQLException {
+        List<String> updateColumns = this.upsertUpdateColumns;
+        if (updateColumns == null) {
+            updateColumns = new ArrayList<>(insertColumns);
+            updateColumns.removeAll(this.upsertKeys);
+        }
+        return Dialects.resolve(this.connectionSource, connection)
+                .upsertSql(this.tableName, insertColumns, this.upsertKeys, updateColumns);
+    }
+
+    /**
+     * 借用连接执行插入并关闭语句，批量插入时返回所有批次的影响行数之和
+     * 通过 {@link ConnectionSource} 创建时在结束后提交并归还连接；使用分片连接来源时按分片列的值路由，批量插入按分片分组执行。
+     * @return 受影响的行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    public int executeUpdate() throws SQLException {
+        if (!(this.connectionSource instanceof ShardedConnectionSource)) {
+            return executeOn(this.connectionSource, this.batchValues);
+        }
+
+        ShardedConnectionSource sharded = (ShardedConnectionSource) this.connectionSource;
+        if (this.batchValues.isEmpty()) {
+            return executeOn(sharded.shardFor(singleRowShardKey(sharded)), this.batchValues);
+        }
+        int shardColumnIndex = -1;
+        for (int i = 0; i < this.columns.size(); i++) {
+            if (sharded.isShardColumn(this.columns.get(i))) {
+                shardColumnIndex = i;
+            }
+        }
+        if (shardColumnIndex < 0) {
+            throw new IllegalStateException("插入分片表时必须包含分片列 " + sharded.getShardColumn() + "。");
+        }
+        Map<ConnectionSource, List<List<Object>>> rowsByShard = new LinkedHashMap<>();
+        for (List<Object> row : this.batchValues) {
+            rowsByShard.computeIfAbsent(sharded.shardFor(row.get(shardColumnIndex)), shard -> new ArrayList<>()).add(row);
+        }
+        int total = 0;
+        for (Map.Entry<ConnectionSource, List<List<Object>>> entry : rowsByShard.entrySet()) {
+            total += executeOn(entry.getKey(), entry.getValue());
+        }
+        return total;
+    }
+
+    private int executeOn(ConnectionSource source, List<List<Object>> batchValues) throws SQLException {
+        return Terminal.run(source, connection -> {
+            try (PreparedStatement pstmt = prepare(connection, batchValues)) {
+                return batchValues.isEmpty() ? pstmt.executeUpdate() : JdbcSupport.sumBatch(pstmt.executeBatch());
+            }
+        });
+    }
+
+    /**
+     * 借用连接执行单条插入并返回自增主键，会自动开启 {@link #returnGeneratedKeys()}
+     * @return 自增主键，数据库未返回主键时返回null
+     * @throws SQLException 如果发生SQL异常
+     */
+    public Long executeReturningKey() throws SQLException {
+        if (!this.batchValues.isEmpty()) {
+            throw new IllegalStateException("批量插入不支持 executeReturningKey()，请使用 executeUpdate()。");
+        }
+        this.returnGeneratedKeys = true;
+        ConnectionSource source = this.connectionSource;
+        if (source instanceof ShardedConnectionSource) {
+            source = ((ShardedConnectionSource) source).shardFor(singleRowShardKey((ShardedConnectionSource) source));
+        }
+        return Terminal.run(source, connection -> {
+            try (PreparedStatement pstmt = prepare(connection, this.batchValues)) {
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getLong(1) : null;
+                }
+            }
+        });
+    }
+
+    private Object singleRowShardKey(ShardedConnectionSource sharded) {
+        for (Map.Entry<String, Object> entry : this.columnValues.entrySet()) {
+            if (sharded.isShardColumn(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        throw new IllegalStateException("插入分片表时必须提供分片列 " + sharded.getShardColumn() + " 的值。");
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #executeUpdate()}
+     * @return 受影响的行数
+     */
+    public CompletableFuture<Integer> executeUpdateAsync() {
+        return requireAsync().supply(this::executeUpdate);
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #executeReturningKey()}
+     * @return 自增主键，数据库未返回主键时为null
+     */
+    public CompletableFuture<Long> executeReturningKeyAsync() {
+        return requireAsync().supply(this::executeReturningKey);
+    }
+
+    private AsyncOrmClient requireAsync() {
+        if (this.asyncClient == null) {
+            throw new IllegalStateException("该构建器没有绑定异步客户端，请通过 client.async() 创建。");
+        }
+        return this.asyncClient;
+    }
+}
@@ -0,0 +1,353 @@
+package cc.azuramc.orm.builder;
+
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.jdbc.JdbcSupport;
+import cc.azuramc.orm.jfr.ResultMappingEvent;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 查询结果的流式导出器，把 {@link SelectBuilder} 的结果直接写入文件或 {@link WritableByteChannel}
+ * 结果集按方言的流式 fetchSize 分批读取，每行编码进复用的直接缓冲区后写入通道，内存占用与结果行数无关。
+ * 指定 {@link #splitBy} 后先查询键的最小值和最大值，把键区间均分为多段，在各自的连接上并行读取，
+ * 除第一段外写入临时文件，最后按范围顺序拼接到目标；并行的段数不应超过连接池大小。
+ * 示例:
+ * <pre>
+ * long rows = client.select("id", "name", "coins").from("players")
+ *         .where("active", "=", true)
+ *         .export()
+ *         .format(ExportFormat.NDJSON)
+ *         .splitBy("id", 4)
+ *         .to(Paths.get("/data/players.ndjson"));
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class QueryExporter {
+
+    /** 默认的直接缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    private final SelectBuilder query;
+    private final ConnectionSource connectionSource;
+    private ExportFormat format = ExportFormat.CSV;
+    private boolean header = true;
+    private String keyColumn;
+    private int ranges = 1;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    /**
+     * @param query 要导出的查询
+     */
+    public QueryExporter(SelectBuilder query) {
+        if (query == null) {
+            throw new IllegalArgumentException("查询构建器 (SelectBuilder) 不能为空。");
+        }
+        if (query.getConnectionSource() instanceof ShardedConnectionSource) {
+            throw new IllegalArgumentException("导出不支持分片连接来源，请对每个分片分别导出。");
+        }
+        this.query = query;
+        this.connectionSource = query.getConnectionSource();
+    }
+
+    /**
+     * 设置导出格式，默认 CSV
+     * @param format 格式
+     * @return QueryExporter实例
+     */
+    public QueryExporter format(ExportFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("导出格式不能为空。");
+        }
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * 设置 CSV 是否写入表头行，默认写入
+     * @param header 是否写入表头
+     * @return QueryExporter实例
+     */
+    public QueryExporter header(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * 按整数键的范围拆分为多段并行读取，每段使用一个连接
+     * 查询不能含有 GROUP BY、DISTINCT、聚合函数和分页，排序只能是按该键升序。
+     * @param keyColumn 整数键列，通常是主键
+     * @param ranges 段数
+     * @return QueryExporter实例
+     */
+    public QueryExporter splitBy(String keyColumn, int ranges) {
+        if (keyColumn == null || keyColumn.trim().isEmpty()) {
+            throw new IllegalArgumentException("拆分键列不能为空。");
+        }
+        if (ranges <= 0) {
+            throw new IllegalArgumentException("拆分段数必须大于0。");
+        }
+        this.keyColumn = keyColumn;
+        this.ranges = ranges;
+        return this;
+    }
+
+    /**
+     * 设置每段使用的直接缓冲区大小
+     * @param bufferSize 字节数，至少 4096
+     * @return QueryExporter实例
+     */
+    public QueryExporter bufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("缓冲区大小不能小于 " + MIN_BUFFER_SIZE + " 字节。");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * 导出到文件，文件已存在时覆盖；拆分导出的临时文件创建在同一目录下
+     * @param file 目标文件
+     * @return 导出的行数
+     * @throws IOException 如果写入失败
+     * @throws SQLException 如果发生SQL异常
+     */
+    public long to(Path file) throws IOException, SQLException {
+        if (file == null) {
+            throw new IllegalArgumentException("导出文件不能为空。");
+        }
+        checkSplit();
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(channel, directory);
+        }
+    }
+
+    /**
+     * 导出到通道，通道由调用方关闭；拆分导出的临时文件创建在系统临时目录下
+     * @param channel 目标通道
+     * @return 导出的行数
+     * @throws IOException 如果写入失败
+     * @throws SQLException 如果发生SQL异常
+     */
+    public long to(WritableByteChannel channel) throws IOException, SQLException {
+        if (channel == null) {
+            throw new IllegalArgumentException("导出通道不能为空。");
+        }
+        checkSplit();
+        return export(channel, null);
+    }
+
+    /**
+     * 在打开目标之前检查拆分设置，不满足条件时不截断已有文件
+     */
+    private void checkSplit() {
+        if (this.keyColumn == null || this.ranges == 1) {
+            return;
+        }
+        if (this.query.isConnectionBound()) {
+            throw new IllegalStateException("绑定连接的构建器不能拆分导出，JDBC连接不能在线程之间共享。");
+        }
+        this.query.checkRangeSplittable(this.keyColumn);
+    }
+
+    private long export(WritableByteChannel target, Path tempDirectory) throws IOException, SQLException {
+        long start = System.nanoTime();
+        List<Condition> conditions = this.keyColumn != null && this.ranges > 1 ? splitRanges() : null;
+        long rows;
+        try {
+            if (conditions == null || conditions.size() == 1) {
+                rows = exportRange(target, conditions != null ? conditions.get(0) : null, true);
+            } else {
+                rows = exportParallel(target, conditions, tempDirectory);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        GlobalConfig.debugLog("EXPORT", "Exported " + rows + " rows as " + this.format
+                + (conditions != null ? " in " + conditions.size() + " ranges" : "")
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return rows;
+    }
+
+    /**
+     * 查询键的范围并均分，返回各段的条件；没有满足条件的行时返回null，按原查询导出
+     */
+    private List<Condition> splitRanges() throws SQLException {
+        long[] bounds = Terminal.run(this.connectionSource, true, connection -> {
+            try (PreparedStatement pstmt = this.query.prepareKeyBounds(connection, this.keyColumn);
+                 ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long min = rs.getLong(1);
+                if (rs.wasNull()) {
+                    return null;
+                }
+                return new long[]{min, rs.getLong(2)};
+            }
+        });
+        if (bounds == null) {
+            return null;
+        }
+
+        long min = bounds[0];
+        long max = bounds[1];
+        // 键的个数溢出 long 时不拆分
+        long count = max - min + 1;
+        int parts = count <= 0 ? 1 : (int) Math.min(this.ranges, count);
+        List<Condition> conditions = new ArrayList<>(parts);
+        long step = count / parts;
+        long remainder = count % parts;
+        long lower = min;
+        for (int i = 0; i < parts; i++) {
+            if (i == parts - 1) {
+                conditions.add(Condition.and(Condition.of(this.keyColumn, ">=", lower),
+                        Condition.of(this.keyColumn, "<=", max)));
+            } else {
+                long upper = lower + step + (i < remainder ? 1 : 0);
+                conditions.add(Condition.and(Condition.of(this.keyColumn, ">=", lower),
+                        Condition.of(this.keyColumn, "<", upper)));
+                lower = upper;
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * 第一段在调用线程上直接写入目标，其余各段在导出线程上写入临时文件，完成后按顺序拼接
+     */
+    private long exportParallel(WritableByteChannel target, List<Condition> conditions, Path tempDirectory)
+            throws IOException, SQLException {
+        List<Path> parts = new ArrayList<>(conditions.size() - 1);
+        List<Future<Long>> futures = new ArrayList<>(conditions.size() - 1);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(conditions.size() - 1, runnable -> {
+            Thread thread = new Thread(runnable, "AzuraORM-export-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 1; i < conditions.size(); i++) {
+                Path part = tempDirectory != null
+                        ? Files.createTempFile(tempDirectory, "azuraorm-export-", ".part")
+                        : Files.createTempFile("azuraorm-export-", ".part");
+                parts.add(part);
+                Condition range = conditions.get(i);
+                futures.add(executor.submit(() -> {
+                    try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                        return exportRange(channel, range, false);
+                    }
+                }));
+            }
+
+            long rows = exportRange(target, conditions.get(0), true);
+            for (int i = 0; i < futures.size(); i++) {
+                rows += await(futures.get(i));
+                try (FileChannel channel = FileChannel.open(parts.get(i), StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += channel.transferTo(position, size - position, target);
+                    }
+                }
+            }
+            return rows;
+        } finally {
+            for (Future<Long> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            for (Path part : parts) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete export temp file " + part + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long await(Future<Long> future) throws IOException, SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("导出被中断。", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException("导出失败。", cause);
+        } catch (CancellationException e) {
+            throw new SQLException("导出被取消。", e);
+        }
+    }
+
+    /**
+     * 在一个只读连接上执行查询并把结果写入通道
+     * @param range 键范围条件，为null时执行原查询
+     * @param first 是否为第一段，只有第一段写入表头
+     */
+    private long exportRange(WritableByteChannel channel, Condition range, boolean first) throws SQLException {
+        return Terminal.run(this.connectionSource, true, connection -> {
+            try (PreparedStatement pstmt = this.query.prepareRange(connection, range)) {
+                pstmt.setFetchSize(Dialects.resolve(this.connectionSource, connection).getStreamingFetchSize());
+                long rows = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ResultMappingEvent event = new ResultMappingEvent();
+                    event.begin();
+                    ExportEncoder encoder = new ExportEncoder(this.format, channel, this.bufferSize, rs.getMetaData());
+                    if (first && this.header) {
+                        encoder.writeHeader();
+                    }
+                    while (rs.next()) {
+                        encoder.writeRow(rs);
+                        rows++;
+                    }
+                    encoder.flush();
+                    JdbcSupport.commitMappingEvent(event, pstmt, (int) Math.min(rows, Integer.MAX_VALUE));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                StatementMetrics.recordRows(pstmt, (int) Math.min(rows, Integer.MAX_VALUE));
+                return rows;
+            }
+        });
+    }
+}
@@ -1,21 +1,51 @@
 package cc.azuramc.orm.builder;
 
+import cc.azuramc.orm.async.AsyncOrmClient;
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.jdbc.JdbcSupport;
+import cc.azuramc.orm.jfr.ResultMappingEvent;
+import cc.azuramc.orm.mapping.RowMapper;
+import cc.azuramc.orm.mapping.RowMappers;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 查询语句构建器，用于构建SELECT语句
  * 示例: new SelectBuilder(conn).select("id", "name").from("users").where("age", ">", 18).orderBy("id", "DESC").limit(10).prepare();
+ * 使用 {@link ConnectionSource} 创建时，通过 fetchList / fetchOne / fetchLong 等终结操作执行，连接在操作结束后立即归还。
  * @author an5w1r@163.com
  */
 public class SelectBuilder implements QueryBuilder {
+    /** 超长 IN 列表并行查询时最多同时使用的额外线程数，其余分块排队 */
+    private static final int MAX_PARALLEL_CHUNKS = 8;
+    private static final Pattern AGGREGATE = Pattern.compile("\\b(COUNT|SUM|AVG|MAX|MIN)\\s*\\(", Pattern.CASE_INSENSITIVE);
+
     private Connection connection;
+    private ConnectionSource connectionSource;
+    private AsyncOrmClient asyncClient;
     private String[] columns;
     private String tableName;
-    private List<WhereCondition> whereConditions = new ArrayList<>();
+    private WhereClause whereClause = new WhereClause();
     private List<String> groupByColumns = new ArrayList<>();
     private List<String> havingConditions = new ArrayList<>();
     private List<Object> havingValues = new ArrayList<>();
@@ -24,6 +54,7 @@ public class SelectBuilder implements QueryBuilder {
     private Integer limit;
     private Integer offset;
     private List<JoinClause> joins = new ArrayList<>();
+    private Comparator<? super String> mergeCollation;
 
     /** 内部类用于表示JOIN子句 */
     private static class JoinClause {
@@ -42,46 +73,40 @@ public class SelectBuilder implements QueryBuilder {
         }
     }
 
-    /** 内部类用于表示WHERE条件 */
-    private static class WhereCondition {
-        String column;
-        String operator;
-        Object value;
-        String logicalOperator;
-
-        WhereCondition(String column, String operator, Object value, String logicalOperator) {
-            this.column = column;
-            this.operator = operator;
-            this.value = value;
-            this.logicalOperator = logicalOperator;
-        }
-
-        String getSqlFragment() {
-            return column + " " + operator + " ?";
-        }
-
-        String getLogicalOperator() {
-            return logicalOperator;
-        }
-
-        String getColumn() {
-            return column;
-        }
-
-        String getOperator() {
-            return operator;
+    public SelectBuilder(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
         }
+        this.connection = connection;
+        this.connectionSource = ConnectionSource.of(connection);
+    }
 
-        Object getValue() {
-            return value;
+    /**
+     * 使用连接来源创建构建器，只能通过终结操作或 {@link #prepare(Connection)} 执行
+     * @param connectionSource 连接来源
+     */
+    public SelectBuilder(ConnectionSource connectionSource) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
         }
+        this.connectionSource = connectionSource;
     }
 
-    public SelectBuilder(Connection connection) {
-        if (connection == null) {
-            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
+    /**
+     * 绑定异步客户端，之后可以使用 *Async 终结操作在数据库线程池上执行
+     * 提交异步操作后不要再修改构建器。
+     * @param asyncClient 异步客户端
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder async(AsyncOrmClient asyncClient) {
+        if (asyncClient == null) {
+            throw new IllegalArgumentException("异步客户端 (AsyncOrmClient) 不能为空。");
         }
-        this.connection = connection;
+        if (this.connection != null) {
+            throw new IllegalStateException("绑定连接的构建器不能异步执行，JDBC连接不能在线程之间共享。");
+        }
+        this.asyncClient = asyncClient;
+        return this;
     }
 
     public SelectBuilder select(String... columns) {
@@ -106,10 +131,27 @@ public class SelectBuilder implements QueryBuilder {
     }
 
     public SelectBuilder where(String column, String operator, Object value, String logicalOperator) {
-        if (column == null || column.trim().isEmpty() || operator == null || operator.trim().isEmpty()) {
-            throw new IllegalArgumentException("WHERE 子句的列名和操作符不能为空。");
-        }
-        this.whereConditions.add(new WhereCondition(column, operator, value, logicalOperator));
+        this.whereClause.add(Condition.of(column, operator, value), logicalOperator);
+        return this;
+    }
+
+    /**
+     * 添加一个条件树 (默认用 AND 连接)，组合条件会自动加括号
+     * @param condition 条件，可以在多个查询之间复用
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder where(Condition condition) {
+        this.whereClause.add(condition, "AND");
+        return this;
+    }
+
+    /**
+     * 添加一个使用 OR 连接的条件树
+     * @param condition 条件
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder orWhere(Condition condition) {
+        this.whereClause.add(condition, "OR");
         return this;
     }
 
@@ -125,6 +167,37 @@ public class SelectBuilder implements QueryBuilder {
         return orWhere(column, "=", value);
     }
 
+    /**
+     * 添加一个 IN 条件 (默认用 AND 连接)
+     * 参数个数会补齐到 2 的幂以限制不同SQL的数量，超长列表会自动分块。
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为假
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder whereIn(String column, Collection<?> values) {
+        return where(Condition.in(column, values));
+    }
+
+    /**
+     * 添加一个 NOT IN 条件 (默认用 AND 连接)
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为真
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder whereNotIn(String column, Collection<?> values) {
+        return where(Condition.notIn(column, values));
+    }
+
+    /**
+     * 添加一个使用 OR 连接的 IN 条件
+     * @param column 列名
+     * @param values 值集合
+     * @return Builder 自身，用于链式调用
+     */
+    public SelectBuilder orWhereIn(String column, Collection<?> values) {
+        return orWhere(Condition.in(column, values));
+    }
+
     public SelectBuilder groupBy(String... columns) {
         if (columns != null) {
             for (String column : columns) {
@@ -159,6 +232,18 @@ public class SelectBuilder implements QueryBuilder {
         return orderBy(column, "ASC");
     }
 
+    /**
+     * 设置跨分片归并时字符串排序键的比较器，应与数据库列的排序规则一致，例如 {@code Collator.getInstance(Locale.CHINA)}
+     * 未设置时字符串按 {@link String#compareTo}（UTF-16 编码单元顺序）归并，只与二进制排序规则（例如 utf8mb4_bin）的顺序一致；
+     * 大小写不敏感或按语言排序的列不设置比较器时，合并后的顺序可能与单库查询不同。只查询一个分片时不使用。
+     * @param collation 字符串比较器，null 表示使用 Java 自然顺序
+     * @return 当前构建器
+     */
+    public SelectBuilder mergeCollation(Comparator<? super String> collation) {
+        this.mergeCollation = collation;
+        return this;
+    }
+
     public SelectBuilder limit(int limit) {
         if (limit < 0) {
             throw new IllegalArgumentException("LIMIT 值不能为负数。");
@@ -197,6 +282,27 @@ public class SelectBuilder implements QueryBuilder {
 
     @Override
     public PreparedStatement prepare() throws SQLException {
+        if (this.connection == null) {
+            throw new IllegalStateException("该构建器没有绑定连接，请使用 prepare(Connection) 或 fetchList() 等终结操作。");
+        }
+        return prepare(this.connection, this.whereClause, this.limit, this.offset);
+    }
+
+    /**
+     * 在指定连接上准备语句，语句由调用方关闭
+     * @param connection 数据库连接
+     * @return PreparedStatement对象
+     * @throws SQLException 如果发生SQL异常
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        if (connection == null) {
+            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
+        }
+        return prepare(connection, this.whereClause, this.limit, this.offset);
+    }
+
+    private PreparedStatement prepare(Connection connection, WhereClause whereClause, Integer limit, Integer offset)
+            throws SQLException {
         if (this.columns == null) {
             throw new IllegalStateException("必须先调用 select() 指定要查询的列。");
         }
@@ -208,32 +314,11 @@ public class SelectBuilder implements QueryBuilder {
         
         // SELECT 子句
         sqlBuilder.append(String.join(", ", this.columns));
-        
-        // FROM 子句
-        sqlBuilder.append(" FROM ").append(this.tableName);
-        
-        // JOIN 子句
-        if (!this.joins.isEmpty()) {
-            for (JoinClause join : this.joins) {
-                sqlBuilder.append(" ").append(join.getSqlFragment());
-            }
-        }
 
         List<Object> parameters = new ArrayList<>();
-        
-        // WHERE 子句
-        if (!this.whereConditions.isEmpty()) {
-            sqlBuilder.append(" WHERE ");
-            boolean isFirst = true;
-            for (WhereCondition condition : this.whereConditions) {
-                if (!isFirst) {
-                    sqlBuilder.append(" ").append(condition.getLogicalOperator()).append(" ");
-                }
-                sqlBuilder.append(condition.getSqlFragment());
-                parameters.add(condition.getValue());
-                isFirst = false;
-            }
-        }
+
+        // FROM、JOIN 和 WHERE 子句
+        appendFromWhere(sqlBuilder, whereClause, parameters);
         
         // GROUP BY 子句
         if (!this.groupByColumns.isEmpty()) {
@@ -256,20 +341,26 @@ public class SelectBuilder implements QueryBuilder {
             sqlBuilder.append(String.join(", ", orderClauses));
         }
         
-        // LIMIT 和 OFFSET 子句
-        if (this.limit != null) {
-            sqlBuilder.append(" LIMIT ?");
-            parameters.add(this.limit);
-            
-            if (this.offset != null) {
-                sqlBuilder.append(" OFFSET ?");
-                parameters.add(this.offset);
-            }
+        // 分页子句，写法由方言决定
+        if (limit != null) {
+            Dialects.resolve(this.connectionSource, connection).appendLimit(sqlBuilder, parameters, limit, offset);
         }
 
-        String finalSql = sqlBuilder.toString();
-        
-        PreparedStatement pstmt = this.connection.prepareStatement(finalSql);
+        return prepareWith(connection, sqlBuilder.toString(), parameters);
+    }
+
+    private void appendFromWhere(StringBuilder sqlBuilder, WhereClause whereClause, List<Object> parameters) {
+        sqlBuilder.append(" FROM ").append(this.tableName);
+        for (JoinClause join : this.joins) {
+            sqlBuilder.append(" ").append(join.getSqlFragment());
+        }
+        whereClause.appendSql(sqlBuilder);
+        whereClause.appendParameters(parameters);
+    }
+
+    private static PreparedStatement prepareWith(Connection connection, String finalSql, List<Object> parameters)
+            throws SQLException {
+        PreparedStatement pstmt = StatementMetrics.prepare(connection, finalSql);
         try {
             for (int i = 0; i < parameters.size(); i++) {
                 pstmt.setObject(i + 1, parameters.get(i));
@@ -280,7 +371,441 @@ public class SelectBuilder implements QueryBuilder {
         }
         return pstmt;
     }
+
+    /**
+     * 创建流式导出器，把查询结果直接写入文件或通道
+     * @return 导出器
+     */
+    public QueryExporter export() {
+        return new QueryExporter(this);
+    }
+
+    ConnectionSource getConnectionSource() {
+        return this.connectionSource;
+    }
+
+    boolean isConnectionBound() {
+        return this.connection != null;
+    }
+
+    /**
+     * 准备在原条件上追加键范围条件的查询，供导出按范围拆分执行
+     * @param range 范围条件，为null时执行原查询
+     */
+    PreparedStatement prepareRange(Connection connection, Condition range) throws SQLException {
+        WhereClause clause = range != null ? this.whereClause.and(range) : this.whereClause;
+        return prepare(connection, clause, this.limit, this.offset);
+    }
+
+    /**
+     * 准备查询满足条件的行中键的最小值和最大值的语句
+     * @param keyColumn 键列
+     */
+    PreparedStatement prepareKeyBounds(Connection connection, String keyColumn) throws SQLException {
+        if (this.tableName == null) {
+            throw new IllegalStateException("必须调用 from() 指定表名。");
+        }
+        StringBuilder sqlBuilder = new StringBuilder("SELECT MIN(").append(keyColumn)
+                .append("), MAX(").append(keyColumn).append(")");
+        List<Object> parameters = new ArrayList<>();
+        appendFromWhere(sqlBuilder, this.whereClause, parameters);
+        return prepareWith(connection, sqlBuilder.toString(), parameters);
+    }
+
+    /**
+     * 检查查询能否按键范围拆分：拆分后各段结果按范围顺序拼接，必须与原查询一致
+     * @param keyColumn 键列
+     */
+    void checkRangeSplittable(String keyColumn) {
+        if (this.columns == null) {
+            throw new IllegalStateException("必须先调用 select() 指定要查询的列。");
+        }
+        if (!this.groupByColumns.isEmpty() || this.limit != null || this.offset != null || hasAggregateOrDistinct()) {
+            throw new IllegalStateException("按键范围拆分导出不支持 GROUP BY、DISTINCT、聚合函数和分页。");
+        }
+        if (!this.orderByColumns.isEmpty()
+                && (!keyColumn.equalsIgnoreCase(this.orderByColumns.get(0)) || !"ASC".equals(this.orderByDirections.get(0)))) {
+            throw new IllegalStateException("按键范围拆分导出时只能按键列升序排序: " + keyColumn);
+        }
+    }
+
+    /**
+     * 执行查询并使用编译期生成的映射器映射所有行，执行完毕后关闭语句和结果集
+     * 通过 {@link Connection} 创建的构建器不会关闭连接；通过 {@link ConnectionSource} 创建的构建器会在结束后归还连接。
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 映射结果列表
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> List<T> fetch(Class<T> type) throws SQLException {
+        return fetch(RowMappers.forClass(type));
+    }
+
+    /**
+     * 执行查询并使用指定映射器映射所有行，执行完毕后关闭语句和结果集
+     * 列索引在执行后通过 {@link RowMapper#bind} 解析一次，之后逐行按索引读取。
+     * @param mapper 行映射器
+     * @param <T> 映射结果类型
+     * @return 映射结果列表
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> List<T> fetch(RowMapper<T> mapper) throws SQLException {
+        if (mapper == null) {
+            throw new IllegalArgumentException("RowMapper 不能为空。");
+        }
+        if (this.connectionSource instanceof ShardedConnectionSource) {
+            return fetchSharded((ShardedConnectionSource) this.connectionSource, mapper, 0);
+        }
+        return fetchFrom(this.connectionSource, mapper, 0);
+    }
+
+    private <T> List<T> fetchFrom(ConnectionSource source, RowMapper<T> mapper, int maxRows) throws SQLException {
+        // 超长 IN 列表在语义允许时拆成多条固定形状的查询，结果按块顺序拼接
+        int splitIndex = maxRows > 0 ? -1 : findSplittableInList();
+        if (splitIndex < 0) {
+            return Terminal.run(source, true, connection -> {
+                List<T> results = new ArrayList<>();
+                fetchInto(connection, this.whereClause, mapper, results, maxRows);
+                return results;
+            });
+        }
+
+        Condition.In splitCondition = (Condition.In) this.whereClause.get(splitIndex);
+        List<Object> distinctValues = new ArrayList<>(new LinkedHashSet<>(splitCondition.getValues()));
+        List<List<Object>> chunks = InList.chunks(distinctValues);
+        if (source.isConnectionBound()) {
+            // 调用方的连接或事务连接不能在线程之间共享，在同一个连接上依次执行
+            return Terminal.run(source, true, connection -> {
+                List<T> results = new ArrayList<>();
+                for (List<Object> chunk : chunks) {
+                    fetchInto(connection, chunkClause(splitIndex, splitCondition, chunk), mapper, results, 0);
+                }
+                return results;
+            });
+        }
+
+        // 每个分块借出自己的连接并行查询，第一个分块在调用线程上执行，结果按分块顺序拼接
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(chunks.size() - 1, MAX_PARALLEL_CHUNKS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "AzuraORM-in-list-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<List<T>> parts = ShardRouting.scatter(executor, chunks,
+                    chunk -> Terminal.run(source, true, connection -> {
+                        List<T> results = new ArrayList<>();
+                        fetchInto(connection, chunkClause(splitIndex, splitCondition, chunk), mapper, results, 0);
+                        return results;
+                    }));
+            List<T> results = new ArrayList<>(distinctValues.size());
+            for (List<T> part : parts) {
+                results.addAll(part);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WhereClause chunkClause(int splitIndex, Condition.In splitCondition, List<Object> chunk) {
+        return this.whereClause.with(splitIndex, Condition.in(splitCondition.getColumn(), chunk));
+    }
+
+    /**
+     * 分片查询: 能确定分片键时只查询对应分片，否则在所有分片上并行查询并合并
+     * 各分片使用 LIMIT (limit + offset) 查询，合并后再应用 OFFSET 和 LIMIT。
+     */
+    private <T> List<T> fetchSharded(ShardedConnectionSource sharded, RowMapper<T> mapper, int maxRows)
+            throws SQLException {
+        List<ConnectionSource> shards = ShardRouting.route(sharded, this.whereClause);
+        if (shards.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (shards.size() == 1) {
+            return fetchFrom(shards.get(0), mapper, maxRows);
+        }
+        if (!this.groupByColumns.isEmpty() || hasAggregateOrDistinct()) {
+            throw new IllegalStateException("跨分片查询不支持 GROUP BY、DISTINCT 和聚合函数，请在条件中指定分片键。");
+        }
+
+        int skip = this.offset != null ? this.offset : 0;
+        Integer shardLimit = this.limit != null ? this.limit + skip : null;
+        int shardMaxRows = maxRows > 0 ? maxRows + skip : 0;
+        List<List<ShardMerge.Row<T>>> shardRows = ShardRouting.scatter(sharded.getExecutor(), shards,
+                shard -> Terminal.run(shard, true, connection -> readRows(connection, shardLimit, mapper, shardMaxRows)));
+
+        int take = this.limit != null ? this.limit : 0;
+        if (maxRows > 0) {
+            take = take > 0 ? Math.min(take, maxRows) : maxRows;
+        }
+        List<T> merged;
+        if (this.orderByColumns.isEmpty()) {
+            merged = ShardMerge.concat(shardRows);
+        } else {
+            boolean[] descending = new boolean[this.orderByDirections.size()];
+            for (int i = 0; i < descending.length; i++) {
+                descending[i] = "DESC".equals(this.orderByDirections.get(i));
+            }
+            merged = ShardMerge.mergeSorted(shardRows, descending, this.mergeCollation, take > 0 ? take + skip : 0);
+        }
+        int from = Math.min(skip, merged.size());
+        int to = take > 0 ? Math.min(merged.size(), from + take) : merged.size();
+        return from == 0 && to == merged.size() ? merged : new ArrayList<>(merged.subList(from, to));
+    }
+
+    /**
+     * 读取一个分片的结果，同时记录 ORDER BY 列的值用于归并
+     */
+    private <T> List<ShardMerge.Row<T>> readRows(Connection connection, Integer shardLimit, RowMapper<T> mapper,
+                                                int maxRows) throws SQLException {
+        List<ShardMerge.Row<T>> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = prepare(connection, this.whereClause, shardLimit, null);
+             ResultSet rs = pstmt.executeQuery()) {
+            ResultMappingEvent event = new ResultMappingEvent();
+            event.begin();
+            ResultSetMetaData meta = rs.getMetaData();
+            RowMapper<T> boundMapper = mapper.bind(meta);
+            int[] sortIndexes = new int[this.orderByColumns.size()];
+            for (int i = 0; i < sortIndexes.length; i++) {
+                sortIndexes[i] = findColumn(meta, this.orderByColumns.get(i));
+            }
+            while (rs.next() && (maxRows <= 0 || rows.size() < maxRows)) {
+                Object[] sortKeys = new Object[sortIndexes.length];
+                for (int i = 0; i < sortIndexes.length; i++) {
+                    sortKeys[i] = rs.getObject(sortIndexes[i]);
+                }
+                rows.add(new ShardMerge.Row<>(boundMapper.mapRow(rs), sortKeys));
+            }
+            JdbcSupport.commitMappingEvent(event, pstmt, rows.size());
+            StatementMetrics.recordRows(pstmt, rows.size());
+        }
+        return rows;
+    }
+
+    private static int findColumn(ResultSetMetaData meta, String column) throws SQLException {
+        String name = column.trim();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if (name.equalsIgnoreCase(meta.getColumnLabel(i))) {
+                return i;
+            }
+        }
+        throw new SQLException("跨分片排序需要查询结果中包含排序列: " + column);
+    }
+
+    private boolean hasAggregateOrDistinct() {
+        for (String column : this.columns) {
+            if (AGGREGATE.matcher(column).find() || column.trim().toUpperCase(Locale.ROOT).startsWith("DISTINCT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 执行查询并映射所有行，与 {@link #fetch(Class)} 相同
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 映射结果列表
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> List<T> fetchList(Class<T> type) throws SQLException {
+        return fetch(type);
+    }
+
+    /**
+     * 执行查询并映射所有行，与 {@link #fetch(RowMapper)} 相同
+     * @param mapper 行映射器
+     * @param <T> 映射结果类型
+     * @return 映射结果列表
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> List<T> fetchList(RowMapper<T> mapper) throws SQLException {
+        return fetch(mapper);
+    }
+
+    /**
+     * 执行查询并映射第一行，其余行不读取
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 第一行的映射结果，没有结果时返回null
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> T fetchOne(Class<T> type) throws SQLException {
+        return fetchOne(RowMappers.forClass(type));
+    }
+
+    /**
+     * 执行查询并映射第一行，其余行不读取
+     * @param mapper 行映射器
+     * @param <T> 映射结果类型
+     * @return 第一行的映射结果，没有结果时返回null
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> T fetchOne(RowMapper<T> mapper) throws SQLException {
+        if (mapper == null) {
+            throw new IllegalArgumentException("RowMapper 不能为空。");
+        }
+        List<T> results = this.connectionSource instanceof ShardedConnectionSource
+                ? fetchSharded((ShardedConnectionSource) this.connectionSource, mapper, 1)
+                : fetchFrom(this.connectionSource, mapper, 1);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * 执行查询并读取第一行第一列的整数值，适用于 COUNT、MAX 等聚合查询
+     * 跨分片执行时按聚合函数合并各分片的值: COUNT / SUM 求和，MAX / MIN 取最值。
+     * @return 第一行第一列的值，没有结果或值为NULL时返回0
+     * @throws SQLException 如果发生SQL异常
+     */
+    public long fetchLong() throws SQLException {
+        RowMapper<Long> firstColumn = rs -> {
+            long value = rs.getLong(1);
+            return rs.wasNull() ? null : value;
+        };
+        if (!(this.connectionSource instanceof ShardedConnectionSource)) {
+            Long value = fetchOne(firstColumn);
+            return value != null ? value : 0L;
+        }
+
+        ShardedConnectionSource sharded = (ShardedConnectionSource) this.connectionSource;
+        List<ConnectionSource> shards = ShardRouting.route(sharded, this.whereClause);
+        if (shards.size() <= 1) {
+            Long value = shards.isEmpty() ? null : first(fetchFrom(shards.get(0), firstColumn, 1));
+            return value != null ? value : 0L;
+        }
+        Matcher matcher = AGGREGATE.matcher(this.columns[0].trim());
+        String function = matcher.lookingAt() ? matcher.group(1).toUpperCase(Locale.ROOT) : null;
+        if (function == null || "AVG".equals(function) || this.columns.length != 1 || !this.groupByColumns.isEmpty()) {
+            throw new IllegalStateException("跨分片的 fetchLong() 只支持单列 COUNT / SUM / MAX / MIN 聚合，请在条件中指定分片键。");
+        }
+
+        List<Long> values = ShardRouting.scatter(sharded.getExecutor(), shards,
+                shard -> first(fetchFrom(shard, firstColumn, 1)));
+        Long result = null;
+        for (Long value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (result == null) {
+                result = value;
+            } else if ("MAX".equals(function)) {
+                result = Math.max(result, value);
+            } else if ("MIN".equals(function)) {
+                result = Math.min(result, value);
+            } else {
+                result += value;
+            }
+        }
+        return result != null ? result : 0L;
+    }
+
+    private static <T> T first(List<T> results) {
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    private <T> void fetchInto(Connection connection, WhereClause whereClause, RowMapper<T> mapper,
+                               List<T> results, int maxRows) throws SQLException {
+        try (PreparedStatement pstmt = prepare(connection, whereClause, this.limit, this.offset)) {
+            Terminal.mapRows(pstmt, mapper, results, maxRows);
+        }
+    }
+
+    /**
+     * 查找可以拆分执行的超长 IN 条件
+     * 只有当它是唯一的超长 IN、所有条件均以 AND 连接，且查询不含聚合、去重、分组、排序和分页时，
+     * 拆分后的结果才与单条语句一致。各分块在各自的连接上并行执行，不在同一个快照中读取；
+     * 需要一致的快照时在事务中查询，事务中的分块在事务连接上依次执行。
+     * @return 条件下标，不可拆分时返回 -1
+     */
+    private int findSplittableInList() {
+        int splitIndex = -1;
+        for (int i = 0; i < this.whereClause.size(); i++) {
+            if (i > 0 && !"AND".equalsIgnoreCase(this.whereClause.getLogicalOperator(i))) {
+                return -1;
+            }
+            Condition condition = this.whereClause.get(i);
+            if (condition instanceof Condition.In && !((Condition.In) condition).isNegated()
+                    && ((Condition.In) condition).getValues().size() > InList.MAX_BUCKET_SIZE) {
+                if (splitIndex >= 0) {
+                    return -1;
+                }
+                splitIndex = i;
+            }
+        }
+        if (splitIndex < 0 || !this.groupByColumns.isEmpty() || !this.orderByColumns.isEmpty()
+                || this.limit != null || this.offset != null) {
+            return -1;
+        }
+        for (String column : this.columns) {
+            String normalized = column.trim().toUpperCase(Locale.ROOT);
+            if (normalized.contains("(") || normalized.startsWith("DISTINCT")) {
+                return -1;
+            }
+        }
+        return splitIndex;
+    }
     
+    /**
+     * 在数据库线程池上执行 {@link #fetchList(Class)}
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 映射结果列表
+     */
+    public <T> CompletableFuture<List<T>> fetchListAsync(Class<T> type) {
+        return requireAsync().supply(() -> fetch(type));
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #fetchList(RowMapper)}
+     * @param mapper 行映射器
+     * @param <T> 映射结果类型
+     * @return 映射结果列表
+     */
+    public <T> CompletableFuture<List<T>> fetchListAsync(RowMapper<T> mapper) {
+        return requireAsync().supply(() -> fetch(mapper));
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #fetchOne(Class)}
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 第一行的映射结果，没有结果时为null
+     */
+    public <T> CompletableFuture<T> fetchOneAsync(Class<T> type) {
+        return requireAsync().supply(() -> fetchOne(type));
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #fetchOne(RowMapper)}
+     * @param mapper 行映射器
+     * @param <T> 映射结果类型
+     * @return 第一行的映射结果，没有结果时为null
+     */
+    public <T> CompletableFuture<T> fetchOneAsync(RowMapper<T> mapper) {
+        return requireAsync().supply(() -> fetchOne(mapper));
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #fetchLong()}
+     * @return 第一行第一列的值
+     */
+    public CompletableFuture<Long> fetchLongAsync() {
+        return requireAsync().supply(this::fetchLong);
+    }
+
+    private AsyncOrmClient requireAsync() {
+        if (this.asyncClient == null) {
+            throw new IllegalStateException("该构建器没有绑定异步客户端，请通过 client.async() 创建。");
+        }
+        return this.asyncClient;
+    }
+
     @Override
     public String toSql() {
         StringBuilder sqlBuilder = new StringBuilder("SELECT ");
@@ -299,17 +824,7 @@ public class SelectBuilder implements QueryBuilder {
         }
         
         // WHERE 子句
-        if (!this.whereConditions.isEmpty()) {
-            sqlBuilder.append(" WHERE ");
-            boolean isFirst = true;
-            for (WhereCondition condition : this.whereConditions) {
-                if (!isFirst) {
-                    sqlBuilder.append(" ").append(condition.getLogicalOperator()).append(" ");
-                }
-                sqlBuilder.append(condition.getColumn()).append(" ").append(condition.getOperator()).append(" ?");
-                isFirst = false;
-            }
-        }
+        this.whereClause.appendSql(sqlBuilder);
         
         // GROUP BY 子句
         if (!this.groupByColumns.isEmpty()) {
@@ -331,12 +846,20 @@ public class SelectBuilder implements QueryBuilder {
             sqlBuilder.append(String.join(", ", orderClauses));
         }
         
-        // LIMIT 和 OFFSET 子句
+        // 分页子句，连接来源不知道方言时按标准写法输出
         if (this.limit != null) {
-            sqlBuilder.append(" LIMIT ").append(this.limit);
-            
-            if (this.offset != null) {
-                sqlBuilder.append(" OFFSET ").append(this.offset);
+            Dialect dialect = this.connectionSource != null ? this.connectionSource.getDialect() : null;
+            StringBuilder limitClause = new StringBuilder();
+            List<Object> limitParameters = new ArrayList<>();
+            (dialect != null ? dialect : Dialects.GENERIC).appendLimit(limitClause, limitParameters, this.limit, this.offset);
+            int parameterIndex = 0;
+            for (int i = 0; i < limitClause.length(); i++) {
+                char c = limitClause.charAt(i);
+                if (c == '?' && parameterIndex < limitParameters.size()) {
+                    sqlBuilder.append(limitParameters.get(parameterIndex++));
+                } else {
+                    sqlBuilder.append(c);
+                }
             }
         }
         
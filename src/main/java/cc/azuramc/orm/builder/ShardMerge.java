@@ -0,0 +1,117 @@
+package cc.azuramc.orm.builder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 跨分片查询结果的合并
+ * 每个分片的结果已按 ORDER BY 排好序，这里做 k 路归并；排序键按 Java 自然顺序比较，NULL 排在升序的最前面。
+ * 字符串的 Java 自然顺序是 UTF-16 编码单元顺序，与数据库的排序规则（大小写不敏感、按语言排序等）不一定相同，
+ * 这类列需要通过 {@link SelectBuilder#mergeCollation} 提供一致的比较器，否则归并结果的顺序可能与单库查询不同。
+ * @author AzuraMC Team
+ */
+final class ShardMerge {
+
+    private ShardMerge() {
+    }
+
+    /** 映射结果及其排序键 */
+    static final class Row<T> {
+        final T value;
+        final Object[] sortKeys;
+
+        Row(T value, Object[] sortKeys) {
+            this.value = value;
+            this.sortKeys = sortKeys;
+        }
+    }
+
+    /**
+     * 按分片顺序拼接结果
+     */
+    static <T> List<T> concat(List<List<Row<T>>> shards) {
+        int size = 0;
+        for (List<Row<T>> rows : shards) {
+            size += rows.size();
+        }
+        List<T> merged = new ArrayList<>(size);
+        for (List<Row<T>> rows : shards) {
+            for (Row<T> row : rows) {
+                merged.add(row.value);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 归并各分片已排序的结果
+     * @param shards 各分片的结果
+     * @param descending 每个排序键是否降序
+     * @param collation 字符串排序键的比较器，null 表示 Java 自然顺序
+     * @param maxRows 最多返回的行数，小于等于0表示不限制
+     */
+    static <T> List<T> mergeSorted(List<List<Row<T>>> shards, boolean[] descending,
+                                   Comparator<? super String> collation, int maxRows) {
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, shards.size()), (a, b) -> {
+            int c = compareKeys(shards.get(a[0]).get(a[1]).sortKeys, shards.get(b[0]).get(b[1]).sortKeys,
+                    descending, collation);
+            // 排序键相同时按分片顺序，保证结果稳定
+            return c != 0 ? c : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < shards.size(); i++) {
+            if (!shards.get(i).isEmpty()) {
+                cursors.add(new int[]{i, 0});
+            }
+        }
+
+        List<T> merged = new ArrayList<>();
+        while (!cursors.isEmpty() && (maxRows <= 0 || merged.size() < maxRows)) {
+            int[] cursor = cursors.poll();
+            List<Row<T>> rows = shards.get(cursor[0]);
+            merged.add(rows.get(cursor[1]).value);
+            if (++cursor[1] < rows.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    static int compareKeys(Object[] a, Object[] b, boolean[] descending, Comparator<? super String> collation) {
+        for (int i = 0; i < a.length; i++) {
+            int c = compareValues(a[i], b[i], collation);
+            if (c != 0) {
+                return descending[i] ? -c : c;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b, Comparator<? super String> collation) {
+        if (a == b) {
+            return 0;
+        }
+        if (a == null) {
+            return -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        if (a instanceof Number && b instanceof Number && a.getClass() != b.getClass()) {
+            if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            }
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (collation != null && a instanceof String && b instanceof String) {
+            return collation.compare((String) a, (String) b);
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+}
@@ -0,0 +1,170 @@
+package cc.azuramc.orm.builder;
+
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+import cc.azuramc.orm.util.ReadYourWritesContext;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 构建器终结操作的分片路由
+ * 只从 AND 连接的顶层条件（以及其中的 AND / OR 组合）中提取分片列的 = 和 IN 条件，无法确定分片键时路由到所有分片。
+ * @author AzuraMC Team
+ */
+final class ShardRouting {
+
+    private ShardRouting() {
+    }
+
+    /** 在单个分片（或单个 IN 列表分块）上执行的任务 */
+    @FunctionalInterface
+    interface ScatterTask<I, R> {
+        R execute(I item) throws SQLException;
+    }
+
+    /**
+     * 计算WHERE子句涉及的分片
+     * @param sharded 分片连接来源
+     * @param whereClause WHERE子句
+     * @return 目标分片，分片键为空集合（例如 IN ()）时返回空列表
+     */
+    static List<ConnectionSource> route(ShardedConnectionSource sharded, WhereClause whereClause) {
+        Collection<?> shardKeys = shardKeys(sharded, whereClause);
+        return shardKeys != null ? sharded.shardsFor(shardKeys) : sharded.allShards();
+    }
+
+    /**
+     * 提取WHERE子句限定的分片键取值
+     * @return 分片键取值，无法确定时返回null
+     */
+    static Collection<?> shardKeys(ShardedConnectionSource sharded, WhereClause whereClause) {
+        Collection<?> best = null;
+        for (int i = 0; i < whereClause.size(); i++) {
+            if (i > 0 && !"AND".equalsIgnoreCase(whereClause.getLogicalOperator(i))) {
+                return null;
+            }
+            best = narrower(best, shardKeys(sharded, whereClause.get(i)));
+        }
+        return best;
+    }
+
+    private static Collection<?> shardKeys(ShardedConnectionSource sharded, Condition condition) {
+        if (condition instanceof Condition.Comparison) {
+            Condition.Comparison comparison = (Condition.Comparison) condition;
+            if ("=".equals(comparison.getOperator().trim()) && comparison.getValue() != null
+                    && sharded.isShardColumn(comparison.getColumn())) {
+                return Collections.singletonList(comparison.getValue());
+            }
+            return null;
+        }
+        if (condition instanceof Condition.In) {
+            Condition.In in = (Condition.In) condition;
+            return !in.isNegated() && sharded.isShardColumn(in.getColumn()) ? in.getValues() : null;
+        }
+        if (condition instanceof Condition.Junction) {
+            Condition.Junction junction = (Condition.Junction) condition;
+            if ("AND".equals(junction.getOperator())) {
+                Collection<?> best = null;
+                for (Condition child : junction.getChildren()) {
+                    best = narrower(best, shardKeys(sharded, child));
+                }
+                return best;
+            }
+            // OR: 每个分支都限定了分片键时取并集
+            if (junction.getChildren().isEmpty()) {
+                return null;
+            }
+            Set<Object> union = new LinkedHashSet<>();
+            for (Condition child : junction.getChildren()) {
+                Collection<?> childKeys = shardKeys(sharded, child);
+                if (childKeys == null) {
+                    return null;
+                }
+                union.addAll(childKeys);
+            }
+            return union;
+        }
+        return null;
+    }
+
+    private static Collection<?> narrower(Collection<?> current, Collection<?> candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+
+    /**
+     * 执行更新或删除，分片连接来源会在每个目标分片上执行并汇总影响行数
+     * 跨分片的写入在各分片上分别提交，不保证原子性。
+     */
+    static int executeUpdate(ConnectionSource source, WhereClause whereClause, Terminal.StatementFactory factory)
+            throws SQLException {
+        if (!(source instanceof ShardedConnectionSource)) {
+            return Terminal.executeUpdate(source, factory);
+        }
+        int total = 0;
+        for (ConnectionSource shard : route((ShardedConnectionSource) source, whereClause)) {
+            total += Terminal.executeUpdate(shard, factory);
+        }
+        return total;
+    }
+
+    /**
+     * 在多个分片（或 IN 列表分块）上并行执行任务，第一个在调用线程上执行
+     * 调用线程的读己之写窗口随任务带到执行线程。
+     * @return 各任务的结果，顺序与 items 相同
+     */
+    static <I, R> List<R> scatter(ExecutorService executor, List<I> items, ScatterTask<I, R> task)
+            throws SQLException {
+        ReadYourWritesContext context = ReadYourWritesContext.capture();
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (int i = 1; i < items.size(); i++) {
+            I item = items.get(i);
+            FutureTask<R> future = new FutureTask<>(() -> task.execute(item));
+            executor.execute(context.wrap(future));
+            futures.add(future);
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            results.add(task.execute(items.get(0)));
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("并行查询被中断。", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException("并行查询失败。", cause);
+        } catch (CancellationException e) {
+            throw new SQLException("并行查询被取消。", e);
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
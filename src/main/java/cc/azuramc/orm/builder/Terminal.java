@@ -0,0 +1,79 @@
+package cc.azuramc.orm.builder;
+
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.jdbc.JdbcSupport;
+import cc.azuramc.orm.jdbc.JdbcSupport.ConnectionCallback;
+import cc.azuramc.orm.jfr.ResultMappingEvent;
+import cc.azuramc.orm.mapping.RowMapper;
+import cc.azuramc.orm.metrics.StatementMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * 构建器终结操作的公共实现
+ * 在一次 acquire / release 之间完成执行和映射，语句和结果集在归还连接前关闭。
+ * @author AzuraMC Team
+ */
+final class Terminal {
+
+    private Terminal() {
+    }
+
+    /** 基于连接创建语句的操作 */
+    @FunctionalInterface
+    interface StatementFactory {
+        PreparedStatement prepare(Connection connection) throws SQLException;
+    }
+
+    static <R> R run(ConnectionSource source, ConnectionCallback<R> callback) throws SQLException {
+        return run(source, false, callback);
+    }
+
+    /**
+     * 借出连接执行操作并归还，见 {@link JdbcSupport#run}
+     * @param source 连接来源
+     * @param readOnly 是否为只读查询，只读查询可以被路由到从库
+     * @param callback 操作
+     * @return 操作结果
+     */
+    static <R> R run(ConnectionSource source, boolean readOnly, ConnectionCallback<R> callback) throws SQLException {
+        return JdbcSupport.run(source, readOnly, callback);
+    }
+
+    static int executeUpdate(ConnectionSource source, StatementFactory factory) throws SQLException {
+        return run(source, connection -> {
+            try (PreparedStatement pstmt = factory.prepare(connection)) {
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 执行查询并把映射结果追加到列表
+     * @param pstmt 语句，由调用方关闭
+     * @param mapper 行映射器
+     * @param results 结果列表
+     * @param maxRows 最多读取的行数，小于等于0表示不限制
+     */
+    static <T> void mapRows(PreparedStatement pstmt, RowMapper<T> mapper, List<T> results, int maxRows)
+            throws SQLException {
+        int start = results.size();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            ResultMappingEvent event = new ResultMappingEvent();
+            event.begin();
+            RowMapper<T> boundMapper = mapper.bind(rs.getMetaData());
+            while (rs.next()) {
+                results.add(boundMapper.mapRow(rs));
+                if (maxRows > 0 && results.size() >= maxRows) {
+                    break;
+                }
+            }
+            JdbcSupport.commitMappingEvent(event, pstmt, results.size() - start);
+        }
+        StatementMetrics.recordRows(pstmt, results.size() - start);
+    }
+}
@@ -1,12 +1,18 @@
 package cc.azuramc.orm.builder;
 
+import cc.azuramc.orm.async.AsyncOrmClient;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.metrics.StatementMetrics;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -19,14 +25,45 @@ public class UpdateBuilder implements QueryBuilder {
     private String tableName;
     private Map<String, Object> setClauses = new LinkedHashMap<>();
     /** 存储WHERE条件 */
-    private List<WhereCondition> whereConditions = new ArrayList<>();
+    private WhereClause whereClause = new WhereClause();
     private Connection connection;
+    private ConnectionSource connectionSource;
+    private AsyncOrmClient asyncClient;
 
     public UpdateBuilder(Connection connection) {
         if (connection == null) {
             throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
         }
         this.connection = connection;
+        this.connectionSource = ConnectionSource.of(connection);
+    }
+
+    /**
+     * 使用连接来源创建构建器，只能通过 executeUpdate() 等终结操作或 {@link #prepare(Connection)} 执行
+     * @param connectionSource 连接来源
+     */
+    public UpdateBuilder(ConnectionSource connectionSource) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
+        }
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * 绑定异步客户端，之后可以使用 *Async 终结操作在数据库线程池上执行
+     * 提交异步操作后不要再修改构建器。
+     * @param asyncClient 异步客户端
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder async(AsyncOrmClient asyncClient) {
+        if (asyncClient == null) {
+            throw new IllegalArgumentException("异步客户端 (AsyncOrmClient) 不能为空。");
+        }
+        if (this.connection != null) {
+            throw new IllegalStateException("绑定连接的构建器不能异步执行，JDBC连接不能在线程之间共享。");
+        }
+        this.asyncClient = asyncClient;
+        return this;
     }
 
     public UpdateBuilder update(String tableName) {
@@ -65,10 +102,27 @@ public class UpdateBuilder implements QueryBuilder {
      * @return Builder 自身，用于链式调用
      */
     public UpdateBuilder where(String column, String operator, Object value, String logicalOperator) {
-        if (column == null || column.trim().isEmpty() || operator == null || operator.trim().isEmpty()) {
-            throw new IllegalArgumentException("WHERE 子句的列名和操作符不能为空。");
-        }
-        this.whereConditions.add(new WhereCondition(column, operator, value, logicalOperator));
+        this.whereClause.add(Condition.of(column, operator, value), logicalOperator);
+        return this;
+    }
+
+    /**
+     * 添加一个条件树 (默认用 AND 连接)，组合条件会自动加括号
+     * @param condition 条件，可以在多个语句之间复用
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder where(Condition condition) {
+        this.whereClause.add(condition, "AND");
+        return this;
+    }
+
+    /**
+     * 添加一个使用 OR 连接的条件树
+     * @param condition 条件
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder orWhere(Condition condition) {
+        this.whereClause.add(condition, "OR");
         return this;
     }
 
@@ -98,8 +152,55 @@ public class UpdateBuilder implements QueryBuilder {
         return orWhere(column, "=", value);
     }
 
+    /**
+     * 添加一个 IN 条件 (默认用 AND 连接)
+     * 参数个数会补齐到 2 的幂以限制不同SQL的数量，超长列表会自动分块。
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为假
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder whereIn(String column, Collection<?> values) {
+        return where(Condition.in(column, values));
+    }
+
+    /**
+     * 添加一个 NOT IN 条件 (默认用 AND 连接)
+     * @param column 列名
+     * @param values 值集合，为空集合时条件恒为真
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder whereNotIn(String column, Collection<?> values) {
+        return where(Condition.notIn(column, values));
+    }
+
+    /**
+     * 添加一个使用 OR 连接的 IN 条件
+     * @param column 列名
+     * @param values 值集合
+     * @return Builder 自身，用于链式调用
+     */
+    public UpdateBuilder orWhereIn(String column, Collection<?> values) {
+        return orWhere(Condition.in(column, values));
+    }
+
     @Override
     public PreparedStatement prepare() throws SQLException {
+        if (this.connection == null) {
+            throw new IllegalStateException("该构建器没有绑定连接，请使用 prepare(Connection) 或 executeUpdate() 等终结操作。");
+        }
+        return prepare(this.connection);
+    }
+
+    /**
+     * 在指定连接上准备语句，语句由调用方关闭
+     * @param connection 数据库连接
+     * @return PreparedStatement对象
+     * @throws SQLException 如果发生SQL异常
+     */
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        if (connection == null) {
+            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
+        }
         if (this.tableName == null) {
             throw new IllegalStateException("必须先调用 update(tableName) 指定表名。");
         }
@@ -108,7 +209,7 @@ public class UpdateBuilder implements QueryBuilder {
         }
         // 警告: 如果没有 WHERE 条件，将会更新所有行，这通常是危险的。
         // 实际应用中可能需要强制 WHERE 条件或有明确的配置允许无条件更新。
-        if (this.whereConditions.isEmpty()) {
+        if (this.whereClause.isEmpty()) {
             System.err.println("警告 (UpdateBuilder): WHERE 子句为空，这将更新表中的所有行！");
             // throw new IllegalStateException("必须指定 WHERE 条件以防止更新所有行。"); // 或者更严格地抛出异常
         }
@@ -128,24 +229,14 @@ public class UpdateBuilder implements QueryBuilder {
         sqlBuilder.append(setAssignments);
 
         // WHERE 子句
-        if (!this.whereConditions.isEmpty()) {
-            sqlBuilder.append(" WHERE ");
-            boolean isFirst = true;
-            for (WhereCondition condition : this.whereConditions) {
-                if (!isFirst) {
-                    sqlBuilder.append(" ").append(condition.getLogicalOperator()).append(" ");
-                }
-                sqlBuilder.append(condition.getSqlFragment());
-                parameters.add(condition.getValue());
-                isFirst = false;
-            }
-        }
+        this.whereClause.appendSql(sqlBuilder);
+        this.whereClause.appendParameters(parameters);
 
         String finalSql = sqlBuilder.toString();
         // System.out.println("UpdateBuilder SQL: " + finalSql);
         // System.out.println("UpdateBuilder Params: " + parameters);
 
-        PreparedStatement pstmt = this.connection.prepareStatement(finalSql);
+        PreparedStatement pstmt = StatementMetrics.prepare(connection, finalSql);
         try {
             for (int i = 0; i < parameters.size(); i++) {
                 pstmt.setObject(i + 1, parameters.get(i));
@@ -157,6 +248,31 @@ public class UpdateBuilder implements QueryBuilder {
         return pstmt;
     }
 
+    /**
+     * 借用连接执行更新并关闭语句，通过 {@link ConnectionSource} 创建时在结束后提交并归还连接
+     * 使用分片连接来源时在WHERE条件涉及的每个分片上执行，返回影响行数之和。
+     * @return 受影响的行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    public int executeUpdate() throws SQLException {
+        return ShardRouting.executeUpdate(this.connectionSource, this.whereClause, this::prepare);
+    }
+
+    /**
+     * 在数据库线程池上执行 {@link #executeUpdate()}
+     * @return 受影响的行数
+     */
+    public CompletableFuture<Integer> executeUpdateAsync() {
+        return requireAsync().supply(this::executeUpdate);
+    }
+
+    private AsyncOrmClient requireAsync() {
+        if (this.asyncClient == null) {
+            throw new IllegalStateException("该构建器没有绑定异步客户端，请通过 client.async() 创建。");
+        }
+        return this.asyncClient;
+    }
+
     @Override
     public String toSql() {
         StringBuilder sqlBuilder = new StringBuilder("UPDATE ");
@@ -169,17 +285,7 @@ public class UpdateBuilder implements QueryBuilder {
         sqlBuilder.append(setAssignments);
 
         // WHERE 子句
-        if (!this.whereConditions.isEmpty()) {
-            sqlBuilder.append(" WHERE ");
-            boolean isFirst = true;
-            for (WhereCondition condition : this.whereConditions) {
-                if (!isFirst) {
-                    sqlBuilder.append(" ").append(condition.getLogicalOperator()).append(" ");
-                }
-                sqlBuilder.append(condition.getColumn()).append(" ").append(condition.getOperator()).append(" ?");
-                isFirst = false;
-            }
-        }
+        this.whereClause.appendSql(sqlBuilder);
 
         return sqlBuilder.toString();
     }
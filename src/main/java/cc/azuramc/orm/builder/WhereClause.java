@@ -0,0 +1,100 @@
+package cc.azuramc.orm.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 构建器共用的WHERE子句
+ * 按调用顺序保存条件及其前面的逻辑操作符，从左到右拼接，与旧版 where/orWhere 的行为保持一致；
+ * 组合条件 ({@link Condition#and}/{@link Condition#or}) 在拼接时会自动加括号。
+ * @author AzuraMC Team
+ */
+final class WhereClause {
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<String> logicalOperators = new ArrayList<>();
+
+    void add(Condition condition, String logicalOperator) {
+        if (condition == null) {
+            throw new IllegalArgumentException("WHERE 条件不能为空。");
+        }
+        this.conditions.add(condition);
+        this.logicalOperators.add(logicalOperator);
+    }
+
+    boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    int size() {
+        return conditions.size();
+    }
+
+    Condition get(int index) {
+        return conditions.get(index);
+    }
+
+    String getLogicalOperator(int index) {
+        return logicalOperators.get(index);
+    }
+
+    /**
+     * 复制当前子句并替换其中一个条件，用于拆分执行超长 IN 列表
+     * @param index 条件下标
+     * @param replacement 替换后的条件
+     * @return 新的子句
+     */
+    WhereClause with(int index, Condition replacement) {
+        WhereClause copy = new WhereClause();
+        copy.conditions.addAll(this.conditions);
+        copy.logicalOperators.addAll(this.logicalOperators);
+        copy.conditions.set(index, replacement);
+        return copy;
+    }
+
+    /**
+     * 复制当前子句并用 AND 追加一个条件，原有条件整体加括号，不受 OR 的优先级影响
+     * @param extra 追加的条件
+     * @return 新的子句
+     */
+    WhereClause and(Condition extra) {
+        WhereClause copy = new WhereClause();
+        if (conditions.size() == 1) {
+            copy.add(conditions.get(0), null);
+        } else if (!conditions.isEmpty()) {
+            StringBuilder sql = new StringBuilder();
+            appendSql(sql);
+            List<Object> parameters = new ArrayList<>();
+            appendParameters(parameters);
+            copy.add(Condition.raw(sql.substring(" WHERE ".length()), parameters.toArray()), null);
+        }
+        copy.add(extra, "AND");
+        return copy;
+    }
+
+    /**
+     * 追加 " WHERE ..." 片段，没有条件时不追加任何内容
+     * @param sqlBuilder SQL构建器
+     */
+    void appendSql(StringBuilder sqlBuilder) {
+        if (conditions.isEmpty()) {
+            return;
+        }
+        sqlBuilder.append(" WHERE ");
+        if (conditions.size() == 1) {
+            sqlBuilder.append(conditions.get(0).getSql());
+            return;
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                sqlBuilder.append(" ").append(logicalOperators.get(i)).append(" ");
+            }
+            sqlBuilder.append(conditions.get(i).getNestedSql());
+        }
+    }
+
+    void appendParameters(List<Object> parameters) {
+        for (Condition condition : conditions) {
+            condition.appendParameters(parameters);
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class CacheManager {
     
     @SuppressWarnings("unchecked")
     public <K, V> Cache<K, V> getCache(String name) {
-        return (Cache<K, V>) caches.computeIfAbsent(name, k -> new MemoryCache<K, V>());
+        return (Cache<K, V>) caches.computeIfAbsent(name, k -> new MemoryCache<K, V>(k));
     }
     
     public void removeCache(String name) {
@@ -0,0 +1,324 @@
+package cc.azuramc.orm.cache;
+
+import cc.azuramc.orm.async.SqlSupplier;
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.manager.ChangeManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * 工作单元内的一级缓存（身份映射）：同一作用域内按主键重复加载同一行时返回同一个对象，不再访问数据库
+ * 作用域绑定当前线程，事务自动打开一个作用域，请求等其他工作单元通过 {@code client.identityMap()} 显式打开。
+ * 实体按 (客户端配置名, 表名, 实体类型, 主键) 区分，不同数据库或不同表中主键相同的行不会互相命中。
+ * 作用域正常结束时，实现了 {@link ChangeManager.DirtyTracker} 且为脏的实体交给按类型注册的 {@link ChangeManager}。
+ * <p>
+ * 事务的每次尝试（以及每个保存点）在独立的子作用域中加载实体，不读取外层作用域：
+ * 回滚时子作用域中的实体全部丢弃，重试时重新加载，失败尝试修改过的对象既不会被复用也不会被写回；
+ * 提交后子作用域的实体并入外层，外层已有同一行的对象时保留外层对象，子作用域中的脏对象直接交给变更管理器。
+ * <p>
+ * 没有建立在 {@link CacheManager} 上：CacheManager 中的缓存是全局共享、按过期时间清理的，每个缓存还有自己的清理线程；
+ * 身份映射只属于一个线程上的一个工作单元，没有过期时间，需要随作用域整体丢弃或交出，用普通的 HashMap 即可。
+ * 示例:
+ * <pre>
+ * IdentityMap.registerChangeManager(Player.class, playerChanges);
+ * try (IdentityMap map = client.identityMap()) {
+ *     Player a = client.find(Player.class, "players", "id", 42);
+ *     Player b = client.find(Player.class, "players", "id", 42);   // 同一个对象，没有查询
+ *     a.setCoins(a.getCoins() + 10);                              // 结束时交给 playerChanges
+ * }
+ * </pre>
+ * 通过SQL直接修改的行不会更新已加载的对象，作用域应该保持短小。
+ * @author AzuraMC Team
+ */
+public final class IdentityMap implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(IdentityMap.class.getName());
+    private static final ThreadLocal<IdentityMap> current = new ThreadLocal<>();
+    private static final Map<Class<?>, ChangeManager<?>> changeManagers = new ConcurrentHashMap<>();
+
+    private final Map<Key, Object> entities = new HashMap<>();
+    private final Thread owner;
+    /** 子作用域的外层作用域，不是子作用域或没有外层时为null */
+    private final IdentityMap parent;
+    private final boolean child;
+    private int depth = 1;
+    private boolean committed;
+    private int hits;
+    private int misses;
+
+    private IdentityMap(IdentityMap parent, boolean child) {
+        this.owner = Thread.currentThread();
+        this.parent = parent;
+        this.child = child;
+    }
+
+    /**
+     * 在当前线程打开作用域，已有作用域时加入外层作用域，最外层关闭时才结束
+     * @return 作用域，使用 try-with-resources 关闭
+     */
+    public static IdentityMap open() {
+        IdentityMap map = current.get();
+        if (map != null) {
+            map.depth++;
+            return map;
+        }
+        map = new IdentityMap(null, false);
+        current.set(map);
+        return map;
+    }
+
+    /**
+     * 在当前线程打开独立的子作用域，用于事务的一次尝试或一个保存点
+     * 子作用域不读取外层作用域的实体；调用 {@link #commit()} 后关闭时并入外层，没有提交就关闭时全部丢弃。
+     * @return 子作用域，使用 try-with-resources 关闭
+     */
+    public static IdentityMap openChild() {
+        IdentityMap map = new IdentityMap(current.get(), true);
+        current.set(map);
+        return map;
+    }
+
+    /**
+     * 获取当前线程的作用域
+     * @return 作用域，没有时返回null
+     */
+    public static IdentityMap current() {
+        return current.get();
+    }
+
+    /**
+     * 注册实体类型的变更管理器，作用域结束时该类型的脏实体交给它批量写回
+     * @param type 实体类型（按加载时使用的类型匹配）
+     * @param changeManager 变更管理器
+     */
+    public static <T extends ChangeManager.DirtyTracker> void registerChangeManager(Class<T> type,
+                                                                                   ChangeManager<T> changeManager) {
+        if (type == null || changeManager == null) {
+            throw new IllegalArgumentException("实体类型和变更管理器不能为空。");
+        }
+        changeManagers.put(type, changeManager);
+    }
+
+    public static void unregisterChangeManager(Class<?> type) {
+        changeManagers.remove(type);
+    }
+
+    /**
+     * 获取已加载的实体
+     * @param configName 客户端配置名
+     * @param table 表名
+     * @param type 实体类型
+     * @param id 主键
+     * @return 实体，没有加载过时返回null
+     */
+    public <T> T get(String configName, String table, Class<T> type, Object id) {
+        checkOwner();
+        return type.cast(entities.get(new Key(configName, table, type, id)));
+    }
+
+    /**
+     * 放入实体，已存在时替换
+     * @param configName 客户端配置名
+     * @param table 表名
+     * @param type 实体类型
+     * @param id 主键
+     * @param entity 实体
+     */
+    public <T> void put(String configName, String table, Class<T> type, Object id, T entity) {
+        checkOwner();
+        if (entity == null) {
+            throw new IllegalArgumentException("实体不能为空。");
+        }
+        entities.put(new Key(configName, table, type, id), entity);
+    }
+
+    /**
+     * 获取已加载的实体，没有时通过 loader 加载并放入；加载结果为null时不缓存
+     * @param configName 客户端配置名
+     * @param table 表名
+     * @param type 实体类型
+     * @param id 主键
+     * @param loader 加载函数
+     * @return 实体
+     * @throws SQLException 如果加载失败
+     */
+    public <T> T load(String configName, String table, Class<T> type, Object id, SqlSupplier<T> loader)
+            throws SQLException {
+        checkOwner();
+        Key key = new Key(configName, table, type, id);
+        Object entity = entities.get(key);
+        if (entity != null) {
+            hits++;
+            return type.cast(entity);
+        }
+        misses++;
+        T loaded = loader.get();
+        if (loaded != null) {
+            entities.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 移除实体，例如删除了对应的行
+     * @param configName 客户端配置名
+     * @param table 表名
+     * @param type 实体类型
+     * @param id 主键
+     */
+    public void remove(String configName, String table, Class<?> type, Object id) {
+        checkOwner();
+        entities.remove(new Key(configName, table, type, id));
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    public int getHitCount() {
+        return hits;
+    }
+
+    public int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * 丢弃所有实体，不交给变更管理器，用于事务回滚
+     */
+    public void discard() {
+        checkOwner();
+        entities.clear();
+    }
+
+    /**
+     * 标记子作用域已提交，关闭时并入外层作用域；对普通作用域没有影响
+     */
+    public void commit() {
+        checkOwner();
+        committed = true;
+    }
+
+    /**
+     * 结束作用域
+     * 普通作用域在最外层结束时把脏实体交给对应的变更管理器；
+     * 子作用域已提交时并入外层（没有外层时同普通作用域），否则丢弃。
+     */
+    @Override
+    public void close() {
+        checkOwner();
+        if (--depth > 0) {
+            return;
+        }
+        if (current.get() == this) {
+            if (parent != null) {
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+        }
+        if (!child || committed) {
+            if (parent != null) {
+                mergeInto(parent);
+            } else {
+                handOff(entities.entrySet());
+            }
+        }
+        entities.clear();
+        GlobalConfig.debugLog("IDENTITY", "Closed identity map: " + hits + " hits, " + misses + " misses");
+    }
+
+    /**
+     * 把已提交子作用域的实体并入外层；外层已有同一行的其他对象时保留外层对象，本作用域的脏对象直接交出
+     */
+    private void mergeInto(IdentityMap target) {
+        List<Map.Entry<Key, Object>> conflicts = new ArrayList<>();
+        for (Map.Entry<Key, Object> entry : entities.entrySet()) {
+            Object existing = target.entities.putIfAbsent(entry.getKey(), entry.getValue());
+            if (existing != null && existing != entry.getValue()) {
+                conflicts.add(entry);
+            }
+        }
+        handOff(conflicts);
+    }
+
+    private static void handOff(Iterable<Map.Entry<Key, Object>> candidates) {
+        int unmanaged = 0;
+        for (Map.Entry<Key, Object> entry : candidates) {
+            if (!(entry.getValue() instanceof ChangeManager.DirtyTracker)) {
+                continue;
+            }
+            ChangeManager.DirtyTracker entity = (ChangeManager.DirtyTracker) entry.getValue();
+            if (!entity.isDirty()) {
+                continue;
+            }
+            ChangeManager<?> changeManager = changeManagers.get(entry.getKey().type);
+            if (changeManager != null) {
+                register(changeManager, entity);
+            } else {
+                unmanaged++;
+            }
+        }
+        if (unmanaged > 0) {
+            logger.warning("Identity map closed with " + unmanaged
+                    + " dirty entities that have no registered ChangeManager");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends ChangeManager.DirtyTracker> void register(ChangeManager<T> changeManager,
+                                                                      ChangeManager.DirtyTracker entity) {
+        // 注册时类型已经匹配
+        changeManager.registerDirty((T) entity);
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("身份映射只能在打开它的线程上使用。");
+        }
+    }
+
+    private static final class Key {
+        private final String configName;
+        private final String table;
+        private final Class<?> type;
+        private final Object id;
+
+        Key(String configName, String table, Class<?> type, Object id) {
+            if (table == null || type == null || id == null) {
+                throw new IllegalArgumentException("表名、实体类型和主键不能为空。");
+            }
+            this.configName = configName;
+            this.table = table;
+            this.type = type;
+            // 整数主键统一为 Long，find(type, 42) 与 find(type, 42L) 命中同一个实体
+            this.id = id instanceof Integer || id instanceof Short || id instanceof Byte
+                    ? Long.valueOf(((Number) id).longValue()) : id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return type == other.type && id.equals(other.id) && table.equals(other.table)
+                    && Objects.equals(configName, other.configName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configName, table, type, id);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cc.azuramc.orm.cache;
 
+import cc.azuramc.orm.jfr.CacheEvent;
+
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,10 +13,19 @@ import java.util.logging.Logger;
 public class MemoryCache<K, V> implements Cache<K, V> {
     private static final Logger logger = Logger.getLogger(MemoryCache.class.getName());
     
+    private final String name;
     private final Map<K, CacheEntry<V>> cache;
     private final ScheduledExecutorService cleanupExecutor;
     
     public MemoryCache() {
+        this("default");
+    }
+    
+    /**
+     * @param name 缓存名称，用于 JFR 事件
+     */
+    public MemoryCache(String name) {
+        this.name = name;
         this.cache = new ConcurrentHashMap<>();
         this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
         startCleanupTask();
@@ -26,41 +37,54 @@ public class MemoryCache<K, V> implements Cache<K, V> {
     
     @Override
     public void put(K key, V value) {
+        CacheEvent event = begin();
         cache.put(key, new CacheEntry<>(value));
+        commit(event, CacheEvent.PUT, false, 1);
         logger.fine("Cached value for key: " + key);
     }
     
     @Override
     public void put(K key, V value, long duration, TimeUnit unit) {
+        CacheEvent event = begin();
         long expiryTime = System.currentTimeMillis() + unit.toMillis(duration);
         cache.put(key, new CacheEntry<>(value, expiryTime));
+        commit(event, CacheEvent.PUT, false, 1);
         logger.fine("Cached value for key: " + key + " with expiry: " + expiryTime);
     }
     
     @Override
     public Optional<V> get(K key) {
+        CacheEvent event = begin();
         CacheEntry<V> entry = cache.get(key);
         if (entry == null) {
+            commit(event, CacheEvent.GET, false, 0);
             return Optional.empty();
         }
         
         if (entry.isExpired()) {
             cache.remove(key);
+            commit(event, CacheEvent.GET, false, 0);
             return Optional.empty();
         }
         
+        commit(event, CacheEvent.GET, true, 1);
         return Optional.of(entry.getValue());
     }
     
     @Override
     public void remove(K key) {
-        cache.remove(key);
+        CacheEvent event = begin();
+        CacheEntry<V> removed = cache.remove(key);
+        commit(event, CacheEvent.REMOVE, false, removed != null ? 1 : 0);
         logger.fine("Removed value for key: " + key);
     }
     
     @Override
     public void clear() {
+        CacheEvent event = begin();
+        int size = cache.size();
         cache.clear();
+        commit(event, CacheEvent.EVICT, false, size);
         logger.info("Cache cleared");
     }
     
@@ -76,14 +100,37 @@ public class MemoryCache<K, V> implements Cache<K, V> {
     }
     
     private void removeExpiredEntries() {
+        CacheEvent event = begin();
         int initialSize = cache.size();
         cache.entrySet().removeIf(entry -> entry.getValue().isExpired());
         int removedCount = initialSize - cache.size();
+        commit(event, CacheEvent.EVICT, false, removedCount);
         if (removedCount > 0) {
             logger.info("Removed " + removedCount + " expired entries");
         }
     }
     
+    public String getName() {
+        return name;
+    }
+    
+    private static CacheEvent begin() {
+        CacheEvent event = new CacheEvent();
+        event.begin();
+        return event;
+    }
+    
+    private void commit(CacheEvent event, String operation, boolean hit, int entries) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cacheName = name;
+            event.operation = operation;
+            event.hit = hit;
+            event.entries = entries;
+            event.commit();
+        }
+    }
+    
     public void shutdown() {
         cleanupExecutor.shutdown();
         try {
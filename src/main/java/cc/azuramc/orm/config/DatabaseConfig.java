@@ -1,5 +1,13 @@
 package cc.azuramc.orm.config;
 
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.exception.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 数据库配置类，支持HikariCP连接池配置
  * @author AzuraMC Team
@@ -9,6 +17,7 @@ public class DatabaseConfig {
     private String username;
     private String password;
     private String driverClassName;
+    private Dialect dialect; // 为null时按URL识别
     
     // HikariCP连接池配置
     private int maximumPoolSize = 10;
@@ -30,6 +39,22 @@ public class DatabaseConfig {
     private String schema;
     private String transactionIsolation;
     
+    // 预编译语句缓存
+    private int statementCacheSize = 0; // 每个物理连接缓存的语句数，0 表示禁用
+    private boolean driverStatementCacheEnabled = false;
+    private int driverStatementCacheSize = 250;
+    private boolean batchRewriteEnabled = true;
+    private boolean localInfileEnabled = false;
+    
+    // 读写分离
+    private final List<DatabaseConfig> replicas = new ArrayList<>();
+    private ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+    private long readYourWritesWindow = 1000L; // 写入后1秒内的读取走主库
+    
+    // 启动预热
+    private boolean warmUpEnabled = false;
+    private final List<String> warmUpStatements = new ArrayList<>();
+    
     public DatabaseConfig() {}
     
     public DatabaseConfig(String url, String username, String password) {
@@ -49,16 +74,7 @@ public class DatabaseConfig {
     }
     
     private String detectDriverClass(String url) {
-        if (url.startsWith("jdbc:mysql:")) {
-            return "com.mysql.cj.jdbc.Driver";
-        } else if (url.startsWith("jdbc:h2:")) {
-            return "org.h2.Driver";
-        } else if (url.startsWith("jdbc:postgresql:")) {
-            return "org.postgresql.Driver";
-        } else if (url.startsWith("jdbc:sqlite:")) {
-            return "org.sqlite.JDBC";
-        }
-        return null;
+        return Dialects.forUrl(url).getDriverClassName();
     }
     
     // 基本配置的 Getters and Setters
@@ -101,6 +117,27 @@ public class DatabaseConfig {
         return this;
     }
     
+    /**
+     * 获取数据库方言，未设置时按URL识别
+     * @return 方言
+     */
+    public Dialect getDialect() {
+        return dialect != null ? dialect : Dialects.forUrl(url);
+    }
+    
+    /**
+     * 设置数据库方言，用于URL无法识别的数据库或兼容协议的数据库
+     * @param dialect 方言，null 表示按URL识别
+     * @return 当前配置
+     */
+    public DatabaseConfig setDialect(Dialect dialect) {
+        this.dialect = dialect;
+        if (this.driverClassName == null && dialect != null) {
+            this.driverClassName = dialect.getDriverClassName();
+        }
+        return this;
+    }
+    
     // HikariCP配置的 Getters and Setters
     public int getMaximumPoolSize() {
         return maximumPoolSize;
@@ -246,6 +283,181 @@ public class DatabaseConfig {
         return this;
     }
     
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    /**
+     * 设置ORM层每个物理连接缓存的 PreparedStatement 数量
+     * 开启后相同SQL在同一物理连接上只预编译一次，连接归还后下次借出仍可复用。
+     * @param statementCacheSize 缓存数量，0 表示禁用
+     * @return 当前配置
+     */
+    public DatabaseConfig setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+    
+    public boolean isDriverStatementCacheEnabled() {
+        return driverStatementCacheEnabled;
+    }
+    
+    /**
+     * 是否开启驱动层的语句缓存和服务端预编译
+     * 由方言设置驱动属性，MySQL 为 cachePrepStmts、useServerPrepStmts、prepStmtCacheSize，
+     * PostgreSQL 为 prepareThreshold、preparedStatementCacheQueries。
+     * @param driverStatementCacheEnabled 是否开启
+     * @return 当前配置
+     */
+    public DatabaseConfig setDriverStatementCacheEnabled(boolean driverStatementCacheEnabled) {
+        this.driverStatementCacheEnabled = driverStatementCacheEnabled;
+        return this;
+    }
+    
+    public int getDriverStatementCacheSize() {
+        return driverStatementCacheSize;
+    }
+    
+    public DatabaseConfig setDriverStatementCacheSize(int driverStatementCacheSize) {
+        this.driverStatementCacheSize = driverStatementCacheSize;
+        return this;
+    }
+    
+    public boolean isBatchRewriteEnabled() {
+        return batchRewriteEnabled;
+    }
+    
+    /**
+     * 是否让驱动把 JDBC 批量插入改写为多行 INSERT，默认开启
+     * 由方言设置驱动属性，MySQL 为 rewriteBatchedStatements，PostgreSQL 为 reWriteBatchedInserts。
+     * 改写后驱动可能不返回每行的影响行数 ({@link java.sql.Statement#SUCCESS_NO_INFO})。
+     * @param batchRewriteEnabled 是否开启
+     * @return 当前配置
+     */
+    public DatabaseConfig setBatchRewriteEnabled(boolean batchRewriteEnabled) {
+        this.batchRewriteEnabled = batchRewriteEnabled;
+        return this;
+    }
+    
+    public boolean isLocalInfileEnabled() {
+        return localInfileEnabled;
+    }
+    
+    /**
+     * 是否允许 MySQL 的 LOAD DATA LOCAL INFILE，{@link cc.azuramc.orm.builder.BulkLoader} 在 MySQL 上需要开启，默认关闭
+     * 开启后设置驱动属性 allowLoadLocalInfile，服务端也需要开启 local_infile。
+     * 只应连接可信的服务器：驱动允许服务端请求读取客户端文件。
+     * @param localInfileEnabled 是否开启
+     * @return 当前配置
+     */
+    public DatabaseConfig setLocalInfileEnabled(boolean localInfileEnabled) {
+        this.localInfileEnabled = localInfileEnabled;
+        return this;
+    }
+    
+    /**
+     * 添加一个从库，使用与主库相同的账号和连接池设置，并以只读方式连接
+     * @param url 从库JDBC URL
+     * @return 当前配置
+     */
+    public DatabaseConfig addReplica(String url) {
+        DatabaseConfig replica = new DatabaseConfig(url, username, password, driverClassName)
+                .setMaximumPoolSize(maximumPoolSize)
+                .setMinimumIdle(minimumIdle)
+                .setConnectionTimeout(connectionTimeout)
+                .setIdleTimeout(idleTimeout)
+                .setMaxLifetime(maxLifetime)
+                .setValidationTimeout(validationTimeout)
+                .setConnectionTestQuery(connectionTestQuery)
+                .setStatementCacheSize(statementCacheSize)
+                .setDriverStatementCacheEnabled(driverStatementCacheEnabled)
+                .setDriverStatementCacheSize(driverStatementCacheSize)
+                .setBatchRewriteEnabled(batchRewriteEnabled)
+                .setDialect(dialect)
+                .setAutoCommit(autoCommit)
+                .setWarmUpEnabled(warmUpEnabled)
+                .setReadOnly(true);
+        replica.warmUpStatements.addAll(warmUpStatements);
+        return addReplica(replica);
+    }
+    
+    /**
+     * 添加一个从库
+     * 查询类终结操作 (fetchList、fetchOne 等) 会按 {@link #getReplicaSelection()} 路由到从库，写操作和事务内的读取仍走主库。
+     * @param replica 从库配置
+     * @return 当前配置
+     */
+    public DatabaseConfig addReplica(DatabaseConfig replica) {
+        if (replica == null || !replica.isValid()) {
+            throw new ConfigurationException("Invalid replica configuration: " + replica);
+        }
+        this.replicas.add(replica);
+        return this;
+    }
+    
+    public List<DatabaseConfig> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+    
+    public ReplicaSelection getReplicaSelection() {
+        return replicaSelection;
+    }
+    
+    public DatabaseConfig setReplicaSelection(ReplicaSelection replicaSelection) {
+        this.replicaSelection = replicaSelection;
+        return this;
+    }
+    
+    public long getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+    
+    /**
+     * 设置读己之写窗口，同一线程写入主库后的这段时间内，读取也走主库以避开从库复制延迟
+     * @param readYourWritesWindow 窗口时长（毫秒），0 表示禁用
+     * @return 当前配置
+     */
+    public DatabaseConfig setReadYourWritesWindow(long readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+        return this;
+    }
+    
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+    
+    /**
+     * 是否在注册时预热连接池
+     * 开启后注册配置时并行建立 minimumIdle 个连接，并在每个连接上预编译 {@link #addWarmUpStatement} 登记的语句，
+     * 预热完成后才返回，避免第一批请求承担建连和预编译的延迟。
+     * @param warmUpEnabled 是否开启
+     * @return 当前配置
+     */
+    public DatabaseConfig setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+        return this;
+    }
+    
+    /**
+     * 登记预热时需要预编译的热点语句，同时开启预热
+     * 需要配合 {@link #setStatementCacheSize} 或 {@link #setDriverStatementCacheEnabled} 使用，预编译结果才会被缓存复用；
+     * 两者都没有开启时预热只建立连接，不预编译语句。
+     * @param sql 含有 ? 占位符的SQL
+     * @return 当前配置
+     */
+    public DatabaseConfig addWarmUpStatement(String sql) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new ConfigurationException("Warm-up statement cannot be empty");
+        }
+        this.warmUpStatements.add(sql);
+        this.warmUpEnabled = true;
+        return this;
+    }
+    
+    public List<String> getWarmUpStatements() {
+        return Collections.unmodifiableList(warmUpStatements);
+    }
+    
     // 便捷方法，保持向后兼容
     public int getMaxPoolSize() {
         return maximumPoolSize;
@@ -282,12 +494,16 @@ public class DatabaseConfig {
                 "url='" + url + '\'' +
                 ", username='" + username + '\'' +
                 ", driverClassName='" + driverClassName + '\'' +
+                ", dialect='" + getDialect().getName() + '\'' +
                 ", maximumPoolSize=" + maximumPoolSize +
                 ", minimumIdle=" + minimumIdle +
                 ", connectionTimeout=" + connectionTimeout +
                 ", idleTimeout=" + idleTimeout +
                 ", autoCommit=" + autoCommit +
                 ", poolName='" + poolName + '\'' +
+                ", statementCacheSize=" + statementCacheSize +
+                ", replicas=" + replicas.size() +
+                ", warmUpEnabled=" + warmUpEnabled +
                 '}';
     }
 } 
\ No newline at end of file
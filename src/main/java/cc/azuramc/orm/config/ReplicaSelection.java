@@ -0,0 +1,12 @@
+package cc.azuramc.orm.config;
+
+/**
+ * 从库选择策略
+ * @author AzuraMC Team
+ */
+public enum ReplicaSelection {
+    /** 依次轮询所有从库 */
+    ROUND_ROBIN,
+    /** 选择活跃连接数与等待线程数之和最小的从库 */
+    LEAST_LOADED
+}
@@ -0,0 +1,282 @@
+package cc.azuramc.orm.dao;
+
+import cc.azuramc.orm.builder.SelectBuilder;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.jdbc.JdbcSupport;
+import cc.azuramc.orm.jfr.ResultMappingEvent;
+import cc.azuramc.orm.manager.ChangeManager;
+import cc.azuramc.orm.mapping.RowMapper;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.sharding.ShardedConnectionSource;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 注解处理器为 {@link cc.azuramc.orm.annotation.Table} 实体生成的 DAO 的基类
+ * 生成的子类持有编译期拼好的SQL常量，并按字段类型调用 setLong / setString 等方法绑定参数，基本类型字段不装箱；
+ * 本类负责借出和归还连接、计时和结果映射，与构建器的终结操作共用 {@link JdbcSupport}：事务中加入事务连接，只读查询可以路由到从库。
+ * 示例:
+ * <pre>
+ * PlayerDao players = client.dao(PlayerDao::new);
+ * Player player = players.findById(42L);
+ * player.setCoins(player.getCoins() + 10);
+ * players.update(player);
+ * </pre>
+ * @param <T> 实体类型
+ * @param <ID> 主键类型
+ * @author AzuraMC Team
+ */
+public abstract class AbstractDao<T, ID> {
+
+    /** 批量插入时每次 executeBatch 的最多行数 */
+    public static final int BATCH_CHUNK_SIZE = 1000;
+    /** 缓存的部分列更新语句上限，超过后每次重新拼接 */
+    private static final int MAX_CACHED_UPDATES = 256;
+
+    protected final ConnectionSource connectionSource;
+    private final String table;
+    private final String idColumn;
+    private final String[] columns;
+    private final RowMapper<T> mapper;
+    /** 按被修改列的位集缓存的部分列更新语句 */
+    private final Map<Long, String> partialUpdates = new ConcurrentHashMap<>();
+
+    /** 绑定语句参数 */
+    @FunctionalInterface
+    protected interface Binder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /** 绑定一个实体的语句参数 */
+    @FunctionalInterface
+    protected interface EntityBinder<T> {
+        void bind(PreparedStatement pstmt, T entity) throws SQLException;
+    }
+
+    /** 把数据库生成的主键写回实体 */
+    @FunctionalInterface
+    protected interface KeyAssigner<T> {
+        void assign(T entity, ResultSet keys) throws SQLException;
+    }
+
+    /**
+     * @param connectionSource 连接来源
+     * @param table 表名
+     * @param idColumn 主键列名
+     * @param columns 查询的列
+     * @param mapper 行映射器
+     */
+    protected AbstractDao(ConnectionSource connectionSource, String table, String idColumn, String[] columns,
+                          RowMapper<T> mapper) {
+        if (connectionSource == null) {
+            throw new IllegalArgumentException("连接来源 (ConnectionSource) 不能为空。");
+        }
+        if (connectionSource instanceof ShardedConnectionSource) {
+            throw new IllegalArgumentException("生成的 DAO 不支持分片连接来源，分片表请使用构建器。");
+        }
+        this.connectionSource = connectionSource;
+        this.table = table;
+        this.idColumn = idColumn;
+        this.columns = columns;
+        this.mapper = mapper;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * 按主键批量查询，主键通过 IN 列表一次查询
+     * @param ids 主键
+     * @return 存在的实体，顺序不保证与主键一致
+     * @throws SQLException 如果发生SQL异常
+     */
+    public List<T> findAllByIds(Collection<? extends ID> ids) throws SQLException {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return new SelectBuilder(connectionSource).select(columns).from(table).whereIn(idColumn, ids).fetchList(mapper);
+    }
+
+    /**
+     * 执行查询并映射第一行
+     * @param sql SQL常量
+     * @param binder 参数绑定
+     * @return 实体，没有结果时返回null
+     * @throws SQLException 如果发生SQL异常
+     */
+    protected final T queryOne(String sql, Binder binder) throws SQLException {
+        return JdbcSupport.run(connectionSource, true, connection -> {
+            try (PreparedStatement pstmt = StatementMetrics.prepare(connection, sql)) {
+                binder.bind(pstmt);
+                T result = null;
+                int rows = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ResultMappingEvent event = new ResultMappingEvent();
+                    event.begin();
+                    if (rs.next()) {
+                        result = mapper.bind(rs.getMetaData()).mapRow(rs);
+                        rows = 1;
+                    }
+                    JdbcSupport.commitMappingEvent(event, pstmt, rows);
+                }
+                StatementMetrics.recordRows(pstmt, rows);
+                return result;
+            }
+        });
+    }
+
+    /**
+     * 执行一条写入
+     * @param sql SQL常量
+     * @param binder 参数绑定
+     * @return 影响行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    protected final int executeUpdate(String sql, Binder binder) throws SQLException {
+        return JdbcSupport.run(connectionSource, false, connection -> {
+            try (PreparedStatement pstmt = StatementMetrics.prepare(connection, sql)) {
+                binder.bind(pstmt);
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 对每个实体执行同一条写入，按 {@link #BATCH_CHUNK_SIZE} 分块发送 JDBC 批量
+     * @param sql SQL常量
+     * @param entities 实体
+     * @param binder 实体参数绑定
+     * @param keyAssigner 主键由数据库生成时写回主键，否则为null
+     * @return 影响行数，驱动未返回行数时每行按 1 计
+     * @throws SQLException 如果发生SQL异常
+     */
+    protected final int executeBatch(String sql, Collection<? extends T> entities, EntityBinder<T> binder,
+                                     KeyAssigner<T> keyAssigner) throws SQLException {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        return JdbcSupport.run(connectionSource, false, connection -> {
+            try (PreparedStatement pstmt = keyAssigner != null
+                    ? StatementMetrics.prepare(connection, sql, Statement.RETURN_GENERATED_KEYS)
+                    : StatementMetrics.prepare(connection, sql)) {
+                int total = 0;
+                int pending = 0;
+                int index = 0;
+                T[] chunk = newChunk(Math.min(entities.size(), BATCH_CHUNK_SIZE));
+                for (T entity : entities) {
+                    binder.bind(pstmt, entity);
+                    pstmt.addBatch();
+                    chunk[pending++] = entity;
+                    index++;
+                    if (pending == chunk.length || index == entities.size()) {
+                        total += JdbcSupport.sumBatch(pstmt.executeBatch());
+                        if (keyAssigner != null) {
+                            assignKeys(pstmt, chunk, pending, keyAssigner);
+                        }
+                        pending = 0;
+                    }
+                }
+                return total;
+            }
+        });
+    }
+
+    /**
+     * 执行一条插入并把生成的主键写回实体
+     * @param sql SQL常量
+     * @param entity 实体
+     * @param binder 实体参数绑定
+     * @param keyAssigner 主键写回
+     * @return 影响行数
+     * @throws SQLException 如果发生SQL异常
+     */
+    protected final int executeInsert(String sql, T entity, EntityBinder<T> binder, KeyAssigner<T> keyAssigner)
+            throws SQLException {
+        return JdbcSupport.run(connectionSource, false, connection -> {
+            try (PreparedStatement pstmt = StatementMetrics.prepare(connection, sql, Statement.RETURN_GENERATED_KEYS)) {
+                binder.bind(pstmt, entity);
+                int rows = pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        keyAssigner.assign(entity, keys);
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * 获取只更新部分列的语句，相同的列组合复用同一个SQL字符串
+     * @param columnBits 要更新的列的位集，第 i 位对应 columns 的第 i 列，不能包含主键列
+     * @return {@code UPDATE table SET a = ?, b = ? WHERE id = ?}，参数按列顺序排列，最后是主键
+     */
+    protected final String updateSql(long columnBits) {
+        String sql = partialUpdates.get(columnBits);
+        if (sql != null) {
+            return sql;
+        }
+        StringBuilder builder = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        boolean first = true;
+        for (int i = 0; i < columns.length && i < Long.SIZE; i++) {
+            if ((columnBits & (1L << i)) != 0) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(columns[i]).append(" = ?");
+                first = false;
+            }
+        }
+        sql = builder.append(" WHERE ").append(idColumn).append(" = ?").toString();
+        if (partialUpdates.size() < MAX_CACHED_UPDATES) {
+            partialUpdates.put(columnBits, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 实现了 {@link ChangeManager.DirtyTracker} 且不是脏数据的实体不需要更新
+     * @param entity 实体
+     * @return 是否需要更新
+     */
+    protected static boolean needsUpdate(Object entity) {
+        return !(entity instanceof ChangeManager.DirtyTracker) || ((ChangeManager.DirtyTracker) entity).isDirty();
+    }
+
+    /**
+     * 更新成功后清除脏数据标记
+     * @param entity 实体
+     */
+    protected static void cleanDirty(Object entity) {
+        if (entity instanceof ChangeManager.DirtyTracker) {
+            ((ChangeManager.DirtyTracker) entity).cleanDirty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newChunk(int size) {
+        return (T[]) new Object[size];
+    }
+
+    private static <T> void assignKeys(PreparedStatement pstmt, T[] chunk, int count, KeyAssigner<T> keyAssigner)
+            throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            for (int i = 0; i < count && keys.next(); i++) {
+                keyAssigner.assign(chunk[i], keys);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cc.azuramc.orm.dialect;
+
+/**
+ * 批量导入数据的方式，由 {@link Dialect#getBulkLoadStrategy()} 决定
+ * @author AzuraMC Team
+ */
+public enum BulkLoadStrategy {
+    /** MySQL: {@code LOAD DATA LOCAL INFILE}，由驱动从客户端流式发送数据，需要开启 allowLoadLocalInfile */
+    LOAD_DATA_LOCAL_INFILE,
+    /** PostgreSQL: {@code COPY ... FROM STDIN}，通过驱动的 CopyManager 流式发送数据 */
+    COPY_FROM_STDIN,
+    /** 通用方式：多行 {@code INSERT ... VALUES (...), (...)} 分块执行 */
+    MULTI_ROW_INSERT
+}
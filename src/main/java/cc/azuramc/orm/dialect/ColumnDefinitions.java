@@ -0,0 +1,57 @@
+package cc.azuramc.orm.dialect;
+
+import java.util.regex.Pattern;
+
+/**
+ * 方言转换 MySQL 风格列定义时使用的替换规则
+ * @author AzuraMC Team
+ */
+final class ColumnDefinitions {
+
+    /** 整数类型的显示宽度，例如 INT(11) */
+    static final Pattern DISPLAY_WIDTH =
+            pattern("\\b(TINYINT|SMALLINT|MEDIUMINT|INTEGER|INT|BIGINT)\\s*\\(\\s*\\d+\\s*\\)");
+    static final Pattern UNSIGNED = pattern("\\s+(UNSIGNED|ZEROFILL)\\b");
+    static final Pattern AUTO_INCREMENT = pattern("\\s*\\bAUTO_INCREMENT\\b");
+    static final Pattern ON_UPDATE = pattern("\\s+ON\\s+UPDATE\\s+CURRENT_TIMESTAMP(\\s*\\(\\s*\\d*\\s*\\))?");
+    static final Pattern COMMENT = pattern("\\s+COMMENT\\s+'(?:[^']|'')*'");
+    /** ENUM('a','b') 和 SET('a','b') */
+    static final Pattern ENUM_OR_SET = pattern("^\\s*(ENUM|SET)\\s*\\((?:[^()']|'(?:[^']|'')*')*\\)");
+    static final Pattern YEAR = pattern("^\\s*YEAR\\b");
+
+    private ColumnDefinitions() {
+    }
+
+    static Pattern pattern(String regex) {
+        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+    }
+
+    static String replace(String definition, Pattern pattern, String replacement) {
+        return pattern.matcher(definition).replaceAll(replacement);
+    }
+
+    /**
+     * 列类型（定义的第一个词）是否匹配
+     */
+    static boolean typeIs(String definition, String... types) {
+        String trimmed = definition.trim();
+        int end = 0;
+        while (end < trimmed.length() && (Character.isLetterOrDigit(trimmed.charAt(end)) || trimmed.charAt(end) == '_')) {
+            end++;
+        }
+        String type = trimmed.substring(0, end);
+        for (String candidate : types) {
+            if (candidate.equalsIgnoreCase(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 替换列类型（定义的第一个词及其后的括号参数）
+     */
+    static String replaceType(String definition, String type) {
+        return definition.trim().replaceFirst("^[A-Za-z_][A-Za-z0-9_]*(\\s*\\([^)]*\\))?", type);
+    }
+}
@@ -0,0 +1,164 @@
+package cc.azuramc.orm.dialect;
+
+import cc.azuramc.orm.config.DatabaseConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库方言，封装不同数据库之间有差异的SQL生成和驱动设置
+ * 方言按 JDBC URL 选择（见 {@link Dialects#forUrl}），内置 MySQL、H2、PostgreSQL 和 SQLite；
+ * 其他数据库可以实现本接口，通过 {@link java.util.ServiceLoader}（META-INF/services/cc.azuramc.orm.dialect.Dialect）
+ * 或 {@link Dialects#register} 注册。默认方法生成标准SQL。
+ * @author AzuraMC Team
+ */
+public interface Dialect {
+
+    /**
+     * 方言名称，用于日志
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 是否处理该 JDBC URL
+     * @param url JDBC URL
+     * @return 是否处理
+     */
+    boolean supportsUrl(String url);
+
+    /**
+     * 默认的 JDBC 驱动类
+     * @return 驱动类名，未知时返回null
+     */
+    default String getDriverClassName() {
+        return null;
+    }
+
+    /**
+     * 追加分页子句，参数按占位符顺序加入参数列表
+     * @param sql SQL
+     * @param parameters 参数列表
+     * @param limit 最多返回的行数
+     * @param offset 跳过的行数，可以为null
+     */
+    default void appendLimit(StringBuilder sql, List<Object> parameters, int limit, Integer offset) {
+        sql.append(" LIMIT ?");
+        parameters.add(limit);
+        if (offset != null) {
+            sql.append(" OFFSET ?");
+            parameters.add(offset);
+        }
+    }
+
+    /**
+     * 追加 DELETE 语句的行数限制
+     * @param sql SQL
+     * @param parameters 参数列表
+     * @param limit 最多删除的行数
+     * @throws UnsupportedOperationException 如果数据库不支持
+     */
+    default void appendDeleteLimit(StringBuilder sql, List<Object> parameters, int limit) {
+        throw new UnsupportedOperationException("数据库方言 " + getName() + " 不支持 DELETE ... LIMIT。");
+    }
+
+    /**
+     * 生成插入或更新一行的语句，参数为 columns 的值，按列顺序排列
+     * @param table 表名
+     * @param columns 插入的列
+     * @param keyColumns 判断冲突的主键或唯一键列
+     * @param updateColumns 冲突时更新的列，为空时冲突的行保持不变
+     * @return SQL
+     * @throws UnsupportedOperationException 如果数据库不支持
+     */
+    default String upsertSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        throw new UnsupportedOperationException("数据库方言 " + getName() + " 不支持插入或更新 (upsert)。");
+    }
+
+    /**
+     * 连接池需要设置的驱动属性，例如批量改写和驱动层语句缓存
+     * @param config 数据库配置
+     * @return 属性名到属性值的映射
+     */
+    default Map<String, String> getDataSourceProperties(DatabaseConfig config) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 追加建表语句末尾的表选项
+     * @param sql SQL，已经以右括号结束
+     * @param engine 存储引擎
+     * @param charset 字符集，可以为null
+     * @param collate 排序规则，可以为null
+     */
+    default void appendTableOptions(StringBuilder sql, String engine, String charset, String collate) {
+        // 标准SQL没有表选项
+    }
+
+    /**
+     * 把列定义转换为该数据库的写法，列定义使用 {@link cc.azuramc.orm.builder.DataType} 的 MySQL 风格类型和约束
+     * @param definition 列定义，例如 {@code INT AUTO_INCREMENT PRIMARY KEY}
+     * @return 转换后的列定义
+     */
+    default String columnDefinition(String definition) {
+        return definition;
+    }
+
+    /**
+     * 建表语句中的唯一键定义
+     * @param name 唯一键名称
+     * @param columns 列
+     * @return 定义
+     */
+    default String uniqueKeyDefinition(String name, List<String> columns) {
+        return "CONSTRAINT " + name + " UNIQUE (" + String.join(", ", columns) + ")";
+    }
+
+    /**
+     * 建表语句中的普通索引定义
+     * @param name 索引名称
+     * @param columns 列
+     * @return 定义，数据库不支持在建表语句中定义索引时返回null，改用 {@link #createIndexSql}
+     */
+    default String inlineIndexDefinition(String name, List<String> columns) {
+        return null;
+    }
+
+    /**
+     * 单独的建索引语句
+     * @param table 表名
+     * @param name 索引名称
+     * @param columns 列
+     * @param ifNotExists 是否加 IF NOT EXISTS
+     * @return SQL
+     */
+    default String createIndexSql(String table, String name, List<String> columns, boolean ifNotExists) {
+        return "CREATE INDEX " + (ifNotExists ? "IF NOT EXISTS " : "") + name + " ON " + table
+                + " (" + String.join(", ", columns) + ")";
+    }
+
+    /**
+     * 一条语句最多可以绑定的参数个数，用于决定多行 INSERT 每条语句的行数
+     * @return 参数个数
+     */
+    default int getMaxParameters() {
+        return 32767;
+    }
+
+    /**
+     * 流式读取大结果集时设置的 fetchSize，使驱动分批取行而不是一次读入全部结果
+     * @return fetchSize
+     */
+    default int getStreamingFetchSize() {
+        return 1000;
+    }
+
+    /**
+     * 批量导入数据的方式
+     * @return 方式
+     */
+    default BulkLoadStrategy getBulkLoadStrategy() {
+        return BulkLoadStrategy.MULTI_ROW_INSERT;
+    }
+}
@@ -0,0 +1,124 @@
+package cc.azuramc.orm.dialect;
+
+import cc.azuramc.orm.jdbc.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 方言注册表，按 JDBC URL 选择方言
+ * 通过 {@link #register} 或 ServiceLoader 注册的方言优先于内置方言，都不匹配时使用 {@link #GENERIC}。
+ * @author AzuraMC Team
+ */
+public final class Dialects {
+
+    public static final Dialect MYSQL = new MySqlDialect();
+    public static final Dialect H2 = new H2Dialect();
+    public static final Dialect POSTGRESQL = new PostgreSqlDialect();
+    public static final Dialect SQLITE = new SqliteDialect();
+    public static final Dialect GENERIC = new GenericDialect();
+
+    private static final List<Dialect> BUILT_IN = List.of(MYSQL, H2, POSTGRESQL, SQLITE);
+    private static final List<Dialect> registered = new CopyOnWriteArrayList<>();
+
+    static {
+        try {
+            for (Dialect dialect : ServiceLoader.load(Dialect.class, Dialects.class.getClassLoader())) {
+                registered.add(dialect);
+            }
+        } catch (ServiceConfigurationError e) {
+            System.err.println("Failed to load database dialects: " + e.getMessage());
+        }
+    }
+
+    private Dialects() {
+    }
+
+    /**
+     * 注册方言，后注册的方言优先
+     * @param dialect 方言
+     */
+    public static void register(Dialect dialect) {
+        if (dialect == null) {
+            throw new IllegalArgumentException("数据库方言不能为空。");
+        }
+        registered.add(0, dialect);
+    }
+
+    /**
+     * 按 JDBC URL 选择方言
+     * @param url JDBC URL
+     * @return 方言，无法识别时返回 {@link #GENERIC}
+     */
+    public static Dialect forUrl(String url) {
+        if (url == null) {
+            return GENERIC;
+        }
+        for (Dialect dialect : registered) {
+            if (dialect.supportsUrl(url)) {
+                return dialect;
+            }
+        }
+        for (Dialect dialect : BUILT_IN) {
+            if (dialect.supportsUrl(url)) {
+                return dialect;
+            }
+        }
+        return GENERIC;
+    }
+
+    /**
+     * 按连接的 JDBC URL 选择方言
+     * @param connection 数据库连接
+     * @return 方言
+     * @throws SQLException 如果无法读取连接元数据
+     */
+    public static Dialect forConnection(Connection connection) throws SQLException {
+        return forUrl(connection.getMetaData().getURL());
+    }
+
+    /**
+     * 构建器生成SQL时使用的方言：优先使用连接来源登记的方言，否则从连接元数据识别
+     * @param source 连接来源，可以为null
+     * @param connection 执行语句的连接
+     * @return 方言
+     * @throws SQLException 如果无法读取连接元数据
+     */
+    public static Dialect resolve(ConnectionSource source, Connection connection) throws SQLException {
+        Dialect dialect = source != null ? source.getDialect() : null;
+        return dialect != null ? dialect : forConnection(connection);
+    }
+
+    static StringBuilder insertSql(String table, List<String> columns) {
+        return new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES (")
+                .append(String.join(", ", Collections.nCopies(columns.size(), "?"))).append(")");
+    }
+
+    /**
+     * PostgreSQL 和 SQLite 共用的 {@code INSERT ... ON CONFLICT} 语句
+     */
+    static String onConflictSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("ON CONFLICT 必须指定冲突判断列。");
+        }
+        StringBuilder sql = insertSql(table, columns)
+                .append(" ON CONFLICT (").append(String.join(", ", keyColumns)).append(")");
+        if (updateColumns.isEmpty()) {
+            return sql.append(" DO NOTHING").toString();
+        }
+        sql.append(" DO UPDATE SET ");
+        for (int i = 0; i < updateColumns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(updateColumns.get(i)).append(" = EXCLUDED.").append(updateColumns.get(i));
+        }
+        return sql.toString();
+    }
+}
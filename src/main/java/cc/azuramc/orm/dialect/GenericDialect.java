@@ -0,0 +1,18 @@
+package cc.azuramc.orm.dialect;
+
+/**
+ * 未识别的数据库使用的方言，只生成标准SQL
+ * @author AzuraMC Team
+ */
+public class GenericDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "Generic";
+    }
+
+    @Override
+    public boolean supportsUrl(String url) {
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+package cc.azuramc.orm.dialect;
+
+import java.util.List;
+
+import static cc.azuramc.orm.dialect.ColumnDefinitions.*;
+
+/**
+ * H2 方言
+ * 插入或更新使用 {@code MERGE INTO ... USING ... ON}；H2 接受大多数 MySQL 风格的列定义，
+ * 建表时只去掉整数显示宽度、UNSIGNED 和 ZEROFILL，并转换 YEAR 和 SET 类型，索引单独创建。
+ * @author AzuraMC Team
+ */
+public class H2Dialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    public boolean supportsUrl(String url) {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    public void appendDeleteLimit(StringBuilder sql, List<Object> parameters, int limit) {
+        sql.append(" FETCH FIRST ? ROWS ONLY");
+        parameters.add(limit);
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("H2 的插入或更新必须指定冲突判断列。");
+        }
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" dst USING (VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        sql.append(")) src (").append(String.join(", ", columns)).append(") ON ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                sql.append(" AND ");
+            }
+            sql.append("dst.").append(keyColumns.get(i)).append(" = src.").append(keyColumns.get(i));
+        }
+        if (!updateColumns.isEmpty()) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.size(); i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(updateColumns.get(i)).append(" = src.").append(updateColumns.get(i));
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("src.").append(columns.get(i));
+        }
+        return sql.append(")").toString();
+    }
+
+    @Override
+    public int getMaxParameters() {
+        // H2 没有固定上限，与 MySQL 保持一致
+        return 65535;
+    }
+
+    @Override
+    public String columnDefinition(String definition) {
+        String result = replace(definition, DISPLAY_WIDTH, "$1");
+        result = replace(result, UNSIGNED, "");
+        if (YEAR.matcher(result).find()) {
+            result = replace(result, YEAR, "SMALLINT");
+        } else if (typeIs(result, "SET")) {
+            result = replace(result, ENUM_OR_SET, "VARCHAR(255)");
+        }
+        return result.trim();
+    }
+}
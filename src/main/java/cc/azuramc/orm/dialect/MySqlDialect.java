@@ -0,0 +1,117 @@
+package cc.azuramc.orm.dialect;
+
+import cc.azuramc.orm.config.DatabaseConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL 方言
+ * 插入或更新使用 {@code ON DUPLICATE KEY UPDATE}，冲突由表上的所有主键和唯一键判断；
+ * 批量执行时开启驱动的 rewriteBatchedStatements，把一批 INSERT 改写为一条多行 INSERT 发送。
+ * @author AzuraMC Team
+ */
+public class MySqlDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    public boolean supportsUrl(String url) {
+        return url.startsWith("jdbc:mysql:");
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "com.mysql.cj.jdbc.Driver";
+    }
+
+    @Override
+    public void appendDeleteLimit(StringBuilder sql, List<Object> parameters, int limit) {
+        sql.append(" LIMIT ?");
+        parameters.add(limit);
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        StringBuilder sql = Dialects.insertSql(table, columns).append(" ON DUPLICATE KEY UPDATE ");
+        if (updateColumns.isEmpty()) {
+            // 赋值为自身，冲突的行保持不变，且不会像 INSERT IGNORE 那样吞掉其他错误
+            String column = keyColumns.isEmpty() ? columns.get(0) : keyColumns.get(0);
+            return sql.append(column).append(" = ").append(column).toString();
+        }
+        for (int i = 0; i < updateColumns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            String column = updateColumns.get(i);
+            sql.append(column).append(" = VALUES(").append(column).append(")");
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public Map<String, String> getDataSourceProperties(DatabaseConfig config) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (config.isBatchRewriteEnabled()) {
+            properties.put("rewriteBatchedStatements", "true");
+        }
+        if (config.isLocalInfileEnabled()) {
+            properties.put("allowLoadLocalInfile", "true");
+        }
+        if (config.isDriverStatementCacheEnabled()) {
+            properties.put("cachePrepStmts", "true");
+            properties.put("useServerPrepStmts", "true");
+            properties.put("prepStmtCacheSize", String.valueOf(config.getDriverStatementCacheSize()));
+            properties.put("prepStmtCacheSqlLimit", "2048");
+        }
+        return properties;
+    }
+
+    @Override
+    public int getMaxParameters() {
+        // 预编译协议用 2 字节表示参数个数
+        return 65535;
+    }
+
+    @Override
+    public int getStreamingFetchSize() {
+        // Connector/J 只有在 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取，否则缓存整个结果集
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public void appendTableOptions(StringBuilder sql, String engine, String charset, String collate) {
+        sql.append(" ENGINE=").append(engine);
+        if (charset != null) {
+            sql.append(" DEFAULT CHARSET=").append(charset);
+        }
+        if (collate != null) {
+            sql.append(" COLLATE=").append(collate);
+        }
+    }
+
+    @Override
+    public String uniqueKeyDefinition(String name, List<String> columns) {
+        return "UNIQUE KEY " + name + " (" + String.join(", ", columns) + ")";
+    }
+
+    @Override
+    public String inlineIndexDefinition(String name, List<String> columns) {
+        return "INDEX " + name + " (" + String.join(", ", columns) + ")";
+    }
+
+    @Override
+    public String createIndexSql(String table, String name, List<String> columns, boolean ifNotExists) {
+        // MySQL 的 CREATE INDEX 不支持 IF NOT EXISTS
+        return "CREATE INDEX " + name + " ON " + table + " (" + String.join(", ", columns) + ")";
+    }
+
+    @Override
+    public BulkLoadStrategy getBulkLoadStrategy() {
+        return BulkLoadStrategy.LOAD_DATA_LOCAL_INFILE;
+    }
+}
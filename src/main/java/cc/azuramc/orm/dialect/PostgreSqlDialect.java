@@ -0,0 +1,96 @@
+package cc.azuramc.orm.dialect;
+
+import cc.azuramc.orm.config.DatabaseConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cc.azuramc.orm.dialect.ColumnDefinitions.*;
+
+/**
+ * PostgreSQL 方言
+ * 插入或更新使用 {@code ON CONFLICT (...) DO UPDATE}；批量执行时开启驱动的 reWriteBatchedInserts；
+ * 建表时把 MySQL 风格的自增列转换为 SERIAL / BIGSERIAL，去掉 UNSIGNED、ON UPDATE 和列注释，索引单独创建。
+ * @author AzuraMC Team
+ */
+public class PostgreSqlDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "PostgreSQL";
+    }
+
+    @Override
+    public boolean supportsUrl(String url) {
+        return url.startsWith("jdbc:postgresql:");
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.postgresql.Driver";
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        return Dialects.onConflictSql(table, columns, keyColumns, updateColumns);
+    }
+
+    @Override
+    public Map<String, String> getDataSourceProperties(DatabaseConfig config) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (config.isBatchRewriteEnabled()) {
+            properties.put("reWriteBatchedInserts", "true");
+        }
+        if (config.isDriverStatementCacheEnabled()) {
+            // 第一次执行就使用服务端预编译，驱动按SQL缓存预编译结果
+            properties.put("prepareThreshold", "1");
+            properties.put("preparedStatementCacheQueries", String.valueOf(config.getDriverStatementCacheSize()));
+        }
+        return properties;
+    }
+
+    @Override
+    public String columnDefinition(String definition) {
+        String result = replace(definition, DISPLAY_WIDTH, "$1");
+        result = replace(result, UNSIGNED, "");
+        result = replace(result, ON_UPDATE, "");
+        result = replace(result, COMMENT, "");
+        if (AUTO_INCREMENT.matcher(result).find()) {
+            result = replace(result, AUTO_INCREMENT, "");
+            if (typeIs(result, "BIGINT")) {
+                result = replaceType(result, "BIGSERIAL");
+            } else if (typeIs(result, "SMALLINT", "TINYINT")) {
+                result = replaceType(result, "SMALLSERIAL");
+            } else {
+                result = replaceType(result, "SERIAL");
+            }
+        } else if (typeIs(result, "TINYINT")) {
+            result = replaceType(result, "SMALLINT");
+        } else if (typeIs(result, "MEDIUMINT")) {
+            result = replaceType(result, "INTEGER");
+        } else if (typeIs(result, "DATETIME")) {
+            result = replaceType(result, "TIMESTAMP");
+        } else if (typeIs(result, "DOUBLE") && !result.trim().toUpperCase().startsWith("DOUBLE PRECISION")) {
+            result = replaceType(result, "DOUBLE PRECISION");
+        } else if (typeIs(result, "FLOAT")) {
+            result = replaceType(result, "REAL");
+        } else if (typeIs(result, "TINYTEXT", "MEDIUMTEXT", "LONGTEXT")) {
+            result = replaceType(result, "TEXT");
+        } else if (typeIs(result, "BLOB", "TINYBLOB", "MEDIUMBLOB", "LONGBLOB", "BINARY", "VARBINARY")) {
+            result = replaceType(result, "BYTEA");
+        } else if (typeIs(result, "JSON")) {
+            result = replaceType(result, "JSONB");
+        } else if (ENUM_OR_SET.matcher(result).find()) {
+            result = replace(result, ENUM_OR_SET, "VARCHAR(255)");
+        } else if (YEAR.matcher(result).find()) {
+            result = replace(result, YEAR, "SMALLINT");
+        }
+        return result.trim();
+    }
+
+    @Override
+    public BulkLoadStrategy getBulkLoadStrategy() {
+        return BulkLoadStrategy.COPY_FROM_STDIN;
+    }
+}
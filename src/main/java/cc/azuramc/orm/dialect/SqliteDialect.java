@@ -0,0 +1,56 @@
+package cc.azuramc.orm.dialect;
+
+import java.util.List;
+
+import static cc.azuramc.orm.dialect.ColumnDefinitions.*;
+
+/**
+ * SQLite 方言
+ * 插入或更新使用 {@code ON CONFLICT (...) DO UPDATE}（SQLite 3.24 起支持）；
+ * 建表时把自增主键转换为 {@code INTEGER PRIMARY KEY AUTOINCREMENT}，去掉 ON UPDATE 和列注释，索引单独创建。
+ * @author AzuraMC Team
+ */
+public class SqliteDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "SQLite";
+    }
+
+    @Override
+    public boolean supportsUrl(String url) {
+        return url.startsWith("jdbc:sqlite:");
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.sqlite.JDBC";
+    }
+
+    @Override
+    public String upsertSql(String table, List<String> columns, List<String> keyColumns, List<String> updateColumns) {
+        return Dialects.onConflictSql(table, columns, keyColumns, updateColumns);
+    }
+
+    @Override
+    public int getMaxParameters() {
+        // SQLite 3.32 起 SQLITE_MAX_VARIABLE_NUMBER 默认值
+        return 32766;
+    }
+
+    @Override
+    public String columnDefinition(String definition) {
+        String result = replace(definition, ON_UPDATE, "");
+        result = replace(result, COMMENT, "");
+        if (AUTO_INCREMENT.matcher(result).find()) {
+            // SQLite 只允许 INTEGER PRIMARY KEY 自增，主键约束也要写在 AUTOINCREMENT 之前
+            result = replace(result, AUTO_INCREMENT, "");
+            result = replace(result, pattern("\\s+PRIMARY\\s+KEY\\b"), "");
+            result = replace(result, UNSIGNED, "");
+            result = replaceType(result, "INTEGER PRIMARY KEY AUTOINCREMENT");
+        } else if (ENUM_OR_SET.matcher(result).find()) {
+            result = replace(result, ENUM_OR_SET, "TEXT");
+        }
+        return result.trim();
+    }
+}
@@ -0,0 +1,195 @@
+package cc.azuramc.orm.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从 {@link StatementCache} 借出的语句
+ * close() 时把语句归还给缓存而不是真正关闭；修改过语句级设置（如 fetchSize、queryTimeout）的语句
+ * 不再复用，归还时直接关闭，避免设置泄漏给下一次使用。
+ * @author AzuraMC Team
+ */
+final class CachedPreparedStatement extends DelegatingPreparedStatement {
+
+    private final CachingConnection owner;
+    private final StatementCache cache;
+    private final StatementCache.Entry entry;
+    private final List<ResultSet> resultSets = new ArrayList<>(1);
+    private boolean closed;
+    private boolean modified;
+
+    CachedPreparedStatement(PreparedStatement delegate, CachingConnection owner, StatementCache cache,
+                            StatementCache.Entry entry) {
+        super(delegate);
+        this.owner = owner;
+        this.cache = cache;
+        this.entry = entry;
+        entry.lease = this;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cache.release(entry, resultSets, !modified);
+    }
+
+    void closeQuietly() {
+        if (!closed) {
+            closed = true;
+            cache.release(entry, resultSets, false);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return owner;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("PreparedStatement 已关闭。");
+        }
+    }
+
+    private ResultSet track(ResultSet resultSet) {
+        if (resultSet != null) {
+            resultSets.add(resultSet);
+        }
+        return resultSet;
+    }
+
+    // ---------- 执行: 记录事务状态 ----------
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return track(delegate.executeQuery());
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return delegate.executeUpdate();
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return delegate.executeLargeUpdate();
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return delegate.execute();
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        checkOpen();
+        entry.batched = true;
+        delegate.addBatch();
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return delegate.executeBatch();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        checkOpen();
+        owner.markDirty();
+        return delegate.executeLargeBatch();
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return track(delegate.getResultSet());
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return track(delegate.getGeneratedKeys());
+    }
+
+    // ---------- 语句级设置: 修改后不再复用 ----------
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        modified = true;
+        delegate.setMaxFieldSize(max);
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        modified = true;
+        delegate.setMaxRows(max);
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        modified = true;
+        delegate.setLargeMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        modified = true;
+        delegate.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        modified = true;
+        delegate.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        modified = true;
+        delegate.setCursorName(name);
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        modified = true;
+        delegate.setFetchDirection(direction);
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        modified = true;
+        delegate.setFetchSize(rows);
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        modified = true;
+        delegate.setPoolable(poolable);
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        modified = true;
+        delegate.closeOnCompletion();
+    }
+}
@@ -0,0 +1,105 @@
+package cc.azuramc.orm.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+/**
+ * 带语句缓存的连接，prepareStatement(sql) 和 prepareStatement(sql, autoGeneratedKeys)
+ * 经过所属物理连接的 {@link StatementCache}，其余方法直接转发给连接池借出的连接。
+ * <p>
+ * 缓存的语句不经过连接池代理执行，连接池无法感知它们产生的未提交事务，
+ * 因此归还连接时若存在未提交的执行，这里会先回滚，保持与连接池相同的安全语义。
+ * @author AzuraMC Team
+ */
+public class CachingConnection extends DelegatingConnection {
+
+    private final StatementCache cache;
+    private boolean dirty;
+    private boolean closed;
+
+    CachingConnection(Connection pooledConnection, StatementCache cache) {
+        super(pooledConnection);
+        this.cache = cache;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkOpen();
+        return cache.prepare(this, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkOpen();
+        return cache.prepare(this, sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        delegate.setAutoCommit(autoCommit);
+        if (autoCommit) {
+            // 切换为自动提交时驱动会提交当前事务
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        delegate.commit();
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        delegate.rollback();
+        dirty = false;
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        delegate.rollback(savepoint);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            cache.releaseAll();
+            if (dirty && !delegate.isClosed() && !delegate.getAutoCommit()) {
+                delegate.rollback();
+            }
+        } finally {
+            dirty = false;
+            delegate.close();
+        }
+    }
+
+    /**
+     * 获取当前物理连接的语句缓存
+     * @return 语句缓存
+     */
+    public StatementCache getStatementCache() {
+        return cache;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection 已关闭。");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package cc.azuramc.orm.jdbc;
+
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.dialect.Dialects;
+import cc.azuramc.orm.transaction.Transaction;
+import cc.azuramc.orm.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 构建器终结操作 (fetchList、executeUpdate 等) 使用的连接来源
+ * 每次终结操作都在 acquire / release 之间完成执行、映射和资源关闭，借用窗口尽量短。
+ * @author AzuraMC Team
+ */
+public interface ConnectionSource {
+
+    /**
+     * 借出连接
+     * @return 数据库连接
+     * @throws SQLException 如果无法获取连接
+     */
+    Connection acquire() throws SQLException;
+
+    /**
+     * 归还连接
+     * @param connection acquire() 返回的连接
+     * @param success 本次操作是否成功，决定提交还是回滚
+     * @throws SQLException 如果提交、回滚或关闭失败
+     */
+    void release(Connection connection, boolean success) throws SQLException;
+
+    /**
+     * 借出用于只读查询的连接，默认与 {@link #acquire()} 相同
+     * @return 数据库连接
+     * @throws SQLException 如果无法获取连接
+     */
+    default Connection acquireForRead() throws SQLException {
+        return acquire();
+    }
+
+    /**
+     * 归还 {@link #acquireForRead()} 借出的连接，默认与 {@link #release} 相同
+     * @param connection acquireForRead() 返回的连接
+     * @param success 本次操作是否成功
+     * @throws SQLException 如果提交、回滚或关闭失败
+     */
+    default void releaseRead(Connection connection, boolean success) throws SQLException {
+        release(connection, success);
+    }
+
+    /**
+     * 连接来源对应的配置名称，用于指标和 JFR 事件
+     * @return 配置名称，未知时返回null
+     */
+    default String getConfigName() {
+        return null;
+    }
+
+    /**
+     * 连接来源对应的数据库方言，构建器按方言生成分页、插入或更新等语句
+     * @return 方言，未知时返回null，由构建器从连接元数据识别
+     */
+    default Dialect getDialect() {
+        return null;
+    }
+
+    /**
+     * 当前线程上的操作是否都使用同一个连接（调用方的连接或当前线程的事务连接）
+     * 此时不能把一次查询拆到其他线程上用别的连接并行执行，例如超长 IN 列表的分块查询。
+     * @return 是否绑定连接，默认 false
+     */
+    default boolean isConnectionBound() {
+        return false;
+    }
+
+    /**
+     * 使用调用方管理的连接，不提交也不关闭
+     * @param connection 数据库连接
+     * @return 连接来源
+     */
+    static ConnectionSource of(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("数据库连接 (Connection) 不能为空。");
+        }
+        return new ConnectionSource() {
+            private volatile Dialect dialect;
+
+            @Override
+            public Connection acquire() {
+                return connection;
+            }
+
+            @Override
+            public Dialect getDialect() {
+                Dialect current = dialect;
+                if (current == null) {
+                    try {
+                        current = Dialects.forConnection(connection);
+                        dialect = current;
+                    } catch (SQLException e) {
+                        // 交给构建器在执行时重新识别并抛出异常
+                        return null;
+                    }
+                }
+                return current;
+            }
+
+            @Override
+            public void release(Connection connection, boolean success) {
+                // 由调用方负责事务和关闭
+            }
+
+            @Override
+            public boolean isConnectionBound() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 每次操作从 {@link DBUtil} 的连接池借出连接，结束后提交（失败时回滚）并归还
+     * 只读查询通过 {@link DBUtil#getReadConnection} 路由到从库，写入成功后记录读己之写窗口。
+     * 当前线程处于该配置的 {@link Transaction} 中时，读写都使用事务的主库连接，由事务负责提交和归还。
+     * @param configName 配置名称
+     * @return 连接来源
+     */
+    static ConnectionSource pooled(String configName) {
+        if (configName == null || configName.trim().isEmpty()) {
+            throw new IllegalArgumentException("配置名称不能为空。");
+        }
+        return new ConnectionSource() {
+            @Override
+            public String getConfigName() {
+                return configName;
+            }
+
+            @Override
+            public Dialect getDialect() {
+                return DBUtil.getDialect(configName);
+            }
+
+            @Override
+            public Connection acquire() throws SQLException {
+                Transaction transaction = Transaction.current(configName);
+                if (transaction != null) {
+                    return transaction.getConnectionSource().acquire();
+                }
+                return DBUtil.getConnection(configName);
+            }
+
+            @Override
+            public void release(Connection connection, boolean success) throws SQLException {
+                if (inTransaction(connection)) {
+                    return;
+                }
+                releaseRead(connection, success);
+                if (success) {
+                    DBUtil.recordWrite(configName);
+                }
+            }
+
+            @Override
+            public Connection acquireForRead() throws SQLException {
+                Transaction transaction = Transaction.current(configName);
+                if (transaction != null) {
+                    return transaction.getConnectionSource().acquireForRead();
+                }
+                return DBUtil.getReadConnection(configName);
+            }
+
+            @Override
+            public void releaseRead(Connection connection, boolean success) throws SQLException {
+                if (inTransaction(connection)) {
+                    return;
+                }
+                try {
+                    if (!connection.getAutoCommit()) {
+                        if (success) {
+                            connection.commit();
+                        } else {
+                            connection.rollback();
+                        }
+                    }
+                } finally {
+                    connection.close();
+                }
+            }
+
+            @Override
+            public boolean isConnectionBound() {
+                return Transaction.current(configName) != null;
+            }
+
+            private boolean inTransaction(Connection connection) throws SQLException {
+                Transaction transaction = Transaction.current(configName);
+                return transaction != null && transaction.getConnectionSource().acquire() == connection;
+            }
+        };
+    }
+}
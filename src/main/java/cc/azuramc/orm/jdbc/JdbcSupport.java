@@ -0,0 +1,100 @@
+package cc.azuramc.orm.jdbc;
+
+import cc.azuramc.orm.jfr.OrmEvents;
+import cc.azuramc.orm.jfr.ResultMappingEvent;
+import cc.azuramc.orm.metrics.StatementMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 构建器的终结操作和生成的 DAO 共用的执行辅助方法，属于内部API
+ * 借出和归还连接、失败时回滚、记录配置名称和结果映射事件都只在这里实现一次。
+ * @author AzuraMC Team
+ */
+public final class JdbcSupport {
+
+    private JdbcSupport() {
+    }
+
+    /** 在借出的连接上执行的操作 */
+    @FunctionalInterface
+    public interface ConnectionCallback<R> {
+        R doInConnection(Connection connection) throws SQLException;
+    }
+
+    /**
+     * 借出连接执行操作并归还，操作抛出异常时以失败归还（事务外回滚），归还的异常附加到原异常上
+     * @param source 连接来源
+     * @param readOnly 是否为只读查询，只读查询可以被路由到从库
+     * @param callback 操作
+     * @return 操作结果
+     * @throws SQLException 如果操作或归还连接失败
+     */
+    public static <R> R run(ConnectionSource source, boolean readOnly, ConnectionCallback<R> callback)
+            throws SQLException {
+        String previousConfig = OrmEvents.enter(source.getConfigName());
+        try {
+            Connection connection = readOnly ? source.acquireForRead() : source.acquire();
+            R result;
+            try {
+                result = callback.doInConnection(connection);
+            } catch (SQLException | RuntimeException | Error e) {
+                try {
+                    release(source, readOnly, connection, false);
+                } catch (SQLException releaseEx) {
+                    e.addSuppressed(releaseEx);
+                }
+                throw e;
+            }
+            release(source, readOnly, connection, true);
+            return result;
+        } finally {
+            OrmEvents.exit(previousConfig);
+        }
+    }
+
+    private static void release(ConnectionSource source, boolean readOnly, Connection connection, boolean success)
+            throws SQLException {
+        if (readOnly) {
+            source.releaseRead(connection, success);
+        } else {
+            source.release(connection, success);
+        }
+    }
+
+    /**
+     * 结束并提交结果映射事件
+     * @param event 已开始的事件
+     * @param pstmt 查询的语句
+     * @param rows 读取的行数
+     */
+    public static void commitMappingEvent(ResultMappingEvent event, PreparedStatement pstmt, int rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.configName = OrmEvents.currentConfig();
+            event.sql = StatementMetrics.shapeOf(pstmt);
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    /**
+     * 汇总批量执行的影响行数，驱动未返回行数 (SUCCESS_NO_INFO) 时按 1 行计
+     * @param counts executeBatch() 的返回值
+     * @return 影响行数
+     */
+    public static int sumBatch(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                total += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                total++;
+            }
+        }
+        return total;
+    }
+}
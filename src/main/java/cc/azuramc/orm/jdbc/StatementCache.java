@@ -0,0 +1,230 @@
+package cc.azuramc.orm.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 单个物理连接上的 PreparedStatement LRU 缓存，以最终SQL为键
+ * 语句直接在物理连接上预编译，连接归还连接池后仍然保留，下次借出同一物理连接时可以直接复用，
+ * 省去客户端和服务端的重复解析。与 JDBC 连接一样，同一时刻只应由一个线程使用。
+ * @author AzuraMC Team
+ */
+public final class StatementCache {
+
+    private final Connection physicalConnection;
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    StatementCache(Connection physicalConnection, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("语句缓存大小必须大于0。");
+        }
+        this.physicalConnection = physicalConnection;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                evictionCount++;
+                Entry entry = eldest.getValue();
+                if (entry.inUse) {
+                    // 正在使用的语句在归还时再关闭
+                    entry.evicted = true;
+                } else {
+                    closeQuietly(entry.statement);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取语句，优先复用缓存中空闲的语句
+     * @param owner 当前借出的连接
+     * @param sql SQL语句
+     * @param autoGeneratedKeys 是否返回自增主键
+     * @return 语句，调用 close() 时归还到缓存
+     * @throws SQLException 如果预编译失败
+     */
+    PreparedStatement prepare(CachingConnection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.inUse) {
+                // 同一SQL的语句尚未关闭（例如嵌套使用），退回到不缓存的普通语句
+                missCount++;
+                return prepareUncached(owner.getDelegate(), sql, autoGeneratedKeys);
+            }
+            if (!entry.statement.isClosed()) {
+                hitCount++;
+                entry.inUse = true;
+                return new CachedPreparedStatement(entry.statement, owner, this, entry);
+            }
+            entries.remove(key);
+        }
+
+        missCount++;
+        PreparedStatement statement = prepareUncached(physicalConnection, sql, autoGeneratedKeys);
+        entry = new Entry(key, statement);
+        entry.inUse = true;
+        entries.put(key, entry);
+        return new CachedPreparedStatement(statement, owner, this, entry);
+    }
+
+    /**
+     * 归还语句：关闭未关闭的结果集并清空参数，语句本身保持打开
+     * @param entry 缓存项
+     * @param resultSets 本次使用中打开的结果集
+     * @param reusable 语句状态是否可以被下一次使用安全复用
+     */
+    void release(Entry entry, List<ResultSet> resultSets, boolean reusable) {
+        for (ResultSet resultSet : resultSets) {
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+        if (reusable) {
+            try {
+                entry.statement.clearParameters();
+                if (entry.batched) {
+                    entry.statement.clearBatch();
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        entry.inUse = false;
+        entry.batched = false;
+        entry.lease = null;
+        if (!reusable || entry.evicted) {
+            entries.remove(entry.key, entry);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * 连接归还时强制归还调用方忘记关闭的语句
+     */
+    void releaseAll() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            CachedPreparedStatement lease = entry.lease;
+            if (lease != null) {
+                lease.closeQuietly();
+            }
+        }
+    }
+
+    /**
+     * 关闭缓存中的所有语句
+     */
+    void close() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    boolean isConnectionClosed() {
+        try {
+            return physicalConnection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static PreparedStatement prepareUncached(Connection connection, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        return autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // 物理连接可能已经关闭，忽略
+        }
+    }
+
+    /** 缓存键: SQL + 是否返回自增主键 */
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+        final int hash;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.hash = sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && Objects.equals(sql, other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** 缓存项 */
+    static final class Entry {
+        final Key key;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean batched;
+        boolean evicted;
+        CachedPreparedStatement lease;
+
+        Entry(Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package cc.azuramc.orm.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个连接池内所有物理连接的语句缓存
+ * 借出连接时按物理连接找到对应的 {@link StatementCache}，并包装成 {@link CachingConnection}。
+ * @author AzuraMC Team
+ */
+public class StatementCacheRegistry {
+
+    private final int cacheSize;
+    private final Map<Connection, StatementCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheSize 每个物理连接缓存的语句数量
+     */
+    public StatementCacheRegistry(int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("语句缓存大小必须大于0。");
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * 包装连接池借出的连接
+     * @param pooledConnection 连接池借出的连接
+     * @return 带语句缓存的连接
+     * @throws SQLException 如果无法获取物理连接
+     */
+    public Connection wrap(Connection pooledConnection) throws SQLException {
+        Connection physicalConnection = pooledConnection.unwrap(Connection.class);
+        StatementCache cache = caches.get(physicalConnection);
+        if (cache == null) {
+            // 新的物理连接出现时顺便清理已被连接池关闭的连接
+            purgeClosed();
+            cache = caches.computeIfAbsent(physicalConnection, c -> new StatementCache(c, cacheSize));
+        }
+        return new CachingConnection(pooledConnection, cache);
+    }
+
+    private void purgeClosed() {
+        caches.values().removeIf(StatementCache::isConnectionClosed);
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * 当前缓存的物理连接数
+     * @return 物理连接数
+     */
+    public int getConnectionCount() {
+        return caches.size();
+    }
+
+    /**
+     * 所有物理连接的缓存命中次数（近似值）
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        long total = 0;
+        for (StatementCache cache : caches.values()) {
+            total += cache.getHitCount();
+        }
+        return total;
+    }
+
+    /**
+     * 所有物理连接的缓存未命中次数（近似值）
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        long total = 0;
+        for (StatementCache cache : caches.values()) {
+            total += cache.getMissCount();
+        }
+        return total;
+    }
+
+    /**
+     * 关闭所有缓存的语句
+     */
+    public void close() {
+        caches.values().forEach(StatementCache::close);
+        caches.clear();
+    }
+}
@@ -0,0 +1,40 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link cc.azuramc.orm.cache.MemoryCache} 的读取、写入和淘汰
+ * 缓存操作频繁，默认不记录调用栈。
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.Cache")
+@Label("Cache Operation")
+@Category({OrmEvents.CATEGORY, "Cache"})
+@Description("A get, put, remove or eviction on an ORM cache")
+@StackTrace(false)
+public final class CacheEvent extends Event {
+
+    public static final String GET = "get";
+    public static final String PUT = "put";
+    public static final String REMOVE = "remove";
+    public static final String EVICT = "evict";
+
+    @Label("Cache Name")
+    public String cacheName;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Hit")
+    @Description("Whether a get found a live entry")
+    public boolean hit;
+
+    @Label("Entries")
+    @Description("Number of entries affected")
+    public int entries;
+}
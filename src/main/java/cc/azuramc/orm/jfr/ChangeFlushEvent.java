@@ -0,0 +1,27 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * {@link cc.azuramc.orm.manager.ChangeManager} 把脏实体写回数据库
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.ChangeFlush")
+@Label("Change Flush")
+@Category({OrmEvents.CATEGORY, "Change Tracking"})
+@Description("Flushing dirty entities through a ChangeManager")
+public final class ChangeFlushEvent extends Event {
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Failed")
+    public boolean failed;
+}
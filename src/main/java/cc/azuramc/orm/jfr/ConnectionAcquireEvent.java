@@ -0,0 +1,31 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 从连接池借出连接，持续时间为等待连接池的时长
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({OrmEvents.CATEGORY, "JDBC"})
+@Description("Borrowing a connection from a HikariCP pool")
+public final class ConnectionAcquireEvent extends Event {
+
+    @Label("Config Name")
+    public String configName;
+
+    @Label("Pool Name")
+    public String poolName;
+
+    @Label("Replica")
+    @Description("Whether the connection was borrowed from a read replica")
+    public boolean replica;
+
+    @Label("Failed")
+    public boolean failed;
+}
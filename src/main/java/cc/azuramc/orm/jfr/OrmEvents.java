@@ -0,0 +1,56 @@
+package cc.azuramc.orm.jfr;
+
+/**
+ * ORM 的 JFR 事件公共定义
+ * 所有事件归入 {@value #CATEGORY} 分类，名称以 {@code cc.azuramc.orm.} 开头，可以在 .jfc 配置中单独开关或设置阈值:
+ * <pre>
+ * java -XX:StartFlightRecording:filename=app.jfr,settings=profile ...
+ * jfr print --events cc.azuramc.orm.StatementExecute app.jfr
+ * </pre>
+ * 未开启记录时事件的 begin/end 只是空操作，不需要额外的开关。
+ * 终结操作执行期间当前线程会记录所用的配置名称，连接、语句和映射事件从这里读取。
+ * @author AzuraMC Team
+ */
+public final class OrmEvents {
+
+    /** 事件分类 */
+    public static final String CATEGORY = "AzuraORM";
+
+    private static final ThreadLocal<String> currentConfig = new ThreadLocal<>();
+
+    private OrmEvents() {
+    }
+
+    /**
+     * 获取当前线程正在执行的终结操作所用的配置名称
+     * @return 配置名称，不在终结操作中或使用调用方的连接时返回null
+     */
+    public static String currentConfig() {
+        return currentConfig.get();
+    }
+
+    /**
+     * 进入终结操作
+     * @param configName 配置名称，可以为null
+     * @return 之前的配置名称，结束时传给 {@link #exit}
+     */
+    public static String enter(String configName) {
+        String previous = currentConfig.get();
+        if (configName != null || previous != null) {
+            currentConfig.set(configName);
+        }
+        return previous;
+    }
+
+    /**
+     * 退出终结操作，恢复之前的配置名称
+     * @param previous {@link #enter} 的返回值
+     */
+    public static void exit(String previous) {
+        if (previous == null) {
+            currentConfig.remove();
+        } else {
+            currentConfig.set(previous);
+        }
+    }
+}
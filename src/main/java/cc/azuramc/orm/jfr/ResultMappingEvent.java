@@ -0,0 +1,28 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 终结操作读取结果集并映射为对象，包括驱动分批拉取行的时间
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.ResultMapping")
+@Label("Result Mapping")
+@Category({OrmEvents.CATEGORY, "JDBC"})
+@Description("Reading and mapping the rows of a query")
+public final class ResultMappingEvent extends Event {
+
+    @Label("Config Name")
+    public String configName;
+
+    @Label("SQL")
+    @Description("Statement shape with literals and parameters replaced by ?")
+    public String sql;
+
+    @Label("Rows")
+    public int rows;
+}
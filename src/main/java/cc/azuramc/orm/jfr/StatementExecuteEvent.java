@@ -0,0 +1,36 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 执行构建器的语句，查询只统计到返回结果集为止，读取结果的时长见 {@link ResultMappingEvent}
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.StatementExecute")
+@Label("Statement Execute")
+@Category({OrmEvents.CATEGORY, "JDBC"})
+@Description("Executing a builder statement")
+public final class StatementExecuteEvent extends Event {
+
+    @Label("Config Name")
+    public String configName;
+
+    @Label("SQL")
+    @Description("Statement shape with literals and parameters replaced by ?")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Affected rows, -1 for queries")
+    public long rows;
+
+    @Label("Batch Size")
+    @Description("Number of batched parameter sets, 0 if not batched")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,28 @@
+package cc.azuramc.orm.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 构建器创建 PreparedStatement，命中语句缓存时持续时间接近0
+ * @author AzuraMC Team
+ */
+@Name("cc.azuramc.orm.StatementPrepare")
+@Label("Statement Prepare")
+@Category({OrmEvents.CATEGORY, "JDBC"})
+@Description("Preparing a statement for a builder")
+public final class StatementPrepareEvent extends Event {
+
+    @Label("Config Name")
+    public String configName;
+
+    @Label("SQL")
+    @Description("Statement shape with literals and parameters replaced by ?")
+    public String sql;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -1,12 +1,15 @@
 package cc.azuramc.orm.manager;
 
 import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.jfr.ChangeFlushEvent;
 import lombok.Getter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
 /**
@@ -18,7 +21,9 @@ public class ChangeManager<T extends ChangeManager.DirtyTracker> {
     private static final int DEFAULT_BATCH_SIZE = 3;
     private static final long DEFAULT_FLUSH_INTERVAL = 5000; // 5 seconds
     
-    private final Set<T> dirtyEntities = Collections.synchronizedSet(new HashSet<>());
+    /** 并发集合和显式锁不使用对象监视器，在虚拟线程上执行批量更新时不会钉住载体线程 */
+    private final Set<T> dirtyEntities = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final Consumer<List<T>> updateFunction;
     @Getter private final int batchSize;
@@ -72,17 +77,55 @@ public class ChangeManager<T extends ChangeManager.DirtyTracker> {
             return;
         }
         
-        List<T> entitiesToUpdate = new ArrayList<>(dirtyEntities);
-        GlobalConfig.debugLog("CHANGE", "Flushing " + entitiesToUpdate.size() + " dirty entities");
-        
+        flushLock.lock();
+        ChangeFlushEvent event = new ChangeFlushEvent();
+        List<T> entitiesToUpdate = Collections.emptyList();
+        boolean failed = true;
         try {
+            entitiesToUpdate = new ArrayList<>(dirtyEntities);
+            if (entitiesToUpdate.isEmpty()) {
+                return;
+            }
+            GlobalConfig.debugLog("CHANGE", "Flushing " + entitiesToUpdate.size() + " dirty entities");
+            
+            // 字段级跟踪的实体记录刷新前的脏字段，刷新后只清除这些字段
+            long[] masks = new long[entitiesToUpdate.size()];
+            for (int i = 0; i < masks.length; i++) {
+                T entity = entitiesToUpdate.get(i);
+                masks[i] = entity instanceof FieldDirtyTracker ? ((FieldDirtyTracker) entity).getDirtyFields() : 0L;
+            }
+            event.begin();
             updateFunction.accept(entitiesToUpdate);
-            entitiesToUpdate.forEach(ChangeManager.DirtyTracker::cleanDirty);
-            dirtyEntities.clear();
+            for (int i = 0; i < masks.length; i++) {
+                T entity = entitiesToUpdate.get(i);
+                if (entity instanceof FieldDirtyTracker) {
+                    ((FieldDirtyTracker) entity).cleanDirty(masks[i]);
+                } else {
+                    entity.cleanDirty();
+                }
+                // 先移除再检查：检查之后才修改并注册的实体会被 registerDirty 重新加入，
+                // 刷新期间又被修改了其他字段的实体在这里重新加入，都留到下一次刷新
+                dirtyEntities.remove(entity);
+                if (entity.isDirty()) {
+                    dirtyEntities.add(entity);
+                }
+            }
+            failed = false;
             GlobalConfig.debugLog("CHANGE", "Successfully flushed " + entitiesToUpdate.size() + " entities");
         } catch (Exception e) {
             System.err.println("Error during flush: " + e.getMessage());
             throw new RuntimeException("Failed to flush changes", e);
+        } finally {
+            flushLock.unlock();
+            if (!entitiesToUpdate.isEmpty()) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.entityType = entitiesToUpdate.get(0).getClass().getName();
+                    event.entities = entitiesToUpdate.size();
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
         }
     }
     
@@ -125,4 +168,22 @@ public class ChangeManager<T extends ChangeManager.DirtyTracker> {
          */
         void cleanDirty();
     }
+    
+    /**
+     * 按字段记录修改的脏数据跟踪接口，由标注了 {@link cc.azuramc.orm.annotation.Tracked} 的实体生成的子类实现
+     * 生成的 DAO 更新这类实体时只写入被修改的列，写入后只清除写入过的列的位。
+     */
+    public interface FieldDirtyTracker extends DirtyTracker {
+        /**
+         * 获取被修改的字段位集
+         * @return 第 i 位对应实体的第 i 个映射列，与生成的 RowMapper 和 DAO 的 COLUMNS 顺序一致
+         */
+        long getDirtyFields();
+
+        /**
+         * 只清除指定字段的脏数据标记，写入期间被修改的其他字段保持为脏
+         * @param mask 要清除的字段位集
+         */
+        void cleanDirty(long mask);
+    }
 } 
\ No newline at end of file
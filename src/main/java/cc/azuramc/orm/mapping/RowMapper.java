@@ -0,0 +1,35 @@
+package cc.azuramc.orm.mapping;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * 结果集行映射器，将 ResultSet 的当前行转换为对象
+ * 可以直接使用 lambda 手写，也可以由注解处理器为 {@link cc.azuramc.orm.annotation.Mapped} 类生成。
+ * @param <T> 映射结果类型
+ * @author AzuraMC Team
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * 映射当前行，不应移动游标
+     * @param rs 结果集
+     * @return 映射结果
+     * @throws SQLException 如果发生SQL异常
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+
+    /**
+     * 根据结果集元数据解析列索引，返回绑定后的映射器
+     * 每条语句执行后只调用一次，之后逐行调用绑定后映射器的 {@link #mapRow(ResultSet)}，
+     * 避免每行按列名查找。默认实现直接返回自身。
+     * @param metaData 结果集元数据
+     * @return 绑定后的映射器
+     * @throws SQLException 如果发生SQL异常
+     */
+    default RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        return this;
+    }
+}
@@ -0,0 +1,96 @@
+package cc.azuramc.orm.mapping;
+
+import cc.azuramc.orm.exception.ConfigurationException;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RowMapper 工具类，负责查找编译期生成的映射器以及解析列索引
+ * @author AzuraMC Team
+ */
+public final class RowMappers {
+
+    /** 生成类名的后缀 */
+    public static final String MAPPER_SUFFIX = "RowMapper";
+
+    /** 每个实体类只通过反射加载一次生成的映射器，之后直接复用实例 */
+    private static final ClassValue<RowMapper<?>> GENERATED = new ClassValue<RowMapper<?>>() {
+        @Override
+        protected RowMapper<?> computeValue(Class<?> type) {
+            return loadGenerated(type);
+        }
+    };
+
+    private RowMappers() {
+    }
+
+    /**
+     * 获取实体类对应的生成映射器
+     * @param type 标注了 {@link cc.azuramc.orm.annotation.Mapped} 的实体类
+     * @param <T> 实体类型
+     * @return 映射器
+     * @throws ConfigurationException 如果未找到生成的映射器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forClass(Class<T> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("实体类型不能为空。");
+        }
+        return (RowMapper<T>) GENERATED.get(type);
+    }
+
+    /**
+     * 获取实体类对应的生成映射器的全限定类名
+     * @param type 实体类
+     * @return 生成类的全限定名
+     */
+    public static String generatedClassName(Class<?> type) {
+        String binaryName = type.getName();
+        Package pkg = type.getPackage();
+        String packageName = pkg != null ? pkg.getName() : "";
+        String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        String mapperName = simpleBinaryName.replace('$', '_') + MAPPER_SUFFIX;
+        return packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+    }
+
+    private static RowMapper<?> loadGenerated(Class<?> type) {
+        String className = generatedClassName(type);
+        try {
+            Class<?> mapperClass = Class.forName(className, true, type.getClassLoader());
+            return (RowMapper<?>) mapperClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new ConfigurationException("未找到 " + type.getName() + " 的映射器 " + className
+                    + "，请确认该类标注了 @Mapped 且已启用 AzuraORM 注解处理器", e);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new ConfigurationException("无法实例化映射器: " + className, e);
+        }
+    }
+
+    /**
+     * 按列名解析列索引，供生成的映射器在绑定时调用
+     * 列名比较不区分大小写；结果集中不存在的列返回 0，映射时跳过。
+     * @param metaData 结果集元数据
+     * @param columns 映射器需要的列名
+     * @return 与 columns 一一对应的列索引（从 1 开始）
+     * @throws SQLException 如果读取元数据失败
+     */
+    public static int[] resolveColumns(ResultSetMetaData metaData, String[] columns) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        Map<String, Integer> labels = new HashMap<>(columnCount * 2);
+        for (int i = 1; i <= columnCount; i++) {
+            // 同名列以第一次出现的为准，与 ResultSet.findColumn 的行为一致
+            labels.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer index = labels.get(columns[i].toLowerCase(Locale.ROOT));
+            indexes[i] = index != null ? index : 0;
+        }
+        return indexes;
+    }
+}
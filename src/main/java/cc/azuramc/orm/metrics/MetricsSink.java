@@ -0,0 +1,50 @@
+package cc.azuramc.orm.metrics;
+
+/**
+ * 可插拔的指标输出端，例如转发到 Prometheus、StatsD 或日志
+ * 回调在借出/归还连接或执行语句的线程上同步执行，实现必须足够快且不能抛出异常；需要聚合时直接读取 {@link PoolMetrics}。
+ * @author AzuraMC Team
+ */
+public interface MetricsSink {
+
+    /**
+     * 借出连接
+     * @param poolName 配置名称（从库为从库连接池名称）
+     * @param nanos 等待连接的时长（纳秒）
+     */
+    default void onConnectionAcquired(String poolName, long nanos) {
+    }
+
+    /**
+     * 归还连接
+     * @param poolName 配置名称（从库为从库连接池名称）
+     * @param millis 从借出到归还的时长（毫秒）
+     */
+    default void onConnectionUsage(String poolName, long millis) {
+    }
+
+    /**
+     * 等待连接超时
+     * @param poolName 配置名称（从库为从库连接池名称）
+     */
+    default void onConnectionTimeout(String poolName) {
+    }
+
+    /**
+     * 建立新的物理连接
+     * @param poolName 配置名称（从库为从库连接池名称）
+     * @param millis 建连耗时（毫秒）
+     */
+    default void onConnectionCreated(String poolName, long millis) {
+    }
+
+    /**
+     * 构建器执行了一条语句
+     * @param shape SQL形状，参数和字面量替换为 ?
+     * @param nanos 执行耗时（纳秒）
+     * @param rows 影响的行数，查询为 -1
+     * @param failed 是否抛出了异常
+     */
+    default void onStatementExecuted(String shape, long nanos, long rows, boolean failed) {
+    }
+}
@@ -0,0 +1,139 @@
+package cc.azuramc.orm.metrics;
+
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * N+1 查询检测：在 {@link QueryScope}（事务或显式的作用域）内，同一SQL形状的查询只换参数执行了多次时发出警告
+ * 警告包含发起查询的调用位置和改写为 IN 列表的建议，默认输出到 {@code cc.azuramc.orm.NPlusOne} 日志 (java.util.logging, WARNING)。
+ * 示例:
+ * <pre>
+ * NPlusOneDetector.setEnabled(true);
+ * try (QueryScope scope = client.queryScope("loadGuild")) {
+ *     for (long id : memberIds) {
+ *         client.select("*").from("players").whereEquals("id", id).fetchOne(Player.class);
+ *     }
+ * }   // 关闭时警告: SELECT * FROM players WHERE id = ? ran 50 times ... use whereIn("id", ...)
+ * </pre>
+ * 只统计构建器执行的查询，依赖 {@link StatementMetrics} 的计时，关闭统计时不会检测。
+ * @author AzuraMC Team
+ */
+public final class NPlusOneDetector {
+
+    /** 默认阈值：同一作用域内同一形状执行的次数 */
+    public static final int DEFAULT_THRESHOLD = 10;
+
+    private static final Logger N_PLUS_ONE_LOG = Logger.getLogger("cc.azuramc.orm.NPlusOne");
+    private static final Pattern SINGLE_EQUALS = Pattern.compile("([\\w.]+) = \\?");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final CodeSource LIBRARY = NPlusOneDetector.class.getProtectionDomain().getCodeSource();
+
+    private static final List<Consumer<NPlusOneWarning>> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean enabled = false;
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    private NPlusOneDetector() {
+    }
+
+    /**
+     * 设置是否检测，默认关闭；开启后事务自动作为一个作用域
+     * @param enabled 是否开启
+     */
+    public static void setEnabled(boolean enabled) {
+        NPlusOneDetector.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 设置阈值
+     * @param threshold 同一作用域内同一形状执行达到该次数时警告，至少为2
+     */
+    public static void setThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("阈值必须大于等于2。");
+        }
+        NPlusOneDetector.threshold = threshold;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 添加警告监听器，例如在测试中收集警告并断言
+     * @param listener 监听器，在关闭作用域的线程上调用
+     */
+    public static void addListener(Consumer<NPlusOneWarning> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("监听器不能为空。");
+        }
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Consumer<NPlusOneWarning> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 只检测查询，写入的重复执行由事务的自动批量处理
+     */
+    static boolean isCandidate(String shape) {
+        return shape.regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    /**
+     * 当前线程上第一个不属于本库的调用帧
+     */
+    static StackTraceElement findCallSite() {
+        Optional<StackWalker.StackFrame> frame = STACK_WALKER.walk(frames -> frames
+                .filter(f -> !isInternal(f.getDeclaringClass()))
+                .findFirst());
+        return frame.map(StackWalker.StackFrame::toStackTraceElement).orElse(null);
+    }
+
+    private static boolean isInternal(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.")) {
+            return true;
+        }
+        if (!name.startsWith("cc.azuramc.orm.")) {
+            return false;
+        }
+        // 与本库打包在同一个位置的类属于本库，基准测试、压测等其他源码集视为调用方
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        return LIBRARY == null || source == null || LIBRARY.getLocation().equals(source.getLocation());
+    }
+
+    /**
+     * 生成改写建议：唯一的参数是等值条件时改写为 IN 列表，否则提示合并查询
+     */
+    static String suggest(String shape) {
+        Matcher matcher = SINGLE_EQUALS.matcher(shape);
+        if (shape.indexOf('?') == shape.lastIndexOf('?') && matcher.find()) {
+            String column = matcher.group(1);
+            return "collect the keys and query once with whereIn(\"" + column + "\", keys): "
+                    + shape.substring(0, matcher.start()) + column + " IN (?+)" + shape.substring(matcher.end());
+        }
+        return "load the rows for all iterations with a single query (whereIn or a JOIN) before the loop";
+    }
+
+    static void report(NPlusOneWarning warning) {
+        N_PLUS_ONE_LOG.warning(warning.toString());
+        for (Consumer<NPlusOneWarning> listener : listeners) {
+            try {
+                listener.accept(warning);
+            } catch (RuntimeException e) {
+                // 监听器的异常不能影响业务代码
+            }
+        }
+    }
+}
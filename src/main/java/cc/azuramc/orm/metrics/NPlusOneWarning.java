@@ -0,0 +1,56 @@
+package cc.azuramc.orm.metrics;
+
+/**
+ * 一次 N+1 查询警告
+ * @author AzuraMC Team
+ */
+public final class NPlusOneWarning {
+
+    private final String scope;
+    private final String shape;
+    private final int count;
+    private final StackTraceElement callSite;
+    private final String suggestion;
+
+    NPlusOneWarning(String scope, String shape, int count, StackTraceElement callSite, String suggestion) {
+        this.scope = scope;
+        this.shape = shape;
+        this.count = count;
+        this.callSite = callSite;
+        this.suggestion = suggestion;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * 作用域内执行的总次数
+     * @return 次数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 达到阈值那次执行的调用位置
+     * @return 调用位置，无法确定时为null
+     */
+    public StackTraceElement getCallSite() {
+        return callSite;
+    }
+
+    public String getSuggestion() {
+        return suggestion;
+    }
+
+    @Override
+    public String toString() {
+        return "N+1 query in scope [" + scope + "]: " + shape + " ran " + count + " times"
+                + (callSite != null ? " at " + callSite : "") + "; " + suggestion;
+    }
+}
@@ -0,0 +1,263 @@
+package cc.azuramc.orm.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个连接池的指标：借出等待时长、连接占用时长（借出到归还）、超时次数，以及连接池的实时状态
+ * 通过 {@link #asTrackerFactory()} 接入 HikariCP 的指标回调，同时转发给已注册的 {@link MetricsSink}。
+ * 示例:
+ * <pre>
+ * PoolMetrics metrics = DBUtil.getPoolMetrics("default");
+ * long p99 = metrics.getAcquireTime().snapshot().getPercentile(99);   // 纳秒
+ * </pre>
+ * @author AzuraMC Team
+ */
+public final class PoolMetrics implements PoolMetricsMXBean {
+
+    private static final String MBEAN_DOMAIN = "cc.azuramc.orm";
+
+    private final String name;
+    private final List<MetricsSink> sinks;
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+    private final LatencyHistogram usageTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile PoolStats poolStats;
+    private ObjectName objectName;
+
+    /**
+     * @param name 配置名称（从库为从库连接池名称）
+     * @param sinks 指标输出端，由调用方持有并可随时增删
+     */
+    public PoolMetrics(String name, List<MetricsSink> sinks) {
+        this.name = name;
+        this.sinks = sinks;
+    }
+
+    /**
+     * 用于 {@code HikariConfig.setMetricsTrackerFactory} 的工厂，每个实例只能用于一个连接池
+     * @return 指标回调工厂
+     */
+    public MetricsTrackerFactory asTrackerFactory() {
+        return (poolName, stats) -> {
+            this.poolStats = stats;
+            return new Tracker();
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 借出连接的等待时长（纳秒）
+     * @return 直方图
+     */
+    public LatencyHistogram getAcquireTime() {
+        return acquireTime;
+    }
+
+    /**
+     * 连接从借出到归还的占用时长（纳秒，精度为毫秒）
+     * @return 直方图
+     */
+    public LatencyHistogram getUsageTime() {
+        return usageTime;
+    }
+
+    /**
+     * 建立物理连接的耗时（纳秒，精度为毫秒）
+     * @return 直方图
+     */
+    public LatencyHistogram getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquireTime.getCount();
+    }
+
+    @Override
+    public double getAcquireMeanMicros() {
+        return acquireTime.snapshot().getMean() / 1000.0;
+    }
+
+    @Override
+    public long getAcquireP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(acquireTime.snapshot().getPercentile(50));
+    }
+
+    @Override
+    public long getAcquireP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(acquireTime.snapshot().getPercentile(99));
+    }
+
+    @Override
+    public long getAcquireMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(acquireTime.snapshot().getMax());
+    }
+
+    @Override
+    public long getUsageCount() {
+        return usageTime.getCount();
+    }
+
+    @Override
+    public double getUsageMeanMillis() {
+        return usageTime.snapshot().getMean() / 1_000_000.0;
+    }
+
+    @Override
+    public long getUsageP99Millis() {
+        return TimeUnit.NANOSECONDS.toMillis(usageTime.snapshot().getPercentile(99));
+    }
+
+    @Override
+    public long getUsageMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(usageTime.snapshot().getMax());
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getConnectionsCreated() {
+        return creationTime.getCount();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getActiveConnections() : 0;
+    }
+
+    @Override
+    public int getIdleConnections() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getIdleConnections() : 0;
+    }
+
+    @Override
+    public int getTotalConnections() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getTotalConnections() : 0;
+    }
+
+    @Override
+    public int getPendingThreads() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getPendingThreads() : 0;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getMaxConnections() : 0;
+    }
+
+    /**
+     * 注册到平台 MBeanServer，重复调用无效
+     */
+    public synchronized void registerMBean() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            ObjectName candidate = new ObjectName(MBEAN_DOMAIN + ":type=PoolMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(candidate)) {
+                server.registerMBean(this, candidate);
+                objectName = candidate;
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to register pool metrics MBean for " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从平台 MBeanServer 注销
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            // 已经被注销
+        }
+        objectName = null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolMetrics[%s] - Acquire: {%s}, Usage: {%s}, Timeouts: %d",
+                name, acquireTime.snapshot(), usageTime.snapshot(), timeouts.sum());
+    }
+
+    /**
+     * HikariCP 在借出、归还、超时和建连时回调
+     */
+    private final class Tracker implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireTime.record(elapsedAcquiredNanos);
+            for (MetricsSink sink : sinks) {
+                try {
+                    sink.onConnectionAcquired(name, elapsedAcquiredNanos);
+                } catch (RuntimeException e) {
+                    // 输出端的异常不能影响借出连接
+                }
+            }
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageTime.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+            for (MetricsSink sink : sinks) {
+                try {
+                    sink.onConnectionUsage(name, elapsedBorrowedMillis);
+                } catch (RuntimeException e) {
+                    // 输出端的异常不能影响归还连接
+                }
+            }
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            for (MetricsSink sink : sinks) {
+                try {
+                    sink.onConnectionTimeout(name);
+                } catch (RuntimeException e) {
+                    // 忽略
+                }
+            }
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            creationTime.record(connectionCreatedMillis, TimeUnit.MILLISECONDS);
+            for (MetricsSink sink : sinks) {
+                try {
+                    sink.onConnectionCreated(name, connectionCreatedMillis);
+                } catch (RuntimeException e) {
+                    // 忽略
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package cc.azuramc.orm.metrics;
+
+/**
+ * 连接池指标的 JMX 接口，注册在 {@code cc.azuramc.orm:type=PoolMetrics,name=<配置名称>} 下
+ * @author AzuraMC Team
+ */
+public interface PoolMetricsMXBean {
+
+    long getAcquireCount();
+
+    double getAcquireMeanMicros();
+
+    long getAcquireP50Micros();
+
+    long getAcquireP99Micros();
+
+    long getAcquireMaxMicros();
+
+    long getUsageCount();
+
+    double getUsageMeanMillis();
+
+    long getUsageP99Millis();
+
+    long getUsageMaxMillis();
+
+    long getTimeoutCount();
+
+    long getConnectionsCreated();
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getTotalConnections();
+
+    int getPendingThreads();
+
+    int getMaxConnections();
+}
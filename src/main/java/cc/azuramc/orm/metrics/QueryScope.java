@@ -0,0 +1,117 @@
+package cc.azuramc.orm.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个逻辑工作单元（请求、事务、一次游戏逻辑调用）内执行的语句，用于 {@link NPlusOneDetector} 检测
+ * 作用域绑定到当前线程，可以嵌套，语句计入最内层的作用域；必须在打开它的线程上关闭，关闭时输出警告。
+ * @author AzuraMC Team
+ */
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> current = new ThreadLocal<>();
+
+    private final String name;
+    private final QueryScope parent;
+    private final Thread owner;
+    private final Map<String, ShapeCount> shapes = new HashMap<>();
+    private final List<NPlusOneWarning> warnings = new ArrayList<>();
+    private int statementCount;
+    private boolean closed;
+
+    private QueryScope(String name, QueryScope parent) {
+        this.name = name;
+        this.parent = parent;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * 在当前线程打开作用域
+     * @param name 名称，出现在警告中
+     * @return 作用域，使用 try-with-resources 关闭
+     */
+    public static QueryScope open(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("作用域名称不能为空。");
+        }
+        QueryScope scope = new QueryScope(name, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * 获取当前线程最内层的作用域
+     * @return 作用域，没有时返回null
+     */
+    public static QueryScope current() {
+        return current.get();
+    }
+
+    /**
+     * 记录一次执行，由 {@link StatementMetrics} 在执行语句的线程上调用
+     */
+    void record(String shape) {
+        statementCount++;
+        if (!NPlusOneDetector.isEnabled() || !NPlusOneDetector.isCandidate(shape)) {
+            return;
+        }
+        ShapeCount count = shapes.computeIfAbsent(shape, s -> new ShapeCount());
+        if (++count.executions == NPlusOneDetector.getThreshold()) {
+            count.callSite = NPlusOneDetector.findCallSite();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 作用域内执行的语句数
+     * @return 语句数
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * 关闭后产生的警告
+     * @return 只读列表
+     */
+    public List<NPlusOneWarning> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (Thread.currentThread() != owner || current.get() != this) {
+            throw new IllegalStateException("作用域必须在打开它的线程上按打开的相反顺序关闭: " + name);
+        }
+        closed = true;
+        if (parent != null) {
+            current.set(parent);
+        } else {
+            current.remove();
+        }
+        int threshold = NPlusOneDetector.getThreshold();
+        shapes.forEach((shape, count) -> {
+            if (count.executions >= threshold) {
+                NPlusOneWarning warning = new NPlusOneWarning(name, shape, count.executions, count.callSite,
+                        NPlusOneDetector.suggest(shape));
+                warnings.add(warning);
+                NPlusOneDetector.report(warning);
+            }
+        });
+    }
+
+    private static final class ShapeCount {
+        int executions;
+        StackTraceElement callSite;
+    }
+}
@@ -0,0 +1,348 @@
+package cc.azuramc.orm.metrics;
+
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.jdbc.DelegatingPreparedStatement;
+import cc.azuramc.orm.jfr.OrmEvents;
+import cc.azuramc.orm.jfr.StatementExecuteEvent;
+import cc.azuramc.orm.jfr.StatementPrepareEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * 构建器执行语句的耗时统计和慢查询日志
+ * 所有构建器生成的语句都会计时，按SQL形状分组统计耗时直方图、行数和错误数；超过阈值的执行输出到
+ * {@code cc.azuramc.orm.SlowQuery} 日志 (java.util.logging, WARNING)，附带绑定的参数。
+ * 示例:
+ * <pre>
+ * StatementMetrics.setSlowQueryThreshold(Duration.ofMillis(200));
+ * StatementMetrics.setRedactParameters(true);
+ * StatementMetrics.getTopStatements(10).forEach(System.out::println);   // 总耗时最高的10种语句
+ * </pre>
+ * @author AzuraMC Team
+ */
+public final class StatementMetrics {
+
+    /** 最多统计的SQL形状数，超过后归入 {@link #OTHER_SHAPE} */
+    static final int MAX_SHAPES = 1000;
+    static final String OTHER_SHAPE = "<other>";
+    /** 原始SQL到统计的缓存上限，超过后每次重新规范化 */
+    private static final int MAX_CACHED_SQL = 10_000;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    /** 只用字符类的重复，超长的字面量和占位符列表不会让正则引擎递归过深而栈溢出 */
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*+(?:''[^']*+)*+'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern PLACEHOLDER_RUN = Pattern.compile("\\?[\\s,?]*\\?");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("cc.azuramc.orm.SlowQuery");
+
+    private static final Map<String, StatementStats> statsByShape = new ConcurrentHashMap<>();
+    private static final Map<String, StatementStats> statsBySql = new ConcurrentHashMap<>();
+    private static final List<MetricsSink> sinks = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled = true;
+    private static volatile long slowQueryThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private static volatile boolean redactParameters = false;
+
+    private StatementMetrics() {
+    }
+
+    /**
+     * 设置是否统计语句耗时，默认开启
+     * 关闭后不再统计耗时、输出慢查询日志和 N+1 检测，但 JFR 的 {@link StatementExecuteEvent} 正在记录时
+     * 语句仍会被包装以输出执行事件，与 {@link OrmEvents} 一样不需要额外的开关。
+     * @param enabled 是否开启
+     */
+    public static void setEnabled(boolean enabled) {
+        StatementMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 设置慢查询阈值
+     * @param threshold 阈值，默认1秒，{@link Duration#ZERO} 表示不输出慢查询日志
+     */
+    public static void setSlowQueryThreshold(Duration threshold) {
+        slowQueryThresholdNanos = threshold.toNanos();
+    }
+
+    public static Duration getSlowQueryThreshold() {
+        return Duration.ofNanos(slowQueryThresholdNanos);
+    }
+
+    /**
+     * 设置慢查询日志是否隐藏参数值
+     * @param redact 是否隐藏，隐藏时参数显示为 ?
+     */
+    public static void setRedactParameters(boolean redact) {
+        redactParameters = redact;
+    }
+
+    public static boolean isRedactParameters() {
+        return redactParameters;
+    }
+
+    /**
+     * 添加语句指标输出端，一般通过 DBUtil.addMetricsSink 统一添加
+     * @param sink 指标输出端
+     */
+    public static void addSink(MetricsSink sink) {
+        sinks.add(sink);
+    }
+
+    public static void removeSink(MetricsSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * 创建构建器的语句并包装为计时的语句，同时记录 {@link StatementPrepareEvent}
+     * @param connection 数据库连接
+     * @param sql SQL
+     * @return 计时的语句
+     * @throws SQLException 如果创建语句失败
+     */
+    public static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * 创建构建器的语句并包装为计时的语句，同时记录 {@link StatementPrepareEvent}
+     * @param connection 数据库连接
+     * @param sql SQL
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} 或 {@link Statement#NO_GENERATED_KEYS}
+     * @return 计时的语句
+     * @throws SQLException 如果创建语句失败
+     */
+    public static PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        StatementPrepareEvent event = new StatementPrepareEvent();
+        event.begin();
+        PreparedStatement statement = null;
+        try {
+            // 不需要生成键时使用单参数的重载，事务的写入合并只接管这个重载
+            statement = wrap(autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+                    ? connection.prepareStatement(sql, autoGeneratedKeys) : connection.prepareStatement(sql), sql);
+            return statement;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.configName = OrmEvents.currentConfig();
+                event.sql = statement instanceof TimedPreparedStatement ? shapeOf(statement) : normalize(sql);
+                event.failed = statement == null;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 包装构建器创建的语句，语句已经计时时原样返回
+     * 事务合并插入时连接返回的语句包装着已计时的共享批量语句，真正的执行在批量发送时计时，这里不再重复包装。
+     * 关闭统计时只在 JFR 执行事件开启时包装，此时只输出事件，不统计耗时。
+     * @param statement 语句
+     * @param sql 语句的SQL
+     * @return 计时的语句
+     */
+    public static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        if (statement == null || isTimed(statement)) {
+            return statement;
+        }
+        if (!enabled) {
+            return new StatementExecuteEvent().isEnabled() ? new TimedPreparedStatement(statement, sql, null) : statement;
+        }
+        return new TimedPreparedStatement(statement, sql, statsFor(sql));
+    }
+
+    private static boolean isTimed(PreparedStatement statement) {
+        for (PreparedStatement s = statement; s != null; ) {
+            if (s instanceof TimedPreparedStatement) {
+                return true;
+            }
+            s = s instanceof DelegatingPreparedStatement ? ((DelegatingPreparedStatement) s).getDelegate() : null;
+        }
+        return false;
+    }
+
+    /**
+     * 记录查询实际读取的行数，由终结操作在映射结束后调用
+     * @param statement {@link #wrap} 返回的语句
+     * @param rows 行数
+     */
+    public static void recordRows(PreparedStatement statement, int rows) {
+        if (statement instanceof TimedPreparedStatement) {
+            StatementStats stats = ((TimedPreparedStatement) statement).getStats();
+            if (stats != null) {
+                stats.addRows(rows);
+            }
+        }
+    }
+
+    /**
+     * 获取 {@link #wrap} 返回的语句的SQL形状
+     * @param statement 语句
+     * @return SQL形状，不是计时的语句时返回null
+     */
+    public static String shapeOf(PreparedStatement statement) {
+        return statement instanceof TimedPreparedStatement ? ((TimedPreparedStatement) statement).getShape() : null;
+    }
+
+    /**
+     * 获取指定SQL形状的统计
+     * @param sql 原始SQL或SQL形状
+     * @return 统计，没有执行过时返回null
+     */
+    public static StatementStats getStats(String sql) {
+        return statsByShape.get(normalize(sql));
+    }
+
+    /**
+     * 获取所有SQL形状的统计
+     * @return 只读集合
+     */
+    public static Collection<StatementStats> getAllStats() {
+        return Collections.unmodifiableCollection(statsByShape.values());
+    }
+
+    /**
+     * 按总耗时从高到低获取语句统计，用于找出主要的延迟来源
+     * @param limit 最多返回的数量
+     * @return 语句统计
+     */
+    public static List<StatementStats> getTopStatements(int limit) {
+        List<StatementStats> all = new ArrayList<>(statsByShape.values());
+        all.sort(Comparator.comparingLong((StatementStats stats) -> stats.getLatency().snapshot().getSum()).reversed());
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public static void reset() {
+        statsBySql.clear();
+        statsByShape.clear();
+    }
+
+    /**
+     * 把SQL规范化为形状：字面量替换为 ?，占位符列表合并为 ?+，空白合并为一个空格
+     * @param sql 原始SQL
+     * @return SQL形状
+     */
+    public static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PLACEHOLDER_RUN.matcher(shape).replaceAll(run -> run.group().indexOf(',') >= 0 ? "?+" : run.group());
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private static StatementStats statsFor(String sql) {
+        StatementStats stats = statsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String shape = normalize(sql);
+        stats = statsByShape.get(shape);
+        if (stats == null) {
+            if (statsByShape.size() >= MAX_SHAPES) {
+                shape = OTHER_SHAPE;
+            }
+            stats = statsByShape.computeIfAbsent(shape, StatementStats::new);
+        }
+        if (statsBySql.size() < MAX_CACHED_SQL) {
+            statsBySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    static boolean isSlowQueryLogEnabled() {
+        return slowQueryThresholdNanos > 0;
+    }
+
+    /**
+     * 记录一次执行
+     * @param rows 行数，未知时为 -1
+     * @param batchSize 批量行数，非批量为 0
+     * @param parameters 绑定的参数，未记录时为 null
+     */
+    static void record(TimedPreparedStatement statement, long nanos, long rows, int batchSize, boolean failed,
+                       Object[] parameters) {
+        StatementStats stats = statement.getStats();
+        stats.record(nanos, rows, failed);
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.record(stats.getShape());
+        }
+        for (MetricsSink sink : sinks) {
+            try {
+                sink.onStatementExecuted(stats.getShape(), nanos, rows, failed);
+            } catch (RuntimeException e) {
+                // 输出端的异常不能影响语句执行
+            }
+        }
+        long threshold = slowQueryThresholdNanos;
+        boolean slow = threshold > 0 && nanos >= threshold;
+        if (slow || GlobalConfig.isDebugMode()) {
+            String message = describe(statement.getSql(), nanos, rows, batchSize, failed, parameters);
+            if (slow) {
+                SLOW_QUERY_LOG.warning(message);
+            } else {
+                GlobalConfig.debugLog("SQL", message);
+            }
+        }
+    }
+
+    private static String describe(String sql, long nanos, long rows, int batchSize, boolean failed,
+                                   Object[] parameters) {
+        StringBuilder message = new StringBuilder();
+        message.append(String.format("%.1f ms", nanos / 1_000_000.0));
+        if (rows >= 0) {
+            message.append(", ").append(rows).append(" rows");
+        }
+        if (batchSize > 0) {
+            message.append(", batch of ").append(batchSize);
+        }
+        if (failed) {
+            message.append(", failed");
+        }
+        message.append(": ").append(sql);
+        if (parameters != null && parameters.length > 0) {
+            message.append(" | parameters").append(batchSize > 0 ? " (last row)" : "").append(": [");
+            for (int i = 0; i < parameters.length; i++) {
+                if (i > 0) {
+                    message.append(", ");
+                }
+                message.append(redactParameters ? "?" : formatParameter(parameters[i]));
+            }
+            message.append(']');
+        }
+        return message.toString();
+    }
+
+    private static String formatParameter(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        String text = value instanceof byte[] ? "<" + ((byte[]) value).length + " bytes>" : String.valueOf(value);
+        if (text.length() > MAX_PARAMETER_LENGTH) {
+            text = text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+        }
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+}
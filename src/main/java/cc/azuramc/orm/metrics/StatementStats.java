@@ -0,0 +1,72 @@
+package cc.azuramc.orm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同一SQL形状（参数和字面量替换为 ? 后的SQL）的执行统计
+ * @author AzuraMC Team
+ */
+public final class StatementStats {
+
+    private final String shape;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    StatementStats(String shape) {
+        this.shape = shape;
+    }
+
+    void record(long nanos, long rowCount, boolean failed) {
+        latency.record(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void addRows(long rowCount) {
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * 执行耗时（纳秒），查询只统计到返回结果集为止
+     * @return 直方图
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getExecutionCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * 查询返回或写入影响的总行数
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return String.format("%s - count=%d, total=%.1fms, p50=%.2fms, p99=%.2fms, max=%.2fms, rows=%d, errors=%d",
+                shape, snapshot.getCount(), snapshot.getSum() / 1_000_000.0,
+                snapshot.getPercentile(50) / 1_000_000.0, snapshot.getPercentile(99) / 1_000_000.0,
+                snapshot.getMax() / 1_000_000.0, rows.sum(), errors.sum());
+    }
+}
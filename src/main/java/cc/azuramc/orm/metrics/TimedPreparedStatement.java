@@ -0,0 +1,369 @@
+package cc.azuramc.orm.metrics;
+
+import cc.azuramc.orm.jdbc.DelegatingPreparedStatement;
+import cc.azuramc.orm.jfr.OrmEvents;
+import cc.azuramc.orm.jfr.StatementExecuteEvent;
+
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * 计时的 PreparedStatement，执行结束后交给 {@link StatementMetrics} 统计并记录 {@link StatementExecuteEvent}
+ * 关闭统计时 stats 为 null，只记录执行事件。
+ * 开启慢查询日志时记录 setObject、setNull 和类型化 setter (setInt、setString 等) 绑定的参数，
+ * 生成的 DAO 使用类型化 setter，同样能在日志中看到参数；流和 LOB 参数不记录。
+ * @author AzuraMC Team
+ */
+final class TimedPreparedStatement extends DelegatingPreparedStatement {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final String sql;
+    private final StatementStats stats;
+    private final boolean captureParameters;
+    private Object[] parameters = NO_PARAMETERS;
+    /** 已绑定的最大参数下标，末尾用 setNull 绑定的参数同样显示 */
+    private int parameterCount;
+    private int batchSize;
+
+    TimedPreparedStatement(PreparedStatement delegate, String sql, StatementStats stats) {
+        super(delegate);
+        this.sql = sql;
+        this.stats = stats;
+        this.captureParameters = stats != null && StatementMetrics.isSlowQueryLogEnabled();
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return 统计，关闭统计时为 null
+     */
+    StatementStats getStats() {
+        return stats;
+    }
+
+    String getShape() {
+        return stats != null ? stats.getShape() : StatementMetrics.normalize(sql);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        delegate.setObject(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+        delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType);
+        capture(parameterIndex, null);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        delegate.setNull(parameterIndex, sqlType, typeName);
+        capture(parameterIndex, null);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        delegate.setBoolean(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        delegate.setByte(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        delegate.setShort(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        delegate.setInt(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        delegate.setLong(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        delegate.setFloat(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        delegate.setDouble(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        delegate.setBigDecimal(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        delegate.setString(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        delegate.setNString(parameterIndex, value);
+        capture(parameterIndex, value);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        delegate.setBytes(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        delegate.setDate(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        delegate.setDate(parameterIndex, x, cal);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        delegate.setTime(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        delegate.setTime(parameterIndex, x, cal);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        delegate.setTimestamp(parameterIndex, x, cal);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        delegate.setURL(parameterIndex, x);
+        capture(parameterIndex, x);
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        delegate.clearParameters();
+        parameters = NO_PARAMETERS;
+        parameterCount = 0;
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        delegate.addBatch();
+        batchSize++;
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        delegate.clearBatch();
+        batchSize = 0;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ResultSet resultSet = delegate.executeQuery();
+            failed = false;
+            return resultSet;
+        } finally {
+            record(event, start, -1, 0, failed);
+        }
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        int rows = -1;
+        try {
+            rows = delegate.executeUpdate();
+            return rows;
+        } finally {
+            record(event, start, rows, 0, rows == -1);
+        }
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        long rows = -1;
+        try {
+            rows = delegate.executeLargeUpdate();
+            return rows;
+        } finally {
+            record(event, start, rows, 0, rows == -1);
+        }
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        long rows = -1;
+        try {
+            boolean hasResultSet = delegate.execute();
+            if (!hasResultSet) {
+                rows = delegate.getUpdateCount();
+            }
+            failed = false;
+            return hasResultSet;
+        } finally {
+            record(event, start, rows, 0, failed);
+        }
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        int size = batchSize;
+        batchSize = 0;
+        int[] counts = null;
+        try {
+            counts = delegate.executeBatch();
+            return counts;
+        } finally {
+            record(event, start, counts != null ? sum(counts) : -1, size, counts == null);
+        }
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        StatementExecuteEvent event = begin();
+        long start = System.nanoTime();
+        int size = batchSize;
+        batchSize = 0;
+        long[] counts = null;
+        try {
+            counts = delegate.executeLargeBatch();
+            return counts;
+        } finally {
+            long rows = -1;
+            if (counts != null) {
+                rows = 0;
+                for (long count : counts) {
+                    rows += count > 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+                }
+            }
+            record(event, start, rows, size, counts == null);
+        }
+    }
+
+    private void capture(int parameterIndex, Object value) {
+        if (!captureParameters || parameterIndex < 1) {
+            return;
+        }
+        if (parameterIndex > parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(parameterIndex, parameters.length * 2));
+        }
+        parameters[parameterIndex - 1] = value;
+        parameterCount = Math.max(parameterCount, parameterIndex);
+    }
+
+    private static StatementExecuteEvent begin() {
+        StatementExecuteEvent event = new StatementExecuteEvent();
+        event.begin();
+        return event;
+    }
+
+    private void record(StatementExecuteEvent event, long start, long rows, int batch, boolean failed) {
+        long nanos = System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.configName = OrmEvents.currentConfig();
+            event.sql = getShape();
+            event.rows = rows;
+            event.batchSize = batch;
+            event.failed = failed;
+            event.commit();
+        }
+        if (stats != null) {
+            StatementMetrics.record(this, nanos, rows, batch, failed, captureParameters ? trimmedParameters() : null);
+        }
+    }
+
+    private Object[] trimmedParameters() {
+        return parameterCount == parameters.length ? parameters : Arrays.copyOf(parameters, parameterCount);
+    }
+
+    private static long sum(int[] counts) {
+        long total = 0;
+        for (int count : counts) {
+            total += count > 0 ? count : (count == Statement.SUCCESS_NO_INFO ? 1 : 0);
+        }
+        return total;
+    }
+}
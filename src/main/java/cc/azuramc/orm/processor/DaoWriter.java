@@ -0,0 +1,346 @@
+package cc.azuramc.orm.processor;
+
+import cc.azuramc.orm.processor.MapperProcessor.MappedField;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 为 {@link cc.azuramc.orm.annotation.Table} 实体生成 {@code <类名>Dao}
+ * SQL 在编译期拼成常量；参数按字段类型调用 setLong / setString 等方法绑定，基本类型字段不装箱，
+ * 包装类型字段为 null 时调用 setNull；实体按字段跟踪修改时 update 只写入被修改的列。
+ * 运行时的连接管理由 {@link cc.azuramc.orm.dao.AbstractDao} 完成。
+ * @author AzuraMC Team
+ */
+final class DaoWriter {
+
+    private static final String SQL_EXCEPTION = "java.sql.SQLException";
+    private static final String STATEMENT = "java.sql.PreparedStatement";
+    private static final String FIELD_TRACKER = "cc.azuramc.orm.manager.ChangeManager.FieldDirtyTracker";
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeElement type;
+    private final String table;
+    private final List<MappedField> fields;
+
+    DaoWriter(ProcessingEnvironment processingEnv, TypeElement type, String table, List<MappedField> fields) {
+        this.processingEnv = processingEnv;
+        this.type = type;
+        this.table = table;
+        this.fields = fields;
+    }
+
+    void write() {
+        List<MappedField> ids = fields.stream().filter(field -> field.id).collect(Collectors.toList());
+        if (ids.size() != 1) {
+            error("@Table 类必须有且只有一个 @Id 字段");
+            return;
+        }
+        MappedField id = ids.get(0);
+        List<MappedField> values = fields.stream().filter(field -> !field.id).collect(Collectors.toList());
+        if (values.isEmpty()) {
+            error("@Table 类除主键外至少需要一个列");
+            return;
+        }
+        List<MappedField> insertFields = new ArrayList<>(fields);
+        if (id.generatedId) {
+            insertFields.remove(id);
+        }
+
+        Types types = processingEnv.getTypeUtils();
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String daoName = MapperProcessor.flatSimpleName(type) + "Dao";
+        String entityName = type.getQualifiedName().toString();
+        String idType = typeName(id.type);
+        String boxedIdType = id.type.getKind().isPrimitive()
+                ? types.boxedClass(types.getPrimitiveType(id.type.getKind())).getQualifiedName().toString()
+                : idType;
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n")
+           .append(" * 由 AzuraORM 注解处理器为 {@link ").append(entityName).append("} 生成的 DAO，请勿手动修改\n")
+           .append(" * 可以继承本类添加自定义查询。\n")
+           .append(" */\n")
+           .append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n")
+           .append("public class ").append(daoName).append(" extends cc.azuramc.orm.dao.AbstractDao<")
+           .append(entityName).append(", ").append(boxedIdType).append("> {\n\n");
+
+        String columnList = fields.stream().map(field -> field.column).collect(Collectors.joining(", "));
+        String insertColumns = insertFields.stream().map(field -> field.column).collect(Collectors.joining(", "));
+        String insertPlaceholders = insertFields.stream().map(field -> "?").collect(Collectors.joining(", "));
+        String assignments = values.stream().map(field -> field.column + " = ?").collect(Collectors.joining(", "));
+
+        constant(src, "String", "TABLE", table);
+        constant(src, "String", "ID_COLUMN", id.column);
+        src.append("    static final String[] COLUMNS = {")
+           .append(fields.stream().map(field -> MapperProcessor.stringLiteral(field.column))
+                   .collect(Collectors.joining(", ")))
+           .append("};\n");
+        constant(src, "String", "SELECT_BY_ID",
+                "SELECT " + columnList + " FROM " + table + " WHERE " + id.column + " = ?");
+        constant(src, "String", "INSERT",
+                "INSERT INTO " + table + " (" + insertColumns + ") VALUES (" + insertPlaceholders + ")");
+        constant(src, "String", "UPDATE", "UPDATE " + table + " SET " + assignments + " WHERE " + id.column + " = ?");
+        constant(src, "String", "DELETE_BY_ID", "DELETE FROM " + table + " WHERE " + id.column + " = ?");
+        src.append("\n");
+
+        src.append("    public ").append(daoName).append("(cc.azuramc.orm.jdbc.ConnectionSource connectionSource) {\n")
+           .append("        super(connectionSource, TABLE, ID_COLUMN, COLUMNS, new ")
+           .append(MapperProcessor.mapperSimpleName(type)).append("());\n")
+           .append("    }\n\n");
+
+        src.append("    public ").append(entityName).append(" findById(").append(idType).append(" id) throws ")
+           .append(SQL_EXCEPTION).append(" {\n")
+           .append("        return queryOne(SELECT_BY_ID, ps -> {\n");
+        appendBind(src, "            ", "1", "id", id.type);
+        src.append("        });\n")
+           .append("    }\n\n");
+
+        String keyAssigner = id.generatedId ? daoName + "::assignKey" : "null";
+        src.append("    public int insert(").append(entityName).append(" o) throws ").append(SQL_EXCEPTION).append(" {\n");
+        if (id.generatedId) {
+            src.append("        return executeInsert(INSERT, o, ").append(daoName).append("::bindInsert, ")
+               .append(keyAssigner).append(");\n");
+        } else {
+            src.append("        return executeUpdate(INSERT, ps -> bindInsert(ps, o));\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    public int batchInsert(java.util.Collection<? extends ").append(entityName).append("> entities) throws ")
+           .append(SQL_EXCEPTION).append(" {\n")
+           .append("        return executeBatch(INSERT, entities, ").append(daoName).append("::bindInsert, ")
+           .append(keyAssigner).append(");\n")
+           .append("    }\n\n");
+
+        boolean partial = fields.size() <= Long.SIZE;
+        src.append("    /**\n")
+           .append("     * 更新除主键外的所有列，实现了 DirtyTracker 且不是脏数据时跳过，更新后清除脏数据标记\n");
+        if (partial) {
+            src.append("     * 实现了 FieldDirtyTracker（例如 @Tracked 生成的子类）时只更新被修改的列，之后只清除这些列的标记\n");
+        }
+        src.append("     */\n")
+           .append("    public int update(").append(entityName).append(" o) throws ").append(SQL_EXCEPTION).append(" {\n")
+           .append("        if (!needsUpdate(o)) {\n")
+           .append("            return 0;\n")
+           .append("        }\n");
+        if (partial) {
+            long mask = 0;
+            for (int i = 0; i < fields.size(); i++) {
+                if (!fields.get(i).id) {
+                    mask |= 1L << i;
+                }
+            }
+            src.append("        if (o instanceof ").append(FIELD_TRACKER).append(") {\n")
+               .append("            ").append(FIELD_TRACKER).append(" tracker = (").append(FIELD_TRACKER).append(") o;\n")
+               .append("            long dirty = tracker.getDirtyFields();\n")
+               .append("            long changed = dirty & 0x").append(Long.toHexString(mask)).append("L;\n")
+               .append("            if (changed == 0L) {\n")
+               .append("                tracker.cleanDirty(dirty);\n")
+               .append("                return 0;\n")
+               .append("            }\n")
+               .append("            int rows = executeUpdate(updateSql(changed), ps -> {\n")
+               .append("                int i = 1;\n");
+            for (int i = 0; i < fields.size(); i++) {
+                MappedField field = fields.get(i);
+                if (field.id) {
+                    continue;
+                }
+                src.append("                if ((changed & 0x").append(Long.toHexString(1L << i)).append("L) != 0L) {\n");
+                appendBind(src, "                    ", "i++", field.read(), field.type);
+                src.append("                }\n");
+            }
+            appendBind(src, "                ", "i", id.read(), id.type);
+            src.append("            });\n")
+               .append("            // 只清除读取到的位，写入期间 setter 新记录的修改留到下一次更新\n")
+               .append("            tracker.cleanDirty(dirty);\n")
+               .append("            return rows;\n")
+               .append("        }\n");
+        }
+        src.append("        int rows = executeUpdate(UPDATE, ps -> {\n");
+        int index = 1;
+        for (MappedField field : values) {
+            appendBind(src, "            ", String.valueOf(index++), field.read(), field.type);
+        }
+        appendBind(src, "            ", String.valueOf(index), id.read(), id.type);
+        src.append("        });\n");
+        src.append("        cleanDirty(o);\n")
+           .append("        return rows;\n")
+           .append("    }\n\n");
+
+        src.append("    public int delete(").append(entityName).append(" o) throws ").append(SQL_EXCEPTION).append(" {\n")
+           .append("        return deleteById(").append(id.read()).append(");\n")
+           .append("    }\n\n");
+
+        src.append("    public int deleteById(").append(idType).append(" id) throws ").append(SQL_EXCEPTION).append(" {\n")
+           .append("        return executeUpdate(DELETE_BY_ID, ps -> {\n");
+        appendBind(src, "            ", "1", "id", id.type);
+        src.append("        });\n")
+           .append("    }\n\n");
+
+        src.append("    private static void bindInsert(").append(STATEMENT).append(" ps, ").append(entityName)
+           .append(" o) throws ").append(SQL_EXCEPTION).append(" {\n");
+        index = 1;
+        for (MappedField field : insertFields) {
+            appendBind(src, "        ", String.valueOf(index++), field.read(), field.type);
+        }
+        src.append("    }\n");
+
+        if (id.generatedId) {
+            src.append("\n    private static void assignKey(").append(entityName).append(" o, java.sql.ResultSet keys) throws ")
+               .append(SQL_EXCEPTION).append(" {\n")
+               .append("        ").append(id.assign(readKey(id.type))).append(";\n")
+               .append("    }\n");
+        }
+        src.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? daoName : packageName + "." + daoName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(src.toString());
+            }
+        } catch (IOException e) {
+            error("生成 DAO 失败: " + e.getMessage());
+        }
+    }
+
+    private static void constant(StringBuilder src, String javaType, String name, String value) {
+        src.append("    public static final ").append(javaType).append(' ').append(name).append(" = ")
+           .append(MapperProcessor.stringLiteral(value)).append(";\n");
+    }
+
+    /**
+     * 生成绑定单个参数的代码，值表达式只求值一次
+     */
+    private void appendBind(StringBuilder src, String indent, String index, String value, TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            src.append(indent).append("ps.").append(setter(type.getKind())).append('(').append(index).append(", ")
+               .append(value).append(");\n");
+            return;
+        }
+        if (type.getKind() == TypeKind.ARRAY && "byte[]".equals(type.toString())) {
+            src.append(indent).append("ps.setBytes(").append(index).append(", ").append(value).append(");\n");
+            return;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+            String qualifiedName = typeElement.getQualifiedName().toString();
+            TypeKind unboxed = unboxedKind(type);
+            if (unboxed != null) {
+                src.append(indent).append("{\n")
+                   .append(indent).append("    ").append(qualifiedName).append(" v = ").append(value).append(";\n")
+                   .append(indent).append("    if (v == null) {\n")
+                   .append(indent).append("        ps.setNull(").append(index).append(", java.sql.Types.")
+                   .append(sqlType(unboxed)).append(");\n")
+                   .append(indent).append("    } else {\n")
+                   .append(indent).append("        ps.").append(setter(unboxed)).append('(').append(index).append(", v);\n")
+                   .append(indent).append("    }\n")
+                   .append(indent).append("}\n");
+                return;
+            }
+            switch (qualifiedName) {
+                case "java.lang.String":
+                    simpleBind(src, indent, "setString", index, value);
+                    return;
+                case "java.math.BigDecimal":
+                    simpleBind(src, indent, "setBigDecimal", index, value);
+                    return;
+                case "java.sql.Timestamp":
+                    simpleBind(src, indent, "setTimestamp", index, value);
+                    return;
+                case "java.sql.Date":
+                    simpleBind(src, indent, "setDate", index, value);
+                    return;
+                case "java.sql.Time":
+                    simpleBind(src, indent, "setTime", index, value);
+                    return;
+                case "java.util.Date":
+                    src.append(indent).append("{\n")
+                       .append(indent).append("    java.util.Date v = ").append(value).append(";\n")
+                       .append(indent).append("    ps.setTimestamp(").append(index)
+                       .append(", v == null ? null : new java.sql.Timestamp(v.getTime()));\n")
+                       .append(indent).append("}\n");
+                    return;
+                default:
+                    break;
+            }
+            if (typeElement.getKind() == ElementKind.ENUM) {
+                src.append(indent).append("{\n")
+                   .append(indent).append("    ").append(qualifiedName).append(" v = ").append(value).append(";\n")
+                   .append(indent).append("    ps.setString(").append(index).append(", v == null ? null : v.name());\n")
+                   .append(indent).append("}\n");
+                return;
+            }
+        }
+        // 其他类型交给驱动转换，例如 LocalDateTime、UUID
+        simpleBind(src, indent, "setObject", index, value);
+    }
+
+    private static void simpleBind(StringBuilder src, String indent, String method, String index, String value) {
+        src.append(indent).append("ps.").append(method).append('(').append(index).append(", ").append(value).append(");\n");
+    }
+
+    private String readKey(TypeMirror type) {
+        TypeKind kind = type.getKind().isPrimitive() ? type.getKind() : unboxedKind(type);
+        if (kind != null) {
+            return "keys." + MapperProcessor.primitiveGetter(kind) + "(1)";
+        }
+        return "keys.getObject(1, " + processingEnv.getTypeUtils().erasure(type) + ".class)";
+    }
+
+    private String typeName(TypeMirror type) {
+        return type.getKind().isPrimitive() ? type.toString() : processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private TypeKind unboxedKind(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type).getKind();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String setter(TypeKind kind) {
+        return "s" + MapperProcessor.primitiveGetter(kind).substring(1);
+    }
+
+    private static String sqlType(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "BOOLEAN";
+            case BYTE:
+                return "TINYINT";
+            case SHORT:
+                return "SMALLINT";
+            case INT:
+                return "INTEGER";
+            case LONG:
+                return "BIGINT";
+            case FLOAT:
+                return "REAL";
+            case DOUBLE:
+                return "DOUBLE";
+            default:
+                throw new IllegalArgumentException("不支持的基本类型: " + kind);
+        }
+    }
+
+    private void error(String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, type);
+    }
+}
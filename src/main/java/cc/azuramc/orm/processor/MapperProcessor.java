@@ -0,0 +1,438 @@
+package cc.azuramc.orm.processor;
+
+import cc.azuramc.orm.annotation.Column;
+import cc.azuramc.orm.annotation.Id;
+import cc.azuramc.orm.annotation.Mapped;
+import cc.azuramc.orm.annotation.Table;
+import cc.azuramc.orm.annotation.Tracked;
+import cc.azuramc.orm.annotation.Transient;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期生成 RowMapper 的注解处理器
+ * 为每个标注了 {@link Mapped} 的类生成一个 {@code RowMapper} 实现：列索引在每条语句执行后解析一次，
+ * 逐行映射时按索引调用类型化的 getXxx 方法并直接赋值，不使用反射。
+ * 标注了 {@link Table} 的类同时生成映射器和 DAO（见 {@link DaoWriter}），标注了 {@link Tracked} 的类生成
+ * 跟踪字段修改的子类（见 {@link TrackedWriter}），映射器创建该子类。
+ * <p>
+ * 使用方式（Gradle）: {@code annotationProcessor 'cc.azuramc:azura-orm:1.0.0'}
+ * @author AzuraMC Team
+ */
+public class MapperProcessor extends AbstractProcessor {
+
+    /** 可以直接用类型化 getter 读取的引用类型 */
+    private static final Map<String, String> REFERENCE_GETTERS = new HashMap<>();
+
+    static {
+        REFERENCE_GETTERS.put("java.lang.String", "getString");
+        REFERENCE_GETTERS.put("java.math.BigDecimal", "getBigDecimal");
+        REFERENCE_GETTERS.put("java.sql.Timestamp", "getTimestamp");
+        REFERENCE_GETTERS.put("java.sql.Date", "getDate");
+        REFERENCE_GETTERS.put("java.sql.Time", "getTime");
+        REFERENCE_GETTERS.put("java.util.Date", "getTimestamp");
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(Mapped.class.getCanonicalName(), Table.class.getCanonicalName(),
+                Tracked.class.getCanonicalName()));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<Element> annotated = new LinkedHashSet<>(roundEnv.getElementsAnnotatedWith(Mapped.class));
+        annotated.addAll(roundEnv.getElementsAnnotatedWith(Table.class));
+        for (Element element : roundEnv.getElementsAnnotatedWith(Tracked.class)) {
+            if (!annotated.contains(element)) {
+                error(element, "@Tracked 只能与 @Mapped 或 @Table 一起使用");
+            }
+        }
+        for (Element element : annotated) {
+            String annotation = element.getAnnotation(Table.class) != null ? "@Table" : "@Mapped";
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, annotation + " 只能标注在类上");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!validate(type, annotation)) {
+                continue;
+            }
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            List<MappedField> fields = collectFields(type, packageName);
+            boolean tracked = type.getAnnotation(Tracked.class) != null;
+            if (tracked && !new TrackedWriter(processingEnv, type, fields).write()) {
+                continue;
+            }
+            generateMapper(type, fields, tracked);
+            Table table = type.getAnnotation(Table.class);
+            if (table != null) {
+                new DaoWriter(processingEnv, type, table.value(), fields).write();
+            }
+        }
+        return false;
+    }
+
+    private boolean validate(TypeElement type, String annotation) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            error(type, annotation + " 类不能是抽象类");
+            return false;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            error(type, annotation + " 类不能是 private 的");
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            error(type, annotation + " 嵌套类必须是 static 的");
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            error(type, annotation + " 不支持局部类或匿名类");
+            return false;
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean hasNoArgConstructor = constructors.stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+        if (!hasNoArgConstructor) {
+            error(type, annotation + " 类必须提供非 private 的无参构造器");
+            return false;
+        }
+        return true;
+    }
+
+    private void generateMapper(TypeElement type, List<MappedField> fields, boolean tracked) {
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String mapperName = mapperSimpleName(type);
+        String entityName = type.getQualifiedName().toString();
+        // 跟踪修改的实体创建生成的子类，映射时经过 setter 记录的修改在返回前清除
+        String instanceName = tracked ? TrackedWriter.trackedSimpleName(type) : entityName;
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n")
+           .append(" * 由 AzuraORM 注解处理器为 {@link ").append(entityName).append("} 生成的映射器，请勿手动修改\n")
+           .append(" */\n")
+           .append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+           .append("public final class ").append(mapperName)
+           .append(" implements cc.azuramc.orm.mapping.RowMapper<").append(entityName).append("> {\n\n");
+
+        src.append("    private static final String[] COLUMNS = {");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                src.append(", ");
+            }
+            src.append(stringLiteral(fields.get(i).column));
+        }
+        src.append("};\n\n");
+
+        src.append("    /** 已解析的列索引，未绑定时为 null */\n")
+           .append("    private final int[] indexes;\n\n")
+           .append("    public ").append(mapperName).append("() {\n")
+           .append("        this.indexes = null;\n")
+           .append("    }\n\n")
+           .append("    private ").append(mapperName).append("(int[] indexes) {\n")
+           .append("        this.indexes = indexes;\n")
+           .append("    }\n\n");
+
+        src.append("    @Override\n")
+           .append("    public cc.azuramc.orm.mapping.RowMapper<").append(entityName).append("> bind(java.sql.ResultSetMetaData metaData) throws java.sql.SQLException {\n")
+           .append("        return new ").append(mapperName).append("(cc.azuramc.orm.mapping.RowMappers.resolveColumns(metaData, COLUMNS));\n")
+           .append("    }\n\n");
+
+        src.append("    @Override\n")
+           .append("    public ").append(entityName).append(" mapRow(java.sql.ResultSet rs) throws java.sql.SQLException {\n")
+           .append("        int[] idx = this.indexes != null ? this.indexes : cc.azuramc.orm.mapping.RowMappers.resolveColumns(rs.getMetaData(), COLUMNS);\n")
+           .append("        ").append(instanceName).append(" o = new ").append(instanceName).append("();\n")
+           .append("        int c;\n");
+        for (int i = 0; i < fields.size(); i++) {
+            MappedField field = fields.get(i);
+            src.append("        if ((c = idx[").append(i).append("]) > 0) {\n");
+            appendRead(src, field);
+            src.append("        }\n");
+        }
+        if (tracked) {
+            src.append("        o.cleanDirty();\n");
+        }
+        src.append("        return o;\n")
+           .append("    }\n")
+           .append("}\n");
+
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedMapperName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(src.toString());
+            }
+        } catch (IOException e) {
+            error(type, "生成映射器失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成单个字段的读取和赋值代码
+     */
+    private void appendRead(StringBuilder src, MappedField field) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror type = field.type;
+        String indent = "            ";
+
+        if (type.getKind().isPrimitive()) {
+            src.append(indent).append(field.assign("rs." + primitiveGetter(type.getKind()) + "(c)")).append(";\n");
+            return;
+        }
+
+        if (type.getKind() == TypeKind.ARRAY && "byte[]".equals(type.toString())) {
+            src.append(indent).append(field.assign("rs.getBytes(c)")).append(";\n");
+            return;
+        }
+
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+            String qualifiedName = typeElement.getQualifiedName().toString();
+
+            TypeKind unboxed = unboxedKind(type);
+            if (unboxed != null) {
+                // 包装类型需要通过 wasNull 区分 SQL NULL 和 0
+                src.append(indent).append(types.getPrimitiveType(unboxed)).append(" v = rs.")
+                   .append(primitiveGetter(unboxed)).append("(c);\n");
+                src.append(indent).append(field.assign("rs.wasNull() ? null : v")).append(";\n");
+                return;
+            }
+
+            String getter = REFERENCE_GETTERS.get(qualifiedName);
+            if (getter != null) {
+                src.append(indent).append(field.assign("rs." + getter + "(c)")).append(";\n");
+                return;
+            }
+
+            if (typeElement.getKind() == ElementKind.ENUM) {
+                src.append(indent).append("String v = rs.getString(c);\n");
+                src.append(indent).append(field.assign("v == null ? null : " + qualifiedName + ".valueOf(v)")).append(";\n");
+                return;
+            }
+        }
+
+        // 其他类型交给驱动按目标类型转换，例如 LocalDateTime、UUID
+        String erased = types.erasure(type).toString();
+        src.append(indent).append(field.assign("rs.getObject(c, " + erased + ".class)")).append(";\n");
+    }
+
+    private List<MappedField> collectFields(TypeElement type, String packageName) {
+        Elements elements = processingEnv.getElementUtils();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+
+        // 先收集父类字段，保证列顺序与类层次一致
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        TypeElement current = type;
+        while (current != null && !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+            hierarchy.push(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+
+        List<MappedField> fields = new ArrayList<>();
+        Set<String> seenColumns = new HashSet<>();
+        for (TypeElement owner : hierarchy) {
+            for (VariableElement variable : ElementFilter.fieldsIn(owner.getEnclosedElements())) {
+                Set<Modifier> modifiers = variable.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)
+                        || variable.getAnnotation(Transient.class) != null) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.FINAL)) {
+                    warning(variable, "final 字段不会被映射: " + variable.getSimpleName());
+                    continue;
+                }
+
+                String fieldName = variable.getSimpleName().toString();
+                Column column = variable.getAnnotation(Column.class);
+                String columnName = column != null ? column.value() : fieldName;
+                if (!seenColumns.add(columnName.toLowerCase(Locale.ROOT))) {
+                    error(variable, "列名重复: " + columnName);
+                    continue;
+                }
+
+                String ownerPackage = elements.getPackageOf(owner).getQualifiedName().toString();
+                boolean directAccess = modifiers.contains(Modifier.PUBLIC)
+                        || (!modifiers.contains(Modifier.PRIVATE) && ownerPackage.equals(packageName));
+                String setter = directAccess ? null : findSetter(methods, variable, packageName);
+                String getter = directAccess ? null : findGetter(methods, variable);
+                Id id = variable.getAnnotation(Id.class);
+                fields.add(new MappedField(fieldName, columnName, variable.asType(), setter, getter,
+                        id != null, id != null && id.generated()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 查找字段的 setter；找不到时仍按约定生成 setter 调用（例如由 Lombok 生成的 setter 在本轮不可见）
+     */
+    private String findSetter(List<ExecutableElement> methods, VariableElement field, String packageName) {
+        String name = field.getSimpleName().toString();
+        String property = name;
+        if (field.asType().getKind() == TypeKind.BOOLEAN && name.length() > 2 && name.startsWith("is")
+                && Character.isUpperCase(name.charAt(2))) {
+            property = name.substring(2);
+        }
+        String setterName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+
+        Types types = processingEnv.getTypeUtils();
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(setterName)
+                    && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && types.isAssignable(field.asType(), method.getParameters().get(0).asType())) {
+                return setterName;
+            }
+        }
+        note(field, "未找到 " + setterName + "()，将按约定生成 setter 调用");
+        return setterName;
+    }
+
+    /**
+     * 查找字段的 getter，生成 DAO 时用于读取字段；找不到时同样按约定生成调用
+     */
+    private String findGetter(List<ExecutableElement> methods, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        boolean isBoolean = field.asType().getKind() == TypeKind.BOOLEAN;
+        List<String> candidates = new ArrayList<>();
+        if (isBoolean && name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+            candidates.add(name);
+        }
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        if (isBoolean) {
+            candidates.add("is" + capitalized);
+        }
+        candidates.add("get" + capitalized);
+        for (String candidate : candidates) {
+            for (ExecutableElement method : methods) {
+                if (method.getSimpleName().contentEquals(candidate) && method.getParameters().isEmpty()
+                        && !method.getModifiers().contains(Modifier.PRIVATE)) {
+                    return candidate;
+                }
+            }
+        }
+        return candidates.get(0);
+    }
+
+    static String mapperSimpleName(TypeElement type) {
+        return flatSimpleName(type) + "RowMapper";
+    }
+
+    /**
+     * 生成类使用的类名前缀，嵌套类的外部类名和类名用 _ 连接
+     */
+    static String flatSimpleName(TypeElement type) {
+        Deque<String> names = new ArrayDeque<>();
+        Element current = type;
+        while (current instanceof TypeElement) {
+            names.push(current.getSimpleName().toString());
+            current = current.getEnclosingElement();
+        }
+        return String.join("_", names);
+    }
+
+    private TypeKind unboxedKind(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type).getKind();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String primitiveGetter(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "getBoolean";
+            case BYTE:
+                return "getByte";
+            case SHORT:
+                return "getShort";
+            case INT:
+                return "getInt";
+            case LONG:
+                return "getLong";
+            case FLOAT:
+                return "getFloat";
+            case DOUBLE:
+                return "getDouble";
+            default:
+                throw new IllegalArgumentException("不支持的基本类型: " + kind);
+        }
+    }
+
+    static String stringLiteral(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    /** 待映射的字段 */
+    static class MappedField {
+        final String name;
+        final String column;
+        final TypeMirror type;
+        /** 为 null 时直接给字段赋值 */
+        final String setter;
+        /** 为 null 时直接读取字段 */
+        final String getter;
+        final boolean id;
+        final boolean generatedId;
+
+        MappedField(String name, String column, TypeMirror type, String setter, String getter, boolean id,
+                    boolean generatedId) {
+            this.name = name;
+            this.column = column;
+            this.type = type;
+            this.setter = setter;
+            this.getter = getter;
+            this.id = id;
+            this.generatedId = generatedId;
+        }
+
+        String assign(String expression) {
+            return setter != null ? "o." + setter + "(" + expression + ")" : "o." + name + " = " + expression;
+        }
+
+        String read() {
+            return getter != null ? "o." + getter + "()" : "o." + name;
+        }
+    }
+}
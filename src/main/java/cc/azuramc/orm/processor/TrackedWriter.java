@@ -0,0 +1,206 @@
+package cc.azuramc.orm.processor;
+
+import cc.azuramc.orm.processor.MapperProcessor.MappedField;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 为 {@link cc.azuramc.orm.annotation.Tracked} 实体生成 {@code <类名>Tracked} 子类
+ * 子类覆盖每个映射字段的 setter，调用父类 setter 后把字段对应的位或入 long 位集，位的顺序与映射器的 COLUMNS 一致。
+ * 位集通过 CAS 更新，变更管理器在其他线程上刷新时，setter 记录的位不会被覆盖，刷新也只清除写入过的位。
+ * @author AzuraMC Team
+ */
+final class TrackedWriter {
+
+    /** long 位集能记录的最多字段数 */
+    static final int MAX_FIELDS = Long.SIZE;
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeElement type;
+    private final List<MappedField> fields;
+
+    TrackedWriter(ProcessingEnvironment processingEnv, TypeElement type, List<MappedField> fields) {
+        this.processingEnv = processingEnv;
+        this.type = type;
+        this.fields = fields;
+    }
+
+    static String trackedSimpleName(TypeElement type) {
+        return MapperProcessor.flatSimpleName(type) + "Tracked";
+    }
+
+    /**
+     * 生成子类
+     * @return 是否生成成功，失败时已经输出编译错误
+     */
+    boolean write() {
+        if (type.getModifiers().contains(Modifier.FINAL)) {
+            error(type, "@Tracked 类不能是 final 的");
+            return false;
+        }
+        if (fields.size() > MAX_FIELDS) {
+            error(type, "@Tracked 类最多支持 " + MAX_FIELDS + " 个映射字段");
+            return false;
+        }
+        Elements elements = processingEnv.getElementUtils();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            int parameters = method.getParameters().size();
+            if (method.getModifiers().contains(Modifier.FINAL)
+                    && ((parameters == 0 && (name.equals("isDirty") || name.equals("cleanDirty") || name.equals("getDirtyFields")))
+                    || (parameters == 1 && name.equals("cleanDirty")))) {
+                error(method, "@Tracked 类的 " + name + "() 不能是 final 的");
+                return false;
+            }
+        }
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String trackedName = trackedSimpleName(type);
+        String entityName = type.getQualifiedName().toString();
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n")
+           .append(" * 由 AzuraORM 注解处理器为 {@link ").append(entityName).append("} 生成的字段级脏数据跟踪子类，请勿手动修改\n")
+           .append(" */\n")
+           .append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n")
+           .append(type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "")
+           .append("class ").append(trackedName).append(" extends ").append(entityName)
+           .append(" implements cc.azuramc.orm.manager.ChangeManager.FieldDirtyTracker {\n\n")
+           .append("    private static final java.util.concurrent.atomic.AtomicLongFieldUpdater<").append(trackedName)
+           .append("> DIRTY_FIELDS =\n")
+           .append("            java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater(").append(trackedName)
+           .append(".class, \"dirtyFields\");\n\n")
+           .append("    private volatile long dirtyFields;\n\n");
+
+        src.append("    @Override\n")
+           .append("    public boolean isDirty() {\n")
+           .append("        return dirtyFields != 0L;\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public void cleanDirty() {\n")
+           .append("        dirtyFields = 0L;\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public void cleanDirty(long mask) {\n")
+           .append("        long current;\n")
+           .append("        do {\n")
+           .append("            current = dirtyFields;\n")
+           .append("        } while (!DIRTY_FIELDS.compareAndSet(this, current, current & ~mask));\n")
+           .append("    }\n\n")
+           .append("    @Override\n")
+           .append("    public long getDirtyFields() {\n")
+           .append("        return dirtyFields;\n")
+           .append("    }\n\n")
+           .append("    private void markDirty(long bit) {\n")
+           .append("        long current;\n")
+           .append("        do {\n")
+           .append("            current = dirtyFields;\n")
+           .append("        } while (!DIRTY_FIELDS.compareAndSet(this, current, current | bit));\n")
+           .append("    }\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            MappedField field = fields.get(i);
+            ExecutableElement setter = findSetter(methods, field, packageName);
+            if (setter == null) {
+                warning(type, "字段 " + field.name + " 没有可覆盖的 setter，对它的修改不会被记录");
+                continue;
+            }
+            appendOverride(src, setter, i);
+        }
+        src.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? trackedName : packageName + "." + trackedName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(src.toString());
+            }
+        } catch (IOException e) {
+            error(type, "生成跟踪子类失败: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static void appendOverride(StringBuilder src, ExecutableElement setter, int bit) {
+        String name = setter.getSimpleName().toString();
+        TypeMirror returnType = setter.getReturnType();
+        boolean returnsValue = returnType.getKind() != TypeKind.VOID;
+        Set<Modifier> modifiers = setter.getModifiers();
+        String access = modifiers.contains(Modifier.PUBLIC) ? "public "
+                : modifiers.contains(Modifier.PROTECTED) ? "protected " : "";
+        String thrown = setter.getThrownTypes().isEmpty() ? ""
+                : " throws " + setter.getThrownTypes().stream().map(TypeMirror::toString).collect(Collectors.joining(", "));
+
+        src.append("\n    @Override\n")
+           .append("    ").append(access).append(returnType).append(' ').append(name).append('(')
+           .append(setter.getParameters().get(0).asType()).append(" value)").append(thrown).append(" {\n")
+           .append("        ").append(returnsValue ? returnType + " result = " : "").append("super.").append(name)
+           .append("(value);\n")
+           .append("        markDirty(0x").append(Long.toHexString(1L << bit)).append("L);\n");
+        if (returnsValue) {
+            src.append("        return result;\n");
+        }
+        src.append("    }\n");
+    }
+
+    /**
+     * 查找可以覆盖的 setter：非 private、非 static、非 final，包级私有的 setter 必须声明在同一个包中
+     */
+    private ExecutableElement findSetter(List<ExecutableElement> methods, MappedField field, String packageName) {
+        String name = field.name;
+        String property = name;
+        if (field.type.getKind() == TypeKind.BOOLEAN && name.length() > 2 && name.startsWith("is")
+                && Character.isUpperCase(name.charAt(2))) {
+            property = name.substring(2);
+        }
+        String setterName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        for (ExecutableElement method : methods) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!method.getSimpleName().contentEquals(setterName) || method.getParameters().size() != 1
+                    || modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                    || modifiers.contains(Modifier.FINAL)
+                    || !types.isSameType(field.type, method.getParameters().get(0).asType())) {
+                continue;
+            }
+            boolean packagePrivate = !modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.PROTECTED);
+            Element owner = method.getEnclosingElement();
+            if (packagePrivate && !elements.getPackageOf(owner).getQualifiedName().contentEquals(packageName)) {
+                continue;
+            }
+            return method;
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+}
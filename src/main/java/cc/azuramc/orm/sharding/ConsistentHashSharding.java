@@ -0,0 +1,81 @@
+package cc.azuramc.orm.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希分片
+ * 每个分片在哈希环上放置若干虚拟节点，增减分片时只有相邻区间的数据需要迁移。
+ * 分片键按 {@link String#valueOf(Object)} 计算 64 位 FNV-1a 哈希，整数和字符串形式相同的键落在同一分片。
+ * @author AzuraMC Team
+ */
+public class ConsistentHashSharding implements ShardingStrategy {
+
+    /** 每个分片默认的虚拟节点数 */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> shards;
+
+    /**
+     * @param shards 分片的配置名称
+     */
+    public ConsistentHashSharding(String... shards) {
+        this(DEFAULT_VIRTUAL_NODES, shards != null ? Arrays.asList(shards) : Collections.emptyList());
+    }
+
+    /**
+     * @param virtualNodes 每个分片的虚拟节点数
+     * @param shards 分片的配置名称
+     */
+    public ConsistentHashSharding(int virtualNodes, Collection<String> shards) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须大于0。");
+        }
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("分片列表不能为空。");
+        }
+        this.shards = Collections.unmodifiableSet(new LinkedHashSet<>(shards));
+        for (String shard : this.shards) {
+            if (shard == null || shard.trim().isEmpty()) {
+                throw new IllegalArgumentException("分片名称不能为空。");
+            }
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    @Override
+    public String shardFor(Object shardKey) {
+        if (shardKey == null) {
+            throw new IllegalArgumentException("分片键不能为空 (null)。");
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(String.valueOf(shardKey)));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    @Override
+    public Collection<String> getShards() {
+        return shards;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // FNV 的低位扩散较差，再做一次混合使虚拟节点在环上分布均匀
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,71 @@
+package cc.azuramc.orm.sharding;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 按数值范围分片，适用于自增ID等单调增长的分片键
+ * 示例:
+ * <pre>
+ * new RangeSharding()
+ *         .range(0, "shard0")            // [0, 1000000)
+ *         .range(1_000_000, "shard1");   // [1000000, +∞)
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class RangeSharding implements ShardingStrategy {
+
+    private final TreeMap<Long, String> ranges = new TreeMap<>();
+    private final Set<String> shards = new LinkedHashSet<>();
+
+    /**
+     * 添加一个范围，从 lowerBound（包含）到下一个范围的起点（不包含）
+     * @param lowerBound 范围起点
+     * @param shard 分片的配置名称
+     * @return 当前策略
+     */
+    public RangeSharding range(long lowerBound, String shard) {
+        if (shard == null || shard.trim().isEmpty()) {
+            throw new IllegalArgumentException("分片名称不能为空。");
+        }
+        if (ranges.containsKey(lowerBound)) {
+            throw new IllegalArgumentException("范围起点重复: " + lowerBound);
+        }
+        ranges.put(lowerBound, shard);
+        shards.add(shard);
+        return this;
+    }
+
+    @Override
+    public String shardFor(Object shardKey) {
+        long key = toLong(shardKey);
+        Map.Entry<Long, String> entry = ranges.floorEntry(key);
+        if (entry == null) {
+            throw new IllegalArgumentException("分片键 " + key + " 不在任何范围内。");
+        }
+        return entry.getValue();
+    }
+
+    @Override
+    public Collection<String> getShards() {
+        return Collections.unmodifiableSet(shards);
+    }
+
+    private static long toLong(Object shardKey) {
+        if (shardKey instanceof Number) {
+            return ((Number) shardKey).longValue();
+        }
+        if (shardKey instanceof String) {
+            try {
+                return Long.parseLong(((String) shardKey).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("范围分片的分片键必须是整数: " + shardKey, e);
+            }
+        }
+        throw new IllegalArgumentException("范围分片的分片键必须是整数: " + shardKey);
+    }
+}
@@ -0,0 +1,220 @@
+package cc.azuramc.orm.sharding;
+
+import cc.azuramc.orm.builder.DeleteBuilder;
+import cc.azuramc.orm.builder.InsertBuilder;
+import cc.azuramc.orm.builder.SelectBuilder;
+import cc.azuramc.orm.builder.UpdateBuilder;
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按分片列把构建器的终结操作路由到 {@link cc.azuramc.orm.util.DBUtil} 中注册的多个连接池
+ * <ul>
+ *     <li>WHERE 条件（AND 连接）中包含分片列的 = 或 IN 条件时，只在对应的分片上执行</li>
+ *     <li>否则查询在所有分片上并行执行后合并结果，带 ORDER BY 时按排序列归并，LIMIT/OFFSET 在合并后应用</li>
+ *     <li>插入按分片列的值路由，批量插入按分片分组执行</li>
+ * </ul>
+ * 示例:
+ * <pre>
+ * ShardedConnectionSource players = new ShardedConnectionSource("uuid",
+ *         new ConsistentHashSharding("players-0", "players-1", "players-2"));
+ * Player p = players.select("*").from("players").where("uuid", "=", uuid).fetchOne(Player.class);
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class ShardedConnectionSource implements ConnectionSource, AutoCloseable {
+
+    private final String shardColumn;
+    private final ShardingStrategy strategy;
+    private final Map<String, ConnectionSource> shardSources;
+    private final int parallelism;
+    private volatile ExecutorService executor;
+
+    /**
+     * @param shardColumn 分片列
+     * @param strategy 分片策略
+     */
+    public ShardedConnectionSource(String shardColumn, ShardingStrategy strategy) {
+        this(shardColumn, strategy, 0);
+    }
+
+    /**
+     * @param shardColumn 分片列
+     * @param strategy 分片策略
+     * @param parallelism 跨分片查询的并行线程数，小于等于0时为分片数的2倍
+     */
+    public ShardedConnectionSource(String shardColumn, ShardingStrategy strategy, int parallelism) {
+        if (shardColumn == null || shardColumn.trim().isEmpty()) {
+            throw new IllegalArgumentException("分片列不能为空。");
+        }
+        if (strategy == null || strategy.getShards().isEmpty()) {
+            throw new IllegalArgumentException("分片策略不能为空。");
+        }
+        this.shardColumn = shardColumn;
+        this.strategy = strategy;
+        Map<String, ConnectionSource> sources = new LinkedHashMap<>();
+        for (String shard : strategy.getShards()) {
+            sources.put(shard, ConnectionSource.pooled(shard));
+        }
+        this.shardSources = Collections.unmodifiableMap(sources);
+        this.parallelism = parallelism > 0 ? parallelism : sources.size() * 2;
+    }
+
+    public SelectBuilder select(String... columns) {
+        return new SelectBuilder(this).select(columns);
+    }
+
+    public InsertBuilder insertInto(String tableName) {
+        return new InsertBuilder(this).insertInto(tableName);
+    }
+
+    public UpdateBuilder update(String tableName) {
+        return new UpdateBuilder(this).update(tableName);
+    }
+
+    public DeleteBuilder deleteFrom(String tableName) {
+        return new DeleteBuilder(this).deleteFrom(tableName);
+    }
+
+    /**
+     * 判断列名是否为分片列，忽略大小写和表名前缀
+     * @param column 列名，例如 "uuid" 或 "p.uuid"
+     * @return 是否为分片列
+     */
+    public boolean isShardColumn(String column) {
+        if (column == null) {
+            return false;
+        }
+        String name = column.trim();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            name = name.substring(dot + 1);
+        }
+        return name.toLowerCase(Locale.ROOT).equals(unqualified(shardColumn).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 获取分片键所在分片的连接来源
+     * @param shardKey 分片键的值
+     * @return 连接来源
+     */
+    public ConnectionSource shardFor(Object shardKey) {
+        return shard(strategy.shardFor(shardKey));
+    }
+
+    /**
+     * 获取若干分片键所在分片的连接来源（去重，保持分片顺序）
+     * @param shardKeys 分片键的值
+     * @return 连接来源
+     */
+    public List<ConnectionSource> shardsFor(Collection<?> shardKeys) {
+        Map<String, ConnectionSource> targets = new LinkedHashMap<>();
+        for (Object shardKey : shardKeys) {
+            String shard = strategy.shardFor(shardKey);
+            targets.put(shard, shard(shard));
+        }
+        return new ArrayList<>(targets.values());
+    }
+
+    /**
+     * 获取所有分片的连接来源
+     * @return 连接来源
+     */
+    public List<ConnectionSource> allShards() {
+        return new ArrayList<>(shardSources.values());
+    }
+
+    /**
+     * 获取指定分片的连接来源
+     * @param shard 分片的配置名称
+     * @return 连接来源
+     */
+    public ConnectionSource shard(String shard) {
+        ConnectionSource source = shardSources.get(shard);
+        if (source == null) {
+            throw new IllegalArgumentException("未知分片: " + shard);
+        }
+        return source;
+    }
+
+    public String getShardColumn() {
+        return shardColumn;
+    }
+
+    public ShardingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 获取跨分片查询使用的线程池，首次使用时创建
+     * @return 线程池
+     */
+    public ExecutorService getExecutor() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    current = Executors.newFixedThreadPool(parallelism, runnable -> {
+                        Thread thread = new Thread(runnable, "AzuraORM-shard-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 分片连接来源需要知道分片键才能借出连接，只能通过构建器的终结操作使用
+     */
+    @Override
+    public Connection acquire() {
+        throw new IllegalStateException("分片连接来源只能通过构建器的终结操作使用，或先调用 shardFor() 选择分片。");
+    }
+
+    @Override
+    public void release(Connection connection, boolean success) {
+        throw new IllegalStateException("分片连接来源只能通过构建器的终结操作使用，或先调用 shardFor() 选择分片。");
+    }
+
+    /**
+     * 各分片应当是同一种数据库，使用第一个分片的方言
+     */
+    @Override
+    public Dialect getDialect() {
+        return shardSources.values().iterator().next().getDialect();
+    }
+
+    /**
+     * 关闭跨分片查询的线程池，不关闭各分片的连接池
+     */
+    @Override
+    public void close() {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.shutdown();
+            executor = null;
+        }
+    }
+
+    private static String unqualified(String column) {
+        int dot = column.lastIndexOf('.');
+        return dot >= 0 ? column.substring(dot + 1).trim() : column.trim();
+    }
+}
@@ -0,0 +1,23 @@
+package cc.azuramc.orm.sharding;
+
+import java.util.Collection;
+
+/**
+ * 分片策略，把分片键映射到 {@link cc.azuramc.orm.util.DBUtil} 中注册的配置名称
+ * @author AzuraMC Team
+ */
+public interface ShardingStrategy {
+
+    /**
+     * 计算分片键所在的分片
+     * @param shardKey 分片键的值
+     * @return 分片的配置名称
+     */
+    String shardFor(Object shardKey);
+
+    /**
+     * 获取所有分片
+     * @return 分片的配置名称
+     */
+    Collection<String> getShards();
+}
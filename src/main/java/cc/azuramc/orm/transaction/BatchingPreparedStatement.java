@@ -0,0 +1,107 @@
+package cc.azuramc.orm.transaction;
+
+import cc.azuramc.orm.jdbc.DelegatingPreparedStatement;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * 事务中延迟执行的插入语句
+ * 参数直接设置在共享的批量语句上，executeUpdate() 和 executeBatch() 只把当前参数加入批量，
+ * 由于尚未发送，影响行数返回 {@link Statement#SUCCESS_NO_INFO}；close() 不关闭共享语句。
+ * @author AzuraMC Team
+ */
+final class BatchingPreparedStatement extends DelegatingPreparedStatement {
+
+    private final Transaction transaction;
+    private final WriteBatch batch;
+    private int explicitRows;
+    private boolean closed;
+
+    BatchingPreparedStatement(Transaction transaction, WriteBatch batch) {
+        super(batch.statement);
+        this.transaction = transaction;
+        this.batch = batch;
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        checkOpen();
+        delegate.addBatch();
+        batch.rows++;
+        transaction.afterBatched(batch);
+        return Statement.SUCCESS_NO_INFO;
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return executeUpdate();
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        executeUpdate();
+        return false;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        throw new SQLException("Cannot execute a query on a deferred write statement: " + batch.sql);
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        checkOpen();
+        delegate.addBatch();
+        batch.rows++;
+        explicitRows++;
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        throw new SQLException("Cannot clear a shared transaction batch");
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        checkOpen();
+        int[] counts = new int[explicitRows];
+        Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+        explicitRows = 0;
+        transaction.afterBatched(batch);
+        return counts;
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        int[] counts = executeBatch();
+        long[] largeCounts = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            largeCounts[i] = counts[i];
+        }
+        return largeCounts;
+    }
+
+    @Override
+    public int getUpdateCount() {
+        return Statement.SUCCESS_NO_INFO;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || delegate.isClosed();
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement is closed");
+        }
+    }
+}
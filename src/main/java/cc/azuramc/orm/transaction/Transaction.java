@@ -0,0 +1,324 @@
+package cc.azuramc.orm.transaction;
+
+import cc.azuramc.orm.builder.DeleteBuilder;
+import cc.azuramc.orm.builder.InsertBuilder;
+import cc.azuramc.orm.builder.SelectBuilder;
+import cc.azuramc.orm.builder.UpdateBuilder;
+import cc.azuramc.orm.cache.IdentityMap;
+import cc.azuramc.orm.dialect.Dialect;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 由 {@link TransactionTemplate} 管理的事务，绑定在当前线程上
+ * <p>
+ * 事务内的构建器（包括在同一线程上通过客户端创建的构建器）共用同一个主库连接。
+ * 开启 {@link #setAutoBatch(boolean) 自动合并} 后，连续执行的相同SQL单表插入 (INSERT / REPLACE) 会被合并成一个 JDBC 批量，
+ * 在提交、执行其他语句、查询被写入的表、创建或回滚保存点以及调用 {@link #flush()} 时才发送，
+ * 被合并的插入返回 {@link java.sql.Statement#SUCCESS_NO_INFO}。UPDATE 和 DELETE 始终立即执行并返回准确的影响行数。
+ * 查询只通过表名判断是否依赖未发送的写入，借助视图或触发器间接读取时请先调用 {@link #flush()}。
+ * @author AzuraMC Team
+ */
+public final class Transaction {
+
+    /** 单个批量最多合并的行数，超过后立即发送 */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private static final ThreadLocal<Map<String, Transaction>> CURRENT = new ThreadLocal<>();
+
+    private final String configName;
+    private final Connection connection;
+    private final ConnectionSource source;
+    private final TransactionConnection directConnection;
+    private boolean autoBatch;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private boolean rollbackOnly;
+    private boolean active = true;
+    private WriteBatch pending;
+
+    Transaction(String configName, Connection connection, boolean autoBatch) {
+        this.configName = configName;
+        this.connection = connection;
+        this.autoBatch = autoBatch;
+        this.directConnection = new TransactionConnection(this, false);
+        TransactionConnection builderConnection = new TransactionConnection(this, true);
+        this.source = new ConnectionSource() {
+            @Override
+            public Connection acquire() {
+                return builderConnection;
+            }
+
+            @Override
+            public void release(Connection connection, boolean success) {
+                // 提交和归还由事务负责
+            }
+
+            @Override
+            public boolean isConnectionBound() {
+                return true;
+            }
+
+            @Override
+            public Dialect getDialect() {
+                return DBUtil.getDialect(configName);
+            }
+        };
+    }
+
+    /**
+     * 获取当前线程上指定配置的事务
+     * @param configName 配置名称
+     * @return 事务，不在事务中时返回null
+     */
+    public static Transaction current(String configName) {
+        Map<String, Transaction> transactions = CURRENT.get();
+        return transactions != null ? transactions.get(configName) : null;
+    }
+
+    static void bind(Transaction transaction) {
+        Map<String, Transaction> transactions = CURRENT.get();
+        if (transactions == null) {
+            transactions = new HashMap<>();
+            CURRENT.set(transactions);
+        }
+        transactions.put(transaction.configName, transaction);
+    }
+
+    static void unbind(Transaction transaction) {
+        Map<String, Transaction> transactions = CURRENT.get();
+        if (transactions != null) {
+            transactions.remove(transaction.configName, transaction);
+            if (transactions.isEmpty()) {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 事务使用的连接来源，终结操作不会提交或归还连接
+     * @return 连接来源
+     */
+    public ConnectionSource getConnectionSource() {
+        return source;
+    }
+
+    /**
+     * 创建在本事务中执行的查询构建器
+     * @param columns 要查询的列，为空时查询所有列
+     * @return 查询构建器
+     */
+    public SelectBuilder select(String... columns) {
+        return new SelectBuilder(source).select(columns);
+    }
+
+    /**
+     * 创建在本事务中执行的插入构建器
+     * @param tableName 表名
+     * @return 插入构建器
+     */
+    public InsertBuilder insertInto(String tableName) {
+        return new InsertBuilder(source).insertInto(tableName);
+    }
+
+    /**
+     * 创建在本事务中执行的更新构建器
+     * @param tableName 表名
+     * @return 更新构建器
+     */
+    public UpdateBuilder update(String tableName) {
+        return new UpdateBuilder(source).update(tableName);
+    }
+
+    /**
+     * 创建在本事务中执行的删除构建器
+     * @param tableName 表名
+     * @return 删除构建器
+     */
+    public DeleteBuilder deleteFrom(String tableName) {
+        return new DeleteBuilder(source).deleteFrom(tableName);
+    }
+
+    /**
+     * 获取事务连接，用于直接执行JDBC；语句立即执行，执行前先发送相关的批量写入
+     * 不能在该连接上提交、回滚或关闭。
+     * @return 事务连接
+     */
+    public Connection getConnection() {
+        return directConnection;
+    }
+
+    /**
+     * 在保存点中执行操作，操作抛出异常时只回滚到保存点，异常继续向外抛出
+     * 保存点内加载的实体放在独立的身份映射子作用域中，回滚到保存点时一并丢弃。
+     * @param callback 操作
+     * @return 操作结果
+     * @throws SQLException 如果发生SQL异常
+     */
+    public <T> T savepoint(TransactionCallback<T> callback) throws SQLException {
+        checkActive();
+        flush();
+        Savepoint savepoint = connection.setSavepoint();
+        T result;
+        try (IdentityMap identityMap = IdentityMap.openChild()) {
+            try {
+                result = callback.doInTransaction(this);
+                flush();
+            } catch (SQLException | RuntimeException | Error e) {
+                discardPending();
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackEx) {
+                    // 死锁等错误会让数据库回滚整个事务，保存点随之失效
+                    e.addSuppressed(rollbackEx);
+                }
+                throw e;
+            }
+            identityMap.commit();
+        }
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLFeatureNotSupportedException e) {
+            // 部分驱动不支持显式释放，保存点随事务结束释放
+        }
+        return result;
+    }
+
+    /**
+     * 立即发送未发送的批量写入
+     * @return 每行的影响行数，没有未发送的写入时返回空数组
+     * @throws SQLException 如果执行失败
+     */
+    public int[] flush() throws SQLException {
+        WriteBatch batch = pending;
+        if (batch == null) {
+            return new int[0];
+        }
+        pending = null;
+        try {
+            return batch.rows > 0 ? batch.statement.executeBatch() : new int[0];
+        } finally {
+            batch.statement.close();
+        }
+    }
+
+    /**
+     * 标记为只回滚，操作正常返回后也会回滚
+     */
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * 是否合并连续的相同SQL插入，关闭时先发送已合并的插入
+     * @param autoBatch 是否合并
+     * @return 当前事务
+     * @throws SQLException 如果发送失败
+     */
+    public Transaction setAutoBatch(boolean autoBatch) throws SQLException {
+        if (!autoBatch) {
+            flush();
+        }
+        this.autoBatch = autoBatch;
+        return this;
+    }
+
+    public boolean isAutoBatch() {
+        return autoBatch;
+    }
+
+    /**
+     * 设置单个批量最多合并的行数
+     * @param maxBatchSize 行数，默认 {@value #DEFAULT_MAX_BATCH_SIZE}
+     * @return 当前事务
+     */
+    public Transaction setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("批量大小必须大于0。");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    Connection getPhysicalConnection() {
+        return connection;
+    }
+
+    /**
+     * 获取合并到批量中的写入语句，SQL与未发送的批量不同时先发送原批量
+     */
+    BatchingPreparedStatement batch(String sql) throws SQLException {
+        if (pending != null && !pending.sql.equals(sql)) {
+            flush();
+        }
+        if (pending == null) {
+            // 共享语句本身计时，记录的是批量发送的耗时和合计的影响行数
+            pending = new WriteBatch(sql, StatementMetrics.wrap(connection.prepareStatement(sql), sql));
+        }
+        return new BatchingPreparedStatement(this, pending);
+    }
+
+    void afterBatched(WriteBatch batch) throws SQLException {
+        if (batch == pending && batch.rows >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 执行其他语句前按需发送批量写入
+     * @param sql 即将执行的SQL，null 表示未知
+     */
+    void flushBefore(String sql) throws SQLException {
+        if (pending != null && pending.mustFlushBefore(sql)) {
+            flush();
+        }
+    }
+
+    void commit() throws SQLException {
+        checkActive();
+        flush();
+        connection.commit();
+    }
+
+    void rollback() throws SQLException {
+        discardPending();
+        connection.rollback();
+    }
+
+    void complete() {
+        discardPending();
+        active = false;
+    }
+
+    private void discardPending() {
+        if (pending != null) {
+            pending.discard();
+            pending = null;
+        }
+    }
+
+    private void checkActive() {
+        if (!active) {
+            throw new IllegalStateException("事务已经结束。");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cc.azuramc.orm.transaction;
+
+import java.sql.SQLException;
+
+/**
+ * 在事务中执行的操作
+ * @param <T> 返回值类型
+ * @author AzuraMC Team
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    /**
+     * 执行操作，正常返回时提交，抛出异常时回滚
+     * @param transaction 当前事务
+     * @return 操作结果
+     * @throws SQLException 如果发生SQL异常
+     */
+    T doInTransaction(Transaction transaction) throws SQLException;
+}
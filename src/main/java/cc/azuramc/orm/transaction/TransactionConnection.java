@@ -0,0 +1,178 @@
+package cc.azuramc.orm.transaction;
+
+import cc.azuramc.orm.jdbc.DelegatingConnection;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.concurrent.Executor;
+
+/**
+ * 事务内交给构建器和调用方使用的连接
+ * 执行语句前按需发送未发送的批量写入；提交、回滚、保存点和关闭由 {@link Transaction} 统一管理，这里不允许直接调用。
+ * @author AzuraMC Team
+ */
+final class TransactionConnection extends DelegatingConnection {
+
+    private final Transaction transaction;
+    private final boolean batching;
+
+    /**
+     * @param transaction 所属事务
+     * @param batching 是否把单表写入合并成批量（构建器使用），否则每条语句立即执行（调用方直接使用）
+     */
+    TransactionConnection(Transaction transaction, boolean batching) {
+        super(transaction.getPhysicalConnection());
+        this.transaction = transaction;
+        this.batching = batching;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkActive();
+        if (batching && transaction.isAutoBatch() && WriteBatch.isBatchable(sql)) {
+            return transaction.batch(sql);
+        }
+        transaction.flushBefore(sql);
+        return delegate.prepareStatement(sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        prepareFor(sql);
+        return delegate.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        prepareFor(sql);
+        return delegate.prepareStatement(sql, columnIndexes);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        prepareFor(sql);
+        return delegate.prepareStatement(sql, columnNames);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        prepareFor(sql);
+        return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        prepareFor(sql);
+        return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        prepareFor(null);
+        return delegate.createStatement();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        prepareFor(null);
+        return delegate.createStatement(resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        prepareFor(null);
+        return delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        prepareFor(null);
+        return delegate.prepareCall(sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        prepareFor(null);
+        return delegate.prepareCall(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        prepareFor(null);
+        return delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) {
+        throw managed("setAutoCommit");
+    }
+
+    @Override
+    public void commit() {
+        throw managed("commit");
+    }
+
+    @Override
+    public void rollback() {
+        throw managed("rollback");
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) {
+        throw managed("rollback");
+    }
+
+    @Override
+    public Savepoint setSavepoint() {
+        throw managed("setSavepoint");
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) {
+        throw managed("setSavepoint");
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) {
+        throw managed("releaseSavepoint");
+    }
+
+    /**
+     * 连接由事务持有，关闭操作被忽略
+     */
+    @Override
+    public void close() {
+        // 事务结束时由 Transaction 归还连接
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return !transaction.isActive() || delegate.isClosed();
+    }
+
+    @Override
+    public void abort(Executor executor) {
+        throw managed("abort");
+    }
+
+    private void prepareFor(String sql) throws SQLException {
+        checkActive();
+        transaction.flushBefore(sql);
+    }
+
+    private void checkActive() throws SQLException {
+        if (!transaction.isActive()) {
+            throw new SQLException("Transaction has already completed");
+        }
+    }
+
+    private static IllegalStateException managed(String operation) {
+        return new IllegalStateException("事务由 inTransaction 管理，不能直接调用 " + operation + "()，请使用 Transaction 的方法。");
+    }
+}
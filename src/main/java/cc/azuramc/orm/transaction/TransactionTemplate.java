@@ -0,0 +1,211 @@
+package cc.azuramc.orm.transaction;
+
+import cc.azuramc.orm.cache.IdentityMap;
+import cc.azuramc.orm.metrics.NPlusOneDetector;
+import cc.azuramc.orm.metrics.QueryScope;
+import cc.azuramc.orm.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 事务模板：借出连接、执行操作、提交或回滚，并在死锁和序列化失败时自动重试
+ * 在已有事务的线程上嵌套调用时，以保存点的方式在外层事务中执行，不单独重试。
+ * 示例:
+ * <pre>
+ * client.inTransaction(tx -&gt; {
+ *     long balance = tx.select("balance").from("accounts").where("id", "=", from).fetchLong();
+ *     tx.update("accounts").set("balance", balance - amount).where("id", "=", from).executeUpdate();
+ *     tx.insertInto("transfers").values("from_id", from).values("amount", amount).executeUpdate();
+ *     return null;
+ * });
+ * </pre>
+ * @author AzuraMC Team
+ */
+public class TransactionTemplate {
+
+    /** 默认最多执行次数（包括第一次） */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private final String configName;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private boolean autoBatch;
+    private Integer isolationLevel;
+
+    /**
+     * @param configName 配置名称
+     */
+    public TransactionTemplate(String configName) {
+        if (configName == null || configName.trim().isEmpty()) {
+            throw new IllegalArgumentException("配置名称不能为空。");
+        }
+        this.configName = configName;
+    }
+
+    /**
+     * 设置最多执行次数，死锁或序列化失败时整个操作重新执行
+     * @param maxAttempts 次数，1 表示不重试
+     * @return 当前模板
+     */
+    public TransactionTemplate setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("执行次数必须大于0。");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * 设置是否合并连续的相同SQL插入，默认关闭
+     * 开启后被合并的插入返回 {@link java.sql.Statement#SUCCESS_NO_INFO}，UPDATE 和 DELETE 不受影响。
+     * @param autoBatch 是否合并
+     * @return 当前模板
+     */
+    public TransactionTemplate setAutoBatch(boolean autoBatch) {
+        this.autoBatch = autoBatch;
+        return this;
+    }
+
+    /**
+     * 设置事务隔离级别，结束后恢复连接原来的级别
+     * @param isolationLevel {@link Connection} 中的 TRANSACTION_* 常量，null 表示使用连接池的设置
+     * @return 当前模板
+     */
+    public TransactionTemplate setIsolationLevel(Integer isolationLevel) {
+        this.isolationLevel = isolationLevel;
+        return this;
+    }
+
+    /**
+     * 在事务中执行操作，正常返回时提交，抛出异常时回滚
+     * 操作可能因重试被执行多次，不要在其中产生事务以外的副作用。
+     * @param callback 操作
+     * @return 操作结果
+     * @throws SQLException 如果发生SQL异常，重试次数用尽时抛出最后一次的异常
+     */
+    public <T> T execute(TransactionCallback<T> callback) throws SQLException {
+        Transaction outer = Transaction.current(configName);
+        if (outer != null) {
+            return outer.savepoint(callback);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeOnce(callback);
+            } catch (SQLException | RuntimeException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private <T> T executeOnce(TransactionCallback<T> callback) throws SQLException {
+        // 开启 N+1 检测时事务作为一个作用域，已有外层作用域时计入外层
+        QueryScope scope = NPlusOneDetector.isEnabled() && QueryScope.current() == null
+                ? QueryScope.open("transaction " + configName) : null;
+        // 每次尝试使用独立的子作用域，回滚或重试时丢弃本次加载的实体；
+        // 提交并归还连接后才并入外层作用域，没有外层时把脏实体交给变更管理器
+        IdentityMap identityMap = IdentityMap.openChild();
+        try {
+            return executeOn(DBUtil.getConnection(configName), callback, identityMap);
+        } finally {
+            identityMap.close();
+            if (scope != null) {
+                scope.close();
+            }
+        }
+    }
+
+    private <T> T executeOn(Connection connection, TransactionCallback<T> callback, IdentityMap identityMap)
+            throws SQLException {
+        Transaction transaction = null;
+        boolean restoreAutoCommit = false;
+        Integer previousIsolation = null;
+        try {
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            if (isolationLevel != null && connection.getTransactionIsolation() != isolationLevel) {
+                previousIsolation = connection.getTransactionIsolation();
+                connection.setTransactionIsolation(isolationLevel);
+            }
+            transaction = new Transaction(configName, connection, autoBatch);
+            Transaction.bind(transaction);
+            T result;
+            try {
+                result = callback.doInTransaction(transaction);
+                if (transaction.isRollbackOnly()) {
+                    transaction.rollback();
+                } else {
+                    transaction.commit();
+                    identityMap.commit();
+                    DBUtil.recordWrite(configName);
+                }
+            } catch (SQLException | RuntimeException | Error e) {
+                try {
+                    transaction.rollback();
+                } catch (SQLException rollbackEx) {
+                    e.addSuppressed(rollbackEx);
+                }
+                throw e;
+            }
+            return result;
+        } finally {
+            if (transaction != null) {
+                Transaction.unbind(transaction);
+                transaction.complete();
+            }
+            try {
+                if (previousIsolation != null) {
+                    connection.setTransactionIsolation(previousIsolation);
+                }
+                if (restoreAutoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                System.err.println("Failed to restore connection state: " + e.getMessage());
+            } finally {
+                DBUtil.closeConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * 判断异常是否为可以重试的死锁或序列化失败
+     * @param throwable 异常
+     * @return 是否可以重试
+     */
+    public static boolean isRetryable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                for (SQLException e = (SQLException) cause; e != null; e = e.getNextException()) {
+                    if (SERIALIZATION_FAILURE.equals(e.getSQLState()) || DEADLOCK_DETECTED.equals(e.getSQLState())
+                            || e.getErrorCode() == MYSQL_DEADLOCK) {
+                        return true;
+                    }
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static void backoff(int attempt) throws SQLException {
+        try {
+            // 随机退避，避免冲突的事务同时重试再次冲突
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1L, 10L << Math.min(attempt, 6)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while retrying transaction", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package cc.azuramc.orm.transaction;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 事务中尚未发送的一组相同SQL的写入
+ * @author AzuraMC Team
+ */
+final class WriteBatch {
+
+    /** 可以延迟的写入只有 INSERT / REPLACE，UPDATE 和 DELETE 的影响行数常被用于判断，必须立即执行 */
+    private static final Pattern WRITE = Pattern.compile(
+            "^\\s*(?:INSERT\\s+(?:IGNORE\\s+)?INTO|REPLACE\\s+INTO)\\s+([`\"\\w.]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern READ = Pattern.compile("^\\s*\\(?\\s*(?:SELECT|WITH)\\b", Pattern.CASE_INSENSITIVE);
+
+    final String sql;
+    final PreparedStatement statement;
+    /** 写入的表，用于判断后续查询是否依赖这批写入 */
+    private final Pattern tablePattern;
+    int rows;
+
+    WriteBatch(String sql, PreparedStatement statement) {
+        this.sql = sql;
+        this.statement = statement;
+        this.tablePattern = tablePattern(sql);
+    }
+
+    /**
+     * 判断SQL是否为可以延迟合并的单表插入
+     * @param sql SQL
+     * @return 是否可以合并
+     */
+    static boolean isBatchable(String sql) {
+        return WRITE.matcher(sql).find();
+    }
+
+    /**
+     * 判断执行该SQL前是否需要先发送这批写入
+     * 只有不引用写入表的查询可以越过未发送的写入，其余语句（包括无法解析的）一律先发送。
+     * @param nextSql 即将执行的SQL，null 表示未知
+     * @return 是否需要先发送
+     */
+    boolean mustFlushBefore(String nextSql) {
+        if (nextSql == null || tablePattern == null || !READ.matcher(nextSql).find()) {
+            return true;
+        }
+        return tablePattern.matcher(nextSql).find();
+    }
+
+    void discard() {
+        try {
+            statement.clearBatch();
+        } catch (SQLException e) {
+            // 忽略，语句随后关闭
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // 忽略
+        }
+    }
+
+    private static Pattern tablePattern(String sql) {
+        Matcher matcher = WRITE.matcher(sql);
+        if (!matcher.find()) {
+            return null;
+        }
+        String table = matcher.group(1).replace("`", "").replace("\"", "");
+        int dot = table.lastIndexOf('.');
+        if (dot >= 0) {
+            table = table.substring(dot + 1);
+        }
+        if (table.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile("(?<![\\w])" + Pattern.quote(table) + "(?![\\w])", Pattern.CASE_INSENSITIVE);
+    }
+}
@@ -1,13 +1,33 @@
 package cc.azuramc.orm.util;
 
 import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.dialect.Dialect;
 import cc.azuramc.orm.exception.DatabaseException;
+import cc.azuramc.orm.jdbc.StatementCacheRegistry;
+import cc.azuramc.orm.jfr.ConnectionAcquireEvent;
+import cc.azuramc.orm.metrics.MetricsSink;
+import cc.azuramc.orm.metrics.PoolMetrics;
+import cc.azuramc.orm.metrics.StatementMetrics;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.Map;
 
 /**
@@ -16,8 +36,25 @@ import java.util.Map;
  */
 public class DBUtil {
     private static final Map<String, HikariDataSource> dataSources = new ConcurrentHashMap<>();
+    private static final Map<String, StatementCacheRegistry> statementCaches = new ConcurrentHashMap<>();
+    private static final Map<String, ReplicaRouter> replicaRouters = new ConcurrentHashMap<>();
+    private static final Map<String, PoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+    private static final Map<String, Dialect> dialects = new ConcurrentHashMap<>();
+    private static final List<MetricsSink> metricsSinks = new CopyOnWriteArrayList<>();
+    private static final Map<String, List<IntConsumer>> poolResizeListeners = new ConcurrentHashMap<>();
     private static String defaultConfigName = "default";
     
+    /** 并行初始化的最大线程数 */
+    private static final int MAX_STARTUP_THREADS = 16;
+    /**
+     * HikariPool 只有在该系统属性为 true 且 initializationFailTimeout 大于 1 时，才会在构造时用多个线程并行建满 minimumIdle；
+     * 未开启预热的连接池 initializationFailTimeout 保持默认值 1，不受该属性影响
+     */
+    private static final String BLOCK_UNTIL_FILLED = "com.zaxxer.hikari.blockUntilFilled";
+    /** 正在构造的预热连接池数量，只在构造期间设置 {@link #BLOCK_UNTIL_FILLED}，最后一个构造完成后恢复原值 */
+    private static int blockUntilFilledUsers;
+    private static String previousBlockUntilFilled;
+    
     /**
      * 注册数据库配置并创建连接池
      * @param name 配置名称
@@ -33,28 +70,251 @@ public class DBUtil {
         if (existingDataSource != null && !existingDataSource.isClosed()) {
             existingDataSource.close();
         }
+        closeStatementCache(name);
+        closeReplicas(name);
+        closePoolMetrics(name);
         
         try {
             // 创建HikariCP配置
             HikariConfig hikariConfig = createHikariConfig(config);
+            hikariConfig.setMetricsTrackerFactory(createPoolMetrics(name, config).asTrackerFactory());
             
             // 创建数据源
-            HikariDataSource dataSource = new HikariDataSource(hikariConfig);
+            HikariDataSource dataSource = createDataSource(hikariConfig, config);
             
             // 测试连接
             try (Connection testConn = dataSource.getConnection()) {
                 System.out.println("Successfully created connection pool for config: " + name);
             }
             
+            StatementCacheRegistry statementCache = config.getStatementCacheSize() > 0
+                    ? new StatementCacheRegistry(config.getStatementCacheSize()) : null;
+            try {
+                warmUp(name, dataSource, statementCache, config);
+                if (!config.getReplicas().isEmpty()) {
+                    replicaRouters.put(name, createReplicaRouter(name, config));
+                }
+            } catch (Exception e) {
+                if (statementCache != null) {
+                    statementCache.close();
+                }
+                dataSource.close();
+                throw e;
+            }
+            if (statementCache != null) {
+                statementCaches.put(name, statementCache);
+            }
+            dialects.put(name, config.getDialect());
             dataSources.put(name, dataSource);
-            System.out.println("Registered database config: " + name + " with pool: " + config.getPoolName());
+            System.out.println("Registered database config: " + name + " with pool: " + config.getPoolName()
+                    + " (" + config.getDialect().getName() + ")");
+            if (existingDataSource != null) {
+                firePoolResized(name);
+            }
             
         } catch (Exception e) {
+            closePoolMetrics(name);
             e.printStackTrace();
             throw new DatabaseException("Failed to create connection pool for config: " + name, e);
         }
     }
     
+    /**
+     * 并行注册多个数据库配置
+     * 各配置的连接池（包括从库和预热）同时创建，总耗时取决于最慢的一个而不是所有配置之和。
+     * 任一配置失败时等待其余配置完成后抛出异常，其余失败作为 suppressed 异常附加，已成功的配置保持注册。
+     * @param configs 配置名称到数据库配置的映射
+     */
+    public static void registerConfigs(Map<String, DatabaseConfig> configs) {
+        List<Callable<String>> tasks = new ArrayList<>();
+        configs.forEach((name, config) -> tasks.add(() -> {
+            registerConfig(name, config);
+            return name;
+        }));
+        runInParallel(tasks, "AzuraORM-startup", null);
+    }
+    
+    /**
+     * 为配置中的所有从库并行创建连接池
+     */
+    private static ReplicaRouter createReplicaRouter(String name, DatabaseConfig config) {
+        List<Callable<HikariDataSource>> tasks = new ArrayList<>();
+        List<StatementCacheRegistry> replicaStatementCaches = new ArrayList<>();
+        for (int i = 0; i < config.getReplicas().size(); i++) {
+            DatabaseConfig replica = config.getReplicas().get(i);
+            int cacheSize = replica.getStatementCacheSize();
+            StatementCacheRegistry statementCache = cacheSize > 0 ? new StatementCacheRegistry(cacheSize) : null;
+            replicaStatementCaches.add(statementCache);
+            String poolName = poolNameOf(name, config) + "-replica-" + i;
+            tasks.add(() -> {
+                HikariConfig replicaConfig = createHikariConfig(replica);
+                replicaConfig.setPoolName(poolName);
+                replicaConfig.setMetricsTrackerFactory(createPoolMetrics(poolName, replica).asTrackerFactory());
+                HikariDataSource dataSource;
+                try {
+                    dataSource = createDataSource(replicaConfig, replica);
+                } catch (RuntimeException e) {
+                    closePoolMetrics(poolName);
+                    throw e;
+                }
+                try {
+                    warmUp(poolName, dataSource, statementCache, replica);
+                } catch (Exception e) {
+                    dataSource.close();
+                    closePoolMetrics(poolName);
+                    throw e;
+                }
+                System.out.println("Created replica pool for config: " + name + " -> " + replica.getUrl());
+                return dataSource;
+            });
+        }
+        List<HikariDataSource> replicas = runInParallel(tasks, poolNameOf(name, config) + "-startup", dataSource -> {
+            dataSource.close();
+            closePoolMetrics(dataSource.getPoolName());
+        });
+        return new ReplicaRouter(name, replicas, replicaStatementCaches,
+                config.getReplicaSelection(), config.getReadYourWritesWindow());
+    }
+    
+    private static PoolMetrics createPoolMetrics(String name, DatabaseConfig config) {
+        PoolMetrics metrics = new PoolMetrics(name, metricsSinks);
+        if (config.isRegisterMbeans()) {
+            metrics.registerMBean();
+        }
+        poolMetrics.put(name, metrics);
+        return metrics;
+    }
+    
+    private static String poolNameOf(String name, DatabaseConfig config) {
+        return config.getPoolName() != null ? config.getPoolName() : name;
+    }
+    
+    /**
+     * 创建连接池，开启预热时构造期间让 HikariPool 并行建满 minimumIdle
+     * 系统属性只在构造期间设置，多个连接池并行构造时由最后一个完成的恢复原值，不影响之后创建的其他连接池。
+     */
+    private static HikariDataSource createDataSource(HikariConfig hikariConfig, DatabaseConfig config) {
+        if (!config.isWarmUpEnabled()) {
+            return new HikariDataSource(hikariConfig);
+        }
+        synchronized (DBUtil.class) {
+            if (blockUntilFilledUsers++ == 0) {
+                previousBlockUntilFilled = System.setProperty(BLOCK_UNTIL_FILLED, "true");
+            }
+        }
+        try {
+            return new HikariDataSource(hikariConfig);
+        } finally {
+            synchronized (DBUtil.class) {
+                if (--blockUntilFilledUsers == 0) {
+                    if (previousBlockUntilFilled != null) {
+                        System.setProperty(BLOCK_UNTIL_FILLED, previousBlockUntilFilled);
+                    } else {
+                        System.clearProperty(BLOCK_UNTIL_FILLED);
+                    }
+                    previousBlockUntilFilled = null;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 预热连接池：minimumIdle 个连接已由 HikariPool 在构造时并行建立，这里在每个连接上预编译登记的热点语句
+     * 同时借出全部连接，保证每条语句在不同的物理连接上各预编译一次。
+     * 没有开启ORM层或驱动层的语句缓存时预编译的结果不会被复用，跳过这一步。
+     */
+    private static void warmUp(String name, HikariDataSource dataSource, StatementCacheRegistry statementCache,
+                               DatabaseConfig config) throws SQLException {
+        if (!config.isWarmUpEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean cached = statementCache != null || config.isDriverStatementCacheEnabled();
+        List<String> statements = cached ? config.getWarmUpStatements() : Collections.emptyList();
+        int connectionCount = statements.isEmpty() ? 0 : Math.max(1, Math.min(config.getMinimumIdle(), config.getMaximumPoolSize()));
+        List<Connection> connections = new ArrayList<>(connectionCount);
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                Connection connection = dataSource.getConnection();
+                try {
+                    connections.add(statementCache != null ? statementCache.wrap(connection) : connection);
+                } catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+            }
+            for (Connection connection : connections) {
+                for (String sql : statements) {
+                    // 只需要预编译，关闭后语句回到ORM层或驱动层的语句缓存
+                    connection.prepareStatement(sql).close();
+                }
+            }
+        } finally {
+            connections.forEach(DBUtil::closeConnection);
+        }
+        System.out.println(String.format("Warmed up connection pool for config: %s (%d connections, %d statements) in %d ms",
+                name, dataSource.getHikariPoolMXBean().getTotalConnections(), statements.size(),
+                (System.nanoTime() - start) / 1_000_000L));
+    }
+    
+    /**
+     * 在临时线程池上并行执行任务，全部完成后返回结果
+     * 有任务失败时对已成功的结果执行 cleanup，再抛出第一个异常，其余异常作为 suppressed 附加。
+     */
+    private static <T> List<T> runInParallel(List<Callable<T>> tasks, String threadName, Consumer<T> cleanup) {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (tasks.size() == 1) {
+            try {
+                List<T> results = new ArrayList<>();
+                results.add(tasks.get(0).call());
+                return results;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DatabaseException("Failed to initialize connection pool", e);
+            }
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), MAX_STARTUP_THREADS), r -> {
+            Thread thread = new Thread(r, threadName + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = executor.invokeAll(tasks);
+            List<T> results = new ArrayList<>(futures.size());
+            RuntimeException failure = null;
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    RuntimeException exception = cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new DatabaseException("Failed to initialize connection pool", cause);
+                    if (failure == null) {
+                        failure = exception;
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
+                }
+            }
+            if (failure != null) {
+                if (cleanup != null) {
+                    results.forEach(cleanup);
+                }
+                throw failure;
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while initializing connection pools", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
     /**
      * 根据DatabaseConfig创建HikariConfig
      */
@@ -74,6 +334,10 @@ public class DBUtil {
         hikariConfig.setIdleTimeout(config.getIdleTimeout());
         hikariConfig.setMaxLifetime(config.getMaxLifetime());
         hikariConfig.setAutoCommit(config.isAutoCommit());
+        if (config.isWarmUpEnabled()) {
+            // 配合 createDataSource 中的系统属性，构造时阻塞并并行建满 minimumIdle，超时后不报错，剩余连接仍由连接池在后台补充
+            hikariConfig.setInitializationFailTimeout(Math.max(2L, config.getConnectionTimeout()));
+        }
         
         // 连接池名称
         if (config.getPoolName() != null) {
@@ -106,6 +370,9 @@ public class DBUtil {
             hikariConfig.setTransactionIsolation(config.getTransactionIsolation());
         }
         
+        // 方言提供的驱动属性：批量改写、驱动层语句缓存等
+        config.getDialect().getDataSourceProperties(config).forEach(hikariConfig::addDataSourceProperty);
+        
         return hikariConfig;
     }
     
@@ -154,13 +421,175 @@ public class DBUtil {
         }
         
         try {
-            return dataSource.getConnection();
+            Connection connection = acquire(configName, dataSource, false);
+            StatementCacheRegistry statementCache = statementCaches.get(configName);
+            if (statementCache == null) {
+                return connection;
+            }
+            try {
+                return statementCache.wrap(connection);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
         } catch (SQLException e) {
             System.err.println("Failed to get database connection for config: " + configName + ", " + e.getMessage());
             throw new DatabaseException("Failed to get database connection", e);
         }
     }
     
+    /**
+     * 从连接池借出连接并记录 {@link ConnectionAcquireEvent}
+     */
+    static Connection acquire(String configName, HikariDataSource dataSource, boolean replica) throws SQLException {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            return connection;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.configName = configName;
+                event.poolName = dataSource.getPoolName();
+                event.replica = replica;
+                event.failed = connection == null;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * 获取用于只读查询的连接
+     * 配置了从库时按选择策略从从库借出；当前线程处于读己之写窗口内或所有从库都不可用时返回主库连接。
+     * @param configName 配置名称
+     * @return 数据库连接
+     * @throws SQLException SQL异常
+     */
+    public static Connection getReadConnection(String configName) throws SQLException {
+        ReplicaRouter router = replicaRouters.get(configName);
+        if (router == null || router.inReadYourWritesWindow()) {
+            return getConnection(configName);
+        }
+        Connection connection = router.getConnection();
+        return connection != null ? connection : getConnection(configName);
+    }
+    
+    /**
+     * 记录当前线程写入了指定配置的主库，开启读己之写窗口
+     * 通过终结操作执行的写入会自动记录，直接使用 getConnection() 写入时可手动调用。
+     * @param configName 配置名称
+     */
+    public static void recordWrite(String configName) {
+        ReplicaRouter router = replicaRouters.get(configName);
+        if (router != null) {
+            router.recordWrite();
+        }
+    }
+    
+    /**
+     * 获取指定配置的最大连接数，包括所有从库
+     * @param configName 配置名称
+     * @return 最大连接数
+     */
+    public static int getMaximumPoolSize(String configName) {
+        HikariDataSource dataSource = dataSources.get(configName);
+        if (dataSource == null) {
+            throw new DatabaseException("Database config not found: " + configName);
+        }
+        int total = dataSource.getMaximumPoolSize();
+        ReplicaRouter router = replicaRouters.get(configName);
+        if (router != null) {
+            for (HikariDataSource replica : router.getReplicas()) {
+                total += replica.getMaximumPoolSize();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * 添加连接池大小变化的监听器，配置的最大连接数（包括所有从库）被 {@link PoolSizeController} 调整或重新注册配置后调用
+     * 例如异步客户端据此调整并发数。
+     * @param configName 配置名称
+     * @param listener 监听器，参数为新的最大连接数
+     */
+    public static void addPoolResizeListener(String configName, IntConsumer listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("监听器不能为空。");
+        }
+        poolResizeListeners.computeIfAbsent(configName, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+    
+    /**
+     * 移除连接池大小变化的监听器
+     * @param configName 配置名称
+     * @param listener 监听器
+     */
+    public static void removePoolResizeListener(String configName, IntConsumer listener) {
+        List<IntConsumer> listeners = poolResizeListeners.get(configName);
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+    
+    /**
+     * 通知监听器指定配置的最大连接数已经改变
+     * @param configName 配置名称
+     */
+    static void firePoolResized(String configName) {
+        List<IntConsumer> listeners = poolResizeListeners.get(configName);
+        if (listeners == null || listeners.isEmpty() || !dataSources.containsKey(configName)) {
+            return;
+        }
+        int size = getMaximumPoolSize(configName);
+        for (IntConsumer listener : listeners) {
+            try {
+                listener.accept(size);
+            } catch (RuntimeException e) {
+                System.err.println("Pool resize listener failed for config: " + configName + ", " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 获取指定配置的主库和所有从库连接池
+     * @param configName 配置名称
+     * @return 指标名称（见 {@link #getPoolMetrics}）到连接池的映射，配置不存在时为空
+     */
+    static Map<String, HikariDataSource> getPools(String configName) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        HikariDataSource dataSource = dataSources.get(configName);
+        if (dataSource == null) {
+            return pools;
+        }
+        pools.put(configName, dataSource);
+        ReplicaRouter router = replicaRouters.get(configName);
+        if (router != null) {
+            for (HikariDataSource replica : router.getReplicas()) {
+                pools.put(replica.getPoolName(), replica);
+            }
+        }
+        return pools;
+    }
+    
+    /**
+     * 获取所有配置的从库路由
+     * @return 从库路由
+     */
+    static Collection<ReplicaRouter> getReplicaRouters() {
+        return replicaRouters.values();
+    }
+    
+    /**
+     * 获取指定配置的从库路由
+     * @param configName 配置名称
+     * @return 从库路由，没有配置从库时返回null
+     */
+    public static ReplicaRouter getReplicaRouter(String configName) {
+        return replicaRouters.get(configName);
+    }
+    
     /**
      * 关闭数据库连接
      * @param conn 数据库连接
@@ -242,19 +671,114 @@ public class DBUtil {
             return "Config not found: " + configName;
         }
         
+        StringBuilder info = new StringBuilder(formatPoolInfo(configName, dataSource));
+        ReplicaRouter router = replicaRouters.get(configName);
+        if (router != null) {
+            for (HikariDataSource replica : router.getReplicas()) {
+                info.append("\n  ").append(formatPoolInfo(replica.getPoolName(), replica));
+            }
+        }
+        return info.toString();
+    }
+    
+    private static String formatPoolInfo(String name, HikariDataSource dataSource) {
         return String.format("Pool[%s] - Active: %d, Idle: %d, Total: %d, Pending: %d",
-                configName,
+                name,
                 dataSource.getHikariPoolMXBean().getActiveConnections(),
                 dataSource.getHikariPoolMXBean().getIdleConnections(),
                 dataSource.getHikariPoolMXBean().getTotalConnections(),
                 dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
     }
     
+    /**
+     * 获取连接池指标：借出等待时长、占用时长、超时次数和实时连接数
+     * @param name 配置名称，从库使用从库连接池名称（见 {@link #getPoolInfo}）
+     * @return 连接池指标，不存在时返回null
+     */
+    public static PoolMetrics getPoolMetrics(String name) {
+        return poolMetrics.get(name);
+    }
+    
+    /**
+     * 获取所有连接池的指标，包括从库
+     * @return 连接池名称到指标的只读视图
+     */
+    public static Map<String, PoolMetrics> getAllPoolMetrics() {
+        return Collections.unmodifiableMap(poolMetrics);
+    }
+    
+    /**
+     * 添加指标输出端，对所有连接池（包括之后注册的）生效
+     * @param sink 指标输出端
+     */
+    public static void addMetricsSink(MetricsSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("指标输出端不能为空。");
+        }
+        metricsSinks.add(sink);
+        StatementMetrics.addSink(sink);
+    }
+    
+    /**
+     * 移除指标输出端
+     * @param sink 指标输出端
+     */
+    public static void removeMetricsSink(MetricsSink sink) {
+        metricsSinks.remove(sink);
+        StatementMetrics.removeSink(sink);
+    }
+    
+    /**
+     * 获取指定配置的数据库方言
+     * @param configName 配置名称
+     * @return 方言，配置不存在时返回null
+     */
+    public static Dialect getDialect(String configName) {
+        return dialects.get(configName);
+    }
+    
+    /**
+     * 获取指定配置的语句缓存
+     * @param configName 配置名称
+     * @return 语句缓存，未开启时返回null
+     */
+    public static StatementCacheRegistry getStatementCache(String configName) {
+        return statementCaches.get(configName);
+    }
+    
+    private static void closeReplicas(String configName) {
+        ReplicaRouter router = replicaRouters.remove(configName);
+        if (router != null) {
+            router.close();
+            for (HikariDataSource replica : router.getReplicas()) {
+                closePoolMetrics(replica.getPoolName());
+            }
+        }
+    }
+    
+    private static void closePoolMetrics(String name) {
+        PoolMetrics metrics = poolMetrics.remove(name);
+        if (metrics != null) {
+            metrics.unregisterMBean();
+        }
+    }
+    
+    private static void closeStatementCache(String configName) {
+        StatementCacheRegistry statementCache = statementCaches.remove(configName);
+        if (statementCache != null) {
+            statementCache.close();
+        }
+    }
+    
     /**
      * 关闭指定配置的连接池
      * @param configName 配置名称
      */
     public static void closePool(String configName) {
+        closeStatementCache(configName);
+        closeReplicas(configName);
+        closePoolMetrics(configName);
+        dialects.remove(configName);
         HikariDataSource dataSource = dataSources.remove(configName);
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
@@ -266,6 +790,12 @@ public class DBUtil {
      * 关闭所有连接池
      */
     public static void closeAllPools() {
+        statementCaches.values().forEach(StatementCacheRegistry::close);
+        statementCaches.clear();
+        replicaRouters.values().forEach(ReplicaRouter::close);
+        replicaRouters.clear();
+        poolMetrics.values().forEach(PoolMetrics::unregisterMBean);
+        poolMetrics.clear();
         dataSources.forEach((name, dataSource) -> {
             if (!dataSource.isClosed()) {
                 dataSource.close();
@@ -273,6 +803,7 @@ public class DBUtil {
             }
         });
         dataSources.clear();
+        dialects.clear();
         System.out.println("All connection pools closed");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,264 @@
+package cc.azuramc.orm.util;
+
+import cc.azuramc.orm.metrics.LatencyHistogram;
+import cc.azuramc.orm.metrics.PoolMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应连接池大小控制器
+ * 定期根据 {@link PoolMetrics} 的增量计算目标连接数，并通过 {@code HikariConfigMXBean.setMaximumPoolSize} 在运行时调整：
+ * <ul>
+ *     <li>按 Little 定律估算平均占用的连接数 L = λ × W（λ 为借出速率，W 为平均占用时长），目标大小为 L / 目标利用率；</li>
+ *     <li>出现超时或借出等待 p99 超过阈值时至少扩容 25%；</li>
+ *     <li>占用时长明显高于基线时说明数据库已经变慢，此时不再扩容，避免把数据库压垮；</li>
+ *     <li>每次最多扩容一倍、缩容 25%，并限制在配置的上下限内。</li>
+ * </ul>
+ * 主库和从库连接池分别调整，使用相同的上下限。缩容后多余的空闲连接按 idleTimeout 回收；
+ * 调整后通知 {@link DBUtil#addPoolResizeListener} 登记的监听器，异步客户端的并发数随之调整。
+ * 示例:
+ * <pre>
+ * PoolSizeController controller = new PoolSizeController()
+ *         .manage("default", 4, 40)
+ *         .start(Duration.ofSeconds(5));
+ * </pre>
+ * @author AzuraMC Team
+ */
+public final class PoolSizeController implements AutoCloseable {
+
+    /** 占用时长基线每个周期允许上浮的比例，使基线能跟上长期变化 */
+    private static final double BASELINE_DRIFT = 1.05;
+    /** 低于该值的占用时长不做数据库变慢判断（HikariCP 按毫秒记录占用时长） */
+    private static final long MIN_BASELINE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Map<String, Bounds> configs = new ConcurrentHashMap<>();
+    private final Map<String, PoolState> states = new ConcurrentHashMap<>();
+    private volatile double targetUtilization = 0.75;
+    private volatile long maxAcquireWaitNanos = TimeUnit.MILLISECONDS.toNanos(5);
+    private volatile double latencyTolerance = 1.5;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 管理指定配置的连接池（包括从库）
+     * @param configName 配置名称
+     * @param minSize 最小的 maximumPoolSize
+     * @param maxSize 最大的 maximumPoolSize
+     * @return 当前控制器
+     */
+    public PoolSizeController manage(String configName, int minSize, int maxSize) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("连接池大小范围无效: " + minSize + " ~ " + maxSize);
+        }
+        configs.put(configName, new Bounds(minSize, maxSize));
+        return this;
+    }
+
+    /**
+     * 停止管理指定配置，连接池保持当前大小
+     * @param configName 配置名称
+     * @return 当前控制器
+     */
+    public PoolSizeController unmanage(String configName) {
+        configs.remove(configName);
+        return this;
+    }
+
+    /**
+     * 设置目标利用率，平均占用连接数除以该值得到目标大小
+     * @param targetUtilization 取值 (0, 1]，默认 0.75
+     * @return 当前控制器
+     */
+    public PoolSizeController setTargetUtilization(double targetUtilization) {
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("目标利用率必须在 (0, 1] 之间。");
+        }
+        this.targetUtilization = targetUtilization;
+        return this;
+    }
+
+    /**
+     * 设置借出等待 p99 的阈值，超过时视为连接不足
+     * @param maxAcquireWait 阈值，默认 5ms
+     * @return 当前控制器
+     */
+    public PoolSizeController setMaxAcquireWait(Duration maxAcquireWait) {
+        this.maxAcquireWaitNanos = maxAcquireWait.toNanos();
+        return this;
+    }
+
+    /**
+     * 设置占用时长相对基线的容忍倍数，超过时视为数据库变慢，不再扩容
+     * @param latencyTolerance 倍数，默认 1.5
+     * @return 当前控制器
+     */
+    public PoolSizeController setLatencyTolerance(double latencyTolerance) {
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("容忍倍数必须大于1。");
+        }
+        this.latencyTolerance = latencyTolerance;
+        return this;
+    }
+
+    /**
+     * 在守护线程上按固定周期调整，重复调用无效
+     * @param interval 调整周期，需要足够长以积累有意义的样本
+     * @return 当前控制器
+     */
+    public synchronized PoolSizeController start(Duration interval) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "AzuraORM-PoolSizeController");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1L, interval.toMillis());
+            scheduler.scheduleWithFixedDelay(this::adjustSafely, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * 停止定期调整
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * 立即执行一次调整，可以由调用方自己的调度器驱动
+     * 第一次调用只记录基准数据，从第二次开始按两次调用之间的增量计算。
+     */
+    public synchronized void adjustNow() {
+        long now = System.nanoTime();
+        states.keySet().removeIf(poolName -> !isManaged(poolName));
+        for (Map.Entry<String, Bounds> config : configs.entrySet()) {
+            boolean resized = false;
+            for (Map.Entry<String, HikariDataSource> pool : DBUtil.getPools(config.getKey()).entrySet()) {
+                PoolMetrics metrics = DBUtil.getPoolMetrics(pool.getKey());
+                if (metrics == null || pool.getValue().isClosed()) {
+                    continue;
+                }
+                PoolState state = states.computeIfAbsent(pool.getKey(), k -> new PoolState());
+                resized |= adjust(pool.getKey(), pool.getValue(), metrics, state, config.getValue(), now);
+            }
+            if (resized) {
+                DBUtil.firePoolResized(config.getKey());
+            }
+        }
+    }
+
+    private boolean isManaged(String poolName) {
+        for (String configName : configs.keySet()) {
+            if (DBUtil.getPools(configName).containsKey(poolName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void adjustSafely() {
+        try {
+            adjustNow();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to adjust connection pool size: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 调整一个连接池
+     * @return 是否改变了最大连接数
+     */
+    private boolean adjust(String poolName, HikariDataSource dataSource, PoolMetrics metrics, PoolState state,
+                           Bounds bounds, long now) {
+        LatencyHistogram.Snapshot acquire = metrics.getAcquireTime().snapshot();
+        LatencyHistogram.Snapshot usage = metrics.getUsageTime().snapshot();
+        long timeouts = metrics.getTimeoutCount();
+        if (state.acquire == null) {
+            state.update(acquire, usage, timeouts, now);
+            return false;
+        }
+        double seconds = (now - state.time) / 1_000_000_000.0;
+        LatencyHistogram.Snapshot acquireDelta = acquire.minus(state.acquire);
+        LatencyHistogram.Snapshot usageDelta = usage.minus(state.usage);
+        long timeoutDelta = timeouts - state.timeouts;
+        state.update(acquire, usage, timeouts, now);
+        if (seconds <= 0) {
+            return false;
+        }
+
+        // Little 定律: 平均占用连接数 = 借出速率 × 平均占用时长；连接不足时借出速率被连接池压低，
+        // 因此再以活跃连接数 + 等待线程数作为需求的下限
+        double arrivalRate = acquireDelta.getCount() / seconds;
+        double holdNanos = usageDelta.getCount() > 0 ? usageDelta.getMean() : 0.0;
+        double busy = Math.max(arrivalRate * holdNanos / 1_000_000_000.0,
+                metrics.getActiveConnections() + metrics.getPendingThreads());
+        int current = dataSource.getHikariConfigMXBean().getMaximumPoolSize();
+        int target = (int) Math.ceil(busy / targetUtilization);
+
+        boolean starving = timeoutDelta > 0 || acquireDelta.getPercentile(99) > maxAcquireWaitNanos;
+        if (starving) {
+            target = Math.max(target, current + Math.max(1, current / 4));
+        }
+
+        boolean databaseSlow = false;
+        if (usageDelta.getCount() > 0) {
+            state.baselineNanos = state.baselineNanos == 0 ? holdNanos : Math.min(holdNanos, state.baselineNanos * BASELINE_DRIFT);
+            databaseSlow = holdNanos > Math.max(state.baselineNanos, MIN_BASELINE_NANOS) * latencyTolerance;
+        }
+        if (databaseSlow && target > current) {
+            // 数据库已经变慢，再加连接只会加重数据库负载
+            target = current;
+        }
+
+        target = Math.min(target, current * 2);
+        target = Math.max(target, current - Math.max(1, current / 4));
+        target = Math.max(bounds.min, Math.min(bounds.max, target));
+        if (target == current) {
+            return false;
+        }
+        dataSource.getHikariConfigMXBean().setMaximumPoolSize(target);
+        System.out.println(String.format("Resized connection pool %s: %d -> %d (rate=%.1f/s, hold=%.2fms, wait p99=%.2fms, timeouts=%d%s)",
+                poolName, current, target, arrivalRate, holdNanos / 1_000_000.0,
+                acquireDelta.getPercentile(99) / 1_000_000.0, timeoutDelta, databaseSlow ? ", database slow" : ""));
+        return true;
+    }
+
+    private static final class Bounds {
+        final int min;
+        final int max;
+
+        Bounds(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private static final class PoolState {
+        LatencyHistogram.Snapshot acquire;
+        LatencyHistogram.Snapshot usage;
+        long timeouts;
+        long time;
+        double baselineNanos;
+
+        void update(LatencyHistogram.Snapshot acquire, LatencyHistogram.Snapshot usage, long timeouts, long time) {
+            this.acquire = acquire;
+            this.usage = usage;
+            this.timeouts = timeouts;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package cc.azuramc.orm.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读己之写状态的快照，用于把提交线程的状态带到执行异步任务的线程
+ * 读己之写窗口按线程记录，异步任务和批量加载在数据库线程上执行，看不到提交线程刚刚的写入。
+ * 提交任务时用 {@link #capture()} 捕获，在工作线程上用 {@link #wrap} 包装的任务执行期间安装：
+ * 工作线程与提交线程共用同一份写入时间，任务中的读取遵守提交线程的窗口，任务中的写入也会为提交线程开启窗口。
+ * 没有配置从库时捕获结果为空，包装直接返回原任务。
+ * @author AzuraMC Team
+ */
+public final class ReadYourWritesContext {
+
+    private static final ReadYourWritesContext EMPTY =
+            new ReadYourWritesContext(new ReplicaRouter[0], new AtomicLong[0]);
+
+    private final ReplicaRouter[] routers;
+    /** 与 routers 一一对应的最近写入时间 */
+    private final AtomicLong[] lastWrites;
+
+    private ReadYourWritesContext(ReplicaRouter[] routers, AtomicLong[] lastWrites) {
+        this.routers = routers;
+        this.lastWrites = lastWrites;
+    }
+
+    /**
+     * 没有任何状态的上下文
+     * @return 空上下文
+     */
+    public static ReadYourWritesContext empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 捕获当前线程在所有开启了读己之写窗口的配置上的状态
+     * @return 上下文
+     */
+    public static ReadYourWritesContext capture() {
+        Collection<ReplicaRouter> all = DBUtil.getReplicaRouters();
+        if (all.isEmpty()) {
+            return EMPTY;
+        }
+        ReplicaRouter[] routers = new ReplicaRouter[all.size()];
+        AtomicLong[] lastWrites = new AtomicLong[all.size()];
+        int count = 0;
+        for (ReplicaRouter router : all) {
+            if (count < routers.length && router.isReadYourWritesEnabled()) {
+                routers[count] = router;
+                lastWrites[count] = router.getLastWrite();
+                count++;
+            }
+        }
+        return count == 0 ? EMPTY
+                : new ReadYourWritesContext(Arrays.copyOf(routers, count), Arrays.copyOf(lastWrites, count));
+    }
+
+    /**
+     * 合并两个上下文，例如一个批量加载合并了多个线程的请求；同一配置取较晚的写入时间
+     * 合并结果使用独立的写入时间，不会把工作线程的写入带回任何一个来源线程。
+     * @param other 另一个上下文
+     * @return 合并后的上下文
+     */
+    public ReadYourWritesContext merge(ReadYourWritesContext other) {
+        if (other == null || other.routers.length == 0 || other == this) {
+            return this;
+        }
+        if (routers.length == 0) {
+            return other;
+        }
+        ReplicaRouter[] mergedRouters = Arrays.copyOf(routers, routers.length + other.routers.length);
+        AtomicLong[] mergedWrites = new AtomicLong[mergedRouters.length];
+        for (int i = 0; i < routers.length; i++) {
+            mergedWrites[i] = new AtomicLong(lastWrites[i].get());
+        }
+        int count = routers.length;
+        for (int i = 0; i < other.routers.length; i++) {
+            long written = other.lastWrites[i].get();
+            int index = indexOf(mergedRouters, count, other.routers[i]);
+            if (index >= 0) {
+                if (ReplicaRouter.isLater(written, mergedWrites[index].get())) {
+                    mergedWrites[index].set(written);
+                }
+            } else {
+                mergedRouters[count] = other.routers[i];
+                mergedWrites[count] = new AtomicLong(written);
+                count++;
+            }
+        }
+        return new ReadYourWritesContext(Arrays.copyOf(mergedRouters, count), Arrays.copyOf(mergedWrites, count));
+    }
+
+    private static int indexOf(ReplicaRouter[] routers, int count, ReplicaRouter router) {
+        for (int i = 0; i < count; i++) {
+            if (routers[i] == router) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 包装任务，任务执行期间在执行线程上安装本上下文，结束后恢复执行线程原来的状态
+     * @param task 任务
+     * @return 包装后的任务，上下文为空时返回原任务
+     */
+    public Runnable wrap(Runnable task) {
+        if (routers.length == 0) {
+            return task;
+        }
+        return () -> {
+            AtomicLong[] previous = new AtomicLong[routers.length];
+            for (int i = 0; i < routers.length; i++) {
+                previous[i] = routers[i].swapLastWrite(lastWrites[i]);
+            }
+            try {
+                task.run();
+            } finally {
+                for (int i = 0; i < routers.length; i++) {
+                    routers[i].swapLastWrite(previous[i]);
+                }
+            }
+        };
+    }
+}
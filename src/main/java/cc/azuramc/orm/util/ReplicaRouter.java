@@ -0,0 +1,163 @@
+package cc.azuramc.orm.util;
+
+import cc.azuramc.orm.config.GlobalConfig;
+import cc.azuramc.orm.config.ReplicaSelection;
+import cc.azuramc.orm.jdbc.StatementCacheRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个主库配置下的从库连接池集合，负责为读取选择从库
+ * @author AzuraMC Team
+ */
+public final class ReplicaRouter {
+
+    private final String configName;
+    private final List<HikariDataSource> replicas;
+    private final List<StatementCacheRegistry> statementCaches;
+    private final ReplicaSelection selection;
+    private final long readYourWritesWindow;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * 每个线程最近一次写入的时间，只在配置了从库时记录
+     * 异步任务执行期间由 {@link ReadYourWritesContext} 换成提交线程的同一个对象
+     */
+    private final ThreadLocal<AtomicLong> lastWrite = ThreadLocal.withInitial(() -> new AtomicLong(Long.MIN_VALUE));
+
+    ReplicaRouter(String configName, List<HikariDataSource> replicas, List<StatementCacheRegistry> statementCaches,
+                  ReplicaSelection selection, long readYourWritesWindow) {
+        this.configName = configName;
+        this.replicas = replicas;
+        this.statementCaches = statementCaches;
+        this.selection = selection != null ? selection : ReplicaSelection.ROUND_ROBIN;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    /**
+     * 记录当前线程刚刚写入了主库
+     */
+    void recordWrite() {
+        if (readYourWritesWindow > 0) {
+            lastWrite.get().set(System.nanoTime());
+        }
+    }
+
+    boolean isReadYourWritesEnabled() {
+        return readYourWritesWindow > 0;
+    }
+
+    AtomicLong getLastWrite() {
+        return lastWrite.get();
+    }
+
+    /**
+     * 替换当前线程的写入时间
+     * @param replacement 新的写入时间
+     * @return 原来的写入时间
+     */
+    AtomicLong swapLastWrite(AtomicLong replacement) {
+        AtomicLong previous = lastWrite.get();
+        lastWrite.set(replacement);
+        return previous;
+    }
+
+    /**
+     * 比较两个写入时间，没有写入过的时间最早
+     */
+    static boolean isLater(long written, long other) {
+        return other == Long.MIN_VALUE || (written != Long.MIN_VALUE && written - other > 0);
+    }
+
+    /**
+     * 当前线程是否仍处于读己之写窗口内
+     * @return 是否应该读取主库
+     */
+    boolean inReadYourWritesWindow() {
+        long written = lastWrite.get().get();
+        return written != Long.MIN_VALUE
+                && System.nanoTime() - written < readYourWritesWindow * 1_000_000L;
+    }
+
+    /**
+     * 从选中的从库借出连接
+     * @return 从库连接，所有从库都不可用时返回null
+     */
+    Connection getConnection() {
+        int count = replicas.size();
+        int start = selection == ReplicaSelection.LEAST_LOADED ? leastLoaded() : Math.floorMod(next.getAndIncrement(), count);
+        // 选中的从库不可用时依次尝试其余从库
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % count;
+            HikariDataSource replica = replicas.get(index);
+            if (replica.isClosed()) {
+                continue;
+            }
+            try {
+                Connection connection = DBUtil.acquire(configName, replica, true);
+                StatementCacheRegistry statementCache = statementCaches.get(index);
+                if (statementCache == null) {
+                    return connection;
+                }
+                try {
+                    return statementCache.wrap(connection);
+                } catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                System.err.println("Failed to get replica connection for config: " + configName
+                        + " [" + replica.getPoolName() + "], " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private int leastLoaded() {
+        int offset = Math.floorMod(next.getAndIncrement(), replicas.size());
+        int best = offset;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (offset + i) % replicas.size();
+            HikariPoolMXBean pool = replicas.get(index).getHikariPoolMXBean();
+            int load = pool != null ? pool.getActiveConnections() + pool.getThreadsAwaitingConnection() : Integer.MAX_VALUE;
+            if (load < bestLoad) {
+                best = index;
+                bestLoad = load;
+            }
+        }
+        GlobalConfig.debugLog("REPLICA", configName + " -> replica " + best + " (load " + bestLoad + ")");
+        return best;
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public ReplicaSelection getSelection() {
+        return selection;
+    }
+
+    List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    void close() {
+        for (StatementCacheRegistry statementCache : statementCaches) {
+            if (statementCache != null) {
+                statementCache.close();
+            }
+        }
+        for (HikariDataSource replica : replicas) {
+            if (!replica.isClosed()) {
+                replica.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package cc.azuramc.orm.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 条件树的SQL拼接、括号和参数顺序
+ * @author AzuraMC Team
+ */
+class ConditionTest {
+
+    private static List<Object> parameters(Condition condition) {
+        List<Object> parameters = new ArrayList<>();
+        condition.appendParameters(parameters);
+        return parameters;
+    }
+
+    private static String where(WhereClause clause) {
+        StringBuilder sql = new StringBuilder();
+        clause.appendSql(sql);
+        return sql.toString();
+    }
+
+    @Test
+    void orInsideAndIsParenthesized() {
+        Condition condition = Condition.and(
+                Condition.eq("status", "active"),
+                Condition.or(Condition.of("level", ">=", 10), Condition.in("id", Arrays.asList(1, 2, 3))));
+
+        assertEquals("status = ? AND (level >= ? OR id IN (?, ?, ?, ?))", condition.getSql());
+        assertEquals(Arrays.<Object>asList("active", 10, 1, 2, 3, 3), parameters(condition));
+    }
+
+    @Test
+    void andInsideOrIsParenthesized() {
+        Condition condition = Condition.or(
+                Condition.and(Condition.eq("a", 1), Condition.eq("b", 2)),
+                Condition.eq("c", 3));
+
+        assertEquals("(a = ? AND b = ?) OR c = ?", condition.getSql());
+        assertEquals(Arrays.<Object>asList(1, 2, 3), parameters(condition));
+    }
+
+    @Test
+    void deeplyNestedTreeKeepsGroupingAndParameterOrder() {
+        Condition condition = Condition.and(
+                Condition.or(Condition.eq("a", 1), Condition.and(Condition.eq("b", 2), Condition.eq("c", 3))),
+                Condition.eq("d", 4));
+
+        assertEquals("(a = ? OR (b = ? AND c = ?)) AND d = ?", condition.getSql());
+        assertEquals(Arrays.<Object>asList(1, 2, 3, 4), parameters(condition));
+    }
+
+    @Test
+    void sameOperatorIsFlattened() {
+        Condition condition = Condition.and(Condition.eq("a", 1),
+                Condition.and(Condition.eq("b", 2), Condition.eq("c", 3)));
+
+        assertEquals("a = ? AND b = ? AND c = ?", condition.getSql());
+    }
+
+    @Test
+    void singleChildJunctionKeepsChildGrouping() {
+        Condition or = Condition.or(Condition.eq("a", 1), Condition.eq("b", 2));
+        Condition wrapped = Condition.and(or);
+
+        assertEquals("a = ? OR b = ?", wrapped.getSql());
+        assertEquals("x = ? AND (a = ? OR b = ?)", Condition.and(Condition.eq("x", 0), wrapped).getSql());
+    }
+
+    @Test
+    void emptyJunctionsAreConstants() {
+        assertEquals("1 = 1", Condition.and().getSql());
+        assertEquals("1 = 0", Condition.or(Collections.<Condition>emptyList()).getSql());
+        assertEquals("a = ? OR 1 = 1", Condition.or(Condition.eq("a", 1), Condition.and()).getSql());
+    }
+
+    @Test
+    void chunkedInListIsGroupedInsideOr() {
+        List<Object> ids = new ArrayList<>();
+        for (int i = 0; i <= InList.MAX_BUCKET_SIZE; i++) {
+            ids.add(i);
+        }
+        Condition condition = Condition.and(Condition.eq("a", 1), Condition.in("id", ids));
+
+        String sql = condition.getSql();
+        assertTrue(sql.startsWith("a = ? AND (id IN ("), sql);
+        assertTrue(sql.endsWith(" OR id IN (?))"), sql);
+        assertEquals(1 + InList.MAX_BUCKET_SIZE + 1, condition.getParameterCount());
+    }
+
+    @Test
+    void notAndRawWrapTheirSql() {
+        Condition condition = Condition.and(
+                Condition.not(Condition.or(Condition.eq("a", 1), Condition.isNull("b"))),
+                Condition.raw("c BETWEEN ? AND ?", 5, 9));
+
+        assertEquals("NOT (a = ? OR b IS NULL) AND (c BETWEEN ? AND ?)", condition.getSql());
+        assertEquals(Arrays.<Object>asList(1, 5, 9), parameters(condition));
+    }
+
+    @Test
+    void whereClauseParenthesizesCompositeConditions() {
+        WhereClause clause = new WhereClause();
+        clause.add(Condition.or(Condition.eq("a", 1), Condition.eq("b", 2)), null);
+        clause.add(Condition.eq("c", 3), "AND");
+        clause.add(Condition.eq("d", 4), "OR");
+
+        assertEquals(" WHERE (a = ? OR b = ?) AND c = ? OR d = ?", where(clause));
+
+        WhereClause single = new WhereClause();
+        single.add(Condition.or(Condition.eq("a", 1), Condition.eq("b", 2)), null);
+        assertEquals(" WHERE a = ? OR b = ?", where(single));
+    }
+
+    @Test
+    void whereClauseAndGroupsExistingConditions() {
+        WhereClause clause = new WhereClause();
+        clause.add(Condition.eq("a", 1), null);
+        clause.add(Condition.eq("b", 2), "OR");
+
+        WhereClause scoped = clause.and(Condition.eq("tenant", 7));
+        assertEquals(" WHERE (a = ? OR b = ?) AND tenant = ?", where(scoped));
+        List<Object> parameters = new ArrayList<>();
+        scoped.appendParameters(parameters);
+        assertEquals(Arrays.<Object>asList(1, 2, 7), parameters);
+    }
+
+    @Test
+    void nullChildIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Condition.and(Condition.eq("a", 1), null));
+        assertThrows(IllegalArgumentException.class, () -> Condition.not(null));
+    }
+}
@@ -0,0 +1,113 @@
+package cc.azuramc.orm.builder;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.mapping.RowMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 超长 IN 列表按分块执行：连接池来源上并行，绑定连接或事务中依次执行
+ * @author AzuraMC Team
+ */
+class InListSplitTest {
+
+    private static final int ROWS = 3000;
+    private static final int REQUESTED = InList.MAX_BUCKET_SIZE * 2 + 500;
+
+    private AzuraOrmClient client;
+    private final Set<String> threads = ConcurrentHashMap.newKeySet();
+    private final RowMapper<Long> mapper = rs -> {
+        threads.add(Thread.currentThread().getName());
+        return rs.getLong(1);
+    };
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        client = new AzuraOrmClient("in-list-split");
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:in_list_split;DB_CLOSE_DELAY=-1", "sa", ""));
+        try (Connection connection = client.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY)");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO items VALUES (?)")) {
+                for (long id = 1; id <= ROWS; id++) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        client.close();
+    }
+
+    private static List<Long> requestedIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= REQUESTED; id++) {
+            ids.add(id);
+        }
+        // 重复值不会产生重复的行
+        ids.add(1L);
+        return ids;
+    }
+
+    private static void assertChunkOrder(List<Long> results) {
+        assertEquals(REQUESTED, results.size());
+        assertEquals(REQUESTED, new HashSet<>(results).size());
+        for (int i = 0; i < results.size(); i++) {
+            long chunk = (results.get(i) - 1) / InList.MAX_BUCKET_SIZE;
+            assertEquals(i / InList.MAX_BUCKET_SIZE, chunk, "row " + i + " out of chunk order");
+        }
+    }
+
+    @Test
+    void pooledSourceQueriesChunksInParallel() throws SQLException {
+        List<Long> results = client.select("id").from("items").whereIn("id", requestedIds()).fetch(mapper);
+
+        assertChunkOrder(results);
+        assertTrue(threads.contains(Thread.currentThread().getName()), threads::toString);
+        assertTrue(threads.stream().anyMatch(name -> name.startsWith("AzuraORM-in-list-")), threads::toString);
+    }
+
+    @Test
+    void transactionQueriesChunksOnItsConnection() throws SQLException {
+        List<Long> results = client.inTransaction(
+                tx -> client.select("id").from("items").whereIn("id", requestedIds()).fetch(mapper));
+
+        assertChunkOrder(results);
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void boundConnectionQueriesChunksSequentially() throws SQLException {
+        List<Long> results;
+        try (Connection connection = client.getConnection()) {
+            results = client.select(connection).select("id").from("items").whereIn("id", requestedIds()).fetch(mapper);
+        }
+
+        assertChunkOrder(results);
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+}
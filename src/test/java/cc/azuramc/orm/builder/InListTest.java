@@ -0,0 +1,126 @@
+package cc.azuramc.orm.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * IN 列表的分桶、补齐和分块
+ * @author AzuraMC Team
+ */
+class InListTest {
+
+    private static List<Object> range(int size) {
+        List<Object> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static List<Object> parameters(Condition condition) {
+        List<Object> parameters = new ArrayList<>();
+        condition.appendParameters(parameters);
+        return parameters;
+    }
+
+    @Test
+    void bucketSizeRoundsUpToPowerOfTwo() {
+        assertEquals(1, InList.bucketSize(1));
+        assertEquals(2, InList.bucketSize(2));
+        assertEquals(4, InList.bucketSize(3));
+        assertEquals(4, InList.bucketSize(4));
+        assertEquals(8, InList.bucketSize(5));
+        assertEquals(512, InList.bucketSize(257));
+        assertEquals(InList.MAX_BUCKET_SIZE, InList.bucketSize(InList.MAX_BUCKET_SIZE));
+    }
+
+    @Test
+    void everyListSizeMapsToFewStatementShapes() {
+        Set<String> shapes = new HashSet<>();
+        for (int size = 1; size <= InList.MAX_BUCKET_SIZE; size++) {
+            shapes.add(InList.fragment("id", false, size));
+        }
+        // 1, 2, 4, ..., 1024
+        assertEquals(Integer.numberOfTrailingZeros(InList.MAX_BUCKET_SIZE) + 1, shapes.size());
+    }
+
+    @Test
+    void paddingRepeatsLastValue() {
+        Condition condition = Condition.in("id", Arrays.asList(7, 8, 9));
+
+        assertEquals("id IN (?, ?, ?, ?)", condition.getSql());
+        assertEquals(Arrays.<Object>asList(7, 8, 9, 9), parameters(condition));
+        assertEquals(Arrays.<Object>asList(7, 8, 9), ((Condition.In) condition).getValues());
+    }
+
+    @Test
+    void exactBucketIsNotPadded() {
+        Condition condition = Condition.notIn("id", Arrays.asList(1, 2));
+
+        assertEquals("id NOT IN (?, ?)", condition.getSql());
+        assertEquals(Arrays.<Object>asList(1, 2), parameters(condition));
+    }
+
+    @Test
+    void emptyListIsConstant() {
+        Condition in = Condition.in("id", Collections.emptyList());
+        Condition notIn = Condition.notIn("id", Collections.emptyList());
+
+        assertEquals("1 = 0", in.getSql());
+        assertEquals("1 = 1", notIn.getSql());
+        assertEquals(0, in.getParameterCount());
+        assertEquals(0, notIn.getParameterCount());
+    }
+
+    @Test
+    void nullCollectionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Condition.in("id", null));
+    }
+
+    @Test
+    void longListIsSplitIntoPaddedChunks() {
+        int size = InList.MAX_BUCKET_SIZE + 300;
+        Condition condition = Condition.in("id", range(size));
+
+        assertEquals("(id IN (" + placeholders(InList.MAX_BUCKET_SIZE) + ") OR id IN (" + placeholders(512) + "))",
+                condition.getSql());
+        List<Object> parameters = parameters(condition);
+        assertEquals(InList.MAX_BUCKET_SIZE + 512, parameters.size());
+        assertEquals(range(size), parameters.subList(0, size));
+        assertEquals(Collections.nCopies(512 - 300, (Object) (size - 1)), parameters.subList(size, parameters.size()));
+    }
+
+    @Test
+    void longNotInListJoinsChunksWithAnd() {
+        Condition condition = Condition.notIn("id", range(InList.MAX_BUCKET_SIZE * 2));
+
+        String chunk = "id NOT IN (" + placeholders(InList.MAX_BUCKET_SIZE) + ")";
+        assertEquals("(" + chunk + " AND " + chunk + ")", condition.getSql());
+        assertEquals(InList.MAX_BUCKET_SIZE * 2, condition.getParameterCount());
+    }
+
+    @Test
+    void chunksKeepOrderWithoutPadding() {
+        List<Object> values = range(InList.MAX_BUCKET_SIZE * 2 + 1);
+        List<List<Object>> chunks = InList.chunks(values);
+
+        assertEquals(3, chunks.size());
+        assertEquals(values.subList(0, InList.MAX_BUCKET_SIZE), chunks.get(0));
+        assertEquals(values.subList(InList.MAX_BUCKET_SIZE, InList.MAX_BUCKET_SIZE * 2), chunks.get(1));
+        assertEquals(Collections.singletonList((Object) (InList.MAX_BUCKET_SIZE * 2)), chunks.get(2));
+        assertEquals(0, InList.chunks(Collections.emptyList()).size());
+    }
+}
@@ -0,0 +1,51 @@
+package cc.azuramc.orm.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 跨分片结果的归并顺序
+ * @author AzuraMC Team
+ */
+class ShardMergeTest {
+
+    private static List<ShardMerge.Row<String>> shard(String... names) {
+        List<ShardMerge.Row<String>> rows = new ArrayList<>();
+        for (String name : names) {
+            rows.add(new ShardMerge.Row<>(name, new Object[]{name}));
+        }
+        return rows;
+    }
+
+    @Test
+    void stringsUseJavaNaturalOrderByDefault() {
+        List<String> merged = ShardMerge.mergeSorted(Arrays.asList(shard("B", "c"), shard("a")),
+                new boolean[]{false}, null, 0);
+        assertEquals(Arrays.asList("B", "a", "c"), merged);
+    }
+
+    @Test
+    void collationMatchesCaseInsensitiveColumns() {
+        List<String> merged = ShardMerge.mergeSorted(Arrays.asList(shard("B", "c"), shard("a", "D")),
+                new boolean[]{false}, String.CASE_INSENSITIVE_ORDER, 0);
+        assertEquals(Arrays.asList("a", "B", "c", "D"), merged);
+    }
+
+    @Test
+    void descendingKeysAndLimit() {
+        List<ShardMerge.Row<String>> left = new ArrayList<>();
+        left.add(new ShardMerge.Row<>("x3", new Object[]{3L}));
+        left.add(new ShardMerge.Row<>("x1", new Object[]{1}));
+        List<ShardMerge.Row<String>> right = new ArrayList<>();
+        right.add(new ShardMerge.Row<>("y2", new Object[]{2}));
+        right.add(new ShardMerge.Row<>("y0", new Object[]{null}));
+        // 混合的整数类型按数值比较，NULL 在降序时排在最后
+        assertEquals(Arrays.asList("x3", "y2", "x1"),
+                ShardMerge.mergeSorted(Arrays.asList(left, right), new boolean[]{true}, null, 3));
+    }
+}
@@ -0,0 +1,167 @@
+package cc.azuramc.orm.cache;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.manager.ChangeManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 身份映射的键、事务子作用域的丢弃与合并
+ * @author AzuraMC Team
+ */
+class IdentityMapTest {
+
+    private AzuraOrmClient client;
+    private ChangeManager<Counter> changes;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        client = new AzuraOrmClient("identity-test");
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:identity_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE counters (id INT PRIMARY KEY, amount INT)");
+            connection.commit();
+        }
+        changes = new ChangeManager<>(list -> { }, 1000, 60_000);
+        IdentityMap.registerChangeManager(Counter.class, changes);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        IdentityMap.unregisterChangeManager(Counter.class);
+        changes.shutdown();
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            connection.commit();
+        }
+        client.close();
+    }
+
+    @Test
+    void keyIncludesConfigAndTable() throws SQLException {
+        try (IdentityMap map = IdentityMap.open()) {
+            Counter a = map.load("db1", "counters", Counter.class, 1, () -> new Counter(1));
+            assertSame(a, map.load("db1", "counters", Counter.class, 1L, () -> new Counter(-1)));
+            assertNotSame(a, map.load("db1", "archived_counters", Counter.class, 1, () -> new Counter(2)));
+            assertNotSame(a, map.load("db2", "counters", Counter.class, 1, () -> new Counter(3)));
+            assertEquals(3, map.size());
+            assertEquals(1, map.getHitCount());
+        }
+    }
+
+    @Test
+    void rolledBackAttemptIsDiscarded() throws SQLException {
+        try (IdentityMap outer = IdentityMap.open()) {
+            Counter before = outer.load("db", "counters", Counter.class, 1, () -> new Counter(0));
+            assertThrows(IllegalStateException.class, () -> client.inTransaction(tx -> {
+                Counter loaded = IdentityMap.current().load("db", "counters", Counter.class, 1, () -> new Counter(0));
+                assertNotSame(before, loaded);
+                loaded.add(5);
+                IdentityMap.current().load("db", "counters", Counter.class, 2, () -> new Counter(0)).add(1);
+                throw new IllegalStateException("fail");
+            }));
+            assertSame(outer, IdentityMap.current());
+            assertEquals(1, outer.size());
+            assertNull(outer.get("db", "counters", Counter.class, 2));
+            assertEquals(0, before.amount);
+        }
+        assertEquals(0, changes.getDirtyCount());
+    }
+
+    @Test
+    void retryReloadsInsteadOfReusingMutatedObjects() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger loads = new AtomicInteger();
+        int amount = client.transaction().setMaxAttempts(3).execute(tx -> {
+            Counter counter = IdentityMap.current().load("db", "counters", Counter.class, 1, () -> {
+                loads.incrementAndGet();
+                return new Counter(0);
+            });
+            counter.add(10);
+            if (attempts.incrementAndGet() < 3) {
+                throw new SQLException("serialization failure", "40001");
+            }
+            return counter.amount;
+        });
+        assertEquals(10, amount);
+        assertEquals(3, loads.get());
+        // 只有提交的那次尝试的脏对象交给变更管理器
+        assertEquals(1, changes.getDirtyCount());
+    }
+
+    @Test
+    void committedAttemptMergesIntoOuterScope() throws SQLException {
+        try (IdentityMap outer = IdentityMap.open()) {
+            Counter existing = outer.load("db", "counters", Counter.class, 1, () -> new Counter(0));
+            Counter[] created = new Counter[1];
+            client.inTransaction(tx -> {
+                IdentityMap.current().load("db", "counters", Counter.class, 1, () -> new Counter(0)).add(1);
+                created[0] = IdentityMap.current().load("db", "counters", Counter.class, 2, () -> new Counter(0));
+                return null;
+            });
+            assertSame(existing, outer.get("db", "counters", Counter.class, 1));
+            assertSame(created[0], outer.get("db", "counters", Counter.class, 2));
+            // 外层已有同一行时事务中的脏对象直接交出
+            assertEquals(1, changes.getDirtyCount());
+            created[0].add(2);
+        }
+        assertEquals(2, changes.getDirtyCount());
+    }
+
+    @Test
+    void failedSavepointDiscardsItsEntities() throws SQLException {
+        client.inTransaction(tx -> {
+            IdentityMap scope = IdentityMap.current();
+            assertThrows(IllegalStateException.class, () -> tx.savepoint(inner -> {
+                IdentityMap.current().load("db", "counters", Counter.class, 1, () -> new Counter(0)).add(1);
+                throw new IllegalStateException("fail");
+            }));
+            assertSame(scope, IdentityMap.current());
+            assertEquals(0, scope.size());
+            tx.savepoint(inner -> IdentityMap.current().load("db", "counters", Counter.class, 2, () -> new Counter(0)));
+            assertEquals(1, scope.size());
+            return null;
+        });
+        assertNull(IdentityMap.current());
+    }
+
+    /**
+     * 测试用的脏标记实体
+     */
+    static final class Counter implements ChangeManager.DirtyTracker {
+        private int amount;
+        private boolean dirty;
+
+        Counter(int amount) {
+            this.amount = amount;
+        }
+
+        void add(int delta) {
+            amount += delta;
+            dirty = true;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return dirty;
+        }
+
+        @Override
+        public void cleanDirty() {
+            dirty = false;
+        }
+    }
+}
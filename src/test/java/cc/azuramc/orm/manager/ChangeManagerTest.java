@@ -0,0 +1,81 @@
+package cc.azuramc.orm.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 刷新结束时与并发修改交错的实体不会丢失
+ * @author AzuraMC Team
+ */
+class ChangeManagerTest {
+
+    private final List<List<Entity>> batches = new ArrayList<>();
+    private final ChangeManager<Entity> manager =
+            new ChangeManager<>(entities -> batches.add(new ArrayList<>(entities)), 100, 60_000L);
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void changeRegisteredAfterDirtyCheckIsFlushedNextTime() {
+        Entity entity = new Entity();
+        entity.dirty = true;
+        manager.registerDirty(entity);
+        // 刷新结束时读取脏标记之后，另一个线程修改实体并注册
+        entity.onNextCheck = () -> {
+            entity.dirty = true;
+            manager.registerDirty(entity);
+        };
+
+        manager.flush();
+        assertEquals(1, manager.getDirtyCount());
+
+        manager.flush();
+        assertEquals(2, batches.size());
+        assertEquals(0, manager.getDirtyCount());
+    }
+
+    @Test
+    void cleanEntityIsRemoved() {
+        Entity entity = new Entity();
+        entity.dirty = true;
+        manager.registerDirty(entity);
+
+        manager.flush();
+        assertEquals(1, batches.size());
+        assertEquals(0, manager.getDirtyCount());
+    }
+
+    /**
+     * 在刷新读取脏标记时执行一次回调，模拟与之交错的修改
+     */
+    private static final class Entity implements ChangeManager.DirtyTracker {
+        private volatile boolean dirty;
+        private volatile boolean flushing;
+        private Runnable onNextCheck;
+
+        @Override
+        public boolean isDirty() {
+            boolean result = dirty;
+            Runnable hook = flushing ? onNextCheck : null;
+            if (hook != null) {
+                onNextCheck = null;
+                hook.run();
+            }
+            return result;
+        }
+
+        @Override
+        public void cleanDirty() {
+            dirty = false;
+            flushing = true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cc.azuramc.orm.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 关闭语句统计后 JFR 执行事件仍然提交
+ * @author AzuraMC Team
+ */
+class StatementExecuteEventTest {
+
+    private static final String EVENT = "cc.azuramc.orm.StatementExecute";
+    private static final String QUERY = "SELECT 1 WHERE 1 = ?";
+
+    @TempDir
+    Path workDir;
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        StatementMetrics.setEnabled(false);
+        connection = DriverManager.getConnection("jdbc:h2:mem:jfr_events", "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        StatementMetrics.setEnabled(true);
+        connection.close();
+    }
+
+    @Test
+    void executeEventIsCommittedWithMetricsDisabled() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).withoutThreshold();
+            recording.start();
+            try (PreparedStatement statement = StatementMetrics.prepare(connection, QUERY)) {
+                statement.setInt(1, 1);
+                statement.executeQuery().close();
+                StatementMetrics.recordRows(statement, 1);
+            }
+            recording.stop();
+            events = read(recording);
+        }
+        assertEquals(1, events.size());
+        assertEquals("SELECT ? WHERE ? = ?", events.get(0).getString("sql"));
+        assertNull(StatementMetrics.getStats(QUERY));
+    }
+
+    @Test
+    void statementIsNotWrappedWithoutRecording() throws SQLException {
+        PreparedStatement raw = connection.prepareStatement(QUERY);
+        try {
+            assertSame(raw, StatementMetrics.wrap(raw, QUERY));
+        } finally {
+            raw.close();
+        }
+    }
+
+    private List<RecordedEvent> read(Recording recording) throws IOException {
+        Path file = workDir.resolve("events.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(EVENT))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,45 @@
+package cc.azuramc.orm.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SQL 形状的规范化
+ * @author AzuraMC Team
+ */
+class StatementMetricsTest {
+
+    @Test
+    void literalsAndPlaceholderListsAreCollapsed() {
+        assertEquals("SELECT * FROM t WHERE name = ? AND id IN (?+) AND x BETWEEN ? AND ?",
+                StatementMetrics.normalize("SELECT *  FROM t WHERE name = 'it''s' AND id IN (?, ?,?) "
+                        + "AND x BETWEEN 1.5 AND ?"));
+        assertEquals("INSERT INTO t (a, b) VALUES (?+), (?+)",
+                StatementMetrics.normalize("INSERT INTO t (a, b) VALUES (?, ?), ('x', 2)"));
+        assertEquals("SELECT a2, b FROM t2 WHERE a = ? LIMIT ?",
+                StatementMetrics.normalize("SELECT a2, b FROM t2 WHERE a = 'a' LIMIT 10"));
+    }
+
+    @Test
+    void longPlaceholderListsDoNotOverflowTheStack() throws InterruptedException {
+        String placeholders = String.join(", ", Collections.nCopies(4096, "?"));
+        String literal = String.join("", Collections.nCopies(20_000, "x"));
+        String sql = "SELECT * FROM t WHERE id IN (" + placeholders + ") AND name = '" + literal + "'";
+        AtomicReference<Object> result = new AtomicReference<>();
+        // 小栈的线程上执行，递归的正则在这里会栈溢出
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(StatementMetrics.normalize(sql));
+            } catch (StackOverflowError e) {
+                result.set(e);
+            }
+        }, "normalize", 128 * 1024);
+        thread.start();
+        thread.join();
+        assertEquals("SELECT * FROM t WHERE id IN (?+) AND name = ?", result.get());
+    }
+}
@@ -0,0 +1,114 @@
+package cc.azuramc.orm.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 慢查询日志记录 setObject 和类型化 setter 绑定的参数
+ * @author AzuraMC Team
+ */
+class TimedPreparedStatementTest {
+
+    private static final String INSERT = "INSERT INTO people (id, name, age) VALUES (?, ?, ?)";
+
+    private final Logger slowQueryLog = Logger.getLogger("cc.azuramc.orm.SlowQuery");
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+    private Duration previousThreshold;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        previousThreshold = StatementMetrics.getSlowQueryThreshold();
+        StatementMetrics.setSlowQueryThreshold(Duration.ofNanos(1));
+        slowQueryLog.addHandler(handler);
+        connection = DriverManager.getConnection("jdbc:h2:mem:timed;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE people (id BIGINT PRIMARY KEY, name VARCHAR(32), age INT)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        slowQueryLog.removeHandler(handler);
+        StatementMetrics.setSlowQueryThreshold(previousThreshold);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    void typedSettersAreLogged() throws SQLException {
+        try (PreparedStatement statement = StatementMetrics.prepare(connection, INSERT)) {
+            statement.setLong(1, 43L);
+            statement.setString(2, "bob");
+            statement.setNull(3, Types.INTEGER);
+            statement.executeUpdate();
+        }
+        assertEquals("[43, 'bob', NULL]", loggedParameters());
+    }
+
+    @Test
+    void setObjectIsLogged() throws SQLException {
+        try (PreparedStatement statement = StatementMetrics.prepare(connection, INSERT)) {
+            statement.setObject(1, 44L);
+            statement.setObject(2, "amy");
+            statement.setObject(3, 30);
+            statement.executeUpdate();
+        }
+        assertEquals("[44, 'amy', 30]", loggedParameters());
+    }
+
+    @Test
+    void clearParametersResetsCapturedValues() throws SQLException {
+        try (PreparedStatement statement = StatementMetrics.prepare(connection,
+                "SELECT COUNT(*) FROM people WHERE id = ? OR name = ?")) {
+            statement.setInt(1, 1);
+            statement.setString(2, "x");
+            statement.clearParameters();
+            statement.setInt(1, 2);
+            statement.setString(2, "y");
+            statement.executeQuery().close();
+        }
+        assertEquals("[2, 'y']", loggedParameters());
+    }
+
+    private String loggedParameters() {
+        assertEquals(1, messages.size(), messages::toString);
+        String message = messages.get(0);
+        int start = message.indexOf("parameters: ");
+        assertTrue(start >= 0, message);
+        return message.substring(start + "parameters: ".length());
+    }
+}
@@ -0,0 +1,120 @@
+package cc.azuramc.orm.processor;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.jdbc.ConnectionSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 注解处理器生成的 RowMapper、DAO 和跟踪子类能够编译，并能在 H2 上完成一次读写
+ * 测试资源 processor/demo 下的实体和调用代码用 javac 编译，处理器和主代码从测试类路径加载。
+ * @author AzuraMC Team
+ */
+class MapperProcessorTest {
+
+    private static final List<String> FIXTURES = Arrays.asList("Player.java", "PlayerScenario.java");
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void generatedSourcesCompileAndRun() throws Exception {
+        Path sources = copyFixtures();
+        Path generated = Files.createDirectories(workDir.resolve("generated"));
+        Path classes = Files.createDirectories(workDir.resolve("classes"));
+
+        List<Diagnostic<? extends JavaFileObject>> errors = compile(sources, generated, classes);
+        assertTrue(errors.isEmpty(), () -> "Generated code failed to compile: " + errors);
+        for (String name : Arrays.asList("PlayerRowMapper", "PlayerDao", "PlayerTracked")) {
+            assertTrue(Files.exists(generated.resolve("demo/" + name + ".java")), name + ".java not generated");
+            assertTrue(Files.exists(classes.resolve("demo/" + name + ".class")), name + ".class not compiled");
+        }
+
+        AzuraOrmClient client = new AzuraOrmClient("processor-test");
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:processor;DB_CLOSE_DELAY=-1", "sa", ""));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()},
+                getClass().getClassLoader())) {
+            try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE players (id BIGINT PRIMARY KEY, display_name VARCHAR(32), "
+                        + "coins INT, guildId BIGINT)");
+                connection.commit();
+            }
+            Object result = loader.loadClass("demo.PlayerScenario")
+                    .getMethod("run", ConnectionSource.class)
+                    .invoke(null, client.getConnectionSource());
+            // 更新一行、只有 coins 一个脏位、更新后不再脏、按列名映射、可空列为 null、映射器创建跟踪子类
+            assertEquals("1:1:false:Steve:15:null:true:true", result);
+        } finally {
+            try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+            client.close();
+        }
+    }
+
+    private Path copyFixtures() throws IOException {
+        Path sources = Files.createDirectories(workDir.resolve("src/demo"));
+        for (String fixture : FIXTURES) {
+            try (InputStream in = getClass().getResourceAsStream("/processor/demo/" + fixture)) {
+                assertNotNull(in, "Missing fixture: " + fixture);
+                Files.copy(in, sources.resolve(fixture));
+            }
+        }
+        return sources;
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(Path sources, Path generated, Path classes)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "Tests must run on a JDK");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(generated.toFile()));
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(classes.toFile()));
+            List<File> files = new ArrayList<>();
+            for (String fixture : FIXTURES) {
+                files.add(sources.resolve(fixture).toFile());
+            }
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", MapperProcessor.class.getName());
+            compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files)).call();
+        }
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+}
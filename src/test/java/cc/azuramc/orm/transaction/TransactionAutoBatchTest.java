@@ -0,0 +1,155 @@
+package cc.azuramc.orm.transaction;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import cc.azuramc.orm.metrics.StatementMetrics;
+import cc.azuramc.orm.metrics.StatementStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 事务内插入合并的发送时机和返回的影响行数
+ * @author AzuraMC Team
+ */
+class TransactionAutoBatchTest {
+
+    private AzuraOrmClient client;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        client = new AzuraOrmClient("tx-batch-test");
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:tx_batch_test;DB_CLOSE_DELAY=-1", "sa", ""));
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20), qty INT)");
+            statement.execute("CREATE TABLE guilds (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+            connection.commit();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            connection.commit();
+        }
+        client.close();
+    }
+
+    @Test
+    void autoBatchIsOffByDefault() throws SQLException {
+        int rows = client.inTransaction(tx -> {
+            assertFalse(tx.isAutoBatch());
+            return tx.insertInto("items").values("name", "a").executeUpdate();
+        });
+        assertEquals(1, rows);
+    }
+
+    @Test
+    void updateAndDeleteReturnExactCounts() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            assertEquals(0, tx.update("items").set("qty", 1).where("name", "=", "missing").executeUpdate());
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            // UPDATE 之前先发送合并的插入
+            assertEquals(2, tx.update("items").set("qty", 5).where("name", "=", "a").executeUpdate());
+            assertEquals(2, tx.deleteFrom("items").where("name", "=", "a").executeUpdate());
+            return null;
+        });
+    }
+
+    @Test
+    void insertsAreDeferredAndFlushReturnsCounts() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Statement.SUCCESS_NO_INFO, tx.insertInto("items").values("name", "n" + i).executeUpdate());
+            }
+            assertArrayEquals(new int[]{1, 1, 1}, tx.flush());
+            assertArrayEquals(new int[0], tx.flush());
+            return null;
+        });
+        assertEquals(3, client.select("COUNT(*)").from("items").fetchLong());
+    }
+
+    @Test
+    void readOfWrittenTableFlushesFirst() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            tx.insertInto("items").values("name", "b").executeUpdate();
+            assertEquals(2, tx.select("COUNT(*)").from("items").fetchLong());
+            assertArrayEquals(new int[0], tx.flush());
+            return null;
+        });
+    }
+
+    @Test
+    void readOfOtherTableKeepsBatchPending() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            tx.insertInto("items").values("name", "b").executeUpdate();
+            assertEquals(0, tx.select("COUNT(*)").from("guilds").fetchLong());
+            assertEquals(2, tx.flush().length);
+            return null;
+        });
+    }
+
+    @Test
+    void shapeChangeFlushesPreviousBatch() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            tx.insertInto("items").values("name", "b").executeUpdate();
+            // 列不同，SQL形状改变，前两行先发送
+            tx.insertInto("items").values("name", "c").values("qty", 3).executeUpdate();
+            assertEquals(1, tx.flush().length);
+            return null;
+        });
+        assertEquals(3, client.select("COUNT(*)").from("items").fetchLong());
+    }
+
+    @Test
+    void batchIsSentWhenFull() throws SQLException {
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            tx.setMaxBatchSize(2);
+            for (int i = 0; i < 5; i++) {
+                tx.insertInto("items").values("name", "n" + i).executeUpdate();
+            }
+            assertEquals(1, tx.flush().length);
+            return null;
+        });
+    }
+
+    @Test
+    void rollbackDiscardsPendingInserts() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> client.transaction().setAutoBatch(true).execute(tx -> {
+            tx.insertInto("items").values("name", "a").executeUpdate();
+            throw new IllegalStateException("rollback");
+        }));
+        assertEquals(0, client.select("COUNT(*)").from("items").fetchLong());
+    }
+
+    @Test
+    void metricsTimeTheBatchSendNotEachInsert() throws SQLException {
+        StatementMetrics.reset();
+        client.transaction().setAutoBatch(true).execute(tx -> {
+            for (int i = 0; i < 3; i++) {
+                tx.insertInto("items").values("name", "n" + i).executeUpdate();
+            }
+            return null;
+        });
+        StatementStats insert = StatementMetrics.getAllStats().stream()
+                .filter(stats -> stats.getShape().startsWith("INSERT INTO items"))
+                .findFirst().orElseThrow(AssertionError::new);
+        // 三行在提交时作为一个批量发送，只记录一次执行，行数为合计
+        assertEquals(1, insert.getExecutionCount());
+        assertEquals(3, insert.getRowCount());
+    }
+}
@@ -0,0 +1,47 @@
+package cc.azuramc.orm.transaction;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link WriteBatch} 的合并和发送规则
+ * @author AzuraMC Team
+ */
+class WriteBatchTest {
+
+    @Test
+    void onlyInsertsAreBatchable() {
+        assertTrue(WriteBatch.isBatchable("INSERT INTO players (name) VALUES (?)"));
+        assertTrue(WriteBatch.isBatchable("  insert ignore into players (name) values (?)"));
+        assertTrue(WriteBatch.isBatchable("REPLACE INTO players (name) VALUES (?)"));
+        assertFalse(WriteBatch.isBatchable("UPDATE players SET name = ? WHERE id = ?"));
+        assertFalse(WriteBatch.isBatchable("DELETE FROM players WHERE id = ?"));
+        assertFalse(WriteBatch.isBatchable("SELECT * FROM players"));
+    }
+
+    @Test
+    void readOfWrittenTableFlushes() {
+        WriteBatch batch = new WriteBatch("INSERT INTO players (name) VALUES (?)", null);
+        assertTrue(batch.mustFlushBefore("SELECT * FROM players WHERE id = ?"));
+        assertTrue(batch.mustFlushBefore("SELECT p.id FROM guilds g JOIN `players` p ON p.guild = g.id"));
+        assertTrue(batch.mustFlushBefore("WITH t AS (SELECT id FROM PLAYERS) SELECT * FROM t"));
+    }
+
+    @Test
+    void readOfOtherTableDoesNotFlush() {
+        WriteBatch batch = new WriteBatch("INSERT INTO game.players (name) VALUES (?)", null);
+        assertFalse(batch.mustFlushBefore("SELECT * FROM guilds"));
+        // 表名只作为整个标识符匹配
+        assertFalse(batch.mustFlushBefore("SELECT * FROM players_archive"));
+    }
+
+    @Test
+    void writesAndUnknownStatementsFlush() {
+        WriteBatch batch = new WriteBatch("INSERT INTO players (name) VALUES (?)", null);
+        assertTrue(batch.mustFlushBefore("UPDATE guilds SET name = ?"));
+        assertTrue(batch.mustFlushBefore("INSERT INTO guilds (name) VALUES (?)"));
+        assertTrue(batch.mustFlushBefore(null));
+    }
+}
@@ -0,0 +1,103 @@
+package cc.azuramc.orm.util;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.async.AsyncOrmClient;
+import cc.azuramc.orm.config.DatabaseConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连接池大小调整后异步客户端的并发数随之调整
+ * @author AzuraMC Team
+ */
+class PoolResizeListenerTest {
+
+    private static final String CONFIG = "resize-test";
+
+    private AzuraOrmClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = new AzuraOrmClient(CONFIG);
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:resize;DB_CLOSE_DELAY=-1", "sa", "")
+                .setMaximumPoolSize(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void asyncConcurrencyFollowsPoolSize() {
+        AsyncOrmClient async = client.async();
+        assertEquals(2, async.getConcurrency());
+
+        resizePool(5);
+        assertEquals(5, async.getConcurrency());
+
+        resizePool(3);
+        assertEquals(3, async.getConcurrency());
+    }
+
+    @Test
+    void grownConcurrencyRunsMoreTasksAtOnce() throws Exception {
+        AsyncOrmClient async = client.async();
+        resizePool(4);
+
+        // 四个任务互相等待，只有四个任务同时执行时才能全部完成
+        CountDownLatch started = new CountDownLatch(4);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(async.supply(() -> {
+                started.countDown();
+                try {
+                    return started.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closeRemovesListener() {
+        AsyncOrmClient async = client.async();
+        client.close();
+        client = new AzuraOrmClient(CONFIG);
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:resize;DB_CLOSE_DELAY=-1", "sa", "")
+                .setMaximumPoolSize(2));
+
+        resizePool(6);
+        assertEquals(2, async.getConcurrency());
+    }
+
+    @Test
+    void rejectsNonPositiveConcurrency() {
+        AsyncOrmClient async = client.async();
+        assertThrows(IllegalArgumentException.class, () -> async.setConcurrency(0));
+    }
+
+    private static void resizePool(int size) {
+        for (HikariDataSource dataSource : DBUtil.getPools(CONFIG).values()) {
+            dataSource.getHikariConfigMXBean().setMaximumPoolSize(size);
+        }
+        DBUtil.firePoolResized(CONFIG);
+    }
+}
@@ -0,0 +1,121 @@
+package cc.azuramc.orm.util;
+
+import cc.azuramc.orm.AzuraOrmClient;
+import cc.azuramc.orm.async.DataLoader;
+import cc.azuramc.orm.config.DatabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 读己之写窗口随异步任务和批量加载带到数据库线程
+ * 主库和从库是两个独立的内存数据库，表中的值不同，读到的值说明查询走了哪个库。
+ * @author AzuraMC Team
+ */
+class ReadYourWritesContextTest {
+
+    private static final long PRIMARY = 1;
+    private static final long REPLICA = 2;
+
+    private AzuraOrmClient client;
+    private Connection replicaKeeper;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replicaKeeper = DriverManager.getConnection("jdbc:h2:mem:ryw_replica;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = replicaKeeper.createStatement()) {
+            statement.execute("CREATE TABLE marks (id INT PRIMARY KEY, v INT)");
+            statement.execute("INSERT INTO marks VALUES (1, " + REPLICA + ")");
+        }
+        client = new AzuraOrmClient("ryw-test");
+        client.initialize(new DatabaseConfig("jdbc:h2:mem:ryw_primary;DB_CLOSE_DELAY=-1", "sa", "")
+                .addReplica("jdbc:h2:mem:ryw_replica;DB_CLOSE_DELAY=-1")
+                .setReadYourWritesWindow(60_000L));
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE marks (id INT PRIMARY KEY, v INT)");
+            statement.execute("INSERT INTO marks VALUES (1, " + PRIMARY + ")");
+            connection.commit();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection connection = client.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            connection.commit();
+        }
+        client.close();
+        try (Statement statement = replicaKeeper.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        replicaKeeper.close();
+    }
+
+    private long readOnThisThread() throws SQLException {
+        return client.select("v").from("marks").where("id", "=", 1).fetchLong();
+    }
+
+    @Test
+    void asyncReadWithoutWriteUsesReplica() {
+        assertEquals(REPLICA, client.async().select("v").from("marks").where("id", "=", 1).fetchLongAsync().join());
+    }
+
+    @Test
+    void asyncReadAfterWriteUsesPrimary() throws Exception {
+        CompletableFuture<Long> read = CompletableFuture.supplyAsync(() -> {
+            try {
+                client.update("marks").set("v", PRIMARY).where("id", "=", 1).executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return client.async().select("v").from("marks").where("id", "=", 1).fetchLongAsync().join();
+        });
+        assertEquals(PRIMARY, read.get());
+    }
+
+    @Test
+    void asyncWriteOpensWindowForSubmitter() throws Exception {
+        long value = CompletableFuture.supplyAsync(() -> {
+            try {
+                long before = readOnThisThread();
+                client.async().update("marks").set("v", PRIMARY).where("id", "=", 1).executeUpdateAsync().join();
+                assertEquals(REPLICA, before);
+                return readOnThisThread();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+        assertEquals(PRIMARY, value);
+    }
+
+    @Test
+    void dataLoaderBatchUsesPrimaryWhenAnyCallerWrote() throws Exception {
+        DataLoader<Integer, Long> loader = client.<Integer, Long>dataLoader(keys -> Collections.singletonMap(1,
+                        client.select("v").from("marks").where("id", "=", 1).fetchLong()))
+                .setWindow(Duration.ZERO);
+        CompletableFuture<Long> fromWriter = CompletableFuture.supplyAsync(() -> {
+            try {
+                client.update("marks").set("v", PRIMARY).where("id", "=", 1).executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return loader.load(1);
+        }).get();
+        loader.dispatch();
+        assertEquals(PRIMARY, fromWriter.get());
+
+        CompletableFuture<Long> fresh = CompletableFuture.supplyAsync(() -> loader.load(1)).get();
+        loader.dispatch();
+        assertEquals(REPLICA, fresh.get());
+    }
+}
@@ -0,0 +1,61 @@
+package demo;
+
+import cc.azuramc.orm.annotation.Column;
+import cc.azuramc.orm.annotation.Id;
+import cc.azuramc.orm.annotation.Table;
+import cc.azuramc.orm.annotation.Tracked;
+import cc.azuramc.orm.annotation.Transient;
+
+@Table("players")
+@Tracked
+public class Player {
+    @Id
+    private long id;
+    @Column("display_name")
+    private String name;
+    private int coins;
+    private Long guildId;
+    @Transient
+    private String cachedTitle;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getCoins() {
+        return coins;
+    }
+
+    public Player setCoins(int coins) {
+        this.coins = coins;
+        return this;
+    }
+
+    public Long getGuildId() {
+        return guildId;
+    }
+
+    public void setGuildId(Long guildId) {
+        this.guildId = guildId;
+    }
+
+    public String getCachedTitle() {
+        return cachedTitle;
+    }
+
+    public void setCachedTitle(String cachedTitle) {
+        this.cachedTitle = cachedTitle;
+    }
+}
@@ -0,0 +1,34 @@
+package demo;
+
+import cc.azuramc.orm.jdbc.ConnectionSource;
+
+import java.sql.SQLException;
+
+/**
+ * Uses the generated PlayerDao, PlayerRowMapper and PlayerTracked from plain source code.
+ */
+public final class PlayerScenario {
+
+    private PlayerScenario() {
+    }
+
+    public static String run(ConnectionSource source) throws SQLException {
+        PlayerDao dao = new PlayerDao(source);
+        PlayerTracked player = new PlayerTracked();
+        player.setId(1L);
+        player.setName("Steve");
+        player.setCoins(10);
+        dao.insert(player);
+        player.cleanDirty();
+
+        player.setCoins(15);
+        long dirty = player.getDirtyFields();
+        int rows = dao.update(player);
+
+        Player loaded = dao.findById(1L);
+        boolean tracked = loaded instanceof PlayerTracked;
+        boolean mapperType = new PlayerRowMapper() instanceof cc.azuramc.orm.mapping.RowMapper;
+        return rows + ":" + Long.bitCount(dirty) + ":" + player.isDirty() + ":" + loaded.getName() + ":"
+                + loaded.getCoins() + ":" + loaded.getGuildId() + ":" + tracked + ":" + mapperType;
+    }
+}